@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core;
+
+/**
+ * How the connections of a server or a client allocate their buffers<p>
+ * The data read from a connection is always passed to the handlers in heap buffers, which are released by the
+ * garbage collector, the policies differ in the buffers the data is read into and the buffers used for writing.
+ */
+public enum AllocatorPolicy {
+
+  /**
+   * The data is read into heap buffers, which are passed to the handlers as is. Only the direct buffers used to
+   * write to the sockets are pooled. This is the default.
+   */
+  PARTIAL_POOLED,
+
+  /**
+   * The data is read into pooled direct buffers, and copied into a heap buffer of its exact size for the handlers.
+   * The socket reads don't need an intermediate copy, and the buffers they use are reused rather than allocated
+   * for each read, which gives the best throughput but keeps more memory allocated. The pool is shared by all
+   * the servers and clients using this policy, its arenas are tuned with the {@code io.netty.allocator.numDirectArenas},
+   * {@code io.netty.allocator.pageSize} and {@code io.netty.allocator.maxOrder} system properties.
+   */
+  POOLED,
+
+  /**
+   * Nothing is pooled, all the buffers are heap buffers. This keeps the least memory allocated when the server or
+   * client is idle, at the cost of more garbage and of the copies the JDK makes to write heap buffers to the sockets.
+   */
+  HEAP
+}
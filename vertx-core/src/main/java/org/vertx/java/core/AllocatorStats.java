@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core;
+
+/**
+ * A snapshot of the counters of the buffer allocator of an {@link AllocatorPolicy}<p>
+ * The allocator of a policy is shared by all the servers and clients which use it, so the counts cover all their
+ * connections since the start of the JVM.<p>
+ * Instances of AllocatorStats are thread-safe<p>
+ */
+public interface AllocatorStats {
+
+  /**
+   * The policy of the allocator
+   */
+  AllocatorPolicy policy();
+
+  /**
+   * The number of heap buffers allocated
+   */
+  long heapBuffers();
+
+  /**
+   * The total capacity in bytes of the heap buffers allocated
+   */
+  long heapBytes();
+
+  /**
+   * The number of direct buffers allocated, including the ones taken from the pool
+   */
+  long directBuffers();
+
+  /**
+   * The total capacity in bytes of the direct buffers allocated, including the ones taken from the pool
+   */
+  long directBytes();
+
+  /**
+   * The direct memory currently used by the JVM, in bytes. This includes the memory kept by the pools, whatever
+   * their policy, and the direct buffers allocated outside of vert.x
+   */
+  long directMemoryUsed();
+
+}
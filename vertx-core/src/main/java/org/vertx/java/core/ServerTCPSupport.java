@@ -29,4 +29,41 @@ public interface ServerTCPSupport<T> extends TCPSupport<T> {
    * @return The accept backlog
    */
   int getAcceptBacklog();
+
+  /**
+   * Set the time in ms after which a connection on which nothing has been received is closed. The timeouts are
+   * checked by the event loop of the connection, they don't use any vert.x timer. The default value is {@code 0},
+   * which means no timeout.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  T setReadIdleTimeout(long timeout);
+
+  /**
+   * @return The read idle timeout in ms
+   */
+  long getReadIdleTimeout();
+
+  /**
+   * Set the time in ms after which a connection on which nothing has been written is closed. The default value
+   * is {@code 0}, which means no timeout.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  T setWriteIdleTimeout(long timeout);
+
+  /**
+   * @return The write idle timeout in ms
+   */
+  long getWriteIdleTimeout();
+
+  /**
+   * Set the time in ms after which a connection on which nothing has been either received or written is closed.
+   * The default value is {@code 0}, which means no timeout.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  T setIdleTimeout(long timeout);
+
+  /**
+   * @return The idle timeout in ms
+   */
+  long getIdleTimeout();
 }
@@ -70,6 +70,23 @@ public interface TCPSupport<T> {
    */
   T setUsePooledBuffers(boolean pooledBuffers);
 
+  /**
+   * Set how the connections created by this instance allocate their buffers. Defaults to
+   * {@link AllocatorPolicy#PARTIAL_POOLED}. Setting {@link #setUsePooledBuffers} to {@code true} is the same as
+   * {@link AllocatorPolicy#POOLED}.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  T setAllocatorPolicy(AllocatorPolicy policy);
+
+  /**
+   * Set whether the size of the buffers the data is read into adapts to the amount of data read by the previous
+   * reads of the connection, between 64 bytes and the TCP receive buffer size, or 64 KB when it isn't set. This
+   * saves memory when a server has many connections which only receive small messages. When it is disabled, which
+   * is the default, and a TCP receive buffer size is set, every read uses a buffer of that size.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  T setAdaptiveReceiveSizing(boolean adaptive);
+
   /**
    * @return true if Nagle's algorithm is disabled.
    */
@@ -113,4 +130,20 @@ public interface TCPSupport<T> {
    * @return {@code true} if pooled buffers are used
    */
   boolean isUsePooledBuffers();
+
+  /**
+   * @return how the connections allocate their buffers
+   */
+  AllocatorPolicy getAllocatorPolicy();
+
+  /**
+   * @return {@code true} if the size of the buffers the data is read into adapts to the amount of data read
+   */
+  boolean isAdaptiveReceiveSizing();
+
+  /**
+   * @return a snapshot of the counters of the allocator of the policy of this instance. The allocator is shared, so
+   * the counts cover every server and client in the JVM using the same policy, not only this instance
+   */
+  AllocatorStats getAllocatorStats();
 }
@@ -37,6 +37,11 @@ import java.nio.charset.Charset;
  * Data can be read from a buffer by invoking methods which take the form {@code getXXX}. These methods take a parameter
  * representing the position in the Buffer from where to read data.<p>
  * Once a buffer has been written to a socket or other write stream, the same buffer instance can't be written again to another WriteStream.<p>
+ * The buffers passed to the data handler of a {@link org.vertx.java.core.net.NetSocket} whose server or client reads
+ * in zero-copy mode wrap the memory the data was read into, which is given back to the pool when the handler
+ * returns. To keep such a buffer longer, call {@link #retain()} in the handler and {@link #release()} once done
+ * with it. Writing it to a socket, an HTTP request or response, or a file doesn't require it, the write holds
+ * the memory until it completes.<p>
  * Instances of this class are not thread-safe.<p>
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
@@ -44,6 +49,7 @@ import java.nio.charset.Charset;
 public class Buffer {
 
   private final ByteBuf buffer;
+  private final boolean refCounted;
 
   /**
    * Create an empty buffer
@@ -61,6 +67,7 @@ public class Buffer {
    */
   public Buffer(int initialSizeHint) {
     buffer = Unpooled.unreleasableBuffer(Unpooled.buffer(initialSizeHint, Integer.MAX_VALUE));
+    refCounted = false;
   }
 
   /**
@@ -68,6 +75,7 @@ public class Buffer {
    */
   public Buffer(byte[] bytes) {
     buffer = Unpooled.unreleasableBuffer(Unpooled.buffer(bytes.length, Integer.MAX_VALUE)).writeBytes(bytes);
+    refCounted = false;
   }
 
   /**
@@ -89,7 +97,18 @@ public class Buffer {
    * This method is meant for internal use only.
    */
   public Buffer(ByteBuf buffer) {
-    this.buffer = Unpooled.unreleasableBuffer(buffer);
+    this(buffer, false);
+  }
+
+  /**
+   * Create a new Buffer from a Netty {@code ByteBuf} instance. When {@code refCounted} is true the Buffer takes over
+   * the reference of the caller rather than copying the {@code ByteBuf}, and it must be released with
+   * {@link #release()}.
+   * This method is meant for internal use only.
+   */
+  public Buffer(ByteBuf buffer, boolean refCounted) {
+    this.buffer = refCounted ? buffer : Unpooled.unreleasableBuffer(buffer);
+    this.refCounted = refCounted;
   }
 
   /**
@@ -213,9 +232,8 @@ public class Buffer {
    * Returns a reference to {@code this} so multiple operations can be appended together.
    */
   public Buffer appendBuffer(Buffer buff) {
-    ByteBuf cb = buff.getByteBuf();
-    buffer.writeBytes(buff.getByteBuf());
-    cb.readerIndex(0); // Need to reset readerindex since Netty write modifies readerIndex of source!
+    // Read from the ByteBuf of buff directly, which doesn't take a reference nor modify its readerIndex
+    buffer.writeBytes(buff.buffer, 0, buff.length());
     return this;
   }
 
@@ -366,7 +384,7 @@ public class Buffer {
    */
   public Buffer setBuffer(int pos, Buffer b) {
     ensureWritable(pos, b.length());
-    buffer.setBytes(pos, b.getByteBuf());
+    buffer.setBytes(pos, b.buffer, 0, b.length());
     return this;
   }
 
@@ -418,9 +436,36 @@ public class Buffer {
    * Returns a copy of the entire Buffer.
    */
   public Buffer copy() {
+    if (refCounted) {
+      // Not allocated like the original, which may come from a pool
+      return new Buffer(Unpooled.buffer(length()).writeBytes(buffer, 0, length()));
+    }
     return new Buffer(buffer.copy());
   }
 
+  /**
+   * Keep the memory of a buffer read in zero-copy mode after its data handler has returned, until
+   * {@link #release()} is called. This does nothing for the other buffers.<p>
+   * Returns a reference to {@code this} so multiple operations can be appended together.
+   */
+  public Buffer retain() {
+    if (refCounted) {
+      buffer.retain();
+    }
+    return this;
+  }
+
+  /**
+   * Give back the memory of a buffer read in zero-copy mode, once for the initial reference which is released
+   * when its data handler returns, and once for each call to {@link #retain()}. The buffer can't be used any more
+   * once all its references have been released. This does nothing for the other buffers.
+   *
+   * @return true if the memory has been given back
+   */
+  public boolean release() {
+    return refCounted && buffer.release();
+  }
+
   /**
    * Returns the Buffer as a Netty {@code ByteBuf}.<p>
    * This method is meant for internal use only.
@@ -428,6 +473,10 @@ public class Buffer {
   public ByteBuf getByteBuf() {
     // Return a duplicate so the Buffer can be written multiple times.
     // See #648
+    if (refCounted) {
+      // The duplicate holds a reference, which the write releases once done
+      return buffer.duplicate().retain();
+    }
     return buffer.duplicate();
   }
 
@@ -108,15 +108,25 @@ public class DefaultAsyncFile implements AsyncFile {
   @Override
   public AsyncFile write(Buffer buffer, int position, final Handler<AsyncResult<Void>> handler) {
     check();
-    final ByteBuf buf = buffer.getByteBuf();
+    write(buffer.getByteBuf(), position, handler);
+    return this;
+  }
+
+  private void write(final ByteBuf buf, int position, final Handler<AsyncResult<Void>> handler) {
+    // The ByteBuf of a Buffer read in zero-copy mode holds a reference, released once it has been written
+    Handler<AsyncResult<Void>> releaseHandler = new Handler<AsyncResult<Void>>() {
+      public void handle(AsyncResult<Void> res) {
+        buf.release();
+        handler.handle(res);
+      }
+    };
     if (buf.nioBufferCount() > 1) {
       final Iterator<ByteBuffer> buffers = Arrays.asList(buf.nioBuffers()).iterator();
-      doWrite(buffers, position, handler);
+      doWrite(buffers, position, releaseHandler);
     } else {
       ByteBuffer bb = buf.nioBuffer();
-      doWrite(bb, position, bb.limit(),  handler);
+      doWrite(bb, position, bb.limit(), releaseHandler);
     }
-    return this;
   }
 
   private void doWrite(final Iterator<ByteBuffer> buffers, final int position, final Handler<AsyncResult<Void>> handler) {
@@ -164,14 +174,7 @@ public class DefaultAsyncFile implements AsyncFile {
       }
     };
 
-    ByteBuf buf = buffer.getByteBuf();
-    if (buf.nioBufferCount() > 1) {
-      final Iterator<ByteBuffer> buffers = Arrays.asList(buf.nioBuffers()).iterator();
-      doWrite(buffers, writePos, handler);
-    } else {
-      ByteBuffer bb = buf.nioBuffer();
-      doWrite(bb, writePos, bb.limit(), handler);
-    }
+    write(buffer.getByteBuf(), writePos, handler);
     writePos += length;
     return this;
   }
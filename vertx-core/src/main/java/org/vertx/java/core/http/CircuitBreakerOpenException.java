@@ -0,0 +1,30 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+import org.vertx.java.core.VertxException;
+
+/**
+ * Passed to the exception handler of the requests which failed fast, without being sent, because the circuit
+ * breaker of their {@link HttpClient} is open
+ */
+public class CircuitBreakerOpenException extends VertxException {
+
+  public CircuitBreakerOpenException(String message) {
+    super(message);
+  }
+}
@@ -16,6 +16,7 @@
 
 package org.vertx.java.core.http;
 
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.ClientSSLSupport;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
@@ -55,6 +56,163 @@ public interface HttpClient extends ClientSSLSupport<HttpClient>, TCPSupport<Htt
    */
   int getMaxPoolSize();
 
+  /**
+   * Set the maximum number of requests which can be pipelined on a keep alive connection, that is sent on the
+   * connection while it is still waiting for the responses to the previous ones.<p>
+   * When {@code depth} is greater than zero a request is written straight away on a pooled connection which has
+   * fewer than {@code depth} requests waiting for a response, before a new connection is opened. A {@code depth}
+   * of {@code 1} disables pipelining. If the connection is closed before all the responses have been received, the
+   * exception handler of each request left without a response is called.<p>
+   * The default value is {@code 0}, which only pipelines requests on busy connections once the pool is exhausted,
+   * with no limit on the number of requests waiting.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setPipeliningDepth(int depth);
+
+  /**
+   * Returns the maximum number of requests which can be pipelined on a connection, {@code 0} if there is no limit
+   */
+  int getPipeliningDepth();
+
+  /**
+   * If {@code poolPerEventLoop} is {@code true} the connections are pooled separately for each event loop. A request
+   * made from an event loop then uses a connection opened on that event loop, and its handlers are called on that
+   * event loop, so the connections are never shared between threads. The requests made from elsewhere, such as a
+   * worker verticle, use the connections of the context which created the client.<p>
+   * The maximum pool size applies to the connections of all the event loops together. The default value is
+   * {@code false}: all the connections are opened on the event loop of the context which created the client.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setPoolPerEventLoop(boolean poolPerEventLoop);
+
+  /**
+   *
+   * @return true if the connections are pooled separately for each event loop
+   */
+  boolean isPoolPerEventLoop();
+
+  /**
+   * Set the time in ms after which a pooled connection which has nothing to do is closed. Setting it below the
+   * keep alive timeout of the server avoids sending requests on connections the server is about to close.<p>
+   * The pool checks its connections periodically and whenever a connection is taken from it.
+   * The default value is {@code 0}, which keeps the connections until they are closed by the server.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setConnectionIdleTimeout(long timeout);
+
+  /**
+   *
+   * @return the time in ms after which an idle connection is closed, {@code 0} if there is no limit
+   */
+  long getConnectionIdleTimeout();
+
+  /**
+   * Set the time in ms after which a pooled connection is closed, as soon as it has no more requests waiting for a
+   * response. This spreads the connections again after servers have been added behind a load balancer.
+   * The default value is {@code 0}, which sets no limit.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setConnectionMaxLifetime(long lifetime);
+
+  /**
+   *
+   * @return the time in ms after which a connection is closed, {@code 0} if there is no limit
+   */
+  long getConnectionMaxLifetime();
+
+  /**
+   * Set the default timeout in ms of the requests, which are failed with a {@link java.util.concurrent.TimeoutException}
+   * if no response has been received by then, as with {@link HttpClientRequest#setTimeout}. The connection of a
+   * request which timed out is closed, so a server which hangs doesn't hold on to the connections of the pool.<p>
+   * The timeouts are kept in a queue for each event loop, so they are cheap to set and cancel.
+   * The default value is {@code 0}, which sets no timeout.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setRequestTimeout(long timeout);
+
+  /**
+   *
+   * @return the default timeout in ms of the requests, {@code 0} if there is none
+   */
+  long getRequestTimeout();
+
+  /**
+   * Set the share of failed requests, in percent, above which the circuit breaker of the client opens. A request
+   * fails when it can't connect, times out, has its connection closed before the response or gets a {@code 5xx}
+   * response. While the circuit is open the requests fail straight away with a {@link CircuitBreakerOpenException},
+   * without taking a connection from the pool. After the open time a single trial request is sent, the circuit
+   * closes again if it succeeds.<p>
+   * The client sends all its requests to the same host, so this breaker tracks that host.
+   * The default value is {@code 0}, which disables the circuit breaker.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setCircuitBreakerFailureRate(int percent);
+
+  /**
+   *
+   * @return the share of failed requests, in percent, above which the circuit breaker opens
+   */
+  int getCircuitBreakerFailureRate();
+
+  /**
+   * Set the minimum number of requests in the window of the circuit breaker before it can open, so that a few
+   * failures don't open it when there is little traffic. The default value is {@code 20}.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setCircuitBreakerMinRequests(int minRequests);
+
+  /**
+   *
+   * @return the minimum number of requests in the window of the circuit breaker before it can open
+   */
+  int getCircuitBreakerMinRequests();
+
+  /**
+   * Set the time in ms over which the failure rate of the circuit breaker is measured. The default value is
+   * {@code 10000}.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setCircuitBreakerWindow(long window);
+
+  /**
+   *
+   * @return the time in ms over which the failure rate of the circuit breaker is measured
+   */
+  long getCircuitBreakerWindow();
+
+  /**
+   * Set the time in ms during which the requests fail fast once the circuit breaker has opened, before a trial
+   * request is sent. The default value is {@code 5000}.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setCircuitBreakerOpenTime(long openTime);
+
+  /**
+   *
+   * @return the time in ms during which the requests fail fast once the circuit breaker has opened
+   */
+  long getCircuitBreakerOpenTime();
+
+  /**
+   *
+   * @return true if the circuit breaker is open, or half open waiting for the outcome of a trial request
+   */
+  boolean isCircuitBreakerOpen();
+
+  /**
+   * Open up to {@code count} connections and put them in the pool, so the first requests don't have to wait for
+   * the connections to be established. No more than {@link #getMaxPoolSize()} connections are opened in all.<p>
+   * Once it has been called the client can no longer be configured, as for a request.
+   * @param doneHandler called once all the connections are open, or with the first failure
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient openConnections(int count, Handler<AsyncResult<Void>> doneHandler);
+
+  /**
+   * @return a snapshot of the state of the connection pool
+   */
+  HttpPoolStats getPoolStats();
+
   /**
    * If {@code keepAlive} is {@code true} then, after the request has ended the connection will be returned to the pool
    * where it can be used by another request. In this manner, many HTTP requests can be pipe-lined over an HTTP connection.
@@ -72,6 +230,21 @@ public interface HttpClient extends ClientSSLSupport<HttpClient>, TCPSupport<Htt
    */
   boolean isKeepAlive();
 
+  /**
+   * If {@code tryUseCompression} is {@code true} the client asks for compressed responses, by sending an
+   * {@code Accept-Encoding: gzip, deflate} header with the requests which don't set one, and inflates the gzip or
+   * deflate encoded response bodies as they are received, before they are passed to the response handlers.
+   * The default value is {@code false}.
+   * @return A reference to this, so multiple invocations can be chained together.
+   */
+  HttpClient setTryUseCompression(boolean tryUseCompression);
+
+  /**
+   *
+   * @return true if the client asks for compressed responses and inflates them
+   */
+  boolean getTryUseCompression();
+
   /**
    * Set the port that the client will attempt to connect to the server on to {@code port}. The default value is
    * {@code 80}
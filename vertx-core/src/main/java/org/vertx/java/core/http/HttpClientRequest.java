@@ -160,11 +160,19 @@ public interface HttpClientRequest extends WriteStream<HttpClientRequest> {
   /**
     * Set's the amount of time after which if a response is not received TimeoutException()
     * will be sent to the exception handler of this request. Calling this method more than once
-    * has the effect of canceling any existing timeout and starting the timeout from scratch.
+    * has the effect of canceling any existing timeout and starting the timeout from scratch,
+    * including the default timeout of the client. The connection of the request is closed when
+    * it times out.
     *
     * @param timeoutMs The quantity of time in milliseconds.
     * @return A reference to this, so multiple method calls can be chained.
     */
    HttpClientRequest setTimeout(long timeoutMs);
 
+  /**
+   * Abandon the request, for example when the client of a proxied request has gone away. Its connection is closed,
+   * as it can't be reused with the request or its response half written, and no more handlers are called.
+   */
+  void reset();
+
 }
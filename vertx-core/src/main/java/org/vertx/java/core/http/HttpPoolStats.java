@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+/**
+ * A snapshot of the connection pool of an {@link HttpClient}<p>
+ * The counts are taken at the time of the snapshot, the wait times cover the requests which have waited for a
+ * connection since the client was created.<p>
+ * Instances of HttpPoolStats are thread-safe<p>
+ */
+public interface HttpPoolStats {
+
+  /**
+   * The number of connections opened or being opened by the pool
+   */
+  int connections();
+
+  /**
+   * The number of connections which are handed out or waiting for a response
+   */
+  int inUse();
+
+  /**
+   * The number of open connections sitting in the pool with nothing to do
+   */
+  int idle();
+
+  /**
+   * The number of requests currently waiting for a connection
+   */
+  int waiters();
+
+  /**
+   * The number of requests which had to wait for a connection
+   */
+  long waitCount();
+
+  /**
+   * The total time, in ms, that requests have waited for a connection
+   */
+  long totalWaitTime();
+
+  /**
+   * The longest time, in ms, that a request has waited for a connection
+   */
+  long maxWaitTime();
+
+  /**
+   * The number of connections closed by the pool because they were idle for too long, had reached their maximum
+   * lifetime or were needed elsewhere
+   */
+  long evictions();
+
+}
@@ -21,6 +21,9 @@ import org.vertx.java.core.Handler;
 import org.vertx.java.core.ServerSSLSupport;
 import org.vertx.java.core.ServerTCPSupport;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * An HTTP and WebSockets server<p>
  * If an instance is instantiated from an event loop then the handlers
@@ -63,6 +66,270 @@ public interface HttpServer extends ServerSSLSupport<HttpServer>, ServerTCPSuppo
   Handler<ServerWebSocket> websocketHandler();
 
 
+  /**
+   * Set whether the server compresses the response bodies with gzip or deflate, for the requests which accept it
+   * with their {@code Accept-Encoding} header. Compression is disabled by default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setCompressionSupported(boolean compressionSupported);
+
+  /**
+   * @return true if the server compresses the response bodies
+   */
+  boolean isCompressionSupported();
+
+  /**
+   * Set the compression level, from 1 (fastest) to 9 (smallest). Defaults to 6.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setCompressionLevel(int compressionLevel);
+
+  /**
+   * @return the compression level
+   */
+  int getCompressionLevel();
+
+  /**
+   * Set the minimum size in bytes of the response bodies which are compressed, smaller ones are sent as is. The
+   * size of chunked responses isn't known up front so they are always compressed. Defaults to 1024.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setCompressionMinSize(int minSize);
+
+  /**
+   * @return the minimum size of the response bodies which are compressed
+   */
+  int getCompressionMinSize();
+
+  /**
+   * Set the MIME types of the responses which are compressed, matched against their {@code Content-Type} header.
+   * A type such as {@code text/*} matches all its subtypes. Defaults to {@code text/html}, {@code text/plain},
+   * {@code text/css}, {@code text/xml}, {@code text/javascript}, {@code application/javascript},
+   * {@code application/json} and {@code application/xml}.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setCompressionMimeTypes(Set<String> mimeTypes);
+
+  /**
+   * @return the MIME types of the responses which are compressed
+   */
+  Set<String> getCompressionMimeTypes();
+
+  /**
+   * Set the maximum number of parts, attributes and file uploads, accepted in a {@code multipart/form-data} request
+   * body. When a request has more parts, its exception handler is called and the rest of its body is discarded.
+   * 0 means no limit. Defaults to 1000.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxFormParts(int maxParts);
+
+  /**
+   * @return the maximum number of parts of a multipart form
+   */
+  int getMaxFormParts();
+
+  /**
+   * Set the maximum size in bytes of a file upload in a {@code multipart/form-data} request body. Uploads are
+   * streamed to their {@link HttpServerFileUpload} as they are received, so this doesn't affect the memory used.
+   * 0 means no limit, which is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxFormPartSize(long maxSize);
+
+  /**
+   * @return the maximum size of a file upload of a multipart form
+   */
+  long getMaxFormPartSize();
+
+  /**
+   * Set the maximum size in bytes of a form attribute in a {@code multipart/form-data} request body. Attributes
+   * are held in memory until the request has been fully received. 0 means no limit. Defaults to 65536.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxFormAttributeSize(int maxSize);
+
+  /**
+   * @return the maximum size of a form attribute of a multipart form
+   */
+  int getMaxFormAttributeSize();
+
+  /**
+   * Set the maximum length in bytes of the request line, that is the method, the URI and the HTTP version. A request
+   * with a longer line is answered with {@code 414 Request-URI Too Long} and its connection is closed, without
+   * reaching the request handler. Defaults to 4096.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxInitialLineLength(int maxLength);
+
+  /**
+   * @return the maximum length of the request line
+   */
+  int getMaxInitialLineLength();
+
+  /**
+   * Set the maximum size in bytes of the headers of a request. A request with larger headers is answered with
+   * {@code 431 Request Header Fields Too Large} and its connection is closed, without reaching the request handler.
+   * Defaults to 8192.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxHeaderSize(int maxSize);
+
+  /**
+   * @return the maximum size of the headers of a request
+   */
+  int getMaxHeaderSize();
+
+  /**
+   * Set the maximum size in bytes of a request body. A request whose {@code Content-Length} is larger is answered
+   * with {@code 413 Request Entity Too Large} and its connection is closed, without reaching the request handler.
+   * A chunked request whose body turns out to be larger has its connection closed, the exception handler of the
+   * request is called. 0 means no limit, which is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxRequestBodySize(long maxSize);
+
+  /**
+   * @return the maximum size of a request body
+   */
+  long getMaxRequestBodySize();
+
+  /**
+   * Set the maximum number of requests handled on a connection. The response to the last request has a
+   * {@code Connection: close} header and the connection is closed once it has been written, so the clients open
+   * a new one. An HTTP/2 connection gets a {@code GOAWAY} frame instead, after the last stream it accepts.
+   * 0 means no limit, which is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setMaxRequestsPerConnection(int maxRequests);
+
+  /**
+   * @return the maximum number of requests handled on a connection
+   */
+  int getMaxRequestsPerConnection();
+
+  /**
+   * Set whether the server adds a {@code Date} header to the responses which don't have one. The date is formatted
+   * and encoded at most once a second by each event loop. Disabled by default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setSendDateHeader(boolean sendDateHeader);
+
+  /**
+   * @return true if the server adds a {@code Date} header to the responses
+   */
+  boolean isSendDateHeader();
+
+  /**
+   * Add a header to all the responses of the server, such as {@code Server} or {@code X-Frame-Options}. The constant
+   * headers are encoded once when the server starts listening, rather than for every response. A response which
+   * sets the same header itself keeps its own value.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer putConstantHeader(String name, String value);
+
+  /**
+   * @return the headers added to all the responses of the server
+   */
+  Map<String, String> getConstantHeaders();
+
+  /**
+   * Set the limiter applied to all the requests of the server. The requests over the limit are answered with a
+   * {@code 429 Too Many Requests} before reaching the request handler, and are counted in the stats of the server.
+   * Websocket handshakes aren't limited. {@code null} removes the limiter, which is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setRateLimiter(RateLimiter rateLimiter);
+
+  /**
+   * @return the limiter applied to all the requests of the server, or {@code null}
+   */
+  RateLimiter getRateLimiter();
+
+  /**
+   * Set the file the server writes its access log to, one line per response in the Common Log Format followed by the
+   * time taken in ms, for example {@code 127.0.0.1 - - [10/Oct/2013:13:55:36 +0200] "GET /index.html HTTP/1.1" 200
+   * 2326 4}. A relative path is resolved like the files sent with {@link HttpServerResponse#sendFile}. The responses
+   * are queued by the event loops and written to the file by a background thread, if the file can't keep up the
+   * entries which don't fit in the queue are dropped, and counted in the stats of the server. Websockets and the
+   * requests rejected before reaching the request handler aren't logged. {@code null} disables the access log, which
+   * is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setAccessLogFile(String file);
+
+  /**
+   * @return the file the server writes its access log to, or {@code null}
+   */
+  String getAccessLogFile();
+
+  /**
+   * Set the maximum size in bytes of the access log file. When it is reached, the file is renamed with the suffix
+   * {@code .1}, the previous backups are shifted to {@code .2} and so on up to {@code .5}, and a new file is started.
+   * 0 means no limit. Defaults to 100 MB.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setAccessLogMaxFileSize(long maxSize);
+
+  /**
+   * @return the maximum size of the access log file
+   */
+  long getAccessLogMaxFileSize();
+
+  /**
+   * Set the time in ms the server waits for the requests in flight when it is closed, including when its module is
+   * undeployed. When it is greater than 0, closing the server stops it from accepting connections, the responses in
+   * flight get a {@code Connection: close} header and each connection is closed once its current response has been
+   * written. The idle connections are closed straight away. The close handler is called when all the connections are
+   * closed, or when the timeout expires, in which case the connections still active are closed and the close
+   * handler gets a failed result with the number of connections which were cut. 0 means the connections are closed
+   * straight away, which is the default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setDrainTimeout(long timeout);
+
+  /**
+   * @return the time in ms the server waits for the requests in flight when it is closed
+   */
+  long getDrainTimeout();
+
+  /**
+   * Set whether the server accepts HTTP/2 connections over cleartext (h2c) from the clients which know beforehand
+   * that it supports HTTP/2, and start the connection with the HTTP/2 preface instead of an HTTP/1.x request. The
+   * other connections are still handled as HTTP/1.x. Each stream of an HTTP/2 connection is passed to the request
+   * handler as an HTTP/1.1 request, so existing handlers work unchanged, but they can't turn it into a
+   * {@link org.vertx.java.core.net.NetSocket}. This is ignored when SSL is enabled. Disabled by default.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServer setHttp2ClearTextSupported(boolean supported);
+
+  /**
+   * @return true if the server accepts HTTP/2 connections over cleartext
+   */
+  boolean isHttp2ClearTextSupported();
+
+  /**
+   * @return a snapshot of the counters of the server, such as the number of requests rejected by its limits
+   */
+  HttpServerStats getStats();
+
   /**
    * Tell the server to start listening on all available interfaces and port {@code port}. Be aware this is an
    * async operation and the server may not bound on return of the method.
@@ -94,8 +361,8 @@ public interface HttpServer extends ServerSSLSupport<HttpServer>, ServerTCPSuppo
   void close();
 
   /**
-   * Close the server. Any open HTTP connections will be closed. The {@code doneHandler} will be called when the close
-   * is complete.
+   * Close the server. Any open HTTP connections will be closed, after their requests in flight if a drain timeout is
+   * set. The {@code doneHandler} will be called when the close is complete.
    */
   void close(Handler<AsyncResult<Void>> doneHandler);
 }
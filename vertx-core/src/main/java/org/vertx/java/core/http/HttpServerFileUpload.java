@@ -21,12 +21,16 @@ import java.nio.charset.Charset;
 
 /**
  * Represents an upload from an HTML form.<p>
+ * The content of the upload is passed to the data handler as it is received, without being buffered. Pausing the
+ * upload pauses the reading of the request, so it can be pumped to a slow {@link org.vertx.java.core.streams.WriteStream}
+ * such as an {@link org.vertx.java.core.file.AsyncFile}.<p>
  *
  * @author <a href="mailto:nmaurer@redhat.com">Norman Maurer</a>
  */
 public interface HttpServerFileUpload extends ReadStream<HttpServerFileUpload> {
   /**
-   * Stream the content of this upload to the given filename.
+   * Stream the content of this upload to the given filename. The upload is paused while the file is opened and is
+   * then pumped to it.
    */
   HttpServerFileUpload streamToFileSystem(String filename);
 
@@ -56,7 +60,8 @@ public interface HttpServerFileUpload extends ReadStream<HttpServerFileUpload> {
   Charset charset();
 
   /**
-   * Returns the size of the upload (in bytes)
+   * Returns the size of the upload (in bytes) received so far, which is its total size once its end handler has
+   * been called
    */
   long size();
 }
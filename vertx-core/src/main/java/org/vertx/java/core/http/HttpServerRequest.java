@@ -114,6 +114,23 @@ public interface HttpServerRequest extends ReadStream<HttpServerRequest> {
    */
   HttpServerRequest bodyHandler(Handler<Buffer> bodyHandler);
 
+  /**
+   * Set the maximum size in bytes of the body of this request, for example to accept less on an upload route than
+   * the server does. It defaults to the maximum request body size of the server, which is enforced before the
+   * request reaches the handler, so it can only be tightened. If the {@code Content-Length} of the request is
+   * already larger, the request is answered with {@code 413 Request Entity Too Large} right away. Otherwise, when
+   * the body received turns out to be larger, the exception handler of the request is called. In both cases the
+   * rest of the body is dropped, the end handler is not called and the connection is closed. 0 means no limit.
+   *
+   * @return a reference to this, so methods can be chained.
+   */
+  HttpServerRequest setMaxBodySize(long maxSize);
+
+  /**
+   * @return the maximum size of the body of this request
+   */
+  long getMaxBodySize();
+
   /**
    * Get a net socket for the underlying connection of this request. USE THIS WITH CAUTION!
    * Writing to the socket directly if you don't know what you're doing can easily break the HTTP protocol
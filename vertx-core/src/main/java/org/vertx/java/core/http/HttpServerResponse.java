@@ -189,6 +189,14 @@ public interface HttpServerResponse extends WriteStream<HttpServerResponse> {
    */
   HttpServerResponse sendFile(String filename, String notFoundFile);
 
+  /**
+   * Same as {@link #sendFile(String)} but only streams the {@code length} bytes of the file starting at
+   * {@code offset}, for instance to answer a range request. The {@code Content-Length} header is set to
+   * {@code length} unless it has already been set.
+   * @throws IllegalArgumentException if the range goes past the end of the file
+   */
+  HttpServerResponse sendFile(String filename, long offset, long length);
+
   /**
    * Close the underlying TCP connection
    */
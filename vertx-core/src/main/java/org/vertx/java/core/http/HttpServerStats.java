@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+/**
+ * A snapshot of the counters of an {@link HttpServer}<p>
+ * The counts cover the requests received since the server started listening.<p>
+ * Instances of HttpServerStats are thread-safe<p>
+ */
+public interface HttpServerStats {
+
+  /**
+   * The number of requests rejected by the server before reaching the request handler, for any reason
+   */
+  long rejectedRequests();
+
+  /**
+   * The number of requests whose request line, and so URI, was longer than the maximum initial line length. They
+   * are answered with {@code 414 Request-URI Too Long}
+   */
+  long uriTooLong();
+
+  /**
+   * The number of requests whose headers were larger than the maximum header size. They are answered with
+   * {@code 431 Request Header Fields Too Large}
+   */
+  long headersTooLarge();
+
+  /**
+   * The number of requests whose body was larger than the maximum request body size. They are answered with
+   * {@code 413 Request Entity Too Large} when they declare their size up front, otherwise their connection is
+   * closed
+   */
+  long bodyTooLarge();
+
+  /**
+   * The number of requests which couldn't be decoded. They are answered with {@code 400 Bad Request}
+   */
+  long malformed();
+
+  /**
+   * The number of requests refused by the rate limiter of the server. They are answered with
+   * {@code 429 Too Many Requests}
+   */
+  long rateLimited();
+
+  /**
+   * The number of responses missing from the access log of the server, because they were logged faster than the
+   * log could be written to its file
+   */
+  long accessLogDropped();
+
+}
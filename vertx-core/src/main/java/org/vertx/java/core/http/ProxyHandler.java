@@ -0,0 +1,308 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.VoidHandler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.streams.Pump;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards the requests it handles to upstream servers, and their responses back to the clients.<p>
+ * Each upstream server is reached through an {@link HttpClient}, so the proxied requests share its connection pool,
+ * and its request timeout and circuit breaker apply. The upstreams are used in turn, skipping those whose circuit
+ * breaker is open. The request and response bodies are streamed with a {@link Pump}, which stops reading from one
+ * side while the other can't keep up. The proxy writes the buffers it is handed as they are, but the connections
+ * still copy the data they read into the heap buffers of these, as for any HTTP request or response.<p>
+ * The hop-by-hop headers, such as {@code Connection} or {@code Transfer-Encoding} and the headers named by
+ * {@code Connection}, are removed in both directions, and the address of the client is appended to the
+ * {@code X-Forwarded-For} header. The {@code Host} header of the client is kept.<p>
+ * A request which fails before the upstream has answered is answered with a {@code 503 Service Unavailable} if the
+ * circuit breaker of the upstream is open, a {@code 504 Gateway Timeout} if it timed out, or a
+ * {@code 502 Bad Gateway} otherwise. The requests whose method is idempotent are retried first on the next upstream,
+ * up to the maximum number of retries, as long as none of their body has been sent. Whether a request has a body is
+ * told from the request itself rather than from its headers, as an HTTP/2 request may have a body without a
+ * {@code Content-Length} or a {@code Transfer-Encoding}: a request with neither is only sent once its first data or
+ * its end has been received. When the upstream fails while its response is being streamed,
+ * the connection of the client is closed. When the client goes away, the upstream connection is closed, so it
+ * isn't reused half way through a request or a response.<p>
+ * The clients must be created by the verticle which uses the handler. Instances of this class are thread-safe, but
+ * must be configured before they are used<p>
+ */
+public class ProxyHandler implements Handler<HttpServerRequest> {
+
+  public static final int DEFAULT_MAX_RETRIES = 1;
+
+  private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+      "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "proxy-connection", "te", "trailer",
+      "transfer-encoding", "upgrade", "expect"));
+  private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+      "GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+  private final List<HttpClient> upstreams = new ArrayList<>();
+  private final AtomicInteger next = new AtomicInteger();
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+
+  /**
+   * Add an upstream server, reached with {@code client}
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public ProxyHandler addUpstream(HttpClient client) {
+    upstreams.add(client);
+    return this;
+  }
+
+  /**
+   * Set the number of times a request whose method is idempotent is sent to the next upstream when it fails before
+   * being answered and before any of its body has been sent. The default is 1
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public ProxyHandler setMaxRetries(int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("maxRetries must be >= 0");
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  @Override
+  public void handle(HttpServerRequest request) {
+    if (upstreams.isEmpty()) {
+      throw new IllegalStateException("No upstream has been added");
+    }
+    new Exchange(request).send();
+  }
+
+  // The next upstream in turn whose circuit breaker is closed, or the next one if they are all open
+  private HttpClient nextUpstream() {
+    int size = upstreams.size();
+    int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+    for (int i = 0; i < size; i++) {
+      HttpClient client = upstreams.get((start + i) % size);
+      if (!client.isCircuitBreakerOpen()) {
+        return client;
+      }
+    }
+    return upstreams.get(start);
+  }
+
+  private static void copyHeaders(MultiMap from, MultiMap to) {
+    Set<String> connectionHeaders = null;
+    String connection = from.get("Connection");
+    if (connection != null) {
+      connectionHeaders = new HashSet<>();
+      for (String name : connection.split(",")) {
+        connectionHeaders.add(name.trim().toLowerCase(Locale.ENGLISH));
+      }
+    }
+    for (Map.Entry<String, String> header : from) {
+      String name = header.getKey().toLowerCase(Locale.ENGLISH);
+      if (!HOP_BY_HOP_HEADERS.contains(name) && (connectionHeaders == null || !connectionHeaders.contains(name))) {
+        to.add(header.getKey(), header.getValue());
+      }
+    }
+  }
+
+  /**
+   * A request forwarded upstream, and its response
+   */
+  private class Exchange {
+
+    private final HttpServerRequest request;
+    private int attempts;
+    private HttpClientRequest upstreamRequest;
+    private Pump requestPump;
+    private Pump responsePump;
+    // Some of the body has been received, so the request can't be sent again
+    private boolean bodyStarted;
+    private boolean requestEnded;
+    private boolean forwarding;
+    private boolean responded;
+    private boolean done;
+
+    Exchange(final HttpServerRequest request) {
+      this.request = request;
+      String length = request.headers().get("Content-Length");
+      this.bodyStarted = length != null && !length.trim().equals("0");
+      request.response().closeHandler(new VoidHandler() {
+        public void handle() {
+          // The client has gone away
+          if (!done || forwarding) {
+            abort();
+          }
+        }
+      });
+      request.exceptionHandler(new Handler<Throwable>() {
+        public void handle(Throwable t) {
+          if (!done || forwarding) {
+            abort();
+            request.response().close();
+          }
+        }
+      });
+      if (!bodyStarted) {
+        request.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            // The first data of a request of unknown length, the rest of the body is pumped
+            bodyStarted = true;
+            if (forwarding) {
+              if (!upstreamRequest.headers().contains("Content-Length")) {
+                upstreamRequest.setChunked(true);
+              }
+              upstreamRequest.write(data);
+              requestPump = Pump.createPump(request, upstreamRequest).start();
+            }
+          }
+        });
+      }
+      request.endHandler(new VoidHandler() {
+        public void handle() {
+          requestEnded = true;
+          // Even if the upstream has already answered, as its connection is only released once the request ends
+          if (forwarding) {
+            forwarding = false;
+            upstreamRequest.end();
+          }
+        }
+      });
+    }
+
+    void send() {
+      attempts++;
+      final HttpClientRequest upstream = nextUpstream().request(request.method(), request.uri(),
+                                                                 new Handler<HttpClientResponse>() {
+        public void handle(HttpClientResponse response) {
+          respond(response);
+        }
+      });
+      upstreamRequest = upstream;
+      upstream.exceptionHandler(new Handler<Throwable>() {
+        public void handle(Throwable t) {
+          if (upstream == upstreamRequest) {
+            failed(t);
+          }
+        }
+      });
+      MultiMap headers = upstream.headers();
+      copyHeaders(request.headers(), headers);
+      InetSocketAddress address = request.remoteAddress();
+      if (address != null && address.getAddress() != null) {
+        String forwardedFor = headers.get("X-Forwarded-For");
+        String ip = address.getAddress().getHostAddress();
+        headers.set("X-Forwarded-For", forwardedFor == null ? ip : forwardedFor + ", " + ip);
+      }
+      if (requestEnded) {
+        upstream.end();
+        return;
+      }
+      forwarding = true;
+      if (bodyStarted) {
+        requestPump = Pump.createPump(request, upstream).start();
+      }
+    }
+
+    private void respond(final HttpClientResponse upstreamResponse) {
+      responded = true;
+      final HttpServerResponse response = request.response();
+      response.setStatusCode(upstreamResponse.statusCode());
+      response.setStatusMessage(upstreamResponse.statusMessage());
+      copyHeaders(upstreamResponse.headers(), response.headers());
+      int status = upstreamResponse.statusCode();
+      final boolean responseBody = !request.method().equals("HEAD") && status != 204 && status != 304;
+      if (responseBody && !upstreamResponse.headers().contains("Content-Length")) {
+        response.setChunked(true);
+      }
+      upstreamResponse.exceptionHandler(new Handler<Throwable>() {
+        public void handle(Throwable t) {
+          // The head has already been sent, the client can only tell from the connection being closed
+          if (!done) {
+            done = true;
+            response.close();
+          }
+        }
+      });
+      upstreamResponse.endHandler(new VoidHandler() {
+        public void handle() {
+          if (done) {
+            return;
+          }
+          done = true;
+          if (response.isChunked()) {
+            response.trailers().add(upstreamResponse.trailers());
+          }
+          response.end();
+        }
+      });
+      if (responseBody) {
+        responsePump = Pump.createPump(upstreamResponse, response).start();
+      }
+    }
+
+    private void failed(Throwable t) {
+      if (done || responded) {
+        return;
+      }
+      if (!bodyStarted && attempts <= maxRetries && IDEMPOTENT_METHODS.contains(request.method())) {
+        send();
+        return;
+      }
+      done = true;
+      // The rest of the body is dropped rather than buffered for a request which will never be sent
+      stopForwarding();
+      int status = t instanceof CircuitBreakerOpenException ? 503 : t instanceof TimeoutException ? 504 : 502;
+      HttpServerResponse response = request.response();
+      response.setStatusCode(status);
+      response.setStatusMessage(status == 503 ? "Service Unavailable" : status == 504 ? "Gateway Timeout" :
+                                "Bad Gateway");
+      response.end();
+    }
+
+    private void stopForwarding() {
+      if (forwarding) {
+        forwarding = false;
+        if (requestPump != null) {
+          requestPump.stop();
+        } else {
+          request.dataHandler(null);
+        }
+      }
+    }
+
+    private void abort() {
+      done = true;
+      stopForwarding();
+      if (responsePump != null) {
+        responsePump.stop();
+      }
+      if (upstreamRequest != null) {
+        upstreamRequest.reset();
+      }
+    }
+  }
+}
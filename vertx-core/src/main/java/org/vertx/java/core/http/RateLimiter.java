@@ -0,0 +1,275 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate of the requests of each client with a token bucket, and answers the requests over the limit with
+ * a {@code 429 Too Many Requests} and a {@code Retry-After} header, without calling the request handler.<p>
+ * Each client gets its own bucket, which holds up to {@code burst} tokens and is refilled at {@code permitsPerSecond}
+ * tokens a second. A request takes a token and is refused when the bucket is empty. Clients are told apart by their
+ * IP address, or by the value of a request header when {@link #setKeyHeader} is set, for example an API key set by
+ * the client or a forwarded address set by a proxy. Subclasses can override {@link #key} for other schemes.<p>
+ * A limiter can be set on a whole server with {@link HttpServer#setRateLimiter}, or on some routes of a
+ * {@link RouteMatcher} by wrapping their handlers with {@link #wrap}. The routes wrapped by the same limiter share its
+ * buckets.<p>
+ * The state of a bucket is a single {@link AtomicLong}, updated with compare and set, so the limiter can be shared by
+ * the verticle instances of all the event loops without locking. The buckets which have been full for longer than
+ * the expiry time are dropped by a periodic timer, as they hold nothing a new bucket wouldn't, so the memory used
+ * follows the number of recently active clients. As the clients can choose their keys when they are taken from a
+ * header, the number of buckets is also capped: once it is reached, the requests of new clients are refused until
+ * some buckets expire.<p>
+ * The limiter must be closed once it isn't used any more, to stop its timer. Instances of this class are thread-safe,
+ * but must be configured before they are used<p>
+ */
+public class RateLimiter {
+
+  public static final long DEFAULT_EXPIRY = 60000;
+  public static final int DEFAULT_MAX_BUCKETS = 100000;
+
+  // The state of a bucket which has been dropped, a token can't be taken from it any more
+  private static final long DROPPED = Long.MIN_VALUE;
+
+  private final Vertx vertx;
+  private final long interval;
+  private final long tolerance;
+  private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+  // Counted apart from the map, whose size isn't cheap to get
+  private final AtomicInteger bucketCount = new AtomicInteger();
+  private final AtomicLong allowed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private String keyHeader;
+  private long expiry = TimeUnit.MILLISECONDS.toNanos(DEFAULT_EXPIRY);
+  private int maxBuckets = DEFAULT_MAX_BUCKETS;
+  private long sweepTimer = -1;
+
+  /**
+   * Create a limiter letting each client make {@code permitsPerSecond} requests a second on average, and up to
+   * {@code burst} requests at once after it has been idle. The expired buckets are dropped by a timer set with
+   * {@code vertx}
+   */
+  public RateLimiter(Vertx vertx, double permitsPerSecond, int burst) {
+    if (!(permitsPerSecond > 0) || burst < 1) {
+      throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst must be >= 1");
+    }
+    this.vertx = vertx;
+    this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    this.tolerance = interval * (burst - 1);
+    scheduleSweep();
+  }
+
+  /**
+   * Tell clients apart by the value of the header {@code name} rather than by their IP address. The requests without
+   * the header are still limited by IP address
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public RateLimiter setKeyHeader(String name) {
+    this.keyHeader = name;
+    return this;
+  }
+
+  /**
+   * Set the time in ms after which the bucket of an idle client whose bucket is full is dropped. The default is
+   * 60000 ms
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public RateLimiter setExpiry(long expiry) {
+    if (expiry <= 0) {
+      throw new IllegalArgumentException("expiry must be > 0");
+    }
+    this.expiry = TimeUnit.MILLISECONDS.toNanos(expiry);
+    scheduleSweep();
+    return this;
+  }
+
+  /**
+   * Set the maximum number of buckets held. Once it is reached, the requests of the clients without a bucket are
+   * refused until some buckets expire. The default is 100000
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public RateLimiter setMaxBuckets(int maxBuckets) {
+    if (maxBuckets < 1) {
+      throw new IllegalArgumentException("maxBuckets must be >= 1");
+    }
+    this.maxBuckets = maxBuckets;
+    return this;
+  }
+
+  /**
+   * Stop the timer which drops the expired buckets
+   */
+  public void close() {
+    if (sweepTimer != -1) {
+      vertx.cancelTimer(sweepTimer);
+      sweepTimer = -1;
+    }
+  }
+
+  /**
+   * Take a token from the bucket of the client of {@code request}. When the bucket is empty the request is answered
+   * with a {@code 429 Too Many Requests}, and must not be handled further
+   * @return true if the request can be handled
+   */
+  public boolean accept(HttpServerRequest request) {
+    long wait = acquire(key(request));
+    if (wait == 0) {
+      return true;
+    }
+    // Retry-After is in whole seconds, rounded up so that a client which waits that long gets a token
+    long retryAfter = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    request.response()
+        .setStatusCode(429)
+        .setStatusMessage("Too Many Requests")
+        .putHeader("Retry-After", String.valueOf(retryAfter))
+        .end();
+    return false;
+  }
+
+  /**
+   * Take a token from the bucket of {@code key}
+   * @return true if there was one, false if the bucket is empty
+   */
+  public boolean tryAcquire(String key) {
+    return acquire(key) == 0;
+  }
+
+  /**
+   * Wrap {@code handler} so that it is only called for the requests accepted by this limiter
+   */
+  public Handler<HttpServerRequest> wrap(final Handler<HttpServerRequest> handler) {
+    return new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest request) {
+        if (accept(request)) {
+          handler.handle(request);
+        }
+      }
+    };
+  }
+
+  /**
+   * @return the number of requests which got a token
+   */
+  public long allowedRequests() {
+    return allowed.get();
+  }
+
+  /**
+   * @return the number of requests refused because their bucket was empty, or because there were too many buckets
+   */
+  public long rejectedRequests() {
+    return rejected.get();
+  }
+
+  /**
+   * @return the number of clients whose bucket is currently held
+   */
+  public int size() {
+    return bucketCount.get();
+  }
+
+  /**
+   * @return the key of the bucket of the client of {@code request}
+   */
+  protected String key(HttpServerRequest request) {
+    if (keyHeader != null) {
+      String value = request.headers().get(keyHeader);
+      if (value != null) {
+        return value;
+      }
+    }
+    InetSocketAddress address = request.remoteAddress();
+    if (address == null) {
+      return "";
+    }
+    return address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+  }
+
+  /**
+   * @return 0 if a token was taken, otherwise the time in ns until the bucket has one
+   */
+  private long acquire(String key) {
+    long now = System.nanoTime();
+    for (;;) {
+      AtomicLong bucket = buckets.get(key);
+      if (bucket == null) {
+        if (bucketCount.get() >= maxBuckets) {
+          rejected.incrementAndGet();
+          return interval;
+        }
+        AtomicLong created = new AtomicLong(now);
+        bucket = buckets.putIfAbsent(key, created);
+        if (bucket == null) {
+          bucketCount.incrementAndGet();
+          bucket = created;
+        }
+      }
+      // The bucket holds the time at which it is full again, each token taken pushes it back by one interval. A
+      // token can be taken as long as that time isn't further than the burst in the future
+      for (;;) {
+        long full = bucket.get();
+        if (full == DROPPED) {
+          // Dropped by the sweep since it was looked up, it is about to be removed from the map
+          buckets.remove(key, bucket);
+          break;
+        }
+        long from = full - now < 0 ? now : full;
+        long wait = from - now - tolerance;
+        if (wait > 0) {
+          rejected.incrementAndGet();
+          return wait;
+        }
+        if (bucket.compareAndSet(full, from + interval)) {
+          allowed.incrementAndGet();
+          return 0;
+        }
+      }
+    }
+  }
+
+  // The sweep runs once per expiry time, so a bucket is dropped at most one expiry time late
+  private void scheduleSweep() {
+    close();
+    sweepTimer = vertx.setPeriodic(Math.max(1, TimeUnit.NANOSECONDS.toMillis(expiry)), new Handler<Long>() {
+      public void handle(Long timerID) {
+        sweep(System.nanoTime());
+      }
+    });
+  }
+
+  private void sweep(long now) {
+    for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+      AtomicLong bucket = entry.getValue();
+      long full = bucket.get();
+      // Marking the bucket as dropped fails if a token has been taken from it since it was read, in which case it
+      // is kept. Once marked no token can be taken from it, so none is lost
+      if (full != DROPPED && now - full > expiry && bucket.compareAndSet(full, DROPPED)) {
+        buckets.remove(entry.getKey(), bucket);
+        bucketCount.decrementAndGet();
+      }
+    }
+  }
+}
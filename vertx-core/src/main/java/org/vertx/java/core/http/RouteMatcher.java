@@ -35,21 +35,28 @@ import java.util.regex.Pattern;
  * parameters do not have a name, so they are put into the HTTP request with names of param0, param1, param2 etc.<p>
  * Multiple matches can be specified for each HTTP verb. In the case there are more than one matching patterns for
  * a particular request, the first matching one will be used.<p>
+ * Simple patterns made only of plain path segments and {@code :name} segments are compiled into a tree of path
+ * segments, so finding the matching route doesn't require trying each pattern in turn. Regular expressions and
+ * simple patterns using regular expression syntax are tried in order, as long as they were added before the best
+ * match found in the tree.<p>
  * Instances of this class are not thread-safe<p>
  *
  * @author <a href="http://tfox.org">Tim Fox</a>
  */
 public class RouteMatcher implements Handler<HttpServerRequest> {
 
-  private final List<PatternBinding> getBindings = new ArrayList<>();
-  private final List<PatternBinding> putBindings = new ArrayList<>();
-  private final List<PatternBinding> postBindings = new ArrayList<>();
-  private final List<PatternBinding> deleteBindings = new ArrayList<>();
-  private final List<PatternBinding> optionsBindings = new ArrayList<>();
-  private final List<PatternBinding> headBindings = new ArrayList<>();
-  private final List<PatternBinding> traceBindings = new ArrayList<>();
-  private final List<PatternBinding> connectBindings = new ArrayList<>();
-  private final List<PatternBinding> patchBindings = new ArrayList<>();
+  private static final Pattern PARAM_SEGMENT = Pattern.compile(":[A-Za-z][A-Za-z0-9_]*");
+  private static final Pattern LITERAL_SEGMENT = Pattern.compile("[^\\\\^$.|?*+()\\[\\]{}:]*");
+
+  private final Bindings getBindings = new Bindings();
+  private final Bindings putBindings = new Bindings();
+  private final Bindings postBindings = new Bindings();
+  private final Bindings deleteBindings = new Bindings();
+  private final Bindings optionsBindings = new Bindings();
+  private final Bindings headBindings = new Bindings();
+  private final Bindings traceBindings = new Bindings();
+  private final Bindings connectBindings = new Bindings();
+  private final Bindings patchBindings = new Bindings();
   private Handler<HttpServerRequest> noMatchHandler;
 
   @Override
@@ -311,7 +318,7 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
   }
 
 
-  private static void addPattern(String input, Handler<HttpServerRequest> handler, List<PatternBinding> bindings) {
+  private static void addPattern(String input, Handler<HttpServerRequest> handler, Bindings bindings) {
     // We need to search for any :<token name> tokens in the String and replace them with named capture groups
     Matcher m =  Pattern.compile(":([A-Za-z][A-Za-z0-9_]*)").matcher(input);
     StringBuffer sb = new StringBuffer();
@@ -327,17 +334,48 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
     m.appendTail(sb);
     String regex = sb.toString();
     PatternBinding binding = new PatternBinding(Pattern.compile(regex), groups, handler);
-    bindings.add(binding);
+    bindings.add(binding, input);
   }
 
-  private static void addRegEx(String input, Handler<HttpServerRequest> handler, List<PatternBinding> bindings) {
+  private static void addRegEx(String input, Handler<HttpServerRequest> handler, Bindings bindings) {
     PatternBinding binding = new PatternBinding(Pattern.compile(input), null, handler);
-    bindings.add(binding);
+    bindings.add(binding, null);
   }
 
-  private void route(HttpServerRequest request, List<PatternBinding> bindings) {
-    for (PatternBinding binding: bindings) {
-      Matcher m = binding.pattern.matcher(request.path());
+  // Splits a simple pattern into its segments, with null for the literal segments and the param name for the
+  // :name segments. Returns null if the pattern uses regular expression syntax so it can't go in the tree
+  private static String[] treeSegments(String input) {
+    String[] segments = split(input);
+    String[] params = new String[segments.length];
+    for (int i = 0; i < segments.length; i++) {
+      String segment = segments[i];
+      if (PARAM_SEGMENT.matcher(segment).matches()) {
+        params[i] = segment.substring(1);
+      } else if (!LITERAL_SEGMENT.matcher(segment).matches()) {
+        return null;
+      }
+    }
+    return params;
+  }
+
+  private static String[] split(String path) {
+    return path.split("/", -1);
+  }
+
+  private void route(HttpServerRequest request, Bindings bindings) {
+    String path = request.path();
+    String[] segments = null;
+    PatternBinding best = null;
+    if (bindings.root != null) {
+      segments = split(path);
+      best = bindings.root.find(segments, 0);
+    }
+    // A regex added before the best match in the tree wins over it
+    for (PatternBinding binding: bindings.regexBindings) {
+      if (best != null && binding.order > best.order) {
+        break;
+      }
+      Matcher m = binding.pattern.matcher(path);
       if (m.matches()) {
         Map<String, String> params = new HashMap<>(m.groupCount());
         if (binding.paramNames != null) {
@@ -356,6 +394,19 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
         return;
       }
     }
+    if (best != null) {
+      if (!best.paramNames.isEmpty()) {
+        Map<String, String> params = new HashMap<>(best.paramNames.size());
+        for (int i = 0; i < segments.length; i++) {
+          if (best.segmentParams[i] != null) {
+            params.put(best.segmentParams[i], segments[i]);
+          }
+        }
+        request.params().add(params);
+      }
+      best.handler.handle(request);
+      return;
+    }
     if (noMatchHandler != null) {
       noMatchHandler.handle(request);
     } else {
@@ -369,6 +420,8 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
     final Pattern pattern;
     final Handler<HttpServerRequest> handler;
     final Set<String> paramNames;
+    int order;
+    String[] segmentParams;
 
     private PatternBinding(Pattern pattern, Set<String> paramNames, Handler<HttpServerRequest> handler) {
       this.pattern = pattern;
@@ -377,4 +430,85 @@ public class RouteMatcher implements Handler<HttpServerRequest> {
     }
   }
 
+  // The bindings of one HTTP method
+  private static class Bindings {
+    // The simple patterns, or null if there are none
+    Node root;
+    // The bindings which can't go in the tree, in the order they were added
+    final List<PatternBinding> regexBindings = new ArrayList<>();
+    int count;
+
+    // The simple pattern is null for regular expressions
+    void add(PatternBinding binding, String simplePattern) {
+      binding.order = count++;
+      String[] segmentParams = simplePattern == null ? null : treeSegments(simplePattern);
+      if (segmentParams == null) {
+        regexBindings.add(binding);
+        return;
+      }
+      binding.segmentParams = segmentParams;
+      if (root == null) {
+        root = new Node();
+      }
+      Node node = root;
+      String[] segments = split(simplePattern);
+      for (int i = 0; i < segmentParams.length; i++) {
+        node = segmentParams[i] != null ? node.paramChild() : node.literalChild(segments[i]);
+      }
+      // Only the first binding added for a given pattern can ever match
+      if (node.binding == null) {
+        node.binding = binding;
+      }
+    }
+  }
+
+  // A segment position in the tree. Each path segment either matches a literal child exactly or any non empty
+  // segment for the param child
+  private static class Node {
+    Map<String, Node> literals;
+    Node param;
+    PatternBinding binding;
+
+    Node literalChild(String segment) {
+      if (literals == null) {
+        literals = new HashMap<>();
+      }
+      Node child = literals.get(segment);
+      if (child == null) {
+        child = new Node();
+        literals.put(segment, child);
+      }
+      return child;
+    }
+
+    Node paramChild() {
+      if (param == null) {
+        param = new Node();
+      }
+      return param;
+    }
+
+    // Returns the first added binding matching the segments from index i, both children can match so the one
+    // added first wins
+    PatternBinding find(String[] segments, int i) {
+      if (i == segments.length) {
+        return binding;
+      }
+      PatternBinding best = null;
+      if (literals != null) {
+        Node child = literals.get(segments[i]);
+        if (child != null) {
+          best = child.find(segments, i + 1);
+        }
+      }
+      if (param != null && !segments[i].isEmpty()) {
+        PatternBinding candidate = param.find(segments, i + 1);
+        if (candidate != null && (best == null || candidate.order < best.order)) {
+          best = candidate;
+        }
+      }
+      return best;
+    }
+  }
+
 }
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http;
+
+import io.netty.buffer.Unpooled;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.file.impl.PathAdjuster;
+import org.vertx.java.core.http.impl.FileCache;
+import org.vertx.java.core.http.impl.MimeMapping;
+import org.vertx.java.core.impl.VertxInternal;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the files of a directory, the web root, for the GET and HEAD requests whose path names them.<p>
+ * The properties of the files are kept in an LRU cache, with the content of the small files, so a request for a
+ * file checked recently is answered without touching the disk. The responses carry an {@code ETag} and a
+ * {@code Last-Modified} header, and the requests made conditional with {@code If-None-Match} or
+ * {@code If-Modified-Since} are answered with a {@code 304 Not Modified} as long as the file hasn't changed.
+ * A cached file is checked again on disk once it has been in the cache for longer than the cache entry timeout.<p>
+ * A request with a single byte range in its {@code Range} header gets a {@code 206 Partial Content} response with
+ * that part of the file, written straight from the file to the connection like {@link HttpServerResponse#sendFile}.<p>
+ * When serving precompressed files is enabled and the request accepts gzip, a file with a {@code .gz} sibling is
+ * answered with the content of the sibling and a {@code Content-Encoding: gzip} header.<p>
+ * A path ending with a {@code /} serves the index page of the directory. Paths which go up out of the web root are
+ * refused with a {@code 403}.<p>
+ * Instances of this class are thread-safe, but must be configured before they are used<p>
+ */
+public class StaticFileHandler implements Handler<HttpServerRequest> {
+
+  public static final String DEFAULT_INDEX_PAGE = "index.html";
+  public static final int DEFAULT_MAX_CACHE_ENTRIES = 1000;
+  public static final long DEFAULT_MAX_CACHE_SIZE = 8 * 1024 * 1024;
+  public static final int DEFAULT_MAX_CACHED_FILE_SIZE = 64 * 1024;
+  public static final long DEFAULT_CACHE_ENTRY_TIMEOUT = 1000;
+
+  private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final Vertx vertx;
+  private final File webRoot;
+  private final FileCache cache;
+  private String indexPage = DEFAULT_INDEX_PAGE;
+  private int maxCachedFileSize = DEFAULT_MAX_CACHED_FILE_SIZE;
+  private long cacheEntryTimeout = TimeUnit.MILLISECONDS.toNanos(DEFAULT_CACHE_ENTRY_TIMEOUT);
+  private boolean servePrecompressed;
+  private long maxAge = -1;
+
+  /**
+   * Create a handler serving the files under {@code webRoot}, which is resolved like the files of
+   * {@link HttpServerResponse#sendFile}, with a cache of the default size
+   */
+  public StaticFileHandler(Vertx vertx, String webRoot) {
+    this(vertx, webRoot, DEFAULT_MAX_CACHE_ENTRIES, DEFAULT_MAX_CACHE_SIZE);
+  }
+
+  /**
+   * Create a handler serving the files under {@code webRoot}, whose cache holds at most {@code maxCacheEntries}
+   * files and {@code maxCacheSize} bytes of file content
+   */
+  public StaticFileHandler(Vertx vertx, String webRoot, int maxCacheEntries, long maxCacheSize) {
+    if (maxCacheEntries < 0 || maxCacheSize < 0) {
+      throw new IllegalArgumentException("maxCacheEntries and maxCacheSize must be >= 0");
+    }
+    this.vertx = vertx;
+    this.webRoot = new File(PathAdjuster.adjust((VertxInternal) vertx, webRoot)).getAbsoluteFile();
+    this.cache = new FileCache(maxCacheEntries, maxCacheSize);
+  }
+
+  /**
+   * Set the file served for the paths which end with a {@code /}. The default is {@code index.html}
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public StaticFileHandler setIndexPage(String indexPage) {
+    this.indexPage = indexPage;
+    return this;
+  }
+
+  /**
+   * Set the size in bytes of the largest file whose content is kept in the cache, the larger files are always
+   * streamed from disk. The default is 64 KB
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public StaticFileHandler setMaxCachedFileSize(int maxCachedFileSize) {
+    if (maxCachedFileSize < 0) {
+      throw new IllegalArgumentException("maxCachedFileSize must be >= 0");
+    }
+    this.maxCachedFileSize = maxCachedFileSize;
+    return this;
+  }
+
+  /**
+   * Set the time in ms during which the cached properties of a file are trusted without checking the file on disk
+   * again. The default is 1000 ms, {@code 0} checks the file for every request
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public StaticFileHandler setCacheEntryTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.cacheEntryTimeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+    return this;
+  }
+
+  /**
+   * If {@code servePrecompressed} is {@code true}, a request for a file which accepts gzip is answered with the
+   * {@code .gz} sibling of the file if there is one. The default is {@code false}
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public StaticFileHandler setServePrecompressed(boolean servePrecompressed) {
+    this.servePrecompressed = servePrecompressed;
+    return this;
+  }
+
+  /**
+   * Set the {@code max-age} in seconds of the {@code Cache-Control} header of the responses. The default is
+   * {@code -1}, which sends no {@code Cache-Control} header
+   * @return a reference to this, so multiple invocations can be chained together
+   */
+  public StaticFileHandler setMaxAge(long maxAge) {
+    this.maxAge = maxAge;
+    return this;
+  }
+
+  /**
+   * Forget all the cached files
+   */
+  public void clearCache() {
+    cache.clear();
+  }
+
+  @Override
+  public void handle(HttpServerRequest request) {
+    HttpServerResponse response = request.response();
+    String method = request.method();
+    boolean head = "HEAD".equals(method);
+    if (!head && !"GET".equals(method)) {
+      response.putHeader("Allow", "GET, HEAD");
+      sendStatus(response, 405, "Method Not Allowed");
+      return;
+    }
+    String path = decodePath(request.path());
+    if (path == null) {
+      sendStatus(response, 403, "Forbidden");
+      return;
+    }
+    if (path.endsWith("/")) {
+      path += indexPage;
+    }
+    FileCache.Entry entry = lookup(path);
+    if (!entry.exists) {
+      sendStatus(response, 404, "Not Found");
+      return;
+    }
+    String contentType = contentType(path);
+    if (contentType != null) {
+      response.putHeader("Content-Type", contentType);
+    }
+    if (maxAge >= 0) {
+      response.putHeader("Cache-Control", "public, max-age=" + maxAge);
+    }
+    String range = request.headers().get("Range");
+    if (servePrecompressed) {
+      response.putHeader("Vary", "Accept-Encoding");
+      // The ranges of a compressed file would not be the ranges of the file, so they are served from the file
+      if (range == null && acceptsGzip(request.headers().get("Accept-Encoding"))) {
+        FileCache.Entry gz = lookup(path + ".gz");
+        if (gz.exists) {
+          response.putHeader("Content-Encoding", "gzip");
+          send(request, response, gz, head, null);
+          return;
+        }
+      }
+    }
+    response.putHeader("Accept-Ranges", "bytes");
+    send(request, response, entry, head, range);
+  }
+
+  private void send(HttpServerRequest request, HttpServerResponse response, FileCache.Entry entry, boolean head,
+                    String range) {
+    response.putHeader("ETag", entry.etag);
+    response.putHeader("Last-Modified", entry.lastModifiedHeader);
+    if (notModified(request, entry)) {
+      sendStatus(response, 304, "Not Modified");
+      return;
+    }
+    long offset = 0;
+    long length = entry.length;
+    if (range != null && ifRangeMatches(request.headers().get("If-Range"), entry)) {
+      long[] bounds = parseRange(range, entry.length);
+      if (bounds != null) {
+        if (bounds.length == 0) {
+          response.putHeader("Content-Range", "bytes */" + entry.length);
+          sendStatus(response, 416, "Requested Range Not Satisfiable");
+          return;
+        }
+        offset = bounds[0];
+        length = bounds[1] - bounds[0] + 1;
+        response.setStatusCode(206).setStatusMessage("Partial Content");
+        response.putHeader("Content-Range", "bytes " + bounds[0] + '-' + bounds[1] + '/' + entry.length);
+      }
+    }
+    response.putHeader("Content-Length", String.valueOf(length));
+    if (head) {
+      response.end();
+      return;
+    }
+    byte[] content = entry.content();
+    if (content != null) {
+      // Each response wraps the cached bytes in its own buffer, nothing is copied
+      response.end(new Buffer(Unpooled.wrappedBuffer(content, (int) offset, (int) length)));
+    } else {
+      response.sendFile(entry.file.getPath(), offset, length);
+    }
+  }
+
+  private FileCache.Entry lookup(String path) {
+    FileCache.Entry entry = cache.get(path);
+    long now = System.nanoTime();
+    if (entry != null && now - entry.checked() < cacheEntryTimeout) {
+      return entry;
+    }
+    File file = new File(webRoot, path);
+    boolean exists = file.isFile();
+    long length = exists ? file.length() : 0;
+    long lastModified = exists ? file.lastModified() : 0;
+    if (entry != null && entry.exists == exists && entry.length == length && entry.lastModified == lastModified) {
+      entry.checked(now);
+      return entry;
+    }
+    if (exists) {
+      entry = new FileCache.Entry(path, file, true, length, lastModified,
+          '"' + Long.toHexString(length) + '-' + Long.toHexString(lastModified) + '"', formatDate(lastModified));
+    } else {
+      entry = new FileCache.Entry(path, file, false, 0, 0, null, null);
+    }
+    cache.put(entry);
+    if (exists && length <= maxCachedFileSize) {
+      loadContent(entry);
+    }
+    return entry;
+  }
+
+  // The content is read in the background, the requests stream the file from disk until it is cached
+  private void loadContent(final FileCache.Entry entry) {
+    vertx.fileSystem().readFile(entry.file.getPath(), new Handler<AsyncResult<Buffer>>() {
+      public void handle(AsyncResult<Buffer> res) {
+        if (res.succeeded()) {
+          byte[] content = res.result().getBytes();
+          // The file may have changed since it was checked
+          if (content.length == entry.length) {
+            cache.putContent(entry, content);
+          }
+        }
+      }
+    });
+  }
+
+  private static boolean notModified(HttpServerRequest request, FileCache.Entry entry) {
+    String ifNoneMatch = request.headers().get("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag: ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(entry.etag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    String ifModifiedSince = request.headers().get("If-Modified-Since");
+    if (ifModifiedSince != null) {
+      // Clients usually send back the Last-Modified header they were given
+      if (ifModifiedSince.equals(entry.lastModifiedHeader)) {
+        return true;
+      }
+      long since = parseDate(ifModifiedSince);
+      return since != -1 && entry.lastModified / 1000 <= since / 1000;
+    }
+    return false;
+  }
+
+  private static boolean ifRangeMatches(String ifRange, FileCache.Entry entry) {
+    return ifRange == null || ifRange.equals(entry.etag) || ifRange.equals(entry.lastModifiedHeader);
+  }
+
+  /**
+   * @return the first and last byte of the single range of {@code range}, an empty array if the range can't be
+   * satisfied, or null if the header must be ignored because it is malformed or has several ranges
+   */
+  private static long[] parseRange(String range, long length) {
+    if (!range.startsWith("bytes=") || range.indexOf(',') != -1) {
+      return null;
+    }
+    String spec = range.substring(6).trim();
+    int dash = spec.indexOf('-');
+    if (dash == -1) {
+      return null;
+    }
+    try {
+      long first;
+      long last;
+      if (dash == 0) {
+        long suffix = Long.parseLong(spec.substring(1));
+        if (suffix < 0) {
+          return null;
+        }
+        if (suffix == 0) {
+          return new long[0];
+        }
+        first = Math.max(0, length - suffix);
+        last = length - 1;
+      } else {
+        first = Long.parseLong(spec.substring(0, dash));
+        last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+        if (first < 0 || last < first) {
+          return null;
+        }
+      }
+      if (first >= length) {
+        return new long[0];
+      }
+      return new long[] { first, Math.min(last, length - 1) };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding: acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+        return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  // Decodes the path of the request, and returns null if it leaves the web root
+  private static String decodePath(String path) {
+    try {
+      // A + is a plain character in a path
+      path = URLDecoder.decode(path.replace("+", "%2B"), "UTF-8");
+    } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+      return null;
+    }
+    if (path.indexOf('\0') != -1 || path.indexOf('\\') != -1) {
+      return null;
+    }
+    for (String segment: path.split("/")) {
+      if (segment.equals("..")) {
+        return null;
+      }
+    }
+    return path.startsWith("/") ? path : '/' + path;
+  }
+
+  private static String contentType(String path) {
+    int li = path.lastIndexOf('.');
+    if (li != -1 && li != path.length() - 1) {
+      return MimeMapping.getMimeTypeForExtension(path.substring(li + 1));
+    }
+    return null;
+  }
+
+  private static void sendStatus(HttpServerResponse response, int code, String message) {
+    response.setStatusCode(code).setStatusMessage(message);
+    response.end();
+  }
+
+  private static String formatDate(long time) {
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format.format(new Date(time));
+  }
+
+  private static long parseDate(String date) {
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return format.parse(date).getTime();
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The access log of a server.<p>
+ * The event loops only copy the fields of each response into a ring of pre-allocated slots, the request line
+ * strings and the remote address are the ones the request already holds, so logging a response neither builds a
+ * String nor blocks. A background thread formats the entries in the Common Log Format, followed by the time taken
+ * in ms, and writes them to the file, which is rotated when it would exceed its maximum size. When the ring is full,
+ * because the disk can't keep up, the entries are dropped and counted in the stats of the server rather than
+ * holding up the event loops.
+ */
+class AccessLog implements Runnable {
+
+  private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+  // Must be a power of 2
+  private static final int CAPACITY = 8192;
+  private static final int MASK = CAPACITY - 1;
+  static final int MAX_BACKUPS = 5;
+  private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final long maxFileSize;
+  private final HttpServerMetrics metrics;
+  private final Thread thread;
+
+  // An entry is published once the slot of sequence n holds n + 1
+  private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+  private final long[] timestamps = new long[CAPACITY];
+  private final long[] durations = new long[CAPACITY];
+  private final long[] sizes = new long[CAPACITY];
+  private final int[] statuses = new int[CAPACITY];
+  private final String[] methods = new String[CAPACITY];
+  private final String[] uris = new String[CAPACITY];
+  private final HttpVersion[] versions = new HttpVersion[CAPACITY];
+  private final InetSocketAddress[] addresses = new InetSocketAddress[CAPACITY];
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head;
+  private volatile boolean closed;
+
+  // Only used by the background thread
+  private final StringBuilder line = new StringBuilder(256);
+  private final ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+  private long formattedSecond = -1;
+  private String formattedDate;
+  private FileChannel channel;
+  private long fileSize;
+
+  AccessLog(File file, long maxFileSize, HttpServerMetrics metrics) throws IOException {
+    this.file = file;
+    this.maxFileSize = maxFileSize;
+    this.metrics = metrics;
+    open();
+    thread = new Thread(this, "vert.x-access-log-" + file.getName());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Record a response. Can be called from any thread, never blocks.
+   */
+  void log(InetSocketAddress address, String method, String uri, HttpVersion version, int status, long size,
+           long duration) {
+    long seq;
+    do {
+      seq = tail.get();
+      if (closed || seq - head >= CAPACITY) {
+        metrics.accessLogDropped();
+        return;
+      }
+    } while (!tail.compareAndSet(seq, seq + 1));
+    int i = (int) seq & MASK;
+    timestamps[i] = System.currentTimeMillis();
+    durations[i] = duration;
+    sizes[i] = size;
+    statuses[i] = status;
+    methods[i] = method;
+    uris[i] = uri;
+    versions[i] = version;
+    addresses[i] = address;
+    published.lazySet(i, seq + 1);
+    if (seq - head == CAPACITY / 2) {
+      // Don't wait for the next flush when the load is high, only one producer gets this sequence
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Write the entries logged so far and close the file, the entries logged from now on are dropped.
+   */
+  void close() {
+    closed = true;
+    LockSupport.unpark(thread);
+  }
+
+  public void run() {
+    while (true) {
+      // Read before draining, so the entries published before the close are all written
+      boolean last = closed;
+      try {
+        drain();
+        flush();
+      } catch (IOException e) {
+        log.error("Failed to write the access log " + file, e);
+        closeChannel();
+      }
+      if (last) {
+        closeChannel();
+        return;
+      }
+      LockSupport.parkNanos(this, FLUSH_INTERVAL);
+    }
+  }
+
+  private void drain() throws IOException {
+    long seq = head;
+    while (true) {
+      int i = (int) seq & MASK;
+      if (published.get(i) != seq + 1) {
+        return;
+      }
+      boolean formatted;
+      try {
+        format(i);
+        formatted = true;
+      } catch (RuntimeException e) {
+        // A bad entry mustn't stop the thread, or nothing would be logged any more
+        log.error("Failed to format an access log entry, skipping it", e);
+        formatted = false;
+      }
+      // Release the references, so the requests can be collected
+      methods[i] = null;
+      uris[i] = null;
+      versions[i] = null;
+      addresses[i] = null;
+      head = ++seq;
+      if (formatted) {
+        append();
+      }
+    }
+  }
+
+  private void format(int i) {
+    StringBuilder sb = line;
+    sb.setLength(0);
+    InetSocketAddress address = addresses[i];
+    sb.append(host(address));
+    sb.append(" - - [").append(date(timestamps[i])).append("] \"").append(methods[i]).append(' ');
+    appendEscaped(sb, uris[i]);
+    sb.append(' ').append(versions[i].text()).append("\" ").append(statuses[i]).append(' ');
+    if (sizes[i] == 0) {
+      sb.append('-');
+    } else {
+      sb.append(sizes[i]);
+    }
+    sb.append(' ').append(TimeUnit.NANOSECONDS.toMillis(durations[i])).append('\n');
+  }
+
+  // An unresolved address has no IP address, only the host name it was created with
+  private static String host(InetSocketAddress address) {
+    if (address == null) {
+      return "-";
+    }
+    InetAddress ip = address.getAddress();
+    return ip != null ? ip.getHostAddress() : address.getHostString();
+  }
+
+  private String date(long timestamp) {
+    long second = timestamp / 1000;
+    if (second != formattedSecond) {
+      formattedSecond = second;
+      formattedDate = dateFormat.format(new Date(timestamp));
+    }
+    return formattedDate;
+  }
+
+  // The URI comes from the client, so it mustn't be able to forge lines or fields
+  private static void appendEscaped(StringBuilder sb, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c < 0x20 || c == 0x7f || c == '"' || c == '\\') {
+        sb.append("\\x").append(Character.forDigit(c >> 4 & 0xf, 16)).append(Character.forDigit(c & 0xf, 16));
+      } else {
+        sb.append(c);
+      }
+    }
+  }
+
+  private void append() throws IOException {
+    byte[] bytes = line.toString().getBytes(CharsetUtil.UTF_8);
+    if (channel == null) {
+      open();
+    }
+    long size = fileSize + out.position();
+    if (maxFileSize > 0 && size > 0 && size + bytes.length > maxFileSize) {
+      flush();
+      rotate();
+    }
+    if (bytes.length > out.remaining()) {
+      flush();
+    }
+    if (bytes.length > out.remaining()) {
+      fileSize += channel.write(ByteBuffer.wrap(bytes));
+    } else {
+      out.put(bytes);
+    }
+  }
+
+  private void flush() throws IOException {
+    if (out.position() == 0 || channel == null) {
+      return;
+    }
+    out.flip();
+    try {
+      while (out.hasRemaining()) {
+        fileSize += channel.write(out);
+      }
+    } finally {
+      out.clear();
+    }
+  }
+
+  /**
+   * Shift the backups, the oldest one is deleted, and start a new file
+   */
+  private void rotate() throws IOException {
+    closeChannel();
+    Files.deleteIfExists(backup(MAX_BACKUPS));
+    for (int n = MAX_BACKUPS - 1; n >= 1; n--) {
+      Path backup = backup(n);
+      if (Files.exists(backup)) {
+        Files.move(backup, backup(n + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    Files.move(file.toPath(), backup(1), StandardCopyOption.REPLACE_EXISTING);
+    open();
+  }
+
+  private Path backup(int n) {
+    return new File(file.getPath() + "." + n).toPath();
+  }
+
+  private void open() throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    channel = new RandomAccessFile(file, "rw").getChannel();
+    fileSize = channel.size();
+    channel.position(fileSize);
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ignore) {
+      }
+      channel = null;
+    }
+  }
+}
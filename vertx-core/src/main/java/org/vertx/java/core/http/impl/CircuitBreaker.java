@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the failure rate of the requests of a client, and fails its requests fast while the server looks down.<p>
+ * The outcomes are counted in a window split in buckets, the oldest bucket is dropped as time passes. When the
+ * window holds enough requests and the share of failures reaches the failure rate, the circuit opens: the requests
+ * fail without a connection being taken from the pool. Once the open time has passed the circuit is half open, a
+ * single trial request goes through. The circuit closes again if it succeeds, otherwise it opens for another open
+ * time. A trial which doesn't complete within the open time is given up, and another one is let through.<p>
+ * The requests of a client can be made from several event loops, so the breaker is synchronized.
+ */
+class CircuitBreaker {
+
+  private static final int BUCKETS = 10;
+  private static final int CLOSED = 0;
+  private static final int OPEN = 1;
+  private static final int HALF_OPEN = 2;
+
+  private final int failureRate;
+  private final int minRequests;
+  private final long bucketLength;
+  private final long openTime;
+  private final int[] successes = new int[BUCKETS];
+  private final int[] failures = new int[BUCKETS];
+  private int bucket;
+  private long bucketStart = System.nanoTime();
+  private int state = CLOSED;
+  private long stateChanged;
+
+  CircuitBreaker(int failureRate, int minRequests, long window, long openTime) {
+    this.failureRate = failureRate;
+    this.minRequests = minRequests;
+    this.bucketLength = Math.max(1, TimeUnit.MILLISECONDS.toNanos(window) / BUCKETS);
+    this.openTime = TimeUnit.MILLISECONDS.toNanos(openTime);
+  }
+
+  /**
+   * @return true if a request can be sent, false if it must fail fast
+   */
+  synchronized boolean allowRequest() {
+    if (state == CLOSED) {
+      return true;
+    }
+    long now = System.nanoTime();
+    if (now - stateChanged < openTime) {
+      return false;
+    }
+    // The first request after the open time, or after a trial which never completed, is the trial
+    state = HALF_OPEN;
+    stateChanged = now;
+    return true;
+  }
+
+  // While the circuit is open the outcomes can only be those of requests sent before it opened, they are ignored
+
+  synchronized void success() {
+    if (state == HALF_OPEN) {
+      state = CLOSED;
+      reset(System.nanoTime());
+    } else if (state == CLOSED) {
+      successes[advance(System.nanoTime())]++;
+    }
+  }
+
+  synchronized void failure() {
+    long now = System.nanoTime();
+    if (state == HALF_OPEN) {
+      open(now);
+      return;
+    } else if (state == OPEN) {
+      return;
+    }
+    failures[advance(now)]++;
+    int total = 0;
+    int failed = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += successes[i] + failures[i];
+      failed += failures[i];
+    }
+    if (total >= minRequests && failed * 100L >= (long) failureRate * total) {
+      open(now);
+    }
+  }
+
+  synchronized boolean isOpen() {
+    return state != CLOSED;
+  }
+
+  private void open(long now) {
+    state = OPEN;
+    stateChanged = now;
+  }
+
+  // Moves the window forward to now, clearing the buckets which fell out of it, and returns the current bucket
+  private int advance(long now) {
+    long elapsed = (now - bucketStart) / bucketLength;
+    if (elapsed >= BUCKETS) {
+      reset(now);
+    } else {
+      for (long i = 0; i < elapsed; i++) {
+        bucket = (bucket + 1) % BUCKETS;
+        successes[bucket] = 0;
+        failures[bucket] = 0;
+      }
+      bucketStart += elapsed * bucketLength;
+    }
+    return bucket;
+  }
+
+  private void reset(long now) {
+    for (int i = 0; i < BUCKETS; i++) {
+      successes[i] = 0;
+      failures[i] = 0;
+    }
+    bucket = 0;
+    bucketStart = now;
+  }
+}
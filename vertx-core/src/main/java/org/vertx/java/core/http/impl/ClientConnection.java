@@ -61,7 +61,11 @@ class ClientConnection extends ConnectionBase {
   // Requests can be pipelined so we need a queue to keep track of requests
   private final Queue<DefaultHttpClientRequest> requests = new ArrayDeque<>();
   private volatile DefaultHttpClientResponse currentResponse;
+  private DefaultContext responseContext;
   private DefaultWebSocket ws;
+  private final long created = System.nanoTime();
+  // When the last response ended, read by the pool from other threads
+  private volatile long lastUsed = created;
 
   ClientConnection(VertxInternal vertx, DefaultHttpClient client, Channel channel, boolean ssl, String host,
                    int port,
@@ -232,6 +236,13 @@ class ClientConnection extends ConnectionBase {
     }
   }
 
+  /**
+   * Close the connection instead of returning it to the pool
+   */
+  void evict() {
+    super.close();
+  }
+
   boolean isClosed() {
     return !channel.isOpen();
   }
@@ -240,6 +251,20 @@ class ClientConnection extends ConnectionBase {
     return requests.size();
   }
 
+  /**
+   * @return true if the connection is closed, or if it has nothing to do and has either been idle for longer than
+   * {@code idleTimeout} or been open for longer than {@code maxLifetime}, both in ns with 0 meaning no limit
+   */
+  boolean isExpired(long now, long idleTimeout, long maxLifetime) {
+    if (isClosed()) {
+      return true;
+    }
+    if (!requests.isEmpty()) {
+      return false;
+    }
+    return (idleTimeout > 0 && now - lastUsed >= idleTimeout) || (maxLifetime > 0 && now - created >= maxLifetime);
+  }
+
   //TODO - combine these with same in ServerConnection and NetSocket
   @Override
   public void handleInterestedOpsChanged() {
@@ -269,14 +294,16 @@ class ClientConnection extends ConnectionBase {
     if (req == null) {
       throw new IllegalStateException("No response handler");
     }
-    setContext();
+    // A pooled connection can be shared by the contexts of an event loop, the response belongs to the request's
+    responseContext = req.getContext();
+    vertx.setContext(responseContext);
     DefaultHttpClientResponse nResp = new DefaultHttpClientResponse(vertx, req, this, resp);
     currentResponse = nResp;
     req.handleResponse(nResp);
   }
 
   void handleResponseChunk(Buffer buff) {
-    setContext();
+    vertx.setContext(responseContext);
     try {
       currentResponse.handleChunk(buff);
     } catch (Throwable t) {
@@ -285,7 +312,8 @@ class ClientConnection extends ConnectionBase {
   }
 
   void handleResponseEnd(LastHttpContent trailer) {
-    setContext();
+    lastUsed = System.nanoTime();
+    vertx.setContext(responseContext);
     try {
       currentResponse.handleEnd(trailer);
     } catch (Throwable t) {
@@ -293,6 +321,8 @@ class ClientConnection extends ConnectionBase {
     }
     if (!keepAlive) {
       close();
+    } else {
+      client.responseEnded(this);
     }
   }
 
@@ -308,6 +338,11 @@ class ClientConnection extends ConnectionBase {
     if (ws != null) {
       ws.handleClosed();
     }
+    // The requests which were sent, or pipelined behind them, won't get a response now
+    for (DefaultHttpClientRequest req: requests) {
+      req.handleConnectionClosed();
+    }
+    requests.clear();
   }
 
   protected DefaultContext getContext() {
@@ -356,6 +391,9 @@ class ClientConnection extends ConnectionBase {
 
     // remove old http handlers and replace the old handler with one that handle plain sockets
     channel.pipeline().remove("codec");
+    if (channel.pipeline().get("inflater") != null) {
+      channel.pipeline().remove("inflater");
+    }
     channel.pipeline().replace("handler", "handler", new VertxNetHandler(client.vertx, connectionMap) {
       @Override
       public void exceptionCaught(ChannelHandlerContext chctx, Throwable t) throws Exception {
@@ -26,6 +26,8 @@ import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
@@ -48,24 +50,34 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DefaultHttpClient implements HttpClient {
 
   private static final ExceptionDispatchHandler EXCEPTION_DISPATCH_HANDLER = new ExceptionDispatchHandler();
+  private static final long MIN_SWEEP_INTERVAL = 100;
+  private static final int DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS = 20;
+  private static final long DEFAULT_CIRCUIT_BREAKER_WINDOW = 10000;
+  private static final long DEFAULT_CIRCUIT_BREAKER_OPEN_TIME = 5000;
 
   final VertxInternal vertx;
   final Map<Channel, ClientConnection> connectionMap = new ConcurrentHashMap<>();
 
   private final DefaultContext actualCtx;
   private final TCPSSLHelper tcpHelper = new TCPSSLHelper();
-  private Bootstrap bootstrap;
+  private final Map<EventLoop, Bootstrap> bootstraps = new ConcurrentHashMap<>();
   private Handler<Throwable> exceptionHandler;
   private int port = 80;
   private String host = "localhost";
   private String ip = "127.0.0.1";
   
-  private final HttpPool pool = new PriorityHttpConnectionPool()  {
-    protected void connect(Handler<ClientConnection> connectHandler, Handler<Throwable> connectErrorHandler, DefaultContext context) {
-      internalConnect(connectHandler, connectErrorHandler);
-    }
-  };
+  private HttpPool pool = createPool(false);
+  private boolean poolPerEventLoop;
+  private long sweepTimer = -1;
+  private final Map<EventLoop, RequestTimeouts> timeouts = new ConcurrentHashMap<>();
+  private long requestTimeout;
+  private int circuitBreakerFailureRate;
+  private int circuitBreakerMinRequests = DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS;
+  private long circuitBreakerWindow = DEFAULT_CIRCUIT_BREAKER_WINDOW;
+  private long circuitBreakerOpenTime = DEFAULT_CIRCUIT_BREAKER_OPEN_TIME;
+  private CircuitBreaker circuitBreaker;
   private boolean keepAlive = true;
+  private boolean tryUseCompression;
   private boolean configurable = true;
   private boolean closed;
   private final Closeable closeHook = new Closeable() {
@@ -103,6 +115,193 @@ public class DefaultHttpClient implements HttpClient {
     return pool.getMaxPoolSize();
   }
 
+  @Override
+  public DefaultHttpClient setPipeliningDepth(int depth) {
+    checkClosed();
+    checkConfigurable();
+    if (depth < 0) {
+      throw new IllegalArgumentException("depth must be >= 0");
+    }
+    pool.setPipeliningDepth(depth);
+    return this;
+  }
+
+  @Override
+  public int getPipeliningDepth() {
+    checkClosed();
+    return pool.getPipeliningDepth();
+  }
+
+  @Override
+  public DefaultHttpClient setPoolPerEventLoop(boolean poolPerEventLoop) {
+    checkClosed();
+    checkConfigurable();
+    if (poolPerEventLoop != this.poolPerEventLoop) {
+      HttpPool newPool = createPool(poolPerEventLoop);
+      newPool.setMaxPoolSize(pool.getMaxPoolSize());
+      newPool.setPipeliningDepth(pool.getPipeliningDepth());
+      newPool.setIdleTimeout(pool.getIdleTimeout());
+      newPool.setMaxLifetime(pool.getMaxLifetime());
+      pool = newPool;
+      this.poolPerEventLoop = poolPerEventLoop;
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isPoolPerEventLoop() {
+    checkClosed();
+    return poolPerEventLoop;
+  }
+
+  @Override
+  public DefaultHttpClient setConnectionIdleTimeout(long timeout) {
+    checkClosed();
+    checkConfigurable();
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    pool.setIdleTimeout(timeout);
+    scheduleSweep();
+    return this;
+  }
+
+  @Override
+  public long getConnectionIdleTimeout() {
+    checkClosed();
+    return pool.getIdleTimeout();
+  }
+
+  @Override
+  public DefaultHttpClient setConnectionMaxLifetime(long lifetime) {
+    checkClosed();
+    checkConfigurable();
+    if (lifetime < 0) {
+      throw new IllegalArgumentException("lifetime must be >= 0");
+    }
+    pool.setMaxLifetime(lifetime);
+    scheduleSweep();
+    return this;
+  }
+
+  @Override
+  public long getConnectionMaxLifetime() {
+    checkClosed();
+    return pool.getMaxLifetime();
+  }
+
+  @Override
+  public DefaultHttpClient setRequestTimeout(long timeout) {
+    checkClosed();
+    checkConfigurable();
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.requestTimeout = timeout;
+    return this;
+  }
+
+  @Override
+  public long getRequestTimeout() {
+    checkClosed();
+    return requestTimeout;
+  }
+
+  @Override
+  public DefaultHttpClient setCircuitBreakerFailureRate(int percent) {
+    checkClosed();
+    checkConfigurable();
+    if (percent < 0 || percent > 100) {
+      throw new IllegalArgumentException("percent must be between 0 and 100");
+    }
+    this.circuitBreakerFailureRate = percent;
+    createCircuitBreaker();
+    return this;
+  }
+
+  @Override
+  public int getCircuitBreakerFailureRate() {
+    checkClosed();
+    return circuitBreakerFailureRate;
+  }
+
+  @Override
+  public DefaultHttpClient setCircuitBreakerMinRequests(int minRequests) {
+    checkClosed();
+    checkConfigurable();
+    if (minRequests < 1) {
+      throw new IllegalArgumentException("minRequests must be >= 1");
+    }
+    this.circuitBreakerMinRequests = minRequests;
+    createCircuitBreaker();
+    return this;
+  }
+
+  @Override
+  public int getCircuitBreakerMinRequests() {
+    checkClosed();
+    return circuitBreakerMinRequests;
+  }
+
+  @Override
+  public DefaultHttpClient setCircuitBreakerWindow(long window) {
+    checkClosed();
+    checkConfigurable();
+    if (window < 1) {
+      throw new IllegalArgumentException("window must be >= 1");
+    }
+    this.circuitBreakerWindow = window;
+    createCircuitBreaker();
+    return this;
+  }
+
+  @Override
+  public long getCircuitBreakerWindow() {
+    checkClosed();
+    return circuitBreakerWindow;
+  }
+
+  @Override
+  public DefaultHttpClient setCircuitBreakerOpenTime(long openTime) {
+    checkClosed();
+    checkConfigurable();
+    if (openTime < 0) {
+      throw new IllegalArgumentException("openTime must be >= 0");
+    }
+    this.circuitBreakerOpenTime = openTime;
+    createCircuitBreaker();
+    return this;
+  }
+
+  @Override
+  public long getCircuitBreakerOpenTime() {
+    checkClosed();
+    return circuitBreakerOpenTime;
+  }
+
+  @Override
+  public boolean isCircuitBreakerOpen() {
+    checkClosed();
+    return circuitBreaker != null && circuitBreaker.isOpen();
+  }
+
+  @Override
+  public DefaultHttpClient openConnections(int count, Handler<AsyncResult<Void>> doneHandler) {
+    checkClosed();
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0");
+    }
+    configurable = false;
+    pool.openConnections(count, doneHandler, requestContext());
+    return this;
+  }
+
+  @Override
+  public HttpPoolStats getPoolStats() {
+    checkClosed();
+    return pool.getStats();
+  }
+
   @Override
   public DefaultHttpClient setKeepAlive(boolean keepAlive) {
     checkClosed();
@@ -117,6 +316,20 @@ public class DefaultHttpClient implements HttpClient {
     return keepAlive;
   }
 
+  @Override
+  public DefaultHttpClient setTryUseCompression(boolean tryUseCompression) {
+    checkClosed();
+    checkConfigurable();
+    this.tryUseCompression = tryUseCompression;
+    return this;
+  }
+
+  @Override
+  public boolean getTryUseCompression() {
+    checkClosed();
+    return tryUseCompression;
+  }
+
   @Override
   public DefaultHttpClient setPort(int port) {
     checkClosed();
@@ -256,7 +469,13 @@ public class DefaultHttpClient implements HttpClient {
   @Override
   public void close() {
     checkClosed();
+    if (sweepTimer != -1) {
+      vertx.cancelTimer(sweepTimer);
+    }
     pool.close();
+    for (RequestTimeouts requestTimeouts : timeouts.values()) {
+      requestTimeouts.close();
+    }
     for (ClientConnection conn : connectionMap.values()) {
       conn.close();
     }
@@ -488,14 +707,74 @@ public class DefaultHttpClient implements HttpClient {
     return tcpHelper.isUsePooledBuffers();
   }
 
+  @Override
+  public HttpClient setAllocatorPolicy(AllocatorPolicy policy) {
+    checkClosed();
+    checkConfigurable();
+    tcpHelper.setAllocatorPolicy(policy);
+    return this;
+  }
+
+  @Override
+  public AllocatorPolicy getAllocatorPolicy() {
+    checkClosed();
+    return tcpHelper.getAllocatorPolicy();
+  }
+
+  @Override
+  public HttpClient setAdaptiveReceiveSizing(boolean adaptive) {
+    checkClosed();
+    checkConfigurable();
+    tcpHelper.setAdaptiveReceiveSizing(adaptive);
+    return this;
+  }
+
+  @Override
+  public boolean isAdaptiveReceiveSizing() {
+    checkClosed();
+    return tcpHelper.isAdaptiveReceiveSizing();
+  }
+
+  @Override
+  public AllocatorStats getAllocatorStats() {
+    return tcpHelper.getAllocatorStats();
+  }
+
   void getConnection(Handler<ClientConnection> handler, Handler<Throwable> connectionExceptionHandler, DefaultContext context) {
     pool.getConnection(handler, connectionExceptionHandler, context);
   }
 
+  CircuitBreaker circuitBreaker() {
+    return circuitBreaker;
+  }
+
+  RequestTimeouts.Timeout scheduleTimeout(DefaultHttpClientRequest request, long timeoutMs) {
+    EventLoop eventLoop = request.getContext().getEventLoop();
+    RequestTimeouts requestTimeouts = timeouts.get(eventLoop);
+    if (requestTimeouts == null) {
+      synchronized (timeouts) {
+        requestTimeouts = timeouts.get(eventLoop);
+        if (requestTimeouts == null) {
+          requestTimeouts = new RequestTimeouts(eventLoop);
+          timeouts.put(eventLoop, requestTimeouts);
+        }
+      }
+    }
+    return requestTimeouts.schedule(request, timeoutMs);
+  }
+
   void returnConnection(final ClientConnection conn) {
     pool.returnConnection(conn);
   }
 
+  void responseEnded(ClientConnection conn) {
+    pool.responseEnded(conn);
+  }
+
+  Handler<Throwable> exceptionHandler() {
+    return exceptionHandler;
+  }
+
   void handleException(Exception e) {
     if (exceptionHandler != null) {
       exceptionHandler.handle(e);
@@ -511,39 +790,9 @@ public class DefaultHttpClient implements HttpClient {
     return vertx;
   }
 
-  void internalConnect(final Handler<ClientConnection> connectHandler, final Handler<Throwable> connectErrorHandler) {
-
-    if (bootstrap == null) {
-      // Share the event loop thread to also serve the HttpClient's network traffic.
-      VertxEventLoopGroup pool = new VertxEventLoopGroup();
-      pool.addWorker(actualCtx.getEventLoop());
-      bootstrap = new Bootstrap();
-      bootstrap.group(pool);
-      bootstrap.channel(NioSocketChannel.class);
-      tcpHelper.checkSSL(vertx);
-
-      bootstrap.handler(new ChannelInitializer<Channel>() {
-        @Override
-        protected void initChannel(Channel ch) throws Exception {
-          ChannelPipeline pipeline = ch.pipeline();
-          pipeline.addLast("exceptionDispatcher", EXCEPTION_DISPATCH_HANDLER);
-
-          if (tcpHelper.isSSL()) {
-            SSLEngine engine = tcpHelper.getSSLContext().createSSLEngine(host, port);
-            if (tcpHelper.isVerifyHost()) {
-              SSLParameters sslParameters = engine.getSSLParameters();
-              sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
-              engine.setSSLParameters(sslParameters);
-            }
-            engine.setUseClientMode(true); //We are on the client side of the connection
-            pipeline.addLast("ssl", new SslHandler(engine));
-          }
-
-          pipeline.addLast("codec", new HttpClientCodec());
-          pipeline.addLast("handler", new ClientHandler());
-        }
-      });
-    }
+  void internalConnect(final DefaultContext context, final Handler<ClientConnection> connectHandler,
+                       final Handler<Throwable> connectErrorHandler) {
+    Bootstrap bootstrap = bootstrap(context.getEventLoop());
     tcpHelper.applyConnectionOptions(bootstrap);
     ChannelFuture future;
     if ("127.0.0.1".equals(ip) && !"localhost".equalsIgnoreCase(host)){
@@ -566,25 +815,132 @@ public class DefaultHttpClient implements HttpClient {
               @Override
               public void operationComplete(Future<Channel> future) throws Exception {
                 if (future.isSuccess()) {
-                  connected(ch, connectHandler);
+                  connected(ch, context, connectHandler);
                 } else {
-                  failed(ch, connectErrorHandler, new SSLHandshakeException("Failed to create SSL connection"));
+                  failed(ch, context, connectErrorHandler, new SSLHandshakeException("Failed to create SSL connection"));
                 }
               }
             });
           } else {
-            connected(ch, connectHandler);
+            connected(ch, context, connectHandler);
           }
         } else {
-          failed(ch, connectErrorHandler, channelFuture.cause());
+          failed(ch, context, connectErrorHandler, channelFuture.cause());
         }
       }
     });
   }
 
+  private Bootstrap bootstrap(EventLoop eventLoop) {
+    Bootstrap bootstrap = bootstraps.get(eventLoop);
+    if (bootstrap != null) {
+      return bootstrap;
+    }
+    synchronized (bootstraps) {
+      bootstrap = bootstraps.get(eventLoop);
+      if (bootstrap == null) {
+        if (bootstraps.isEmpty()) {
+          tcpHelper.checkSSL(vertx);
+        }
+        bootstrap = createBootstrap(eventLoop);
+        bootstraps.put(eventLoop, bootstrap);
+      }
+      return bootstrap;
+    }
+  }
+
+  private Bootstrap createBootstrap(EventLoop eventLoop) {
+    // Share the event loop thread to also serve the HttpClient's network traffic.
+    VertxEventLoopGroup pool = new VertxEventLoopGroup();
+    pool.addWorker(eventLoop);
+    Bootstrap bootstrap = new Bootstrap();
+    bootstrap.group(pool);
+    bootstrap.channel(NioSocketChannel.class);
+
+    bootstrap.handler(new ChannelInitializer<Channel>() {
+      @Override
+      protected void initChannel(Channel ch) throws Exception {
+        ChannelPipeline pipeline = ch.pipeline();
+        pipeline.addLast("exceptionDispatcher", EXCEPTION_DISPATCH_HANDLER);
+
+        if (tcpHelper.isSSL()) {
+          SSLEngine engine = tcpHelper.getSSLContext().createSSLEngine(host, port);
+          if (tcpHelper.isVerifyHost()) {
+            SSLParameters sslParameters = engine.getSSLParameters();
+            sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+            engine.setSSLParameters(sslParameters);
+          }
+          engine.setUseClientMode(true); //We are on the client side of the connection
+          pipeline.addLast("ssl", new SslHandler(engine));
+        }
+
+        pipeline.addLast("codec", new HttpClientCodec());
+        if (tryUseCompression) {
+          // Inflates gzip and deflate encoded responses as they arrive
+          pipeline.addLast("inflater", new HttpContentInflater());
+        }
+        pipeline.addLast("handler", new ClientHandler());
+      }
+    });
+    return bootstrap;
+  }
+
+  // The pool is swept at half the shortest of its time limits, so a connection is closed at most half a limit late
+  private void scheduleSweep() {
+    if (sweepTimer != -1) {
+      vertx.cancelTimer(sweepTimer);
+      sweepTimer = -1;
+    }
+    long idleTimeout = pool.getIdleTimeout();
+    long maxLifetime = pool.getMaxLifetime();
+    long limit = idleTimeout == 0 ? maxLifetime : maxLifetime == 0 ? idleTimeout : Math.min(idleTimeout, maxLifetime);
+    if (limit > 0) {
+      sweepTimer = vertx.setPeriodic(Math.max(MIN_SWEEP_INTERVAL, limit / 2), new Handler<Long>() {
+        public void handle(Long timerID) {
+          pool.evictExpired();
+        }
+      });
+    }
+  }
+
+  private void createCircuitBreaker() {
+    circuitBreaker = circuitBreakerFailureRate == 0 ? null : new CircuitBreaker(circuitBreakerFailureRate,
+        circuitBreakerMinRequests, circuitBreakerWindow, circuitBreakerOpenTime);
+  }
+
+  private HttpPool createPool(boolean perEventLoop) {
+    if (perEventLoop) {
+      return new EventLoopHttpConnectionPool() {
+        protected void connect(Handler<ClientConnection> connectHandler, Handler<Throwable> connectErrorHandler, DefaultContext context) {
+          internalConnect(context, connectHandler, connectErrorHandler);
+        }
+      };
+    }
+    return new PriorityHttpConnectionPool()  {
+      protected void connect(Handler<ClientConnection> connectHandler, Handler<Throwable> connectErrorHandler, DefaultContext context) {
+        internalConnect(actualCtx, connectHandler, connectErrorHandler);
+      }
+    };
+  }
+
   private HttpClientRequest doRequest(String method, String uri, Handler<HttpClientResponse> responseHandler) {
     configurable = false;
-    return new DefaultHttpClientRequest(this, method, uri, responseHandler, actualCtx);
+    DefaultHttpClientRequest req = new DefaultHttpClientRequest(this, method, uri, responseHandler, requestContext());
+    if (requestTimeout > 0) {
+      req.setTimeout(requestTimeout);
+    }
+    return req;
+  }
+
+  // With a pool per event loop the requests made from an event loop are handled on that event loop
+  private DefaultContext requestContext() {
+    if (poolPerEventLoop) {
+      DefaultContext context = vertx.getContext();
+      if (context instanceof EventLoopContext) {
+        return context;
+      }
+    }
+    return actualCtx;
   }
 
   private final void checkClosed() {
@@ -599,37 +955,40 @@ public class DefaultHttpClient implements HttpClient {
     }
   }
 
-  private void connected(final Channel ch, final Handler<ClientConnection> connectHandler) {
-    actualCtx.execute(ch.eventLoop(), new Runnable() {
+  private void connected(final Channel ch, final DefaultContext context, final Handler<ClientConnection> connectHandler) {
+    context.execute(ch.eventLoop(), new Runnable() {
       public void run() {
-        createConn(ch, connectHandler);
+        createConn(ch, context, connectHandler);
       }
     });
   }
 
-  private void createConn(Channel ch, Handler<ClientConnection> connectHandler) {
+  private void createConn(Channel ch, final DefaultContext context, Handler<ClientConnection> connectHandler) {
     final ClientConnection conn = new ClientConnection(vertx, DefaultHttpClient.this, ch,
-        tcpHelper.isSSL(), host, port, keepAlive, actualCtx);
+        tcpHelper.isSSL(), host, port, keepAlive, context);
     conn.closeHandler(new VoidHandler() {
       public void handle() {
         // The connection has been closed - tell the pool about it, this allows the pool to create more
         // connections. Note the pool doesn't actually remove the connection, when the next person to get a connection
         // gets the closed on, they will check if it's closed and if so get another one.
-        pool.connectionClosed();
+        pool.connectionClosed(context);
       }
     });
     connectionMap.put(ch, conn);
     connectHandler.handle(conn);
   }
 
-  private void failed(final Channel ch, final Handler<Throwable> connectionExceptionHandler,
+  private void failed(final Channel ch, final DefaultContext context, final Handler<Throwable> connectionExceptionHandler,
                       final Throwable t) {
     // If no specific exception handler is provided, fall back to the HttpClient's exception handler.
     final Handler<Throwable> exHandler = connectionExceptionHandler == null ? exceptionHandler : connectionExceptionHandler;
 
-    actualCtx.execute(ch.eventLoop(), new Runnable() {
+    context.execute(ch.eventLoop(), new Runnable() {
       public void run() {
-        pool.connectionClosed();
+        if (circuitBreaker != null) {
+          circuitBreaker.failure();
+        }
+        pool.connectionClosed(context);
         try {
           ch.close();
         } catch (Exception ignore) {
@@ -637,7 +996,7 @@ public class DefaultHttpClient implements HttpClient {
         if (exHandler != null) {
           exHandler.handle(t);
         } else {
-          actualCtx.reportException(t);
+          context.reportException(t);
         }
       }
     });
@@ -652,7 +1011,7 @@ public class DefaultHttpClient implements HttpClient {
 
     @Override
     protected DefaultContext getContext(ClientConnection connection) {
-      return actualCtx;
+      return connection == null ? actualCtx : connection.getContext();
     }
 
     @Override
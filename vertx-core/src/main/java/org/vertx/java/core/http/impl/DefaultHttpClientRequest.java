@@ -22,7 +22,9 @@ import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.VertxException;
 import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.http.CircuitBreakerOpenException;
 import org.vertx.java.core.http.HttpClientRequest;
 import org.vertx.java.core.http.HttpClientResponse;
 import org.vertx.java.core.impl.DefaultContext;
@@ -35,6 +37,8 @@ import java.util.concurrent.TimeoutException;
  */
 public class DefaultHttpClientRequest implements HttpClientRequest {
 
+  private static final String GZIP_DEFLATE = HttpHeaders.Values.GZIP + ", " + HttpHeaders.Values.DEFLATE;
+
   private final DefaultHttpClient client;
   private final HttpRequest request;
   private final Handler<HttpClientResponse> respHandler;
@@ -52,7 +56,10 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
   private boolean connecting;
   private boolean writeHead;
   private long written;
-  private long currentTimeoutTimerId = -1;
+  private RequestTimeouts.Timeout timeout;
+  // Timed out or reset, the request won't be sent or answered any more
+  private boolean abandoned;
+  private CircuitBreaker circuitBreaker;
   private MultiMap headers;
   private boolean exceptionOccurred;
   private long lastDataReceived;
@@ -128,8 +135,10 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
   @Override
   public DefaultHttpClientRequest write(Buffer chunk) {
     check();
-    ByteBuf buf = chunk.getByteBuf();
-    return write(buf, false);
+    if (checkWrite(chunk.length(), false)) {
+      write(chunk.getByteBuf(), false);
+    }
+    return this;
   }
 
   @Override
@@ -181,7 +190,7 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
     this.exceptionHandler = new Handler<Throwable>() {
       @Override
       public void handle(Throwable event) {
-        cancelOutstandingTimeoutTimer();
+        cancelTimeout();
         handler.handle(event);
       }
     };
@@ -225,6 +234,7 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
     if (!chunked && !contentLengthSet()) {
       headers().set(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(chunk.length()));
     }
+    checkWrite(chunk.length(), true);
     write(chunk.getByteBuf(), true);
   }
 
@@ -237,19 +247,29 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
 
   @Override
   public HttpClientRequest setTimeout(final long timeoutMs) {
-    cancelOutstandingTimeoutTimer();
-    currentTimeoutTimerId = client.getVertx().setTimer(timeoutMs, new Handler<Long>() {
-      @Override
-      public void handle(Long event) {
-        handleTimeout(timeoutMs);
-      }
-    });
+    if (timeoutMs < 1) {
+      throw new IllegalArgumentException("timeoutMs must be >= 1");
+    }
+    cancelTimeout();
+    timeout = client.scheduleTimeout(this, timeoutMs);
     return this;
   }
 
+  @Override
+  public void reset() {
+    cancelTimeout();
+    abandoned = true;
+    exceptionOccurred = true;
+    releasePending();
+    circuitBreaker = null;
+    if (conn != null) {
+      conn.evict();
+    }
+  }
+
   // Data has been received on the response
   void dataReceived() {
-    if (currentTimeoutTimerId != -1) {
+    if (timeout != null) {
       lastDataReceived = System.currentTimeMillis();
     }
   }
@@ -261,8 +281,10 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
   }
 
   void handleException(Throwable t) {
-    cancelOutstandingTimeoutTimer();
+    cancelTimeout();
     exceptionOccurred = true;
+    releasePending();
+    recordOutcome(false);
     if (exceptionHandler != null) {
       exceptionHandler.handle(t);
     } else {
@@ -270,16 +292,27 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
     }
   }
 
+  DefaultContext getContext() {
+    return context;
+  }
+
+  void handleConnectionClosed() {
+    if (!exceptionOccurred) {
+      handleException(new VertxException("Connection was closed before the response was received"));
+    }
+  }
+
   void handleResponse(DefaultHttpClientResponse resp) {
     // If an exception occurred (e.g. a timeout fired) we won't receive the response.
     if (!exceptionOccurred) {
-      cancelOutstandingTimeoutTimer();
+      cancelTimeout();
       try {
         if (resp.statusCode() == 100) {
           if (continueHandler != null) {
             continueHandler.handle(null);
           }
         } else {
+          recordOutcome(resp.statusCode() < 500);
           respHandler.handle(resp);
         }
       } catch (Throwable t) {
@@ -288,14 +321,13 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
     }
   }
 
-  private void cancelOutstandingTimeoutTimer() {
-    if (currentTimeoutTimerId != -1) {
-      client.getVertx().cancelTimer(currentTimeoutTimerId);
-      currentTimeoutTimerId = -1;
+  void handleTimeout(RequestTimeouts.Timeout expired) {
+    if (expired != timeout) {
+      // It was cancelled or replaced while it was being dispatched
+      return;
     }
-  }
-
-  private void handleTimeout(long timeoutMs) {
+    timeout = null;
+    long timeoutMs = expired.timeoutMs;
     if (lastDataReceived == 0) {
       timeout(timeoutMs);
     } else {
@@ -311,28 +343,95 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
     }
   }
 
+  private void cancelTimeout() {
+    if (timeout != null) {
+      timeout.cancel();
+      timeout = null;
+    }
+  }
+
   private void timeout(long timeoutMs) {
+    abandoned = true;
     handleException(new TimeoutException("The timeout period of " + timeoutMs + "ms has been exceeded"));
+    if (conn != null) {
+      // Otherwise a server which doesn't answer keeps the connection, and its place in the pool, forever. The
+      // requests pipelined behind this one fail as the connection is closed
+      conn.evict();
+    }
+  }
+
+  // Only the requests which got a connection count, the connection failures are recorded by the client
+  private void recordOutcome(boolean success) {
+    if (circuitBreaker != null && conn != null) {
+      if (success) {
+        circuitBreaker.success();
+      } else {
+        circuitBreaker.failure();
+      }
+      circuitBreaker = null;
+    }
   }
 
   private void connect() {
-    if (!connecting) {
+    if (!connecting && !abandoned) {
+      CircuitBreaker breaker = client.circuitBreaker();
+      if (breaker != null && !breaker.allowRequest()) {
+        // Failed without taking a connection from the pool
+        connecting = true;
+        final Throwable t = new CircuitBreakerOpenException("The circuit breaker for " + client.getHost() + ":" +
+                                                            client.getPort() + " is open");
+        context.execute(new Runnable() {
+          public void run() {
+            handleException(t);
+          }
+        });
+        return;
+      }
+      circuitBreaker = breaker;
       //We defer actual connection until the first part of body is written or end is called
       //This gives the user an opportunity to set an exception handler before connecting so
       //they can capture any exceptions on connection
-      client.getConnection(new Handler<ClientConnection>() {
-        public void handle(ClientConnection conn) {
+      connecting = true;
+      getConnection();
+    }
+  }
+
+  private void getConnection() {
+    client.getConnection(new Handler<ClientConnection>() {
+      public void handle(ClientConnection conn) {
+        if (abandoned) {
+          // The request was abandoned waiting for the connection, which can go straight to another request
           if (!conn.isClosed()) {
-            connected(conn);
-          } else {
-            // Get another connection - Note that we DO NOT call connectionClosed() on the pool at this point
-            // that is done asynchronously in the connection closeHandler()
-            connect();
+            client.returnConnection(conn);
           }
+        } else if (!conn.isClosed()) {
+          connected(conn);
+        } else {
+          // Get another connection - Note that we DO NOT call connectionClosed() on the pool at this point
+          // that is done asynchronously in the connection closeHandler()
+          getConnection();
         }
-      }, exceptionHandler, context);
+      }
+    }, new Handler<Throwable>() {
+      public void handle(Throwable t) {
+        exceptionOccurred = true;
+        releasePending();
+        Handler<Throwable> handler = exceptionHandler != null ? exceptionHandler : client.exceptionHandler();
+        if (handler != null) {
+          handler.handle(t);
+        } else {
+          context.reportException(t);
+        }
+      }
+    }, context);
+  }
 
-      connecting = true;
+  // The chunks written before the request got a connection, which will never be sent. A zero-copy buffer holds a
+  // reference until it is written
+  private void releasePending() {
+    if (pendingChunks != null) {
+      pendingChunks.release();
+      pendingChunks = null;
     }
   }
 
@@ -406,29 +505,37 @@ public class DefaultHttpClientRequest implements HttpClientRequest {
       if (chunked) {
         HttpHeaders.setTransferEncodingChunked(request);
       }
+      if (client.getTryUseCompression() && !headers.contains(HttpHeaders.Names.ACCEPT_ENCODING)) {
+        headers.set(HttpHeaders.Names.ACCEPT_ENCODING, GZIP_DEFLATE);
+      }
     }
   }
 
-  private DefaultHttpClientRequest write(ByteBuf buff, boolean end) {
-    int readableBytes = buff.readableBytes();
-    if (readableBytes == 0 && !end) {
+  // Checked before the buffer is taken from a Buffer, as a zero-copy buffer holds a reference until it is written
+  private boolean checkWrite(int length, boolean end) {
+    if (length == 0 && !end) {
       // nothing to write to the connection just return
-      return this;
+      return false;
+    }
+    if (!end && !raw && !chunked && !contentLengthSet()) {
+      throw new IllegalStateException("You must set the Content-Length header to be the total size of the message "
+          + "body BEFORE sending any data if you are not using HTTP chunked encoding.");
     }
+    return true;
+  }
 
+  private DefaultHttpClientRequest write(ByteBuf buff, boolean end) {
     if (end) {
       completed = true;
     }
 
     written += buff.readableBytes();
 
-    if (!end && !raw && !chunked && !contentLengthSet()) {
-      throw new IllegalStateException("You must set the Content-Length header to be the total size of the message "
-          + "body BEFORE sending any data if you are not using HTTP chunked encoding.");
-    }
-
     if (conn == null) {
-      if (pendingChunks == null) {
+      if (exceptionOccurred) {
+        // The request failed before it got a connection, nothing will be sent
+        buff.release();
+      } else if (pendingChunks == null) {
         pendingChunks = buff;
       } else {
         CompositeByteBuf pending;
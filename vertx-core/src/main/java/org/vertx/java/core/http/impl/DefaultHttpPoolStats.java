@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.http.HttpPoolStats;
+
+public class DefaultHttpPoolStats implements HttpPoolStats {
+
+  private final int connections;
+  private final int inUse;
+  private final int idle;
+  private final int waiters;
+  private final long waitCount;
+  private final long totalWaitTime;
+  private final long maxWaitTime;
+  private final long evictions;
+
+  DefaultHttpPoolStats(int connections, int idle, int waiters, long waitCount, long totalWaitTime, long maxWaitTime,
+                       long evictions) {
+    this.connections = connections;
+    this.inUse = Math.max(0, connections - idle);
+    this.idle = idle;
+    this.waiters = waiters;
+    this.waitCount = waitCount;
+    this.totalWaitTime = totalWaitTime;
+    this.maxWaitTime = maxWaitTime;
+    this.evictions = evictions;
+  }
+
+  @Override
+  public int connections() {
+    return connections;
+  }
+
+  @Override
+  public int inUse() {
+    return inUse;
+  }
+
+  @Override
+  public int idle() {
+    return idle;
+  }
+
+  @Override
+  public int waiters() {
+    return waiters;
+  }
+
+  @Override
+  public long waitCount() {
+    return waitCount;
+  }
+
+  @Override
+  public long totalWaitTime() {
+    return totalWaitTime;
+  }
+
+  @Override
+  public long maxWaitTime() {
+    return maxWaitTime;
+  }
+
+  @Override
+  public long evictions() {
+    return evictions;
+  }
+
+  @Override
+  public String toString() {
+    return "connections: " + connections + " in use: " + inUse + " idle: " + idle + " waiters: " + waiters +
+        " wait count: " + waitCount + " total wait time: " + totalWaitTime + " max wait time: " + maxWaitTime +
+        " evictions: " + evictions;
+  }
+}
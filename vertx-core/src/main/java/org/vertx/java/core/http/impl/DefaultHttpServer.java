@@ -30,11 +30,17 @@ import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.VertxException;
 import org.vertx.java.core.VoidHandler;
+import org.vertx.java.core.file.impl.PathAdjuster;
 import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.core.http.HttpServerStats;
+import org.vertx.java.core.http.RateLimiter;
 import org.vertx.java.core.http.ServerWebSocket;
 import org.vertx.java.core.http.impl.cgbystrom.FlashPolicyHandler;
 import org.vertx.java.core.http.impl.ws.DefaultWebSocketFrame;
@@ -45,14 +51,24 @@ import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.net.impl.*;
 
 import javax.net.ssl.SSLEngine;
+import java.io.File;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
@@ -68,6 +84,17 @@ public class DefaultHttpServer implements HttpServer, Closeable {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultHttpServer.class);
   private static final ExceptionDispatchHandler EXCEPTION_DISPATCH_HANDLER = new ExceptionDispatchHandler();
+  private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+  private static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+  private static final Set<String> DEFAULT_COMPRESSION_MIME_TYPES = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList("text/html", "text/plain", "text/css", "text/xml", "text/javascript", "application/javascript",
+                    "application/json", "application/xml")));
+  private static final int DEFAULT_MAX_INITIAL_LINE_LENGTH = 4096;
+  private static final int DEFAULT_MAX_HEADER_SIZE = 8192;
+  private static final int MAX_CHUNK_SIZE = 8192;
+  private static final int DEFAULT_MAX_FORM_PARTS = 1000;
+  private static final int DEFAULT_MAX_FORM_ATTRIBUTE_SIZE = 65536;
+  private static final long DEFAULT_ACCESS_LOG_MAX_FILE_SIZE = 100 * 1024 * 1024;
 
   final VertxInternal vertx;
   private final TCPSSLHelper tcpHelper = new TCPSSLHelper();
@@ -85,6 +112,27 @@ public class DefaultHttpServer implements HttpServer, Closeable {
   private final VertxEventLoopGroup availableWorkers = new VertxEventLoopGroup();
   private HandlerManager<HttpServerRequest> reqHandlerManager = new HandlerManager<>(availableWorkers);
   private HandlerManager<ServerWebSocket> wsHandlerManager = new HandlerManager<>(availableWorkers);
+  private boolean compressionSupported;
+  private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+  private int compressionMinSize = DEFAULT_COMPRESSION_MIN_SIZE;
+  private Set<String> compressionMimeTypes = DEFAULT_COMPRESSION_MIME_TYPES;
+  private int maxFormParts = DEFAULT_MAX_FORM_PARTS;
+  private long maxFormPartSize;
+  private int maxFormAttributeSize = DEFAULT_MAX_FORM_ATTRIBUTE_SIZE;
+  private int maxInitialLineLength = DEFAULT_MAX_INITIAL_LINE_LENGTH;
+  private int maxHeaderSize = DEFAULT_MAX_HEADER_SIZE;
+  private long maxRequestBodySize;
+  private boolean http2ClearTextSupported;
+  private int maxRequestsPerConnection;
+  private long drainTimeout;
+  private RateLimiter rateLimiter;
+  private String accessLogFile;
+  private long accessLogMaxFileSize = DEFAULT_ACCESS_LOG_MAX_FILE_SIZE;
+  private volatile AccessLog accessLog;
+  private boolean sendDateHeader;
+  private final Map<String, String> constantHeaders = new LinkedHashMap<>();
+  private HttpServerResponseEncoder.ConstantHeaders encodedConstantHeaders;
+  private final HttpServerMetrics metrics = new HttpServerMetrics();
 
   public DefaultHttpServer(VertxInternal vertx) {
     this.vertx = vertx;
@@ -152,6 +200,9 @@ public class DefaultHttpServer implements HttpServer, Closeable {
 
       DefaultHttpServer shared = vertx.sharedHttpServers().get(id);
       if (shared == null) {
+        if (!constantHeaders.isEmpty()) {
+          encodedConstantHeaders = new HttpServerResponseEncoder.ConstantHeaders(constantHeaders);
+        }
         serverChannelGroup = new DefaultChannelGroup("vertx-acceptor-channels", GlobalEventExecutor.INSTANCE);
         ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(availableWorkers);
@@ -163,6 +214,7 @@ public class DefaultHttpServer implements HttpServer, Closeable {
             protected void initChannel(Channel ch) throws Exception {
               ChannelPipeline pipeline = ch.pipeline();
               pipeline.addLast("exceptionDispatcher", EXCEPTION_DISPATCH_HANDLER);
+              tcpHelper.applyIdleTimeouts(pipeline);
               if (tcpHelper.isSSL()) {
                 SSLEngine engine = tcpHelper.getSSLContext().createSSLEngine();
                 engine.setUseClientMode(false);
@@ -183,18 +235,32 @@ public class DefaultHttpServer implements HttpServer, Closeable {
                 pipeline.addLast("ssl", new SslHandler(engine));
               }
               pipeline.addLast("flashpolicy", new FlashPolicyHandler());
-              pipeline.addLast("httpDecoder", new HttpRequestDecoder());
-              pipeline.addLast("httpEncoder", new HttpResponseEncoder());
+              if (http2ClearTextSupported && !tcpHelper.isSSL()) {
+                pipeline.addLast("http2Preface", new Http2PrefaceHandler());
+              }
+              pipeline.addLast("httpDecoder", new HttpRequestDecoder(maxInitialLineLength, maxHeaderSize,
+                                                                     MAX_CHUNK_SIZE));
+              pipeline.addLast("httpEncoder", new HttpServerResponseEncoder(sendDateHeader, encodedConstantHeaders));
+              if (compressionSupported) {
+                pipeline.addLast("httpCompressor", new HttpCompressionHandler(compressionLevel, compressionMinSize,
+                                                                            compressionMimeTypes));
+              }
               if (tcpHelper.isSSL()) {
                 // only add ChunkedWriteHandler when SSL is enabled otherwise it is not needed as FileRegion is used.
                 pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());       // For large file / sendfile support
               }
+              // After the encoder and the compressor, so its rejections are encoded like any other response
+              pipeline.addLast("httpLimits", new HttpRequestLimitHandler(maxRequestBodySize, metrics));
               pipeline.addLast("handler", new ServerHandler());
             }
         });
 
         addHandlers(this);
         try {
+          if (accessLogFile != null) {
+            accessLog = new AccessLog(new File(PathAdjuster.adjust(vertx, accessLogFile)), accessLogMaxFileSize,
+                                      metrics);
+          }
           bindFuture = bootstrap.bind(new InetSocketAddress(InetAddress.getByName(host), port));
           Channel serverChannel = bindFuture.channel();
           serverChannelGroup.add(serverChannel);
@@ -203,11 +269,13 @@ public class DefaultHttpServer implements HttpServer, Closeable {
             public void operationComplete(ChannelFuture channelFuture) throws Exception {
               if (!channelFuture.isSuccess()) {
                 vertx.sharedHttpServers().remove(id);
+                closeAccessLog();
               }
             }
           });
         } catch (final Throwable t) {
           t.printStackTrace();
+          closeAccessLog();
           // Make sure we send the exception back through the handler (if any)
           if (listenHandler != null) {
             vertx.runOnContext(new VoidHandler() {
@@ -300,7 +368,7 @@ public class DefaultHttpServer implements HttpServer, Closeable {
           // No Handlers left so close the actual server
           // The done handler needs to be executed on the context that calls close, NOT the context
           // of the actual server
-          actualServer.actualClose(actualCtx, done);
+          actualServer.actualClose(actualCtx, drainTimeout, done);
         }
       }
     }
@@ -309,6 +377,292 @@ public class DefaultHttpServer implements HttpServer, Closeable {
     actualCtx.removeCloseHook(this);
   }
 
+  @Override
+  public HttpServer setCompressionSupported(boolean compressionSupported) {
+    checkListening();
+    this.compressionSupported = compressionSupported;
+    return this;
+  }
+
+  @Override
+  public boolean isCompressionSupported() {
+    return compressionSupported;
+  }
+
+  @Override
+  public HttpServer setCompressionLevel(int compressionLevel) {
+    checkListening();
+    if (compressionLevel < 1 || compressionLevel > 9) {
+      throw new IllegalArgumentException("compressionLevel must be between 1 and 9");
+    }
+    this.compressionLevel = compressionLevel;
+    return this;
+  }
+
+  @Override
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  @Override
+  public HttpServer setCompressionMinSize(int minSize) {
+    checkListening();
+    if (minSize < 0) {
+      throw new IllegalArgumentException("minSize must be >= 0");
+    }
+    this.compressionMinSize = minSize;
+    return this;
+  }
+
+  @Override
+  public int getCompressionMinSize() {
+    return compressionMinSize;
+  }
+
+  @Override
+  public HttpServer setCompressionMimeTypes(Set<String> mimeTypes) {
+    checkListening();
+    Set<String> types = new HashSet<>();
+    for (String type: mimeTypes) {
+      types.add(type.toLowerCase(Locale.ENGLISH));
+    }
+    this.compressionMimeTypes = Collections.unmodifiableSet(types);
+    return this;
+  }
+
+  @Override
+  public Set<String> getCompressionMimeTypes() {
+    return compressionMimeTypes;
+  }
+
+  @Override
+  public HttpServer setMaxFormParts(int maxParts) {
+    checkListening();
+    if (maxParts < 0) {
+      throw new IllegalArgumentException("maxParts must be >= 0");
+    }
+    this.maxFormParts = maxParts;
+    return this;
+  }
+
+  @Override
+  public int getMaxFormParts() {
+    return maxFormParts;
+  }
+
+  @Override
+  public HttpServer setMaxFormPartSize(long maxSize) {
+    checkListening();
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxFormPartSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public long getMaxFormPartSize() {
+    return maxFormPartSize;
+  }
+
+  @Override
+  public HttpServer setMaxFormAttributeSize(int maxSize) {
+    checkListening();
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxFormAttributeSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public int getMaxFormAttributeSize() {
+    return maxFormAttributeSize;
+  }
+
+  @Override
+  public HttpServer setMaxInitialLineLength(int maxLength) {
+    checkListening();
+    if (maxLength <= 0) {
+      throw new IllegalArgumentException("maxLength must be > 0");
+    }
+    this.maxInitialLineLength = maxLength;
+    return this;
+  }
+
+  @Override
+  public int getMaxInitialLineLength() {
+    return maxInitialLineLength;
+  }
+
+  @Override
+  public HttpServer setMaxHeaderSize(int maxSize) {
+    checkListening();
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0");
+    }
+    this.maxHeaderSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public int getMaxHeaderSize() {
+    return maxHeaderSize;
+  }
+
+  @Override
+  public HttpServer setMaxRequestBodySize(long maxSize) {
+    checkListening();
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxRequestBodySize = maxSize;
+    return this;
+  }
+
+  @Override
+  public long getMaxRequestBodySize() {
+    return maxRequestBodySize;
+  }
+
+  @Override
+  public HttpServer setMaxRequestsPerConnection(int maxRequests) {
+    checkListening();
+    if (maxRequests < 0) {
+      throw new IllegalArgumentException("maxRequests must be >= 0");
+    }
+    this.maxRequestsPerConnection = maxRequests;
+    return this;
+  }
+
+  @Override
+  public int getMaxRequestsPerConnection() {
+    return maxRequestsPerConnection;
+  }
+
+  @Override
+  public HttpServer setSendDateHeader(boolean sendDateHeader) {
+    checkListening();
+    this.sendDateHeader = sendDateHeader;
+    return this;
+  }
+
+  @Override
+  public boolean isSendDateHeader() {
+    return sendDateHeader;
+  }
+
+  @Override
+  public HttpServer putConstantHeader(String name, String value) {
+    checkListening();
+    if (name == null || value == null) {
+      throw new NullPointerException("name and value must not be null");
+    }
+    if (name.isEmpty() || name.indexOf('\r') != -1 || name.indexOf('\n') != -1 || name.indexOf(':') != -1 ||
+        value.indexOf('\r') != -1 || value.indexOf('\n') != -1) {
+      throw new IllegalArgumentException("Invalid header " + name + ": " + value);
+    }
+    constantHeaders.put(name, value);
+    return this;
+  }
+
+  @Override
+  public Map<String, String> getConstantHeaders() {
+    return Collections.unmodifiableMap(constantHeaders);
+  }
+
+  @Override
+  public HttpServer setRateLimiter(RateLimiter rateLimiter) {
+    checkListening();
+    this.rateLimiter = rateLimiter;
+    return this;
+  }
+
+  @Override
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  @Override
+  public HttpServer setAccessLogFile(String file) {
+    checkListening();
+    this.accessLogFile = file;
+    return this;
+  }
+
+  @Override
+  public String getAccessLogFile() {
+    return accessLogFile;
+  }
+
+  @Override
+  public HttpServer setAccessLogMaxFileSize(long maxSize) {
+    checkListening();
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.accessLogMaxFileSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public long getAccessLogMaxFileSize() {
+    return accessLogMaxFileSize;
+  }
+
+  /**
+   * @return the access log of the server, or null
+   */
+  AccessLog accessLog() {
+    return accessLog;
+  }
+
+  private void closeAccessLog() {
+    AccessLog log = accessLog;
+    if (log != null) {
+      accessLog = null;
+      log.close();
+    }
+  }
+
+  @Override
+  public HttpServer setDrainTimeout(long timeout) {
+    checkListening();
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.drainTimeout = timeout;
+    return this;
+  }
+
+  @Override
+  public long getDrainTimeout() {
+    return drainTimeout;
+  }
+
+  @Override
+  public HttpServer setHttp2ClearTextSupported(boolean supported) {
+    checkListening();
+    this.http2ClearTextSupported = supported;
+    return this;
+  }
+
+  @Override
+  public boolean isHttp2ClearTextSupported() {
+    return http2ClearTextSupported;
+  }
+
+  @Override
+  public HttpServerStats getStats() {
+    // The connections are handled by the server which actually listens, even when the port is shared
+    DefaultHttpServer server = actualServer == null ? this : actualServer;
+    return server.metrics.stats();
+  }
+
+  HttpServerMetrics metrics() {
+    return metrics;
+  }
+
   @Override
   public HttpServer setSSL(boolean ssl) {
     checkListening();
@@ -407,6 +761,42 @@ public class DefaultHttpServer implements HttpServer, Closeable {
     return this;
   }
 
+  @Override
+  public HttpServer setReadIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setReadIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getReadIdleTimeout() {
+    return tcpHelper.getReadIdleTimeout();
+  }
+
+  @Override
+  public HttpServer setWriteIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setWriteIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getWriteIdleTimeout() {
+    return tcpHelper.getWriteIdleTimeout();
+  }
+
+  @Override
+  public HttpServer setIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getIdleTimeout() {
+    return tcpHelper.getIdleTimeout();
+  }
+
   @Override
   public boolean isTCPNoDelay() {
     return tcpHelper.isTCPNoDelay();
@@ -490,11 +880,46 @@ public class DefaultHttpServer implements HttpServer, Closeable {
     return tcpHelper.isUsePooledBuffers();
   }
 
-  private void actualClose(final DefaultContext closeContext, final Handler<AsyncResult<Void>> done) {
+  @Override
+  public HttpServer setAllocatorPolicy(AllocatorPolicy policy) {
+    checkListening();
+    tcpHelper.setAllocatorPolicy(policy);
+    return this;
+  }
+
+  @Override
+  public AllocatorPolicy getAllocatorPolicy() {
+    return tcpHelper.getAllocatorPolicy();
+  }
+
+  @Override
+  public HttpServer setAdaptiveReceiveSizing(boolean adaptive) {
+    checkListening();
+    tcpHelper.setAdaptiveReceiveSizing(adaptive);
+    return this;
+  }
+
+  @Override
+  public boolean isAdaptiveReceiveSizing() {
+    return tcpHelper.isAdaptiveReceiveSizing();
+  }
+
+  @Override
+  public AllocatorStats getAllocatorStats() {
+    return tcpHelper.getAllocatorStats();
+  }
+
+  private void actualClose(final DefaultContext closeContext, long drainTimeout,
+                           final Handler<AsyncResult<Void>> done) {
     if (id != null) {
       vertx.sharedHttpServers().remove(id);
     }
 
+    if (drainTimeout > 0 && !connectionMap.isEmpty()) {
+      drainAndClose(closeContext, drainTimeout, done);
+      return;
+    }
+
     for (ServerConnection conn : connectionMap.values()) {
       conn.close();
     }
@@ -504,6 +929,52 @@ public class DefaultHttpServer implements HttpServer, Closeable {
 
     vertx.setContext(closeContext);
 
+    closeAccessLog();
+    executeCloseDone(closeContext, done, closeServerChannels());
+  }
+
+  /**
+   * Stop accepting connections, then wait for the connections to be closed once their requests in flight have been
+   * answered, at most for {@code drainTimeout} ms
+   */
+  private void drainAndClose(final DefaultContext closeContext, final long drainTimeout,
+                             final Handler<AsyncResult<Void>> done) {
+    final Exception closeError = closeServerChannels();
+    vertx.setContext(closeContext);
+
+    Map<Channel, ServerConnection> conns = new HashMap<>(connectionMap);
+    log.info("Draining " + conns.size() + " connections, waiting at most " + drainTimeout + " ms");
+    final AtomicInteger remaining = new AtomicInteger(conns.size());
+    final AtomicBoolean completed = new AtomicBoolean();
+    final long timerID = vertx.setTimer(drainTimeout, new Handler<Long>() {
+      public void handle(Long id) {
+        if (completed.compareAndSet(false, true)) {
+          int active = remaining.get();
+          for (ServerConnection conn : connectionMap.values()) {
+            conn.close();
+          }
+          closeAccessLog();
+          executeCloseDone(closeContext, done, new VertxException(active + " connections were still active after " +
+                                                                  drainTimeout + " ms and have been closed"));
+        }
+      }
+    });
+    ChannelFutureListener closeListener = new ChannelFutureListener() {
+      public void operationComplete(ChannelFuture future) throws Exception {
+        if (remaining.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+          vertx.cancelTimer(timerID);
+          closeAccessLog();
+          executeCloseDone(closeContext, done, closeError);
+        }
+      }
+    };
+    for (Map.Entry<Channel, ServerConnection> entry : conns.entrySet()) {
+      entry.getKey().closeFuture().addListener(closeListener);
+      entry.getValue().drain();
+    }
+  }
+
+  private Exception closeServerChannels() {
     final CountDownLatch latch = new CountDownLatch(1);
 
     ChannelGroupFuture fut = serverChannelGroup.close();
@@ -518,8 +989,7 @@ public class DefaultHttpServer implements HttpServer, Closeable {
       latch.await(10, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
     }
-
-    executeCloseDone(closeContext, done, fut.cause());
+    return fut.cause();
   }
 
   private void executeCloseDone(final DefaultContext closeContext, final Handler<AsyncResult<Void>> done, final Exception e) {
@@ -649,6 +1119,18 @@ public class DefaultHttpServer implements HttpServer, Closeable {
         if (conn != null) {
           conn.handleMessage(msg);
         }
+      } else if (msg instanceof Http2Frame) {
+        if (conn == null) {
+          HandlerHolder<HttpServerRequest> reqHandler = reqHandlerManager.chooseHandler(ch.eventLoop());
+          if (reqHandler == null) {
+            ch.close();
+            return;
+          }
+          conn = new Http2ServerConnection(DefaultHttpServer.this, ch, reqHandler.context, serverOrigin,
+                                           reqHandler.handler);
+          connectionMap.put(ch, conn);
+        }
+        ((Http2ServerConnection) conn).handleFrame((Http2Frame) msg);
       } else {
         throw new IllegalStateException("Invalid message " + msg);
       }
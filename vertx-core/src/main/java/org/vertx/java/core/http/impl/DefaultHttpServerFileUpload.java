@@ -22,7 +22,6 @@ import org.vertx.java.core.Vertx;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.file.AsyncFile;
 import org.vertx.java.core.http.HttpServerFileUpload;
-import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.streams.Pump;
 
 import java.nio.charset.Charset;
@@ -38,7 +37,7 @@ class DefaultHttpServerFileUpload implements HttpServerFileUpload {
   private AsyncFile file;
   private Handler<Throwable> exceptionHandler;
 
-  private final HttpServerRequest req;
+  private final DefaultHttpServerRequest req;
   private final Vertx vertx;
 
   private final String name;
@@ -46,15 +45,12 @@ class DefaultHttpServerFileUpload implements HttpServerFileUpload {
   private final String contentType;
   private final String contentTransferEncoding;
   private final Charset charset;
-  private final long size;
+  private long size;
 
   private boolean paused;
-  private Buffer pauseBuff;
-  private boolean complete;
 
-  DefaultHttpServerFileUpload(Vertx vertx, HttpServerRequest req, String name, String filename, String contentType,
-                              String contentTransferEncoding,
-                              Charset charset, long size) {
+  DefaultHttpServerFileUpload(Vertx vertx, DefaultHttpServerRequest req, String name, String filename,
+                              String contentType, String contentTransferEncoding, Charset charset) {
     this.vertx = vertx;
     this.req = req;
     this.name = name;
@@ -62,7 +58,6 @@ class DefaultHttpServerFileUpload implements HttpServerFileUpload {
     this.contentType = contentType;
     this.contentTransferEncoding = contentTransferEncoding;
     this.charset = charset;
-    this.size = size;
   }
 
   @Override
@@ -103,23 +98,18 @@ class DefaultHttpServerFileUpload implements HttpServerFileUpload {
 
   @Override
   public HttpServerFileUpload pause() {
-    req.pause();
-    paused = true;
+    if (!paused) {
+      paused = true;
+      req.pauseUpload();
+    }
     return this;
   }
 
   @Override
   public HttpServerFileUpload resume() {
     if (paused) {
-      req.resume();
       paused = false;
-      if (pauseBuff != null) {
-        receiveData(pauseBuff);
-        pauseBuff = null;
-      }
-      if (complete && endHandler != null) {
-        endHandler.handle(null);
-      }
+      req.resumeUpload();
     }
     return this;
   }
@@ -146,48 +136,46 @@ class DefaultHttpServerFileUpload implements HttpServerFileUpload {
 
           Pump p = Pump.createPump(DefaultHttpServerFileUpload.this, ar.result());
           p.start();
-
-          resume();
         } else {
           notifyExceptionHandler(ar.cause());
         }
+        // On failure the rest of the upload is discarded
+        resume();
       }
     });
     return this;
   }
 
+  // The parser stops while the upload is paused, so data and completion are never received while paused
   void receiveData(Buffer data) {
-    if (!paused) {
-      if (dataHandler != null) {
-        dataHandler.handle(data);
-      }
-    } else {
-      if (pauseBuff == null) {
-        pauseBuff = new Buffer();
-      }
-      pauseBuff.appendBuffer(data);
+    size += data.length();
+    if (dataHandler != null) {
+      dataHandler.handle(data);
     }
   }
 
   void complete() {
-    if (paused) {
-      complete = true;
+    if (file == null) {
+      notifyEndHandler();
     } else {
-      if (file == null) {
-        notifyEndHandler();
-      } else {
-        file.close(new AsyncResultHandler<Void>() {
-          @Override
-          public void handle(AsyncResult<Void> event) {
-            if (event.failed()) {
-              notifyExceptionHandler(event.cause());
-            }
-            notifyEndHandler();
+      file.close(new AsyncResultHandler<Void>() {
+        @Override
+        public void handle(AsyncResult<Void> event) {
+          if (event.failed()) {
+            notifyExceptionHandler(event.cause());
           }
-        });
-      }
+          notifyEndHandler();
+        }
+      });
+    }
+  }
 
+  void fail(Throwable cause) {
+    paused = false;
+    if (file != null) {
+      file.close();
     }
+    notifyExceptionHandler(cause);
   }
 
   private void notifyEndHandler() {
@@ -16,12 +16,13 @@
 
 package org.vertx.java.core.http.impl;
 
-import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.multipart.*;
 import io.netty.util.CharsetUtil;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.VertxException;
 import org.vertx.java.core.VoidHandler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerFileUpload;
@@ -35,15 +36,10 @@ import org.vertx.java.core.net.NetSocket;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.security.cert.X509Certificate;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
-import java.util.List;
-import java.util.Map;
 
 /**
  *
@@ -53,6 +49,10 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultHttpServerRequest.class);
 
+  private static final String CONTENT_DISPOSITION = "Content-Disposition";
+  private static final String DEFAULT_UPLOAD_CONTENT_TYPE = "application/octet-stream";
+  private static final String DEFAULT_UPLOAD_TRANSFER_ENCODING = "7bit";
+
   private final ServerConnection conn;
   private final HttpRequest request;
   private final HttpServerResponse response;
@@ -77,7 +77,12 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
   private Handler<Void> endHandler;
   private MultiMap attributes;
   private HttpPostRequestDecoder decoder;
+  private MultipartParser parser;
+  private boolean uploadPaused;
   private boolean isURLEncoded;
+  private long maxBodySize;
+  private long bodySize;
+  private boolean bodyTooLarge;
 
   DefaultHttpServerRequest(final ServerConnection conn,
                            final HttpRequest request,
@@ -85,6 +90,7 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
     this.conn = conn;
     this.request = request;
     this.response = response;
+    this.maxBodySize = conn.server().getMaxRequestBodySize();
   }
 
   @Override
@@ -150,14 +156,7 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
   @Override
   public MultiMap params() {
     if (params == null) {
-      QueryStringDecoder queryStringDecoder = new QueryStringDecoder(uri());
-      Map<String, List<String>> prms = queryStringDecoder.parameters();
-      params = new CaseInsensitiveMultiMap();
-      if (!prms.isEmpty()) {
-        for (Map.Entry<String, List<String>> entry: prms.entrySet()) {
-          params.add(entry.getKey(), entry.getValue());
-        }
-      }
+      params = new QueryParamsMap(uri());
     }
     return params;
   }
@@ -236,6 +235,29 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
     return this;
   }
 
+  @Override
+  public HttpServerRequest setMaxBodySize(long maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must be >= 0");
+    }
+    this.maxBodySize = maxSize;
+    if (maxSize > 0 && !bodyTooLarge && HttpHeaders.getContentLength(request, -1) > maxSize) {
+      bodyTooLarge = true;
+      conn.server().metrics().bodyTooLarge();
+      DefaultHttpServerResponse resp = (DefaultHttpServerResponse) response;
+      resp.closeAfterResponse();
+      resp.setStatusCode(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code());
+      resp.setStatusMessage(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.reasonPhrase());
+      resp.end();
+    }
+    return this;
+  }
+
+  @Override
+  public long getMaxBodySize() {
+    return maxBodySize;
+  }
+
   @Override
   public NetSocket netSocket() {
     if (netSocket == null) {
@@ -252,7 +274,7 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
 
   @Override
   public MultiMap formAttributes() {
-    if (decoder == null) {
+    if (decoder == null && parser == null) {
       throw new IllegalStateException("Call expectMultiPart(true) before request body is received to receive form attributes");
     }
     return attributes();
@@ -266,19 +288,40 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
         HttpMethod method = request.getMethod();
         String lowerCaseContentType = contentType.toLowerCase();
         isURLEncoded = lowerCaseContentType.startsWith(HttpHeaders.Values.APPLICATION_X_WWW_FORM_URLENCODED);
-        if ((lowerCaseContentType.startsWith(HttpHeaders.Values.MULTIPART_FORM_DATA) || isURLEncoded) &&
-            (method.equals(HttpMethod.POST) || method.equals(HttpMethod.PUT) || method.equals(HttpMethod.PATCH))) {
-          decoder = new HttpPostRequestDecoder(new DataFactory(), request);
+        if (method.equals(HttpMethod.POST) || method.equals(HttpMethod.PUT) || method.equals(HttpMethod.PATCH)) {
+          if (isURLEncoded) {
+            decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(false), request);
+          } else if (lowerCaseContentType.startsWith(HttpHeaders.Values.MULTIPART_FORM_DATA)) {
+            String boundary = MultipartParser.boundary(contentType);
+            if (boundary != null) {
+              parser = new MultipartParser(boundary, new MultipartHandler());
+            }
+          }
         }
       }
     } else {
       decoder = null;
+      parser = null;
     }
     return this;
   }
 
   void handleData(Buffer data) {
-    if (decoder != null) {
+    if (bodyTooLarge) {
+      return;
+    }
+    bodySize += data.length();
+    if (maxBodySize > 0 && bodySize > maxBodySize) {
+      // The rest of the body is neither read nor buffered, the connection can't be used any more
+      bodyTooLarge = true;
+      conn.server().metrics().bodyTooLarge();
+      handleException(new TooLongFrameException("HTTP request body is larger than " + maxBodySize + " bytes."));
+      conn.close();
+      return;
+    }
+    if (parser != null) {
+      parser.parse(data.getByteBuf());
+    } else if (decoder != null) {
       try {
         decoder.offer(new DefaultHttpContent(data.getByteBuf().duplicate()));
       } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
@@ -292,7 +335,12 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
 
 
   void handleEnd() {
-    if (decoder != null) {
+    if (bodyTooLarge) {
+      return;
+    }
+    if (parser != null) {
+      parser.end();
+    } else if (decoder != null) {
       try {
         decoder.offer(LastHttpContent.EMPTY_LAST_CONTENT);
         while (decoder.hasNext()) {
@@ -324,6 +372,25 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
     }
   }
 
+  void pauseUpload() {
+    if (parser != null) {
+      parser.pause();
+      uploadPaused = true;
+      conn.pause();
+    }
+  }
+
+  void resumeUpload() {
+    if (parser != null && uploadPaused) {
+      parser.resume();
+      // The parser may have been paused again by the rest of the data it had
+      if (!parser.isPaused() && uploadPaused) {
+        uploadPaused = false;
+        conn.resume();
+      }
+    }
+  }
+
   void handleException(Throwable t) {
     if (exceptionHandler != null) {
       exceptionHandler.handle(t);
@@ -338,227 +405,103 @@ public class DefaultHttpServerRequest implements HttpServerRequest {
     return attributes;
   }
 
-  private final static class NettyFileUpload implements FileUpload {
-
-    private final DefaultHttpServerFileUpload upload;
-
-
-    private String name;
-    private String filename;
-    private String contentType;
-    private String contentTransferEncoding;
-    private Charset charset;
-    private boolean completed;
-
-    private NettyFileUpload(DefaultHttpServerFileUpload upload, String name, String filename, String contentType, String contentTransferEncoding, Charset charset) {
-      this.upload = upload;
-      this.name = name;
-      this.filename = filename;
-      this.contentType = contentType;
-      this.contentTransferEncoding = contentTransferEncoding;
-      this.charset = charset;
-    }
-
-    @Override
-    public void setContent(ByteBuf channelBuffer) throws IOException {
-      completed = true;
-      upload.receiveData(new Buffer(channelBuffer));
-      upload.complete();
-    }
+  private static String urlDecode(String str) {
+    return QueryStringDecoder.decodeComponent(str, CharsetUtil.UTF_8);
+  }
 
-    @Override
-    public void addContent(ByteBuf channelBuffer, boolean last) throws IOException {
-      upload.receiveData(new Buffer(channelBuffer));
-      if (last) {
-        completed = true;
-        upload.complete();
+  /**
+   * Passes the parts of a multipart form to the upload handler or to the form attributes, enforcing the limits
+   * of the server
+   */
+  private class MultipartHandler implements MultipartParser.Listener {
+
+    private final DefaultHttpServer server = conn.server();
+    private int parts;
+    private long partSize;
+    private DefaultHttpServerFileUpload upload;
+    private String attributeName;
+    private Buffer attributeValue;
+    private Charset attributeCharset;
+
+    @Override
+    public void partStart(MultiMap headers) {
+      int maxParts = server.getMaxFormParts();
+      if (++parts > maxParts && maxParts > 0) {
+        parser.fail(new VertxException("Multipart form with more than " + maxParts + " parts"));
+        return;
+      }
+      partSize = 0;
+      String disposition = headers.get(CONTENT_DISPOSITION);
+      String name = MultipartParser.headerParam(disposition, "name");
+      String filename = MultipartParser.headerParam(disposition, "filename");
+      String contentType = headers.get(HttpHeaders.Names.CONTENT_TYPE);
+      String charsetName = MultipartParser.headerParam(contentType, "charset");
+      Charset charset;
+      try {
+        charset = charsetName == null ? null : Charset.forName(charsetName);
+      } catch (IllegalArgumentException e) {
+        charset = null;
+      }
+      if (filename != null) {
+        String transferEncoding = headers.get(HttpHeaders.Names.CONTENT_TRANSFER_ENCODING);
+        upload = new DefaultHttpServerFileUpload(conn.vertx(), DefaultHttpServerRequest.this, name, filename,
+            contentType == null ? DEFAULT_UPLOAD_CONTENT_TYPE : contentType,
+            transferEncoding == null ? DEFAULT_UPLOAD_TRANSFER_ENCODING : transferEncoding, charset);
+        if (uploadHandler != null) {
+          uploadHandler.handle(upload);
+        }
+      } else if (name != null) {
+        attributeName = name;
+        attributeValue = new Buffer();
+        attributeCharset = charset == null ? CharsetUtil.UTF_8 : charset;
       }
     }
 
     @Override
-    public void setContent(File file) throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void setContent(InputStream inputStream) throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public boolean isCompleted() {
-      return completed;
-    }
-
-    @Override
-    public long length() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void delete() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public byte[] get() throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ByteBuf getChunk(int i) throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getString() throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getString(Charset charset) throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void setCharset(Charset charset) {
-      this.charset = charset;
-    }
-
-    @Override
-    public Charset getCharset() {
-      return charset;
-    }
-
-    @Override
-    public boolean renameTo(File file) throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public boolean isInMemory() {
-      return false;
-    }
-
-    @Override
-    public File getFile() throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getName() {
-      return name;
-    }
-
-    @Override
-    public HttpDataType getHttpDataType() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public int compareTo(InterfaceHttpData o) {
-      return 0;
-    }
-
-    @Override
-    public String getFilename() {
-      return filename;
-    }
-
-    @Override
-    public void setFilename(String filename) {
-      this.filename = filename;
-    }
-
-    @Override
-    public void setContentType(String contentType) {
-      this.contentType = contentType;
-    }
-
-    @Override
-    public String getContentType() {
-      return contentType;
-    }
-
-    @Override
-    public void setContentTransferEncoding(String contentTransferEncoding) {
-      this.contentTransferEncoding = contentTransferEncoding;
-    }
-
-    @Override
-    public String getContentTransferEncoding() {
-      return contentTransferEncoding;
-    }
-
-    @Override
-    public ByteBuf getByteBuf() throws IOException {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FileUpload copy() {
-      throw new UnsupportedOperationException();
-    }
-
-    //@Override
-    public FileUpload duplicate() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FileUpload retain() {
-      return this;
-    }
-
-    @Override
-    public FileUpload retain(int increment) {
-      return this;
-    }
-
-    @Override
-    public ByteBuf content() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public int refCnt() {
-      return 1;
-    }
-
-    @Override
-    public boolean release() {
-      return false;
+    public void partData(Buffer data) {
+      partSize += data.length();
+      if (upload != null) {
+        long maxSize = server.getMaxFormPartSize();
+        if (partSize > maxSize && maxSize > 0) {
+          parser.fail(new VertxException("File upload " + upload.filename() + " larger than " + maxSize + " bytes"));
+        } else {
+          upload.receiveData(data);
+        }
+      } else if (attributeValue != null) {
+        int maxSize = server.getMaxFormAttributeSize();
+        if (partSize > maxSize && maxSize > 0) {
+          parser.fail(new VertxException("Form attribute " + attributeName + " larger than " + maxSize + " bytes"));
+        } else {
+          attributeValue.appendBuffer(data);
+        }
+      }
     }
 
     @Override
-    public boolean release(int decrement) {
-      return false;
-    }
-  }
-
-  private static String urlDecode(String str) {
-    return QueryStringDecoder.decodeComponent(str, CharsetUtil.UTF_8);
-  }
-
-
-
-  private class DataFactory extends DefaultHttpDataFactory {
-
-    DataFactory() {
-      super(false);
+    public void partEnd() {
+      if (upload != null) {
+        DefaultHttpServerFileUpload ended = upload;
+        upload = null;
+        ended.complete();
+      } else if (attributeValue != null) {
+        attributes().add(attributeName, attributeValue.toString(attributeCharset.name()));
+        attributeValue = null;
+      }
     }
 
     @Override
-    public FileUpload createFileUpload(HttpRequest httpRequest, String name, String filename, String contentType, String contentTransferEncoding, Charset charset, long size) {
-      DefaultHttpServerFileUpload upload = new DefaultHttpServerFileUpload(conn.vertx(), DefaultHttpServerRequest.this, name, filename, contentType, contentTransferEncoding, charset,
-          size);
-      NettyFileUpload nettyUpload = new NettyFileUpload(upload, name, filename, contentType,
-          contentTransferEncoding, charset);
-      if (uploadHandler != null) {
-        uploadHandler.handle(upload);
+    public void exception(Throwable t) {
+      attributeValue = null;
+      if (upload != null) {
+        upload.fail(t);
+        upload = null;
       }
-      return nettyUpload;
-
+      if (uploadPaused) {
+        // The rest of the body is discarded, don't leave the connection waiting for the upload
+        uploadPaused = false;
+        conn.resume();
+      }
+      handleException(t);
     }
   }
 }
@@ -43,7 +43,7 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
   private final ServerConnection conn;
   private final HttpResponse response;
   private final HttpVersion version;
-  private final boolean keepAlive;
+  private boolean keepAlive;
 
   private int statusCode = 200;
   private String statusMessage = "OK";
@@ -59,10 +59,18 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
   private MultiMap headers;
   private LastHttpContent trailing;
   private MultiMap trailers;
+  // Only set when the server has an access log
+  private final AccessLog accessLog;
+  private final HttpRequest request;
+  private final long startTime;
+  private long bytesWritten;
 
   DefaultHttpServerResponse(final VertxInternal vertx, ServerConnection conn, HttpRequest request) {
   	this.vertx = vertx;
   	this.conn = conn;
+    this.accessLog = conn.server().accessLog();
+    this.request = accessLog == null ? null : request;
+    this.startTime = accessLog == null ? 0 : System.nanoTime();
     this.version = request.getProtocolVersion();
     this.response = new DefaultHttpResponse(version, HttpResponseStatus.OK);
     this.keepAlive = version == HttpVersion.HTTP_1_1 ||
@@ -190,18 +198,17 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
 
   @Override
   public DefaultHttpServerResponse write(Buffer chunk) {
-    ByteBuf buf = chunk.getByteBuf();
-    return write(buf, null);
+    return write(chunk, null);
   }
 
   @Override
   public DefaultHttpServerResponse write(String chunk, String enc) {
-    return write(new Buffer(chunk, enc).getByteBuf(),  null);
+    return write(new Buffer(chunk, enc),  null);
   }
 
   @Override
   public DefaultHttpServerResponse write(String chunk) {
-    return write(new Buffer(chunk).getByteBuf(), null);
+    return write(new Buffer(chunk), null);
   }
 
   @Override
@@ -216,11 +223,12 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
 
   @Override
   public void end(Buffer chunk) {
+    // Checked before the buffer is taken, as a zero-copy buffer holds a reference until it is written
+    checkWritten();
     if (!chunked && !contentLengthSet()) {
       headers().set(Names.CONTENT_LENGTH, String.valueOf(chunk.length()));
     }
-    ByteBuf buf = chunk.getByteBuf();
-    end0(buf);
+    end0(chunk.getByteBuf());
   }
 
   @Override
@@ -242,6 +250,7 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
 
   private void end0(ByteBuf data) {
     checkWritten();
+    bytesWritten += data.readableBytes();
 
     if (!headWritten) {
       // if the head was not written yet we can write out everything in on go
@@ -273,10 +282,11 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
       }
     }
 
-    if (!keepAlive) {
+    if (!keepAlive || conn.isLastRequest()) {
       closeConnAfterWrite();
     }
     written = true;
+    logAccess();
     conn.responseComplete();
   }
   @Override
@@ -299,33 +309,68 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
         sendNotFound();
       }
     } else {
-      if (!contentLengthSet()) {
-        putHeader(Names.CONTENT_LENGTH, String.valueOf(file.length()));
+      doSendFile(filename, file, 0, file.length());
+    }
+    return this;
+  }
+
+  @Override
+  public DefaultHttpServerResponse sendFile(String filename, long offset, long length) {
+    if (headWritten) {
+      throw new IllegalStateException("Head already written");
+    }
+    checkWritten();
+    if (offset < 0 || length < 0) {
+      throw new IllegalArgumentException("offset and length must be >= 0");
+    }
+    File file = new File(PathAdjuster.adjust(vertx, filename));
+    if (!file.exists()) {
+      sendNotFound();
+    } else {
+      // The Content-Length is the length, so the file must hold all of it
+      if (offset + length > file.length()) {
+        throw new IllegalArgumentException("offset + length must be <= the size of the file");
       }
-      if (!contentTypeSet()) {
-        int li = filename.lastIndexOf('.');
-        if (li != -1 && li != filename.length() - 1) {
-          String ext = filename.substring(li + 1, filename.length());
-          String contentType = MimeMapping.getMimeTypeForExtension(ext);
-          if (contentType != null) {
-            putHeader(Names.CONTENT_TYPE, contentType);
-          }
+      doSendFile(filename, file, offset, length);
+    }
+    return this;
+  }
+
+  private void doSendFile(String filename, File file, long offset, long length) {
+    if (!contentLengthSet()) {
+      putHeader(Names.CONTENT_LENGTH, String.valueOf(length));
+    }
+    if (!contentTypeSet()) {
+      int li = filename.lastIndexOf('.');
+      if (li != -1 && li != filename.length() - 1) {
+        String ext = filename.substring(li + 1, filename.length());
+        String contentType = MimeMapping.getMimeTypeForExtension(ext);
+        if (contentType != null) {
+          putHeader(Names.CONTENT_TYPE, contentType);
         }
       }
-      prepareHeaders();
-      conn.queueForWrite(response);
-      conn.sendFile(file);
+    }
+    bytesWritten = length;
+    prepareHeaders();
+    conn.queueForWrite(response);
+    conn.sendFile(file, offset, length);
 
-      // write an empty last content to let the http encoder know the response is complete
-      channelFuture = conn.write(LastHttpContent.EMPTY_LAST_CONTENT);
-      headWritten = written = true;
+    // write an empty last content to let the http encoder know the response is complete
+    channelFuture = conn.write(LastHttpContent.EMPTY_LAST_CONTENT);
+    headWritten = written = true;
 
-      if (!keepAlive) {
-        closeConnAfterWrite();
-      }
-      conn.responseComplete();
+    if (!keepAlive || conn.isLastRequest()) {
+      closeConnAfterWrite();
+    }
+    logAccess();
+    conn.responseComplete();
+  }
+
+  private void logAccess() {
+    if (accessLog != null) {
+      accessLog.log(conn.remoteAddress(), request.getMethod().name(), request.getUri(), version, statusCode,
+                    bytesWritten, System.nanoTime() - startTime);
     }
-    return this;
   }
 
   private boolean contentLengthSet() {
@@ -342,6 +387,11 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
     return headers.contains(Names.CONTENT_TYPE);
   }
 
+  // The connection is closed once the response has been written, when the rest of the request won't be read
+  void closeAfterResponse() {
+    keepAlive = false;
+  }
+
   private void closeConnAfterWrite() {
     if (channelFuture != null) {
       channelFuture.addListener(new ChannelFutureListener() {
@@ -386,8 +436,14 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
     HttpResponseStatus status = statusMessage == null ? HttpResponseStatus.valueOf(statusCode) :
             new HttpResponseStatus(statusCode, statusMessage);
     response.setStatus(status);
+    if (conn.isLastRequest()) {
+      // Checked when the head is written, as the server may have started draining since the request arrived
+      keepAlive = false;
+    }
     if (version == HttpVersion.HTTP_1_0 && keepAlive) {
       response.headers().set("Connection", "Keep-Alive");
+    } else if (version == HttpVersion.HTTP_1_1 && !keepAlive) {
+      response.headers().set("Connection", "close");
     }
     if (chunked) {
       response.headers().set(Names.TRANSFER_ENCODING, io.netty.handler.codec.http.HttpHeaders.Values.CHUNKED);
@@ -397,13 +453,16 @@ public class DefaultHttpServerResponse implements HttpServerResponse {
   }
 
 
-  private DefaultHttpServerResponse write(ByteBuf chunk, final Handler<AsyncResult<Void>> doneHandler) {
+  private DefaultHttpServerResponse write(Buffer buffer, final Handler<AsyncResult<Void>> doneHandler) {
     checkWritten();
     if (version != HttpVersion.HTTP_1_0 && !chunked && !contentLengthSet()) {
       throw new IllegalStateException("You must set the Content-Length header to be the total size of the message "
                                               + "body BEFORE sending any data if you are not using HTTP chunked encoding.");
     }
+    // Only taken once the checks have passed, as a zero-copy buffer holds a reference until it is written
+    ByteBuf chunk = buffer.getByteBuf();
 
+    bytesWritten += chunk.readableBytes();
     if (!headWritten) {
       prepareHeaders();
       channelFuture = conn.write(new AssembledHttpResponse(response, chunk));
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.http.HttpServerStats;
+
+public class DefaultHttpServerStats implements HttpServerStats {
+
+  private final long uriTooLong;
+  private final long headersTooLarge;
+  private final long bodyTooLarge;
+  private final long malformed;
+  private final long rateLimited;
+  private final long accessLogDropped;
+
+  DefaultHttpServerStats(long uriTooLong, long headersTooLarge, long bodyTooLarge, long malformed,
+                         long rateLimited, long accessLogDropped) {
+    this.uriTooLong = uriTooLong;
+    this.headersTooLarge = headersTooLarge;
+    this.bodyTooLarge = bodyTooLarge;
+    this.malformed = malformed;
+    this.rateLimited = rateLimited;
+    this.accessLogDropped = accessLogDropped;
+  }
+
+  @Override
+  public long rejectedRequests() {
+    return uriTooLong + headersTooLarge + bodyTooLarge + malformed + rateLimited;
+  }
+
+  @Override
+  public long uriTooLong() {
+    return uriTooLong;
+  }
+
+  @Override
+  public long headersTooLarge() {
+    return headersTooLarge;
+  }
+
+  @Override
+  public long bodyTooLarge() {
+    return bodyTooLarge;
+  }
+
+  @Override
+  public long malformed() {
+    return malformed;
+  }
+
+  @Override
+  public long rateLimited() {
+    return rateLimited;
+  }
+
+  @Override
+  public long accessLogDropped() {
+    return accessLogDropped;
+  }
+
+  @Override
+  public String toString() {
+    return "HttpServerStats[rejectedRequests=" + rejectedRequests() + ", uriTooLong=" + uriTooLong +
+        ", headersTooLarge=" + headersTooLarge + ", bodyTooLarge=" + bodyTooLarge + ", malformed=" + malformed +
+        ", rateLimited=" + rateLimited + ", accessLogDropped=" + accessLogDropped + "]";
+  }
+}
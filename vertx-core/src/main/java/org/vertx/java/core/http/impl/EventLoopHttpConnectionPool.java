@@ -0,0 +1,493 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.channel.EventLoop;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.http.HttpPoolStats;
+import org.vertx.java.core.impl.Closeable;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.impl.EventLoopContext;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A connection pool which keeps the connections of each event loop apart.<p>
+ * Each event loop has its own partition of the pool, which is only ever used from that event loop. A request gets
+ * a connection opened on the event loop of its context, and the connection goes back to the same partition when
+ * it is returned, so getting and returning a connection takes no lock and the callbacks of a request never run on
+ * another thread. The requests of a worker context share a partition with the other requests of that context, which
+ * is dropped with its idle connections when the context is closed.<p>
+ * The maximum pool size caps the number of connections of all the partitions together. When a partition has
+ * requests waiting because of the cap, the other partitions close their idle connections rather than keep them,
+ * and the room left by a closed connection is used to open a connection for a waiting request.
+ */
+public abstract class EventLoopHttpConnectionPool implements HttpPool {
+
+  private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private volatile int maxPoolSize = 1;
+  private volatile int pipeliningDepth;
+  private volatile long idleTimeout;
+  private volatile long maxLifetime;
+  private final HttpPoolMetrics metrics = new HttpPoolMetrics();
+
+  /**
+   * Set the maximum number of connections of all the partitions together
+   */
+  public void setMaxPoolSize(int maxConnections) {
+    this.maxPoolSize = maxConnections;
+  }
+
+  public int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  public void setPipeliningDepth(int depth) {
+    this.pipeliningDepth = depth;
+  }
+
+  public int getPipeliningDepth() {
+    return pipeliningDepth;
+  }
+
+  public void setIdleTimeout(long timeout) {
+    this.idleTimeout = timeout;
+  }
+
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public void setMaxLifetime(long lifetime) {
+    this.maxLifetime = lifetime;
+  }
+
+  public long getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  /**
+   * The partitions are not locked to take the snapshot, so the counts of the different partitions may be taken at
+   * slightly different times. A partition counts the busy connections it keeps for pipelining as idle.
+   */
+  public HttpPoolStats getStats() {
+    int idle = 0;
+    int waiters = 0;
+    for (Partition partition: partitions.values()) {
+      idle += partition.idleCount;
+      waiters += partition.waiterCount;
+    }
+    return metrics.stats(connectionCount.get(), idle, waiters);
+  }
+
+  public void getConnection(final Handler<ClientConnection> handler, final Handler<Throwable> connectExceptionHandler,
+                            final DefaultContext context) {
+    final Partition partition = partition(context);
+    if (partition.loop.inEventLoop()) {
+      partition.getConnection(handler, connectExceptionHandler, context, context instanceof EventLoopContext);
+    } else {
+      partition.loop.execute(new Runnable() {
+        public void run() {
+          partition.getConnection(handler, connectExceptionHandler, context, false);
+        }
+      });
+    }
+  }
+
+  public void connectionClosed(DefaultContext context) {
+    final Partition partition = partitions.get(key(context));
+    connectionCount.decrementAndGet();
+    if (partition == null) {
+      // The partition of a worker context which has been closed, the room goes to the other partitions
+      wakeWaiter(null);
+    } else if (partition.loop.inEventLoop()) {
+      wakeWaiter(partition);
+    } else {
+      partition.loop.execute(new Runnable() {
+        public void run() {
+          wakeWaiter(partition);
+        }
+      });
+    }
+  }
+
+  public void returnConnection(final ClientConnection conn) {
+    final Partition partition = partitions.get(key(conn.getContext()));
+    if (partition == null) {
+      // Its worker context has been closed, nothing else can use it
+      evict(conn);
+    } else if (partition.loop.inEventLoop()) {
+      partition.returnConnection(conn);
+    } else {
+      partition.loop.execute(new Runnable() {
+        public void run() {
+          partition.returnConnection(conn);
+        }
+      });
+    }
+  }
+
+  public void responseEnded(final ClientConnection conn) {
+    final Partition partition = partitions.get(key(conn.getContext()));
+    if (partition == null) {
+      return;
+    }
+    if (partition.loop.inEventLoop()) {
+      partition.responseEnded(conn);
+    } else {
+      partition.loop.execute(new Runnable() {
+        public void run() {
+          partition.responseEnded(conn);
+        }
+      });
+    }
+  }
+
+  public void evictExpired() {
+    for (final Partition partition: partitions.values()) {
+      if (partition.loop.inEventLoop()) {
+        partition.evictExpired();
+      } else {
+        partition.loop.execute(new Runnable() {
+          public void run() {
+            partition.evictExpired();
+          }
+        });
+      }
+    }
+  }
+
+  public void openConnections(int count, Handler<AsyncResult<Void>> doneHandler, DefaultContext context) {
+    int open = 0;
+    while (open < count && reserveConnection()) {
+      open++;
+    }
+    PoolWarmUp warmUp = new PoolWarmUp(this, open, doneHandler, context);
+    for (int i = 0; i < open; i++) {
+      connect(warmUp.connectHandler, warmUp.connectErrorHandler, context);
+    }
+  }
+
+  public void close() {
+    for (final Partition partition: partitions.values()) {
+      partition.loop.execute(new Runnable() {
+        public void run() {
+          partition.available.clear();
+          partition.waiters.clear();
+          partition.waiterCount = 0;
+          partition.idleCount = 0;
+        }
+      });
+    }
+  }
+
+  /**
+   * Implement this method in a sub-class to open a connection on the event loop of {@code context}
+   */
+  protected abstract void connect(Handler<ClientConnection> connectHandler, Handler<Throwable> connectErrorHandler,
+                                  DefaultContext context);
+
+  // The contexts of an event loop share its partition. A worker context runs on different threads so it gets
+  // a partition of its own, still served by its event loop
+  private static Object key(DefaultContext context) {
+    return context instanceof EventLoopContext ? context.getEventLoop() : context;
+  }
+
+  private Partition partition(final DefaultContext context) {
+    final Object key = key(context);
+    Partition partition = partitions.get(key);
+    if (partition == null) {
+      partition = new Partition(context.getEventLoop());
+      Partition prev = partitions.putIfAbsent(key, partition);
+      if (prev != null) {
+        partition = prev;
+      } else if (key == context) {
+        final Partition created = partition;
+        context.addCloseHook(new Closeable() {
+          public void close(Handler<AsyncResult<Void>> doneHandler) {
+            // Otherwise each worker verticle undeployed keeps a partition, with its share of the connections
+            partitions.remove(key, created);
+            created.loop.execute(new Runnable() {
+              public void run() {
+                created.drop();
+              }
+            });
+            doneHandler.handle(new DefaultFutureResult<>((Void) null));
+          }
+        });
+      }
+    }
+    return partition;
+  }
+
+  private boolean reserveConnection() {
+    for (;;) {
+      int count = connectionCount.get();
+      if (count >= maxPoolSize) {
+        return false;
+      }
+      if (connectionCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  // Called on the event loop of partition, which gets the first chance to use the room left by a closed connection.
+  // partition is null when the connection belonged to a closed worker context
+  private void wakeWaiter(Partition partition) {
+    if (partition != null && partition.connectWaiter()) {
+      return;
+    }
+    for (final Partition other: partitions.values()) {
+      if (other != partition && other.waiterCount > 0) {
+        other.loop.execute(new Runnable() {
+          public void run() {
+            other.connectWaiter();
+          }
+        });
+        return;
+      }
+    }
+  }
+
+  private boolean othersWaiting(Partition partition) {
+    for (Partition other: partitions.values()) {
+      if (other != partition && other.waiterCount > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Asks another partition to close one of its idle connections, so the room can be used by partition
+  private void releaseIdleConnection(Partition partition) {
+    if (connectionCount.get() < maxPoolSize) {
+      return;
+    }
+    for (final Partition other: partitions.values()) {
+      if (other != partition && other.idleCount > 0) {
+        other.loop.execute(new Runnable() {
+          public void run() {
+            other.evictIdleConnection();
+          }
+        });
+        return;
+      }
+    }
+  }
+
+  private boolean canPipeline(ClientConnection conn) {
+    return pipeliningDepth == 0 || conn.getOutstandingRequestCount() < pipeliningDepth;
+  }
+
+  private boolean isExpired(ClientConnection conn, long now) {
+    return conn.isExpired(now, TimeUnit.MILLISECONDS.toNanos(idleTimeout), TimeUnit.MILLISECONDS.toNanos(maxLifetime));
+  }
+
+  private void evict(ClientConnection conn) {
+    if (!conn.isClosed()) {
+      metrics.evicted();
+      conn.evict();
+    }
+  }
+
+  private void handOver(final Waiter waiter, final ClientConnection conn) {
+    metrics.waitEnded(waiter.start);
+    waiter.context.execute(new Runnable() {
+      public void run() {
+        waiter.handler.handle(conn);
+      }
+    });
+  }
+
+  /**
+   * The connections of one event loop, only used from that event loop
+   */
+  private final class Partition {
+
+    final EventLoop loop;
+    final ArrayDeque<ClientConnection> available = new ArrayDeque<>();
+    final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    // Read by the other partitions, to find where connections are needed or can be freed
+    volatile int waiterCount;
+    volatile int idleCount;
+
+    Partition(EventLoop loop) {
+      this.loop = loop;
+    }
+
+    void getConnection(Handler<ClientConnection> handler, Handler<Throwable> connectExceptionHandler,
+                       DefaultContext context, boolean direct) {
+      ClientConnection conn = selectConnection();
+      if (conn != null) {
+        if (direct) {
+          handler.handle(conn);
+        } else {
+          handOver(new Waiter(handler, connectExceptionHandler, context), conn);
+        }
+      } else if (reserveConnection()) {
+        connect(handler, connectExceptionHandler, context);
+      } else {
+        waiters.add(new Waiter(handler, connectExceptionHandler, context));
+        waiterCount = waiters.size();
+        releaseIdleConnection(this);
+      }
+    }
+
+    void returnConnection(ClientConnection conn) {
+      if (isExpired(conn, System.nanoTime())) {
+        evict(conn);
+        return;
+      }
+      Waiter waiter = canPipeline(conn) ? pollWaiter() : null;
+      if (waiter != null) {
+        handOver(waiter, conn);
+      } else if (conn.getOutstandingRequestCount() == 0 && othersWaiting(this)) {
+        // Make room for a connection on the event loop which needs one
+        evict(conn);
+      } else {
+        available.add(conn);
+        idleCount = available.size();
+      }
+    }
+
+    // Called once the partition has been removed, its connections in use are closed when they are returned
+    void drop() {
+      waiters.clear();
+      waiterCount = 0;
+      ClientConnection conn;
+      while ((conn = available.poll()) != null) {
+        evict(conn);
+      }
+      idleCount = 0;
+    }
+
+    void evictIdleConnection() {
+      for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+        ClientConnection conn = iter.next();
+        if (conn.getOutstandingRequestCount() == 0) {
+          iter.remove();
+          idleCount = available.size();
+          evict(conn);
+          return;
+        }
+      }
+    }
+
+    void evictExpired() {
+      long now = System.nanoTime();
+      for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+        ClientConnection conn = iter.next();
+        if (isExpired(conn, now)) {
+          iter.remove();
+          evict(conn);
+        }
+      }
+      idleCount = available.size();
+    }
+
+    void responseEnded(ClientConnection conn) {
+      if (conn.isClosed()) {
+        return;
+      }
+      // A connection which has reached its maximum lifetime is closed once its last response has ended
+      if (maxLifetime > 0 && isExpired(conn, System.nanoTime())) {
+        if (available.remove(conn)) {
+          idleCount = available.size();
+          evict(conn);
+        }
+        return;
+      }
+      if (!waiters.isEmpty()) {
+        if (pipeliningDepth > 0 && canPipeline(conn) && available.remove(conn)) {
+          idleCount = available.size();
+          handOver(pollWaiter(), conn);
+        }
+      } else if (conn.getOutstandingRequestCount() == 0 && othersWaiting(this) && available.remove(conn)) {
+        idleCount = available.size();
+        evict(conn);
+      }
+    }
+
+    boolean connectWaiter() {
+      if (waiters.isEmpty() || !reserveConnection()) {
+        return false;
+      }
+      Waiter waiter = pollWaiter();
+      metrics.waitEnded(waiter.start);
+      connect(waiter.handler, waiter.connectionExceptionHandler, waiter.context);
+      return true;
+    }
+
+    private Waiter pollWaiter() {
+      Waiter waiter = waiters.poll();
+      waiterCount = waiters.size();
+      return waiter;
+    }
+
+    private ClientConnection selectConnection() {
+      int depth = pipeliningDepth;
+      // Without a pipelining depth the busy connections are only used once the pool is exhausted
+      boolean useBusy = depth > 0 || connectionCount.get() >= maxPoolSize;
+      long now = System.nanoTime();
+      ClientConnection conn = null;
+      for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+        ClientConnection c = iter.next();
+        if (isExpired(c, now)) {
+          iter.remove();
+          evict(c);
+          continue;
+        }
+        int outstanding = c.getOutstandingRequestCount();
+        if (outstanding == 0) {
+          conn = c;
+          break;
+        }
+        if (useBusy && (depth == 0 || outstanding < depth) &&
+            (conn == null || outstanding < conn.getOutstandingRequestCount())) {
+          conn = c;
+        }
+      }
+      if (conn != null) {
+        available.remove(conn);
+      }
+      idleCount = available.size();
+      return conn;
+    }
+  }
+
+  private static class Waiter {
+    final Handler<ClientConnection> handler;
+    final Handler<Throwable> connectionExceptionHandler;
+    final DefaultContext context;
+    final long start = System.nanoTime();
+
+    private Waiter(Handler<ClientConnection> handler, Handler<Throwable> connectionExceptionHandler, DefaultContext context) {
+      this.handler = handler;
+      this.connectionExceptionHandler = connectionExceptionHandler;
+      this.context = context;
+    }
+  }
+}
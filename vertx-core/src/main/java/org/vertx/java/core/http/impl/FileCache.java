@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size bounded LRU cache of the properties, and optionally the content, of the files served by a
+ * {@link org.vertx.java.core.http.StaticFileHandler}.<p>
+ * The cache holds at most {@code maxEntries} entries, including the entries of files which don't exist, and at most
+ * {@code maxSize} bytes of file content. The least recently used entries are dropped to stay within both bounds.
+ * An entry never changes once cached, apart from its content being added later, so the handler replaces the entry
+ * when it finds the file has changed on disk.<p>
+ * Instances of this class are thread-safe<p>
+ */
+public class FileCache {
+
+  private final int maxEntries;
+  private final long maxSize;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+
+  public FileCache(int maxEntries, long maxSize) {
+    this.maxEntries = maxEntries;
+    this.maxSize = maxSize;
+  }
+
+  public synchronized Entry get(String path) {
+    return entries.get(path);
+  }
+
+  public synchronized void put(Entry entry) {
+    Entry prev = entries.put(entry.path, entry);
+    if (prev != null && prev.content != null) {
+      size -= prev.content.length;
+    }
+    if (entry.content != null) {
+      size += entry.content.length;
+    }
+    trim();
+  }
+
+  /**
+   * Add the content of a file to its entry, as long as the entry is still the cached one
+   */
+  public synchronized void putContent(Entry entry, byte[] content) {
+    if (entry.content != null || entries.get(entry.path) != entry || content.length > maxSize) {
+      return;
+    }
+    entry.content = content;
+    size += content.length;
+    trim();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  public synchronized int entryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of bytes of file content held by the cache
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || size > maxSize) && iter.hasNext()) {
+      Entry eldest = iter.next().getValue();
+      iter.remove();
+      if (eldest.content != null) {
+        size -= eldest.content.length;
+      }
+    }
+  }
+
+  /**
+   * The state of a file when it was last checked on disk
+   */
+  public static class Entry {
+
+    public final String path;
+    public final File file;
+    public final boolean exists;
+    public final long length;
+    public final long lastModified;
+    public final String etag;
+    public final String lastModifiedHeader;
+    // When the file was last checked on disk, as given by System.nanoTime()
+    private volatile long checked;
+    private volatile byte[] content;
+
+    public Entry(String path, File file, boolean exists, long length, long lastModified, String etag,
+                 String lastModifiedHeader) {
+      this.path = path;
+      this.file = file;
+      this.exists = exists;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.etag = etag;
+      this.lastModifiedHeader = lastModifiedHeader;
+      this.checked = System.nanoTime();
+    }
+
+    /**
+     * @return the content of the file, or null if it isn't cached
+     */
+    public byte[] content() {
+      return content;
+    }
+
+    public long checked() {
+      return checked;
+    }
+
+    /**
+     * Record that the file was found unchanged on disk
+     */
+    public void checked(long time) {
+      this.checked = time;
+    }
+  }
+}
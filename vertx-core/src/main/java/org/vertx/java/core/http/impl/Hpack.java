@@ -0,0 +1,284 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parts of HPACK, the header compression of HTTP/2 defined by RFC 7541, which are shared by the
+ * {@link HpackDecoder} and the {@link HpackEncoder}: the static table, the prefixed integers and the Huffman code.
+ */
+final class Hpack {
+
+  static final int ENTRY_OVERHEAD = 32;
+
+  // The name and value of the entries of the static table, the first entry has the index 1
+  private static final String[] STATIC_TABLE = {
+      ":authority", "",
+      ":method", "GET",
+      ":method", "POST",
+      ":path", "/",
+      ":path", "/index.html",
+      ":scheme", "http",
+      ":scheme", "https",
+      ":status", "200",
+      ":status", "204",
+      ":status", "206",
+      ":status", "304",
+      ":status", "400",
+      ":status", "404",
+      ":status", "500",
+      "accept-charset", "",
+      "accept-encoding", "gzip, deflate",
+      "accept-language", "",
+      "accept-ranges", "",
+      "accept", "",
+      "access-control-allow-origin", "",
+      "age", "",
+      "allow", "",
+      "authorization", "",
+      "cache-control", "",
+      "content-disposition", "",
+      "content-encoding", "",
+      "content-language", "",
+      "content-length", "",
+      "content-location", "",
+      "content-range", "",
+      "content-type", "",
+      "cookie", "",
+      "date", "",
+      "etag", "",
+      "expect", "",
+      "expires", "",
+      "from", "",
+      "host", "",
+      "if-match", "",
+      "if-modified-since", "",
+      "if-none-match", "",
+      "if-range", "",
+      "if-unmodified-since", "",
+      "last-modified", "",
+      "link", "",
+      "location", "",
+      "max-forwards", "",
+      "proxy-authenticate", "",
+      "proxy-authorization", "",
+      "range", "",
+      "referer", "",
+      "refresh", "",
+      "retry-after", "",
+      "server", "",
+      "set-cookie", "",
+      "strict-transport-security", "",
+      "transfer-encoding", "",
+      "user-agent", "",
+      "vary", "",
+      "via", "",
+      "www-authenticate", ""
+  };
+
+  static final int STATIC_TABLE_SIZE = STATIC_TABLE.length / 2;
+
+  private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+  private static final Map<String, Integer> STATIC_ENTRIES = new HashMap<>();
+
+  // The length in bits of the Huffman code of each symbol, the code is canonical so the codes can be derived from
+  // the lengths. The last symbol is EOS.
+  private static final byte[] HUFFMAN_LENGTHS = {
+    13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+    28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+    6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+    5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+    13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+    7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+    15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+    6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+    20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+    24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+    22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+    21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+    26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+    19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+    20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+    26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+    30
+  };
+
+  private static final int EOS = 256;
+
+  // The Huffman decoding tree, each node has two children which are either the index of another node or, when
+  // negative, a leaf holding the symbol -(child + 1)
+  private static final int[] HUFFMAN_TREE = new int[2 * HUFFMAN_LENGTHS.length];
+
+  static {
+    for (int i = STATIC_TABLE_SIZE; i > 0; i--) {
+      STATIC_NAMES.put(name(i), i);
+      STATIC_ENTRIES.put(name(i) + '\0' + value(i), i);
+    }
+    int nodes = 1;
+    int code = 0;
+    int prevLength = 0;
+    for (int length = 1; length <= 30; length++) {
+      for (int sym = 0; sym < HUFFMAN_LENGTHS.length; sym++) {
+        if (HUFFMAN_LENGTHS[sym] != length) {
+          continue;
+        }
+        code <<= length - prevLength;
+        prevLength = length;
+        int node = 0;
+        for (int bit = length - 1; bit > 0; bit--) {
+          int child = 2 * node + ((code >>> bit) & 1);
+          if (HUFFMAN_TREE[child] == 0) {
+            HUFFMAN_TREE[child] = nodes++;
+          }
+          node = HUFFMAN_TREE[child];
+        }
+        HUFFMAN_TREE[2 * node + (code & 1)] = -(sym + 1);
+        code++;
+      }
+    }
+  }
+
+  private Hpack() {
+  }
+
+  static String name(int index) {
+    return STATIC_TABLE[2 * (index - 1)];
+  }
+
+  static String value(int index) {
+    return STATIC_TABLE[2 * (index - 1) + 1];
+  }
+
+  /**
+   * @return the index of the static entry with this name and value, or 0 if there isn't any
+   */
+  static int indexOf(String name, String value) {
+    Integer index = STATIC_ENTRIES.get(name + '\0' + value);
+    return index == null ? 0 : index;
+  }
+
+  /**
+   * @return the index of the first static entry with this name, or 0 if there isn't any
+   */
+  static int indexOf(String name) {
+    Integer index = STATIC_NAMES.get(name);
+    return index == null ? 0 : index;
+  }
+
+  static int decodeInt(ByteBuf in, int first, int prefixBits) {
+    int max = (1 << prefixBits) - 1;
+    int value = first & max;
+    if (value < max) {
+      return value;
+    }
+    int shift = 0;
+    while (true) {
+      if (!in.isReadable()) {
+        throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Truncated integer");
+      }
+      int b = in.readUnsignedByte();
+      if (shift > 21) {
+        throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Integer overflow");
+      }
+      value += (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+    }
+  }
+
+  static void encodeInt(ByteBuf out, int mask, int prefixBits, int value) {
+    int max = (1 << prefixBits) - 1;
+    if (value < max) {
+      out.writeByte(mask | value);
+      return;
+    }
+    out.writeByte(mask | max);
+    value -= max;
+    while (value >= 0x80) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  static String decodeString(ByteBuf in) {
+    if (!in.isReadable()) {
+      throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Truncated string");
+    }
+    int first = in.readUnsignedByte();
+    int length = decodeInt(in, first, 7);
+    if (length > in.readableBytes()) {
+      throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Truncated string");
+    }
+    if ((first & 0x80) == 0) {
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        chars[i] = (char) in.readUnsignedByte();
+      }
+      return new String(chars);
+    }
+    return decodeHuffman(in, length);
+  }
+
+  private static String decodeHuffman(ByteBuf in, int length) {
+    StringBuilder sb = new StringBuilder(length + length / 2);
+    int node = 0;
+    // The bits read since the last symbol, they must be a prefix of EOS shorter than a byte at the end
+    int pending = 0;
+    boolean ones = true;
+    for (int i = 0; i < length; i++) {
+      int b = in.readUnsignedByte();
+      for (int bit = 7; bit >= 0; bit--) {
+        int set = (b >>> bit) & 1;
+        int child = HUFFMAN_TREE[2 * node + set];
+        pending++;
+        ones &= set == 1;
+        if (child < 0) {
+          int sym = -(child + 1);
+          if (sym == EOS) {
+            throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "EOS in Huffman string");
+          }
+          sb.append((char) sym);
+          node = 0;
+          pending = 0;
+          ones = true;
+        } else {
+          node = child;
+        }
+      }
+    }
+    if (pending > 7 || !ones) {
+      throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Invalid Huffman padding");
+    }
+    return sb.toString();
+  }
+
+  static void encodeString(ByteBuf out, String s) {
+    int length = s.length();
+    encodeInt(out, 0, 7, length);
+    for (int i = 0; i < length; i++) {
+      out.writeByte(s.charAt(i));
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decodes the header blocks of an HTTP/2 connection. It keeps the dynamic table of the connection, so the blocks
+ * must all be decoded in the order they are received, including the ones of the streams which are refused.
+ */
+class HpackDecoder {
+
+  private final int maxTableSize;
+  // The newest entry is first, as it has the lowest index, each entry is a name and a value
+  private final ArrayDeque<String[]> table = new ArrayDeque<>();
+  private int tableSize;
+  private int tableCapacity;
+
+  HpackDecoder(int maxTableSize) {
+    this.maxTableSize = maxTableSize;
+    this.tableCapacity = maxTableSize;
+  }
+
+  /**
+   * Decode a complete header block, the names and the values are added in turn to {@code headers}
+   */
+  void decode(ByteBuf in, List<String> headers) {
+    boolean first = true;
+    while (in.isReadable()) {
+      int b = in.readUnsignedByte();
+      if ((b & 0x80) != 0) {
+        // Indexed field
+        int index = Hpack.decodeInt(in, b, 7);
+        headers.add(name(index));
+        headers.add(value(index));
+      } else if ((b & 0x40) != 0) {
+        // Literal with incremental indexing
+        String name = literalName(in, b, 6);
+        String value = Hpack.decodeString(in);
+        headers.add(name);
+        headers.add(value);
+        add(name, value);
+      } else if ((b & 0x20) != 0) {
+        // Dynamic table size update, only allowed at the start of a block
+        if (!first) {
+          throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Table size update after a header field");
+        }
+        int size = Hpack.decodeInt(in, b, 5);
+        if (size > maxTableSize) {
+          throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Table size " + size + " is over " + maxTableSize);
+        }
+        tableCapacity = size;
+        evict();
+        continue;
+      } else {
+        // Literal without indexing or never indexed
+        String name = literalName(in, b, 4);
+        headers.add(name);
+        headers.add(Hpack.decodeString(in));
+      }
+      first = false;
+    }
+  }
+
+  private String literalName(ByteBuf in, int b, int prefixBits) {
+    int index = Hpack.decodeInt(in, b, prefixBits);
+    return index == 0 ? Hpack.decodeString(in) : name(index);
+  }
+
+  private String name(int index) {
+    return isStatic(index) ? Hpack.name(index) : entry(index)[0];
+  }
+
+  private String value(int index) {
+    return isStatic(index) ? Hpack.value(index) : entry(index)[1];
+  }
+
+  private boolean isStatic(int index) {
+    if (index == 0) {
+      throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Invalid index 0");
+    }
+    return index <= Hpack.STATIC_TABLE_SIZE;
+  }
+
+  private String[] entry(int index) {
+    int pos = index - Hpack.STATIC_TABLE_SIZE - 1;
+    if (pos >= table.size()) {
+      throw new Http2Exception(Http2Frame.COMPRESSION_ERROR, "Invalid index " + index);
+    }
+    Iterator<String[]> iter = table.iterator();
+    String[] entry = iter.next();
+    for (int i = 0; i < pos; i++) {
+      entry = iter.next();
+    }
+    return entry;
+  }
+
+  private void add(String name, String value) {
+    int size = name.length() + value.length() + Hpack.ENTRY_OVERHEAD;
+    if (size > tableCapacity) {
+      // An entry larger than the table empties it
+      table.clear();
+      tableSize = 0;
+      return;
+    }
+    table.addFirst(new String[] {name, value});
+    tableSize += size;
+    evict();
+  }
+
+  private void evict() {
+    while (tableSize > tableCapacity) {
+      String[] entry = table.removeLast();
+      tableSize -= entry[0].length() + entry[1].length() + Hpack.ENTRY_OVERHEAD;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Encodes the header blocks of the responses of an HTTP/2 connection.<p>
+ * It only refers to the static table and never adds entries to the dynamic table, so the blocks don't depend on
+ * each other and can be encoded as soon as a response is written, even if the frames of another stream are sent
+ * first. Strings are not Huffman encoded.
+ */
+final class HpackEncoder {
+
+  private HpackEncoder() {
+  }
+
+  /**
+   * Encode a header field, the name must already be lower case
+   */
+  static void encode(ByteBuf out, String name, String value) {
+    int index = Hpack.indexOf(name, value);
+    if (index != 0) {
+      // Indexed field
+      Hpack.encodeInt(out, 0x80, 7, index);
+      return;
+    }
+    // Literal without indexing
+    index = Hpack.indexOf(name);
+    Hpack.encodeInt(out, 0, 4, index);
+    if (index == 0) {
+      Hpack.encodeString(out, name);
+    }
+    Hpack.encodeString(out, value);
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.VertxException;
+
+/**
+ * An HTTP/2 error, which carries the error code sent to the peer in the {@code GOAWAY} or {@code RST_STREAM} frame
+ */
+class Http2Exception extends VertxException {
+
+  final int errorCode;
+
+  Http2Exception(int errorCode, String message) {
+    super(message);
+    this.errorCode = errorCode;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * An HTTP/2 frame, as defined by RFC 7540. Inbound frames are produced by the {@link Http2FrameDecoder}, outbound
+ * frames are written as plain buffers built by the static methods of this class.
+ */
+class Http2Frame {
+
+  static final int HEADER_LENGTH = 9;
+  static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+  static final int DEFAULT_WINDOW_SIZE = 65535;
+  static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+  static final int DATA = 0x0;
+  static final int HEADERS = 0x1;
+  static final int PRIORITY = 0x2;
+  static final int RST_STREAM = 0x3;
+  static final int SETTINGS = 0x4;
+  static final int PUSH_PROMISE = 0x5;
+  static final int PING = 0x6;
+  static final int GOAWAY = 0x7;
+  static final int WINDOW_UPDATE = 0x8;
+  static final int CONTINUATION = 0x9;
+
+  static final int FLAG_END_STREAM = 0x1;
+  static final int FLAG_ACK = 0x1;
+  static final int FLAG_END_HEADERS = 0x4;
+  static final int FLAG_PADDED = 0x8;
+  static final int FLAG_PRIORITY = 0x20;
+
+  static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+  static final int SETTINGS_ENABLE_PUSH = 0x2;
+  static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+  static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+  static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+  static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+  static final int NO_ERROR = 0x0;
+  static final int PROTOCOL_ERROR = 0x1;
+  static final int INTERNAL_ERROR = 0x2;
+  static final int FLOW_CONTROL_ERROR = 0x3;
+  static final int STREAM_CLOSED = 0x5;
+  static final int FRAME_SIZE_ERROR = 0x6;
+  static final int REFUSED_STREAM = 0x7;
+  static final int CANCEL = 0x8;
+  static final int COMPRESSION_ERROR = 0x9;
+
+  final int type;
+  final int flags;
+  final int streamId;
+  final ByteBuf payload;
+
+  Http2Frame(int type, int flags, int streamId, ByteBuf payload) {
+    this.type = type;
+    this.flags = flags;
+    this.streamId = streamId;
+    this.payload = payload;
+  }
+
+  boolean hasFlag(int flag) {
+    return (flags & flag) != 0;
+  }
+
+  static ByteBuf header(int length, int type, int flags, int streamId) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH);
+    writeHeader(buf, length, type, flags, streamId);
+    return buf;
+  }
+
+  static ByteBuf frame(int type, int flags, int streamId, ByteBuf payload) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + payload.readableBytes());
+    writeHeader(buf, payload.readableBytes(), type, flags, streamId);
+    buf.writeBytes(payload);
+    return buf;
+  }
+
+  static ByteBuf settings(int... params) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + params.length * 3);
+    writeHeader(buf, params.length * 3, SETTINGS, 0, 0);
+    for (int i = 0; i < params.length; i += 2) {
+      buf.writeShort(params[i]);
+      buf.writeInt(params[i + 1]);
+    }
+    return buf;
+  }
+
+  static ByteBuf settingsAck() {
+    return header(0, SETTINGS, FLAG_ACK, 0);
+  }
+
+  static ByteBuf windowUpdate(int streamId, int increment) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + 4);
+    writeHeader(buf, 4, WINDOW_UPDATE, 0, streamId);
+    buf.writeInt(increment);
+    return buf;
+  }
+
+  static ByteBuf rstStream(int streamId, int errorCode) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + 4);
+    writeHeader(buf, 4, RST_STREAM, 0, streamId);
+    buf.writeInt(errorCode);
+    return buf;
+  }
+
+  static ByteBuf goAway(int lastStreamId, int errorCode) {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + 8);
+    writeHeader(buf, 8, GOAWAY, 0, 0);
+    buf.writeInt(lastStreamId);
+    buf.writeInt(errorCode);
+    return buf;
+  }
+
+  private static void writeHeader(ByteBuf buf, int length, int type, int flags, int streamId) {
+    buf.writeMedium(length);
+    buf.writeByte(type);
+    buf.writeByte(flags);
+    buf.writeInt(streamId);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Splits the bytes of an HTTP/2 connection into {@link Http2Frame}s, once the client connection preface has been
+ * consumed by the {@link Http2PrefaceHandler}.<p>
+ * The payloads are copied to heap buffers, so the frames can be handed to the connection like any other message.
+ * A frame larger than the maximum frame size the server advertises is a connection error: a {@code GOAWAY} is
+ * sent and the connection is closed.
+ */
+class Http2FrameDecoder extends ByteToMessageDecoder {
+
+  private boolean failed;
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+    if (failed) {
+      in.skipBytes(in.readableBytes());
+      return;
+    }
+    while (in.readableBytes() >= Http2Frame.HEADER_LENGTH) {
+      int start = in.readerIndex();
+      int length = in.getUnsignedMedium(start);
+      if (length > Http2Frame.DEFAULT_MAX_FRAME_SIZE) {
+        failed = true;
+        in.skipBytes(in.readableBytes());
+        ctx.writeAndFlush(Http2Frame.goAway(0, Http2Frame.FRAME_SIZE_ERROR)).addListener(ChannelFutureListener.CLOSE);
+        return;
+      }
+      if (in.readableBytes() < Http2Frame.HEADER_LENGTH + length) {
+        return;
+      }
+      int type = in.getUnsignedByte(start + 3);
+      int flags = in.getUnsignedByte(start + 4);
+      int streamId = in.getInt(start + 5) & 0x7FFFFFFF;
+      in.skipBytes(Http2Frame.HEADER_LENGTH);
+      ByteBuf payload = length == 0 ? Unpooled.EMPTY_BUFFER : Unpooled.buffer(length).writeBytes(in, length);
+      out.add(new Http2Frame(type, flags, streamId, payload));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.CharsetUtil;
+
+import java.util.List;
+
+/**
+ * Looks for the HTTP/2 client connection preface at the start of a connection, which is how a client with prior
+ * knowledge starts HTTP/2 over cleartext (h2c).<p>
+ * If the first bytes are the preface, the HTTP/1.x codecs are replaced with the {@link Http2FrameDecoder}. As soon
+ * as they aren't, the handler simply removes itself and the connection goes on as HTTP/1.x, like the
+ * {@link org.vertx.java.core.http.impl.cgbystrom.FlashPolicyHandler} does.
+ */
+class Http2PrefaceHandler extends ByteToMessageDecoder {
+
+  private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(CharsetUtil.US_ASCII);
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+    int len = Math.min(in.readableBytes(), PREFACE.length);
+    for (int i = 0; i < len; i++) {
+      if (in.getByte(in.readerIndex() + i) != PREFACE[i]) {
+        ctx.pipeline().remove(this);
+        return;
+      }
+    }
+    if (len == PREFACE.length) {
+      in.skipBytes(PREFACE.length);
+      ChannelPipeline pipeline = ctx.pipeline();
+      pipeline.remove("httpDecoder");
+      pipeline.remove("httpEncoder");
+      pipeline.remove("httpLimits");
+      if (pipeline.get("httpCompressor") != null) {
+        pipeline.remove("httpCompressor");
+      }
+      if (pipeline.get("chunkedWriter") != null) {
+        pipeline.remove("chunkedWriter");
+      }
+      pipeline.addBefore("handler", "http2Decoder", new Http2FrameDecoder());
+      // The rest of the input is passed on to the frame decoder
+      pipeline.remove(this);
+    }
+  }
+}
@@ -0,0 +1,613 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP/2 connection to the server, as defined by RFC 7540.<p>
+ * It handles the frames of the connection: the settings, the pings, the flow control windows and the header blocks,
+ * decoded with HPACK. Each stream opened by the client is an {@link Http2ServerStream}, which hands its request to
+ * the request handler of the server like an HTTP/1.x connection would, so the handlers don't need to know which
+ * version of the protocol is used.<p>
+ * The responses of the streams are sent in turn, a frame at a time, as long as the flow control windows and the
+ * channel allow it.
+ */
+class Http2ServerConnection extends ServerConnection {
+
+  private static final Logger log = LoggerFactory.getLogger(Http2ServerConnection.class);
+
+  private static final int MAX_CONCURRENT_STREAMS = 100;
+  private static final int HEADER_TABLE_SIZE = 4096;
+
+  private final Handler<HttpServerRequest> requestHandler;
+  private final Map<Integer, Http2ServerStream> streams = new HashMap<>();
+  private final ArrayDeque<Http2ServerStream> writableStreams = new ArrayDeque<>();
+  private final HpackDecoder decoder = new HpackDecoder(HEADER_TABLE_SIZE);
+  private final int maxHeaderSize;
+  private final int maxInitialLineLength;
+  private final int maxStreams;
+  private int acceptedStreams;
+  private long initialSendWindow = Http2Frame.DEFAULT_WINDOW_SIZE;
+  private int maxFrameSize = Http2Frame.DEFAULT_MAX_FRAME_SIZE;
+  long sendWindow = Http2Frame.DEFAULT_WINDOW_SIZE;
+  private int unackedBytes;
+  private int lastStreamId;
+  // The header block being received, until its last CONTINUATION frame
+  private ByteBuf headerBlock;
+  private int headerBlockStreamId;
+  private boolean headerBlockEnd;
+  private boolean goneAway;
+
+  Http2ServerConnection(DefaultHttpServer server, Channel channel, DefaultContext context, String serverOrigin,
+                        Handler<HttpServerRequest> requestHandler) {
+    super(server, channel, context, serverOrigin);
+    this.requestHandler = requestHandler;
+    this.maxHeaderSize = server.getMaxHeaderSize();
+    this.maxInitialLineLength = server.getMaxInitialLineLength();
+    this.maxStreams = server.getMaxRequestsPerConnection();
+    writeFrame(Http2Frame.settings(Http2Frame.SETTINGS_MAX_CONCURRENT_STREAMS, MAX_CONCURRENT_STREAMS,
+                                   Http2Frame.SETTINGS_MAX_HEADER_LIST_SIZE, maxHeaderSize));
+  }
+
+  Channel channel() {
+    return channel;
+  }
+
+  void handleFrame(Http2Frame frame) {
+    try {
+      if (headerBlock != null && (frame.type != Http2Frame.CONTINUATION || frame.streamId != headerBlockStreamId)) {
+        throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Expected a CONTINUATION frame");
+      }
+      switch (frame.type) {
+        case Http2Frame.DATA:
+          handleData(frame);
+          break;
+        case Http2Frame.HEADERS:
+          handleHeaders(frame);
+          break;
+        case Http2Frame.CONTINUATION:
+          handleContinuation(frame);
+          break;
+        case Http2Frame.RST_STREAM:
+          handleRstStream(frame);
+          break;
+        case Http2Frame.SETTINGS:
+          handleSettings(frame);
+          break;
+        case Http2Frame.PING:
+          handlePing(frame);
+          break;
+        case Http2Frame.WINDOW_UPDATE:
+          handleWindowUpdate(frame);
+          break;
+        case Http2Frame.PRIORITY:
+          checkStreamFrame(frame, 5);
+          break;
+        case Http2Frame.PUSH_PROMISE:
+          throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Clients can't push streams");
+        case Http2Frame.GOAWAY:
+          checkConnectionFrame(frame);
+          break;
+        default:
+          // Unknown frame types must be ignored
+      }
+    } catch (Http2Exception e) {
+      connectionError(e);
+    }
+  }
+
+  private void handleData(Http2Frame frame) {
+    checkStreamFrame(frame, -1);
+    int length = frame.payload.readableBytes();
+    // The whole payload counts towards the connection window, including the padding
+    unackedBytes += length;
+    if (unackedBytes >= Http2Frame.DEFAULT_WINDOW_SIZE / 2) {
+      writeFrame(Http2Frame.windowUpdate(0, unackedBytes));
+      unackedBytes = 0;
+    }
+    Http2ServerStream stream = streams.get(frame.streamId);
+    if (stream == null || stream.remoteEnded) {
+      if (frame.streamId > lastStreamId) {
+        throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "DATA frame on idle stream " + frame.streamId);
+      }
+      // The stream was closed or reset, the frames which were already sent are discarded
+      return;
+    }
+    ByteBuf data = removePadding(frame);
+    stream.handleData(data, length, frame.hasFlag(Http2Frame.FLAG_END_STREAM));
+  }
+
+  private void handleHeaders(Http2Frame frame) {
+    checkStreamFrame(frame, -1);
+    if ((frame.streamId & 1) == 0) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid stream " + frame.streamId);
+    }
+    ByteBuf block = removePadding(frame);
+    if (frame.hasFlag(Http2Frame.FLAG_PRIORITY)) {
+      if (block.readableBytes() < 5) {
+        throw new Http2Exception(Http2Frame.FRAME_SIZE_ERROR, "Invalid HEADERS frame");
+      }
+      block.skipBytes(5);
+    }
+    if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+      handleHeaderBlock(frame.streamId, block, frame.hasFlag(Http2Frame.FLAG_END_STREAM));
+    } else {
+      headerBlock = Unpooled.buffer(block.readableBytes() * 2).writeBytes(block);
+      headerBlockStreamId = frame.streamId;
+      headerBlockEnd = frame.hasFlag(Http2Frame.FLAG_END_STREAM);
+    }
+  }
+
+  private void handleContinuation(Http2Frame frame) {
+    if (headerBlock == null) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+    }
+    headerBlock.writeBytes(frame.payload);
+    // The compressed block can't be much larger than the headers, don't let it grow without bounds
+    if (headerBlock.readableBytes() > 4 * maxHeaderSize + Http2Frame.DEFAULT_MAX_FRAME_SIZE) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Header block is too large");
+    }
+    if (frame.hasFlag(Http2Frame.FLAG_END_HEADERS)) {
+      ByteBuf block = headerBlock;
+      headerBlock = null;
+      handleHeaderBlock(headerBlockStreamId, block, headerBlockEnd);
+    }
+  }
+
+  private void handleHeaderBlock(int streamId, ByteBuf block, boolean endStream) {
+    List<String> fields = new ArrayList<>();
+    // The block must be decoded even if the stream is refused, to keep the table in sync with the client
+    decoder.decode(block, fields);
+    Http2ServerStream stream = streams.get(streamId);
+    if (stream != null) {
+      if (stream.remoteEnded || !endStream) {
+        resetStream(stream, Http2Frame.PROTOCOL_ERROR);
+        return;
+      }
+      // Trailers
+      LastHttpContent trailers = new DefaultLastHttpContent();
+      for (int i = 0; i < fields.size(); i += 2) {
+        trailers.trailingHeaders().add(fields.get(i), fields.get(i + 1));
+      }
+      stream.handleTrailers(trailers);
+      return;
+    }
+    if (streamId <= lastStreamId) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "HEADERS frame on closed stream " + streamId);
+    }
+    lastStreamId = streamId;
+    if (goneAway || streams.size() >= MAX_CONCURRENT_STREAMS) {
+      writeFrame(Http2Frame.rstStream(streamId, Http2Frame.REFUSED_STREAM));
+      return;
+    }
+    HttpRequest request = createRequest(streamId, fields);
+    if (request == null) {
+      return;
+    }
+    stream = new Http2ServerStream(this, streamId, initialSendWindow);
+    stream.requestHandler(requestHandler);
+    streams.put(streamId, stream);
+    if (maxStreams > 0 && ++acceptedStreams >= maxStreams) {
+      // The last stream of the connection, the client opens a new connection for the next ones
+      goneAway = true;
+      writeFrame(Http2Frame.goAway(streamId, Http2Frame.NO_ERROR));
+      flush();
+    }
+    stream.handleMessage(request);
+    if (endStream) {
+      stream.handleTrailers(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+  }
+
+  /**
+   * Create the request of a stream from its header fields, or answer the stream straight away if the request is
+   * malformed or over the limits of the server
+   */
+  private HttpRequest createRequest(int streamId, List<String> fields) {
+    String method = null;
+    String path = null;
+    String authority = null;
+    boolean regular = false;
+    int size = 0;
+    StringBuilder cookies = null;
+    // The request looks like an HTTP/1.1 one to the handlers
+    HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+    HttpHeaders headers = request.headers();
+    for (int i = 0; i < fields.size(); i += 2) {
+      String name = fields.get(i);
+      String value = fields.get(i + 1);
+      size += name.length() + value.length() + Hpack.ENTRY_OVERHEAD;
+      if (name.startsWith(":")) {
+        if (regular) {
+          writeFrame(Http2Frame.rstStream(streamId, Http2Frame.PROTOCOL_ERROR));
+          return null;
+        }
+        switch (name) {
+          case ":method":
+            method = value;
+            break;
+          case ":path":
+            path = value;
+            break;
+          case ":authority":
+            authority = value;
+            break;
+          case ":scheme":
+            break;
+          default:
+            writeFrame(Http2Frame.rstStream(streamId, Http2Frame.PROTOCOL_ERROR));
+            return null;
+        }
+      } else {
+        regular = true;
+        if (name.equals("cookie")) {
+          // The cookies may be split over several fields, they are put back in one header
+          if (cookies == null) {
+            cookies = new StringBuilder(value);
+          } else {
+            cookies.append("; ").append(value);
+          }
+        } else {
+          headers.add(name, value);
+        }
+      }
+    }
+    if (method == null || path == null || path.isEmpty()) {
+      return malformed(streamId);
+    }
+    try {
+      request.setMethod(HttpMethod.valueOf(method));
+    } catch (IllegalArgumentException e) {
+      return malformed(streamId);
+    }
+    request.setUri(path);
+    if (size > maxHeaderSize) {
+      server().metrics().headersTooLarge();
+      reject(streamId, HttpResponseStatus.REQUEST_HEADER_FIELDS_TOO_LARGE);
+      return null;
+    }
+    if (path.length() > maxInitialLineLength) {
+      server().metrics().uriTooLong();
+      reject(streamId, HttpResponseStatus.REQUEST_URI_TOO_LONG);
+      return null;
+    }
+    long maxBodySize = server().getMaxRequestBodySize();
+    if (maxBodySize > 0 && headers.contains(HttpHeaders.Names.CONTENT_LENGTH)) {
+      long length;
+      try {
+        length = Long.parseLong(headers.get(HttpHeaders.Names.CONTENT_LENGTH));
+      } catch (NumberFormatException e) {
+        length = -1;
+      }
+      if (length > maxBodySize) {
+        server().metrics().bodyTooLarge();
+        reject(streamId, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        return null;
+      }
+    }
+    if (cookies != null) {
+      headers.set(HttpHeaders.Names.COOKIE, cookies.toString());
+    }
+    if (authority != null && !headers.contains(HttpHeaders.Names.HOST)) {
+      headers.set(HttpHeaders.Names.HOST, authority);
+    }
+    return request;
+  }
+
+  private HttpRequest malformed(int streamId) {
+    server().metrics().malformed();
+    writeFrame(Http2Frame.rstStream(streamId, Http2Frame.PROTOCOL_ERROR));
+    return null;
+  }
+
+  private void reject(int streamId, HttpResponseStatus status) {
+    ByteBuf block = Unpooled.buffer();
+    HpackEncoder.encode(block, ":status", String.valueOf(status.code()));
+    HpackEncoder.encode(block, "content-length", "0");
+    writeHeaders(streamId, block, true, null);
+    // Tell the client to stop sending the body of the request
+    writeFrame(Http2Frame.rstStream(streamId, Http2Frame.NO_ERROR));
+  }
+
+  private void handleRstStream(Http2Frame frame) {
+    checkStreamFrame(frame, 4);
+    Http2ServerStream stream = streams.remove(frame.streamId);
+    if (stream != null) {
+      writableStreams.remove(stream);
+      stream.handleReset();
+    }
+  }
+
+  private void handleSettings(Http2Frame frame) {
+    checkConnectionFrame(frame);
+    if (frame.hasFlag(Http2Frame.FLAG_ACK)) {
+      return;
+    }
+    ByteBuf payload = frame.payload;
+    if (payload.readableBytes() % 6 != 0) {
+      throw new Http2Exception(Http2Frame.FRAME_SIZE_ERROR, "Invalid SETTINGS frame");
+    }
+    while (payload.isReadable()) {
+      int id = payload.readUnsignedShort();
+      long value = payload.readUnsignedInt();
+      switch (id) {
+        case Http2Frame.SETTINGS_ENABLE_PUSH:
+          if (value > 1) {
+            throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH " + value);
+          }
+          break;
+        case Http2Frame.SETTINGS_INITIAL_WINDOW_SIZE:
+          if (value > Http2Frame.MAX_WINDOW_SIZE) {
+            throw new Http2Exception(Http2Frame.FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE " + value);
+          }
+          long delta = value - initialSendWindow;
+          initialSendWindow = value;
+          for (Http2ServerStream stream: new ArrayList<>(streams.values())) {
+            stream.sendWindow += delta;
+            if (stream.sendWindow > Http2Frame.MAX_WINDOW_SIZE) {
+              throw new Http2Exception(Http2Frame.FLOW_CONTROL_ERROR, "Window of stream " + stream.id + " overflows");
+            }
+          }
+          break;
+        case Http2Frame.SETTINGS_MAX_FRAME_SIZE:
+          if (value < Http2Frame.DEFAULT_MAX_FRAME_SIZE || value > 0xFFFFFF) {
+            throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE " + value);
+          }
+          maxFrameSize = (int) value;
+          break;
+        default:
+          // The header table size only matters to an encoder which uses the dynamic table, and the other settings
+          // are about the streams that the server could push
+      }
+    }
+    writeFrame(Http2Frame.settingsAck());
+    flushStreams();
+  }
+
+  private void handlePing(Http2Frame frame) {
+    checkConnectionFrame(frame);
+    if (frame.payload.readableBytes() != 8) {
+      throw new Http2Exception(Http2Frame.FRAME_SIZE_ERROR, "Invalid PING frame");
+    }
+    if (!frame.hasFlag(Http2Frame.FLAG_ACK)) {
+      writeFrame(Http2Frame.frame(Http2Frame.PING, Http2Frame.FLAG_ACK, 0, frame.payload));
+    }
+  }
+
+  private void handleWindowUpdate(Http2Frame frame) {
+    if (frame.payload.readableBytes() != 4) {
+      throw new Http2Exception(Http2Frame.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame");
+    }
+    int increment = frame.payload.readInt() & 0x7FFFFFFF;
+    if (frame.streamId == 0) {
+      if (increment == 0) {
+        throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid window increment 0");
+      }
+      sendWindow += increment;
+      if (sendWindow > Http2Frame.MAX_WINDOW_SIZE) {
+        throw new Http2Exception(Http2Frame.FLOW_CONTROL_ERROR, "Connection window overflows");
+      }
+    } else {
+      Http2ServerStream stream = streams.get(frame.streamId);
+      if (stream == null) {
+        return;
+      }
+      stream.sendWindow += increment;
+      if (increment == 0 || stream.sendWindow > Http2Frame.MAX_WINDOW_SIZE) {
+        resetStream(stream, increment == 0 ? Http2Frame.PROTOCOL_ERROR : Http2Frame.FLOW_CONTROL_ERROR);
+        return;
+      }
+    }
+    flushStreams();
+  }
+
+  private void checkStreamFrame(Http2Frame frame, int length) {
+    if (frame.streamId == 0) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Frame " + frame.type + " on stream 0");
+    }
+    if (length != -1 && frame.payload.readableBytes() != length) {
+      throw new Http2Exception(Http2Frame.FRAME_SIZE_ERROR, "Invalid length of frame " + frame.type);
+    }
+  }
+
+  private void checkConnectionFrame(Http2Frame frame) {
+    if (frame.streamId != 0) {
+      throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Frame " + frame.type + " on stream " + frame.streamId);
+    }
+  }
+
+  private static ByteBuf removePadding(Http2Frame frame) {
+    ByteBuf payload = frame.payload;
+    if (frame.hasFlag(Http2Frame.FLAG_PADDED)) {
+      if (!payload.isReadable()) {
+        throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid padding");
+      }
+      int padding = payload.readUnsignedByte();
+      if (padding > payload.readableBytes()) {
+        throw new Http2Exception(Http2Frame.PROTOCOL_ERROR, "Invalid padding");
+      }
+      payload.writerIndex(payload.writerIndex() - padding);
+    }
+    return payload;
+  }
+
+  private void connectionError(Http2Exception e) {
+    if (log.isDebugEnabled()) {
+      log.debug("HTTP/2 connection error", e);
+    }
+    goneAway = true;
+    writeFrame(Http2Frame.goAway(lastStreamId, e.errorCode));
+    super.close();
+  }
+
+  void resetStream(Http2ServerStream stream, int errorCode) {
+    if (streams.remove(stream.id) != null) {
+      writableStreams.remove(stream);
+      writeFrame(Http2Frame.rstStream(stream.id, errorCode));
+      flush();
+      stream.handleReset();
+      closeIfDone();
+    }
+  }
+
+  void removeStream(Http2ServerStream stream) {
+    streams.remove(stream.id);
+    closeIfDone();
+  }
+
+  @Override
+  void doDrain() {
+    // The streams in flight complete, new ones are refused
+    if (!goneAway) {
+      goneAway = true;
+      writeFrame(Http2Frame.goAway(lastStreamId, Http2Frame.NO_ERROR));
+      flush();
+    }
+    closeIfDone();
+  }
+
+  /**
+   * Close the connection once it has gone away and its last stream is done, after the frames already written
+   */
+  private void closeIfDone() {
+    if (goneAway && streams.isEmpty() && channel.isOpen()) {
+      channel.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  void writeFrame(ByteBuf frame) {
+    channel.write(frame);
+  }
+
+  void writeHeaders(int streamId, ByteBuf block, boolean end, ChannelPromise promise) {
+    int flags = end ? Http2Frame.FLAG_END_STREAM : 0;
+    int type = Http2Frame.HEADERS;
+    // A block larger than a frame is continued in CONTINUATION frames
+    do {
+      int size = Math.min(block.readableBytes(), maxFrameSize);
+      if (size == block.readableBytes()) {
+        flags |= Http2Frame.FLAG_END_HEADERS;
+      }
+      ByteBuf frame = Http2Frame.frame(type, flags, streamId, block.readSlice(size));
+      if ((flags & Http2Frame.FLAG_END_HEADERS) != 0 && promise != null) {
+        channel.write(frame, promise);
+      } else {
+        channel.write(frame);
+      }
+      type = Http2Frame.CONTINUATION;
+      flags = 0;
+    } while (block.isReadable());
+  }
+
+  void writeData(int streamId, ByteBuf data, boolean end, ChannelPromise promise) {
+    channel.write(Http2Frame.header(data.readableBytes(), Http2Frame.DATA, end ? Http2Frame.FLAG_END_STREAM : 0,
+                                    streamId));
+    if (promise != null) {
+      channel.write(data, promise);
+    } else {
+      channel.write(data);
+    }
+  }
+
+  /**
+   * Called when a stream has new frames to send
+   */
+  void streamWritable(Http2ServerStream stream) {
+    if (!writableStreams.contains(stream)) {
+      writableStreams.add(stream);
+    }
+    flushStreams();
+  }
+
+  /**
+   * Send the queued frames of the streams, a frame of each stream in turn, until they are blocked by the flow
+   * control windows or the channel is full
+   */
+  void flushStreams() {
+    boolean progress = true;
+    while (progress && !writableStreams.isEmpty() && channel.isWritable()) {
+      progress = false;
+      for (int i = writableStreams.size(); i > 0; i--) {
+        Http2ServerStream stream = writableStreams.poll();
+        progress |= stream.writeNextFrame(maxFrameSize);
+        if (stream.hasPendingFrames()) {
+          writableStreams.add(stream);
+        }
+      }
+    }
+    flush();
+  }
+
+  @Override
+  public void handleInterestedOpsChanged() {
+    if (channel.isWritable()) {
+      flushStreams();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!goneAway) {
+      goneAway = true;
+      writeFrame(Http2Frame.goAway(lastStreamId, Http2Frame.NO_ERROR));
+    }
+    super.close();
+  }
+
+  @Override
+  protected void handleClosed() {
+    for (Http2ServerStream stream: new ArrayList<>(streams.values())) {
+      stream.handleReset();
+    }
+    streams.clear();
+    writableStreams.clear();
+    super.handleClosed();
+  }
+
+  @Override
+  protected void handleException(Throwable t) {
+    for (Http2ServerStream stream: new ArrayList<>(streams.values())) {
+      stream.handleException(t);
+    }
+    super.handleException(t);
+  }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import org.vertx.java.core.VertxException;
+import org.vertx.java.core.net.NetSocket;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A stream of an {@link Http2ServerConnection}, which carries a single request and its response.<p>
+ * It looks like an HTTP/1.x connection to the request and the response: it is given the request as Netty HTTP
+ * messages and translates the messages written by the response to frames. The frames are queued on the stream and
+ * sent by the connection when the flow control windows allow it. Pausing the request stops the stream window from
+ * being credited back to the client, so the client stops sending once the window is used up.
+ */
+class Http2ServerStream extends ServerConnection {
+
+  private static final int DEFAULT_WRITE_QUEUE_MAX_SIZE = 64 * 1024;
+
+  final int id;
+  private final Http2ServerConnection conn;
+  private final ArrayDeque<Chunk> queue = new ArrayDeque<>();
+  long sendWindow;
+  private int queuedBytes;
+  private int writeQueueMaxSize = DEFAULT_WRITE_QUEUE_MAX_SIZE;
+  private boolean writeQueueFull;
+  private boolean flowPaused;
+  private int unackedBytes;
+  private long receivedBytes;
+  boolean remoteEnded;
+  boolean localEnded;
+  private boolean endQueued;
+  private boolean reset;
+
+  Http2ServerStream(Http2ServerConnection conn, int id, long sendWindow) {
+    super(conn.server(), conn.channel(), conn.getContext(), conn.getServerOrigin());
+    this.conn = conn;
+    this.id = id;
+    this.sendWindow = sendWindow;
+  }
+
+  void handleData(ByteBuf data, int flowControlled, boolean end) {
+    long maxBodySize = server().getMaxRequestBodySize();
+    receivedBytes += data.readableBytes();
+    if (maxBodySize > 0 && receivedBytes > maxBodySize) {
+      server().metrics().bodyTooLarge();
+      conn.resetStream(this, Http2Frame.CANCEL);
+      handleException(new VertxException("HTTP request body is larger than " + maxBodySize + " bytes."));
+      return;
+    }
+    if (end) {
+      remoteEnded = true;
+    } else {
+      unackedBytes += flowControlled;
+      if (!flowPaused && unackedBytes >= Http2Frame.DEFAULT_WINDOW_SIZE / 2) {
+        creditWindow();
+      }
+    }
+    handleMessage(end ? new DefaultLastHttpContent(data) : new DefaultHttpContent(data));
+    if (end) {
+      checkClosed();
+    }
+  }
+
+  void handleTrailers(LastHttpContent trailers) {
+    remoteEnded = true;
+    handleMessage(trailers);
+    checkClosed();
+  }
+
+  @Override
+  public void doPause() {
+    flowPaused = true;
+  }
+
+  @Override
+  public void doResume() {
+    flowPaused = false;
+    if (unackedBytes > 0 && !remoteEnded && !reset) {
+      creditWindow();
+      conn.flushStreams();
+    }
+  }
+
+  private void creditWindow() {
+    conn.writeFrame(Http2Frame.windowUpdate(id, unackedBytes));
+    unackedBytes = 0;
+  }
+
+  @Override
+  public ChannelFuture write(Object msg) {
+    if (reset || endQueued) {
+      ReferenceCountUtil.release(msg);
+      // Failed rather than null, so the done handler of the write is still called
+      return channel.newFailedFuture(new VertxException(reset ? "HTTP/2 stream was reset" :
+                                                        "HTTP/2 stream has already ended"));
+    }
+    ChannelPromise promise = channel.newPromise();
+    boolean last = msg instanceof LastHttpContent;
+    HttpHeaders trailers = last ? ((LastHttpContent) msg).trailingHeaders() : HttpHeaders.EMPTY_HEADERS;
+    ByteBuf data = msg instanceof HttpContent ? ((HttpContent) msg).content() : Unpooled.EMPTY_BUFFER;
+    boolean queued = false;
+    if (msg instanceof HttpResponse) {
+      HttpResponse response = (HttpResponse) msg;
+      boolean end = last && !data.isReadable() && trailers.isEmpty();
+      ByteBuf block = encodeHeaders(String.valueOf(response.getStatus().code()), response.headers());
+      encodeServerHeaders(block, response.headers());
+      queue.add(Chunk.headers(block, end));
+      queued = true;
+    }
+    if (data.isReadable() || (last && trailers.isEmpty() && !queued)) {
+      queue.add(Chunk.data(data, last && trailers.isEmpty()));
+      queuedBytes += data.readableBytes();
+      queued = true;
+    } else {
+      data.release();
+    }
+    if (!trailers.isEmpty()) {
+      queue.add(Chunk.headers(encodeHeaders(null, trailers), true));
+      queued = true;
+    }
+    if (queued) {
+      queue.peekLast().promise = promise;
+    } else {
+      promise.setSuccess();
+    }
+    endQueued = last;
+    conn.streamWritable(this);
+    return promise;
+  }
+
+  @Override
+  public ChannelFuture queueForWrite(Object msg) {
+    return write(msg);
+  }
+
+  @Override
+  protected ChannelFuture sendFile(File file, long offset, long length) {
+    if (reset) {
+      return channel.newFailedFuture(new VertxException("HTTP/2 stream was reset"));
+    }
+    RandomAccessFile raf;
+    try {
+      raf = new RandomAccessFile(file, "r");
+    } catch (IOException e) {
+      handleException(e);
+      return null;
+    }
+    Chunk chunk = Chunk.file(raf, offset, length);
+    chunk.promise = channel.newPromise();
+    queue.add(chunk);
+    conn.streamWritable(this);
+    return chunk.promise;
+  }
+
+  @Override
+  public void doSetWriteQueueMaxSize(int size) {
+    writeQueueMaxSize = size;
+  }
+
+  @Override
+  public boolean doWriteQueueFull() {
+    writeQueueFull = queuedBytes >= writeQueueMaxSize;
+    return writeQueueFull;
+  }
+
+  @Override
+  public void close() {
+    if (!localEnded) {
+      conn.resetStream(this, Http2Frame.CANCEL);
+    }
+  }
+
+  @Override
+  boolean isLastRequest() {
+    // The connection limits its number of streams itself
+    return false;
+  }
+
+  @Override
+  NetSocket createNetSocket() {
+    throw new IllegalStateException("An HTTP/2 stream can't be turned into a NetSocket");
+  }
+
+  boolean hasPendingFrames() {
+    return !queue.isEmpty();
+  }
+
+  /**
+   * Write the next frame of the stream, if the flow control windows allow it
+   *
+   * @return true if a frame was written
+   */
+  boolean writeNextFrame(int maxFrameSize) {
+    Chunk chunk = queue.peek();
+    if (chunk == null) {
+      return false;
+    }
+    if (chunk.headers != null) {
+      queue.poll();
+      conn.writeHeaders(id, chunk.headers, chunk.end, chunk.promise);
+      if (chunk.end) {
+        ended();
+      }
+      return true;
+    }
+    long remaining = chunk.remaining();
+    int size = (int) Math.min(Math.min(remaining, maxFrameSize), Math.min(sendWindow, conn.sendWindow));
+    if (size <= 0 && remaining > 0) {
+      return false;
+    }
+    ByteBuf payload;
+    try {
+      payload = chunk.read(size);
+    } catch (IOException e) {
+      conn.resetStream(this, Http2Frame.INTERNAL_ERROR);
+      handleException(e);
+      return true;
+    }
+    boolean done = size == remaining;
+    sendWindow -= size;
+    conn.sendWindow -= size;
+    if (chunk.file == null) {
+      queuedBytes -= size;
+    }
+    if (done) {
+      queue.poll();
+      chunk.release();
+    }
+    conn.writeData(id, payload, done && chunk.end, done ? chunk.promise : null);
+    if (done && chunk.end) {
+      ended();
+    }
+    if (writeQueueFull && queuedBytes <= writeQueueMaxSize / 2) {
+      writeQueueFull = false;
+      handleInterestedOpsChanged();
+    }
+    return true;
+  }
+
+  private void ended() {
+    localEnded = true;
+    checkClosed();
+  }
+
+  private void checkClosed() {
+    if (localEnded && remoteEnded) {
+      conn.removeStream(this);
+    }
+  }
+
+  /**
+   * Called when the stream is reset by either side, the queued frames are discarded
+   */
+  void handleReset() {
+    reset = true;
+    Chunk chunk;
+    while ((chunk = queue.poll()) != null) {
+      chunk.release();
+      if (chunk.promise != null) {
+        chunk.promise.setFailure(new VertxException("HTTP/2 stream was reset"));
+      }
+    }
+    queuedBytes = 0;
+    handleClosed();
+  }
+
+  private static ByteBuf encodeHeaders(String status, HttpHeaders headers) {
+    ByteBuf block = Unpooled.buffer();
+    if (status != null) {
+      HpackEncoder.encode(block, ":status", status);
+    }
+    for (Map.Entry<String, String> header: headers) {
+      String name = header.getKey().toLowerCase(Locale.ENGLISH);
+      // Connection specific headers are not allowed in HTTP/2
+      if (!name.equals("connection") && !name.equals("keep-alive") && !name.equals("proxy-connection") &&
+          !name.equals("transfer-encoding") && !name.equals("upgrade")) {
+        HpackEncoder.encode(block, name, header.getValue());
+      }
+    }
+    return block;
+  }
+
+  /**
+   * Add the headers the server adds to all its responses, as the HTTP/1.x encoder does
+   */
+  private void encodeServerHeaders(ByteBuf block, HttpHeaders headers) {
+    DefaultHttpServer server = server();
+    if (server.isSendDateHeader() && !headers.contains(HttpHeaders.Names.DATE)) {
+      HpackEncoder.encode(block, "date", HttpDateHeader.current().value());
+    }
+    for (Map.Entry<String, String> header: server.getConstantHeaders().entrySet()) {
+      if (!headers.contains(header.getKey())) {
+        HpackEncoder.encode(block, header.getKey().toLowerCase(Locale.ENGLISH), header.getValue());
+      }
+    }
+  }
+
+  /**
+   * A part of the response queued on the stream: a header block, some data, or a region of a file
+   */
+  private static final class Chunk {
+    final ByteBuf headers;
+    final ByteBuf data;
+    final RandomAccessFile file;
+    long position;
+    long fileRemaining;
+    final boolean end;
+    ChannelPromise promise;
+
+    static Chunk headers(ByteBuf block, boolean end) {
+      return new Chunk(block, null, null, 0, 0, end);
+    }
+
+    static Chunk data(ByteBuf data, boolean end) {
+      return new Chunk(null, data, null, 0, 0, end);
+    }
+
+    static Chunk file(RandomAccessFile file, long position, long length) {
+      return new Chunk(null, null, file, position, length, false);
+    }
+
+    private Chunk(ByteBuf headers, ByteBuf data, RandomAccessFile file, long position, long length, boolean end) {
+      this.headers = headers;
+      this.data = data;
+      this.file = file;
+      this.position = position;
+      this.fileRemaining = length;
+      this.end = end;
+    }
+
+    long remaining() {
+      return file != null ? fileRemaining : data.readableBytes();
+    }
+
+    ByteBuf read(int size) throws IOException {
+      if (file == null) {
+        return data.readSlice(size).retain();
+      }
+      byte[] bytes = new byte[size];
+      file.seek(position);
+      file.readFully(bytes);
+      position += size;
+      fileRemaining -= size;
+      return Unpooled.wrappedBuffer(bytes);
+    }
+
+    void release() {
+      if (data != null) {
+        data.release();
+      } else if (file != null) {
+        try {
+          file.close();
+        } catch (IOException ignore) {
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names;
+
+/**
+ * Compresses the HTTP responses with gzip or deflate, for the requests which accept it.<p>
+ * The encoding is negotiated with the {@code Accept-Encoding} header of the request the response belongs to, so
+ * the handler remembers the header of each request it sees. Only the responses whose {@code Content-Type} is in the
+ * allowed MIME types and whose body is at least the minimum size are compressed. The size of a chunked response
+ * isn't known up front so they are always compressed.<p>
+ * Responses assembled in one message are compressed at once and keep a {@code Content-Length}. Responses written
+ * in several parts are compressed as they are written, each part being flushed so the client gets the data
+ * without delay, and are sent with chunked transfer encoding. Files sent with {@code sendFile} are written as is.
+ */
+class HttpCompressionHandler extends ChannelDuplexHandler {
+
+  private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+  private final int compressionLevel;
+  private final int minSize;
+  private final Set<String> mimeTypes;
+  // The Accept-Encoding of the requests whose response hasn't been written yet, empty when the response must not
+  // be compressed
+  private final Queue<String> acceptEncodings = new ArrayDeque<>();
+  private Compressor compressor;
+
+  HttpCompressionHandler(int compressionLevel, int minSize, Set<String> mimeTypes) {
+    this.compressionLevel = compressionLevel;
+    this.minSize = minSize;
+    this.mimeTypes = mimeTypes;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (msg instanceof HttpRequest) {
+      HttpRequest request = (HttpRequest) msg;
+      String acceptEncoding = request.headers().get(Names.ACCEPT_ENCODING);
+      acceptEncodings.add(acceptEncoding == null || request.getMethod() == HttpMethod.HEAD ? "" : acceptEncoding);
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+    if (msg instanceof HttpResponse) {
+      HttpResponse response = (HttpResponse) msg;
+      // An informational response such as 100 Continue is followed by the actual response
+      if (response.getStatus().code() >= 200) {
+        String acceptEncoding = acceptEncodings.poll();
+        if (acceptEncoding != null && msg instanceof HttpContent) {
+          String encoding = encodingFor(response, (HttpContent) msg, acceptEncoding);
+          if (encoding != null) {
+            writeCompressedHead(ctx, response, encoding, promise);
+            return;
+          }
+        }
+      }
+    } else if (compressor != null && msg instanceof HttpContent) {
+      writeCompressedContent(ctx, (HttpContent) msg, promise);
+      return;
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    endCompressor();
+    super.handlerRemoved(ctx);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    endCompressor();
+    super.channelInactive(ctx);
+  }
+
+  private void writeCompressedHead(ChannelHandlerContext ctx, HttpResponse response, String encoding,
+                                   ChannelPromise promise) {
+    HttpHeaders headers = response.headers();
+    headers.set(Names.CONTENT_ENCODING, encoding);
+    if (!headers.contains(Names.VARY)) {
+      headers.set(Names.VARY, Names.ACCEPT_ENCODING);
+    }
+    Compressor comp = new Compressor(ctx.alloc(), encoding, compressionLevel);
+    ByteBuf content = ((HttpContent) response).content();
+    boolean chunked = HttpHeaders.isTransferEncodingChunked(response);
+    if (response instanceof LastHttpContent) {
+      ByteBuf compressed;
+      try {
+        compressed = comp.compress(content, true);
+      } finally {
+        ReferenceCountUtil.release(response);
+      }
+      if (!chunked) {
+        headers.set(Names.CONTENT_LENGTH, String.valueOf(compressed.readableBytes()));
+      }
+      LastHttpContent last = (LastHttpContent) response;
+      ctx.write(new AssembledFullHttpResponse(response, compressed, trailers(last)), promise);
+    } else {
+      if (!chunked) {
+        headers.remove(Names.CONTENT_LENGTH);
+        headers.set(Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+      }
+      compressor = comp;
+      ByteBuf compressed;
+      try {
+        compressed = comp.compress(content, false);
+      } finally {
+        ReferenceCountUtil.release(response);
+      }
+      ctx.write(new AssembledHttpResponse(response, compressed), promise);
+    }
+  }
+
+  private void writeCompressedContent(ChannelHandlerContext ctx, HttpContent content, ChannelPromise promise) {
+    boolean last = content instanceof LastHttpContent;
+    ByteBuf compressed;
+    try {
+      compressed = compressor.compress(content.content(), last);
+    } finally {
+      ReferenceCountUtil.release(content);
+    }
+    if (last) {
+      compressor = null;
+      HttpHeaders trailers = trailers((LastHttpContent) content);
+      ctx.write(trailers == null ? new DefaultLastHttpContent(compressed) :
+          new AssembledLastHttpContent(compressed, trailers), promise);
+    } else {
+      ctx.write(new DefaultHttpContent(compressed), promise);
+    }
+  }
+
+  private static HttpHeaders trailers(LastHttpContent last) {
+    return last.trailingHeaders().isEmpty() ? null : last.trailingHeaders();
+  }
+
+  private void endCompressor() {
+    if (compressor != null) {
+      compressor.end();
+      compressor = null;
+    }
+  }
+
+  private String encodingFor(HttpResponse response, HttpContent content, String acceptEncoding) {
+    if (acceptEncoding.isEmpty()) {
+      return null;
+    }
+    int status = response.getStatus().code();
+    // The Content-Range of a partial response refers to the uncompressed body
+    if (status == 204 || status == 206 || status == 304) {
+      return null;
+    }
+    HttpHeaders headers = response.headers();
+    if (headers.contains(Names.CONTENT_ENCODING) || !compressible(headers.get(Names.CONTENT_TYPE))) {
+      return null;
+    }
+    boolean full = content instanceof LastHttpContent;
+    boolean chunked = HttpHeaders.isTransferEncodingChunked(response);
+    if (full || !chunked) {
+      long length = full ? content.content().readableBytes() : HttpHeaders.getContentLength(response, -1);
+      if (length < minSize) {
+        return null;
+      }
+    }
+    // Without a Content-Length the body of a partially written response has to be chunked, which HTTP/1.0
+    // doesn't support
+    if (!full && !chunked && response.getProtocolVersion() == HttpVersion.HTTP_1_0) {
+      return null;
+    }
+    return negotiate(acceptEncoding);
+  }
+
+  private boolean compressible(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    int semi = contentType.indexOf(';');
+    String mimeType = (semi == -1 ? contentType : contentType.substring(0, semi)).trim().toLowerCase(Locale.ENGLISH);
+    if (mimeTypes.contains(mimeType)) {
+      return true;
+    }
+    int slash = mimeType.indexOf('/');
+    return slash != -1 && mimeTypes.contains(mimeType.substring(0, slash) + "/*");
+  }
+
+  // Picks gzip or deflate, whichever has the highest quality in the Accept-Encoding, gzip when they are equal
+  static String negotiate(String acceptEncoding) {
+    float gzip = 0;
+    float deflate = 0;
+    float any = 0;
+    for (String part: acceptEncoding.split(",")) {
+      int semi = part.indexOf(';');
+      String name = (semi == -1 ? part : part.substring(0, semi)).trim();
+      float q = 1;
+      if (semi != -1) {
+        String param = part.substring(semi + 1).trim();
+        if (param.startsWith("q=")) {
+          try {
+            q = Float.parseFloat(param.substring(2));
+          } catch (NumberFormatException e) {
+            q = 0;
+          }
+        }
+      }
+      if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+        gzip = q;
+      } else if (name.equalsIgnoreCase("deflate")) {
+        deflate = q;
+      } else if (name.equals("*")) {
+        any = q;
+      }
+    }
+    if (gzip == 0 && deflate == 0) {
+      return any > 0 ? "gzip" : null;
+    }
+    return gzip >= deflate ? "gzip" : "deflate";
+  }
+
+  /**
+   * Streams data through a {@link Deflater}, adding the gzip header and trailer when needed.
+   */
+  private static final class Compressor {
+
+    private final ByteBufAllocator alloc;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private boolean headerWritten;
+
+    Compressor(ByteBufAllocator alloc, String encoding, int compressionLevel) {
+      this.alloc = alloc;
+      boolean gzip = encoding.equals("gzip");
+      this.deflater = new Deflater(compressionLevel, gzip);
+      this.crc = gzip ? new CRC32() : null;
+    }
+
+    ByteBuf compress(ByteBuf in, boolean last) {
+      int len = in.readableBytes();
+      ByteBuf out = alloc.heapBuffer(len / 2 + 64);
+      try {
+        if (crc != null && !headerWritten) {
+          out.writeBytes(GZIP_HEADER);
+          headerWritten = true;
+        }
+        if (len > 0) {
+          byte[] bytes;
+          int offset;
+          if (in.hasArray()) {
+            bytes = in.array();
+            offset = in.arrayOffset() + in.readerIndex();
+          } else {
+            bytes = new byte[len];
+            in.getBytes(in.readerIndex(), bytes);
+            offset = 0;
+          }
+          if (crc != null) {
+            crc.update(bytes, offset, len);
+          }
+          deflater.setInput(bytes, offset, len);
+        }
+        if (last) {
+          deflater.finish();
+          while (!deflater.finished()) {
+            deflate(out, Deflater.NO_FLUSH);
+          }
+          if (crc != null) {
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) deflater.getBytesRead());
+          }
+          deflater.end();
+        } else if (len > 0) {
+          // Sync flush until the deflater has room left, so everything written so far can be decoded by the client
+          while (deflate(out, Deflater.SYNC_FLUSH)) {
+          }
+        }
+        return out;
+      } catch (RuntimeException e) {
+        out.release();
+        deflater.end();
+        throw e;
+      }
+    }
+
+    // Returns true if the output filled the space available, so there may be more to come
+    private boolean deflate(ByteBuf out, int flush) {
+      out.ensureWritable(256);
+      int writable = out.writableBytes();
+      int n = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), writable, flush);
+      out.writerIndex(out.writerIndex() + n);
+      return n == writable;
+    }
+
+    private static void writeIntLE(ByteBuf out, int value) {
+      out.writeByte(value);
+      out.writeByte(value >>> 8);
+      out.writeByte(value >>> 16);
+      out.writeByte(value >>> 24);
+    }
+
+    void end() {
+      deflater.end();
+    }
+  }
+}
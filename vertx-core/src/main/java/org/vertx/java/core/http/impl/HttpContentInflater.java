@@ -0,0 +1,275 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.compression.DecompressionException;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names;
+
+/**
+ * Inflates the gzip and deflate encoded HTTP responses as they arrive, so the client sees them as if they had been
+ * sent uncompressed.<p>
+ * The {@code Content-Encoding} and {@code Content-Length} headers of an inflated response are removed, and each
+ * part of the body is inflated as soon as it is received rather than buffering the whole body. Netty's own
+ * {@code HttpContentDecompressor} isn't used as it needs JZlib, this only uses the JDK's {@link Inflater}.
+ */
+class HttpContentInflater extends MessageToMessageDecoder<HttpObject> {
+
+  private Decompressor decompressor;
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+    if (msg instanceof HttpResponse) {
+      HttpResponse response = (HttpResponse) msg;
+      endDecompressor();
+      decompressor = decompressorFor(response);
+      if (decompressor == null) {
+        out.add(ReferenceCountUtil.retain(msg));
+        return;
+      }
+      HttpHeaders headers = response.headers();
+      headers.remove(Names.CONTENT_ENCODING);
+      headers.remove(Names.CONTENT_LENGTH);
+      if (!(msg instanceof HttpContent)) {
+        out.add(ReferenceCountUtil.retain(msg));
+        return;
+      }
+      // A response assembled in one message, pass the head on its own and inflate the content below
+      HttpResponse head = new DefaultHttpResponse(response.getProtocolVersion(), response.getStatus());
+      head.headers().set(headers);
+      out.add(head);
+    } else if (decompressor == null || !(msg instanceof HttpContent)) {
+      out.add(ReferenceCountUtil.retain(msg));
+      return;
+    }
+    HttpContent content = (HttpContent) msg;
+    ByteBuf inflated = decompressor.inflate(ctx.alloc(), content.content());
+    if (content instanceof LastHttpContent) {
+      endDecompressor();
+      LastHttpContent last = new DefaultLastHttpContent(inflated);
+      last.trailingHeaders().set(((LastHttpContent) content).trailingHeaders());
+      out.add(last);
+    } else if (inflated.isReadable()) {
+      out.add(new DefaultHttpContent(inflated));
+    } else {
+      inflated.release();
+    }
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    endDecompressor();
+    super.handlerRemoved(ctx);
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    endDecompressor();
+    super.channelInactive(ctx);
+  }
+
+  private static Decompressor decompressorFor(HttpResponse response) {
+    // An informational response such as 100 Continue has no body, the actual response follows
+    if (response.getStatus().code() < 200) {
+      return null;
+    }
+    String encoding = response.headers().get(Names.CONTENT_ENCODING);
+    if (encoding == null) {
+      return null;
+    }
+    encoding = encoding.trim().toLowerCase(Locale.ENGLISH);
+    if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+      return new Decompressor(true);
+    }
+    if (encoding.equals("deflate") || encoding.equals("x-deflate")) {
+      return new Decompressor(false);
+    }
+    return null;
+  }
+
+  private void endDecompressor() {
+    if (decompressor != null) {
+      decompressor.end();
+      decompressor = null;
+    }
+  }
+
+  /**
+   * Streams data through an {@link Inflater}, skipping the gzip header when needed. The gzip trailer is ignored.
+   */
+  private static final class Decompressor {
+
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+
+    private final boolean gzip;
+    // Holds the start of the body until there is enough of it to set up the inflater
+    private ByteBuf pending;
+    private Inflater inflater;
+
+    Decompressor(boolean gzip) {
+      this.gzip = gzip;
+    }
+
+    ByteBuf inflate(ByteBufAllocator alloc, ByteBuf in) {
+      ByteBuf out = alloc.heapBuffer(in.readableBytes() * 2 + 64);
+      try {
+        if (inflater == null) {
+          if (pending == null) {
+            pending = Unpooled.buffer(in.readableBytes());
+          }
+          pending.writeBytes(in, in.readerIndex(), in.readableBytes());
+          if (!start()) {
+            return out;
+          }
+          in = pending;
+        }
+        if (!inflater.finished() && in.isReadable()) {
+          inflate(in, out);
+        }
+        return out;
+      } catch (RuntimeException e) {
+        out.release();
+        end();
+        throw e;
+      } finally {
+        if (in == pending) {
+          pending.release();
+          pending = null;
+        }
+      }
+    }
+
+    // Returns false if more of the body is needed to know how to inflate it
+    private boolean start() {
+      boolean nowrap;
+      if (gzip) {
+        int headerLength = gzipHeaderLength(pending);
+        if (headerLength == -1) {
+          return false;
+        }
+        pending.skipBytes(headerLength);
+        nowrap = true;
+      } else {
+        if (pending.readableBytes() < 2) {
+          return false;
+        }
+        // Deflate should be zlib wrapped, but some servers send raw deflate data
+        int cmf = pending.getUnsignedByte(pending.readerIndex());
+        int flg = pending.getUnsignedByte(pending.readerIndex() + 1);
+        nowrap = (cmf & 0x0f) != Deflater.DEFLATED || ((cmf << 8) | flg) % 31 != 0;
+      }
+      inflater = new Inflater(nowrap);
+      return true;
+    }
+
+    private void inflate(ByteBuf in, ByteBuf out) {
+      int len = in.readableBytes();
+      byte[] bytes;
+      int offset;
+      if (in.hasArray()) {
+        bytes = in.array();
+        offset = in.arrayOffset() + in.readerIndex();
+      } else {
+        bytes = new byte[len];
+        in.getBytes(in.readerIndex(), bytes);
+        offset = 0;
+      }
+      inflater.setInput(bytes, offset, len);
+      try {
+        while (!inflater.finished()) {
+          out.ensureWritable(256);
+          int n = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+          out.writerIndex(out.writerIndex() + n);
+          if (n == 0) {
+            if (inflater.needsDictionary()) {
+              throw new DecompressionException("Deflate streams with a preset dictionary are not supported");
+            }
+            // Everything given so far has been inflated
+            break;
+          }
+        }
+      } catch (DataFormatException e) {
+        throw new DecompressionException(e);
+      }
+    }
+
+    // Returns -1 if the buffer doesn't hold the whole header yet
+    private static int gzipHeaderLength(ByteBuf buf) {
+      int start = buf.readerIndex();
+      int end = buf.writerIndex();
+      if (end - start < 10) {
+        return -1;
+      }
+      if (buf.getUnsignedByte(start) != 0x1f || buf.getUnsignedByte(start + 1) != 0x8b ||
+          buf.getUnsignedByte(start + 2) != Deflater.DEFLATED) {
+        throw new DecompressionException("Response body is not in gzip format");
+      }
+      int flags = buf.getUnsignedByte(start + 3);
+      int pos = start + 10;
+      if ((flags & FEXTRA) != 0) {
+        if (pos + 2 > end) {
+          return -1;
+        }
+        pos += 2 + (buf.getUnsignedByte(pos) | (buf.getUnsignedByte(pos + 1) << 8));
+      }
+      if ((flags & FNAME) != 0) {
+        pos = skipZeroTerminated(buf, pos, end);
+      }
+      if ((flags & FCOMMENT) != 0) {
+        pos = skipZeroTerminated(buf, pos, end);
+      }
+      if ((flags & FHCRC) != 0) {
+        pos += 2;
+      }
+      return pos > end ? -1 : pos - start;
+    }
+
+    private static int skipZeroTerminated(ByteBuf buf, int pos, int end) {
+      if (pos >= end) {
+        return end + 1;
+      }
+      int zero = buf.indexOf(pos, end, (byte) 0);
+      return zero == -1 ? end + 1 : zero + 1;
+    }
+
+    void end() {
+      if (inflater != null) {
+        inflater.end();
+      }
+      if (pending != null) {
+        pending.release();
+        pending = null;
+      }
+    }
+  }
+}
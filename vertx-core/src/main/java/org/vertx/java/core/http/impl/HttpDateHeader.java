@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The value of the {@code Date} header of the responses, formatted at most once a second by each event loop.<p>
+ * Instances are confined to the thread which got them with {@link #current()}.
+ */
+final class HttpDateHeader {
+
+  private static final ThreadLocal<HttpDateHeader> CURRENT = new ThreadLocal<HttpDateHeader>() {
+    @Override
+    protected HttpDateHeader initialValue() {
+      return new HttpDateHeader();
+    }
+  };
+
+  private final DateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
+  private long second = -1;
+  private String value;
+  private byte[] encoded;
+
+  private HttpDateHeader() {
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+  }
+
+  /**
+   * @return the date header of the calling thread, refreshed if the second has changed since it was last used
+   */
+  static HttpDateHeader current() {
+    HttpDateHeader header = CURRENT.get();
+    header.refresh();
+    return header;
+  }
+
+  private void refresh() {
+    long now = System.currentTimeMillis();
+    if (now / 1000 != second) {
+      second = now / 1000;
+      value = format.format(new Date(second * 1000));
+      encoded = HttpServerResponseEncoder.encodeHeader("Date", value);
+    }
+  }
+
+  /**
+   * @return the formatted date
+   */
+  String value() {
+    return value;
+  }
+
+  /**
+   * @return the whole header line, with its name and its trailing CRLF
+   */
+  byte[] encoded() {
+    return encoded;
+  }
+}
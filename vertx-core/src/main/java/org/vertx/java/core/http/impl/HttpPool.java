@@ -1,6 +1,8 @@
 package org.vertx.java.core.http.impl;
 
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.http.HttpPoolStats;
 import org.vertx.java.core.impl.DefaultContext;
 
 /*
@@ -25,12 +27,50 @@ public interface HttpPool {
 
   int getMaxPoolSize();
 
+  void setPipeliningDepth(int depth);
+
+  int getPipeliningDepth();
+
+  /**
+   * Set the time in ms after which a connection with nothing to do is closed, {@code 0} for no limit
+   */
+  void setIdleTimeout(long timeout);
+
+  long getIdleTimeout();
+
+  /**
+   * Set the time in ms after which a connection is closed once it has nothing to do, {@code 0} for no limit
+   */
+  void setMaxLifetime(long lifetime);
+
+  long getMaxLifetime();
+
+  /**
+   * Close the connections of the pool which have been closed by the server, or which have nothing to do and have
+   * passed their idle timeout or maximum lifetime
+   */
+  void evictExpired();
+
+  /**
+   * Open up to {@code count} connections for {@code context} ahead of the requests, without going over the maximum
+   * pool size, and call {@code doneHandler} once they are in the pool
+   */
+  void openConnections(int count, Handler<AsyncResult<Void>> doneHandler, DefaultContext context);
+
+  HttpPoolStats getStats();
+
   void close();
 
   void getConnection(Handler<ClientConnection> handler, Handler<Throwable> connectionExceptionHandler, DefaultContext context);
 
-  void connectionClosed();
+  /**
+   * Inform the pool that a connection, or an attempt to open one, made for a request of {@code context} has
+   * been closed.
+   */
+  void connectionClosed(DefaultContext context);
 
   void returnConnection(ClientConnection conn);
 
+  void responseEnded(ClientConnection conn);
+
 }
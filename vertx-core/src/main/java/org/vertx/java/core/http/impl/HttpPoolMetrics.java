@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters behind the {@link org.vertx.java.core.http.HttpPoolStats} of a connection pool, which can be
+ * updated from any thread
+ */
+class HttpPoolMetrics {
+
+  private final AtomicLong waitCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Record the end of the wait of a request which started waiting for a connection at {@code start}, as given by
+   * {@link System#nanoTime()}
+   */
+  void waitEnded(long start) {
+    long time = System.nanoTime() - start;
+    waitCount.incrementAndGet();
+    totalWaitTime.addAndGet(time);
+    for (;;) {
+      long max = maxWaitTime.get();
+      if (time <= max || maxWaitTime.compareAndSet(max, time)) {
+        return;
+      }
+    }
+  }
+
+  void evicted() {
+    evictions.incrementAndGet();
+  }
+
+  DefaultHttpPoolStats stats(int connections, int idle, int waiters) {
+    return new DefaultHttpPoolStats(connections, idle, waiters, waitCount.get(),
+        TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get()), TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get()),
+        evictions.get());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.*;
+
+/**
+ * Rejects the requests which are over the size limits of the server before they reach the connection.<p>
+ * The request line and header limits are enforced by the decoder, which turns an oversized request into an invalid
+ * message: it is answered with {@code 414} or {@code 431}. A request which declares a body larger than the limit
+ * with its {@code Content-Length} is answered with {@code 413}. In these cases the connection is closed once the
+ * response is written and the rest of the input is discarded, so the request handler never sees the request.<p>
+ * The size of a body which isn't declared is only known as it is received. When it goes over the limit the request
+ * has already been handed to the request handler, so the connection fails with a {@link TooLongFrameException}
+ * instead, which is passed to the exception handler of the request.
+ */
+class HttpRequestLimitHandler extends ChannelInboundHandlerAdapter {
+
+  private final long maxBodySize;
+  private final HttpServerMetrics metrics;
+  private long bodySize;
+  private boolean discarding;
+
+  HttpRequestLimitHandler(long maxBodySize, HttpServerMetrics metrics) {
+    this.maxBodySize = maxBodySize;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (discarding) {
+      ReferenceCountUtil.release(msg);
+      return;
+    }
+    if (msg instanceof HttpRequest) {
+      HttpRequest request = (HttpRequest) msg;
+      DecoderResult result = request.getDecoderResult();
+      if (result.isFailure()) {
+        reject(ctx, msg, status(result.cause()));
+        return;
+      }
+      bodySize = 0;
+      if (maxBodySize > 0 && HttpHeaders.getContentLength(request, -1) > maxBodySize) {
+        metrics.bodyTooLarge();
+        reject(ctx, msg, REQUEST_ENTITY_TOO_LARGE);
+        return;
+      }
+    }
+    if (msg instanceof HttpContent && maxBodySize > 0) {
+      bodySize += ((HttpContent) msg).content().readableBytes();
+      if (bodySize > maxBodySize) {
+        metrics.bodyTooLarge();
+        discarding = true;
+        ReferenceCountUtil.release(msg);
+        ctx.fireExceptionCaught(new TooLongFrameException("HTTP request body is larger than " + maxBodySize +
+                                                          " bytes."));
+        return;
+      }
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  private HttpResponseStatus status(Throwable cause) {
+    if (cause instanceof TooLongFrameException) {
+      // The decoder uses the same exception for both limits, only the message tells them apart
+      String message = cause.getMessage();
+      if (message != null && message.startsWith("An HTTP line")) {
+        metrics.uriTooLong();
+        return REQUEST_URI_TOO_LONG;
+      }
+      metrics.headersTooLarge();
+      return REQUEST_HEADER_FIELDS_TOO_LARGE;
+    }
+    metrics.malformed();
+    return BAD_REQUEST;
+  }
+
+  private void reject(ChannelHandlerContext ctx, Object msg, HttpResponseStatus status) {
+    discarding = true;
+    ReferenceCountUtil.release(msg);
+    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status);
+    response.headers().set(HttpHeaders.Names.CONTENT_LENGTH, "0");
+    response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
+    ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+  }
+}
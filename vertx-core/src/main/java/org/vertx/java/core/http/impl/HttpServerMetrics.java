@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters behind the {@link org.vertx.java.core.http.HttpServerStats} of a server, which are updated from the
+ * event loops of its connections
+ */
+class HttpServerMetrics {
+
+  private final AtomicLong uriTooLong = new AtomicLong();
+  private final AtomicLong headersTooLarge = new AtomicLong();
+  private final AtomicLong bodyTooLarge = new AtomicLong();
+  private final AtomicLong malformed = new AtomicLong();
+  private final AtomicLong rateLimited = new AtomicLong();
+  private final AtomicLong accessLogDropped = new AtomicLong();
+
+  void uriTooLong() {
+    uriTooLong.incrementAndGet();
+  }
+
+  void headersTooLarge() {
+    headersTooLarge.incrementAndGet();
+  }
+
+  void bodyTooLarge() {
+    bodyTooLarge.incrementAndGet();
+  }
+
+  void malformed() {
+    malformed.incrementAndGet();
+  }
+
+  void rateLimited() {
+    rateLimited.incrementAndGet();
+  }
+
+  void accessLogDropped() {
+    accessLogDropped.incrementAndGet();
+  }
+
+  DefaultHttpServerStats stats() {
+    return new DefaultHttpServerStats(uriTooLong.get(), headersTooLarge.get(), bodyTooLarge.get(), malformed.get(),
+                                      rateLimited.get(), accessLogDropped.get());
+  }
+}
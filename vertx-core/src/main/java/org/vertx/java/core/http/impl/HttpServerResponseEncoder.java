@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the responses of the server like {@link HttpResponseEncoder}, but writes their head from bytes encoded
+ * up front wherever it can, instead of encoding every string of every response.<p>
+ * The usual status lines and the common header names and values are encoded once for all the servers. The
+ * {@code Date} header, when the server sends it, is encoded at most once a second by each event loop, and the
+ * constant headers of the server are encoded once when it starts listening. Anything else is encoded as it comes.
+ */
+class HttpServerResponseEncoder extends HttpResponseEncoder {
+
+  private static final byte[] CRLF = { '\r', '\n' };
+  private static final byte[] ZERO_CRLF = { '0', '\r', '\n' };
+  private static final ByteBuf CRLF_BUF = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(CRLF));
+  private static final ByteBuf ZERO_CRLF_CRLF_BUF =
+      Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(new byte[] { '0', '\r', '\n', '\r', '\n' }));
+
+  private static final int ST_INIT = 0;
+  private static final int ST_CONTENT_NON_CHUNK = 1;
+  private static final int ST_CONTENT_CHUNK = 2;
+
+  // The names are looked up with their usual case, anything else is encoded as is
+  private static final Map<String, byte[]> NAMES = new HashMap<>();
+  private static final Map<String, byte[]> VALUES = new HashMap<>();
+  private static final Map<Integer, byte[]> STATUS_LINES = new HashMap<>();
+
+  static {
+    for (String name: new String[] { "Accept-Ranges", "Cache-Control", "Connection", "Content-Disposition",
+        "Content-Encoding", "Content-Length", "Content-Range", "Content-Type", "Date", "ETag", "Expires",
+        "Keep-Alive", "Last-Modified", "Location", "Server", "Set-Cookie", "Transfer-Encoding", "Vary",
+        "WWW-Authenticate", "X-Content-Type-Options", "X-Frame-Options", "content-length", "content-type" }) {
+      NAMES.put(name, ascii(name + ": "));
+    }
+    for (String value: new String[] { "application/json", "application/json; charset=UTF-8",
+        "application/javascript", "application/octet-stream", "application/xml", "text/css", "text/html",
+        "text/html; charset=UTF-8", "text/javascript", "text/plain", "text/plain; charset=UTF-8", "text/xml",
+        "close", "Keep-Alive", "keep-alive", "chunked", "gzip", "deflate", "bytes", "no-cache", "no-store",
+        "Accept-Encoding", "nosniff", "0" }) {
+      VALUES.put(value, ascii(value));
+    }
+    HttpResponseStatus[] statuses = { HttpResponseStatus.CONTINUE, HttpResponseStatus.SWITCHING_PROTOCOLS,
+        HttpResponseStatus.OK, HttpResponseStatus.CREATED, HttpResponseStatus.ACCEPTED, HttpResponseStatus.NO_CONTENT,
+        HttpResponseStatus.PARTIAL_CONTENT, HttpResponseStatus.MOVED_PERMANENTLY, HttpResponseStatus.FOUND,
+        HttpResponseStatus.SEE_OTHER, HttpResponseStatus.NOT_MODIFIED, HttpResponseStatus.TEMPORARY_REDIRECT,
+        HttpResponseStatus.BAD_REQUEST, HttpResponseStatus.UNAUTHORIZED, HttpResponseStatus.FORBIDDEN,
+        HttpResponseStatus.NOT_FOUND, HttpResponseStatus.METHOD_NOT_ALLOWED, HttpResponseStatus.CONFLICT,
+        HttpResponseStatus.PRECONDITION_FAILED, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE,
+        HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, HttpResponseStatus.TOO_MANY_REQUESTS,
+        HttpResponseStatus.INTERNAL_SERVER_ERROR, HttpResponseStatus.NOT_IMPLEMENTED, HttpResponseStatus.BAD_GATEWAY,
+        HttpResponseStatus.SERVICE_UNAVAILABLE, HttpResponseStatus.GATEWAY_TIMEOUT };
+    for (HttpResponseStatus status: statuses) {
+      STATUS_LINES.put(status.code(), ascii(HttpVersion.HTTP_1_1.text() + ' ' + status + "\r\n"));
+    }
+  }
+
+  private final boolean dateHeader;
+  private final ConstantHeaders constantHeaders;
+  private int state = ST_INIT;
+
+  HttpServerResponseEncoder(boolean dateHeader, ConstantHeaders constantHeaders) {
+    this.dateHeader = dateHeader;
+    this.constantHeaders = constantHeaders;
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+    if (msg instanceof HttpResponse) {
+      if (state != ST_INIT) {
+        throw new IllegalStateException("unexpected message type: " + msg.getClass().getSimpleName());
+      }
+      HttpResponse response = (HttpResponse) msg;
+      ByteBuf buf = ctx.alloc().buffer();
+      encodeStatusLine(buf, response);
+      HttpHeaders headers = response.headers();
+      for (Map.Entry<String, String> header: headers) {
+        encodeHeader(buf, header.getKey(), header.getValue());
+      }
+      if (dateHeader && !headers.contains(HttpHeaders.Names.DATE)) {
+        buf.writeBytes(HttpDateHeader.current().encoded());
+      }
+      if (constantHeaders != null) {
+        constantHeaders.encode(buf, headers);
+      }
+      buf.writeBytes(CRLF);
+      out.add(buf);
+      state = HttpHeaders.isTransferEncodingChunked(response) ? ST_CONTENT_CHUNK : ST_CONTENT_NON_CHUNK;
+    }
+    if (msg instanceof HttpContent || msg instanceof ByteBuf || msg instanceof FileRegion) {
+      if (state == ST_INIT) {
+        throw new IllegalStateException("unexpected message type: " + msg.getClass().getSimpleName());
+      }
+      int contentLength = contentLength(msg);
+      if (state == ST_CONTENT_NON_CHUNK) {
+        if (contentLength > 0) {
+          out.add(retain(msg));
+        } else {
+          // Still write an empty buffer, so the promise of the write is notified
+          out.add(Unpooled.EMPTY_BUFFER);
+        }
+        if (msg instanceof LastHttpContent) {
+          state = ST_INIT;
+        }
+      } else {
+        encodeChunk(ctx, msg, contentLength, out);
+      }
+    }
+  }
+
+  private void encodeChunk(ChannelHandlerContext ctx, Object msg, int contentLength, List<Object> out) {
+    if (contentLength > 0) {
+      byte[] length = ascii(Integer.toHexString(contentLength));
+      ByteBuf buf = ctx.alloc().buffer(length.length + 2);
+      buf.writeBytes(length);
+      buf.writeBytes(CRLF);
+      out.add(buf);
+      out.add(retain(msg));
+      out.add(CRLF_BUF.duplicate());
+    }
+    if (msg instanceof LastHttpContent) {
+      HttpHeaders trailers = ((LastHttpContent) msg).trailingHeaders();
+      if (trailers.isEmpty()) {
+        out.add(ZERO_CRLF_CRLF_BUF.duplicate());
+      } else {
+        ByteBuf buf = ctx.alloc().buffer();
+        buf.writeBytes(ZERO_CRLF);
+        for (Map.Entry<String, String> trailer: trailers) {
+          encodeHeader(buf, trailer.getKey(), trailer.getValue());
+        }
+        buf.writeBytes(CRLF);
+        out.add(buf);
+      }
+      state = ST_INIT;
+    } else if (contentLength == 0) {
+      out.add(Unpooled.EMPTY_BUFFER);
+    }
+  }
+
+  private static void encodeStatusLine(ByteBuf buf, HttpResponse response) {
+    HttpResponseStatus status = response.getStatus();
+    if (response.getProtocolVersion() == HttpVersion.HTTP_1_1) {
+      byte[] line = STATUS_LINES.get(status.code());
+      // The reason phrase can be set by the user
+      if (line != null && status.reasonPhrase().equals(HttpResponseStatus.valueOf(status.code()).reasonPhrase())) {
+        buf.writeBytes(line);
+        return;
+      }
+    }
+    writeAscii(buf, response.getProtocolVersion().text());
+    buf.writeByte(' ');
+    writeAscii(buf, status.toString());
+    buf.writeBytes(CRLF);
+  }
+
+  private static void encodeHeader(ByteBuf buf, String name, String value) {
+    byte[] encodedName = NAMES.get(name);
+    if (encodedName != null) {
+      buf.writeBytes(encodedName);
+    } else {
+      writeAscii(buf, name);
+      buf.writeByte(':');
+      buf.writeByte(' ');
+    }
+    byte[] encodedValue = VALUES.get(value);
+    if (encodedValue != null) {
+      buf.writeBytes(encodedValue);
+    } else {
+      writeAscii(buf, value);
+    }
+    buf.writeBytes(CRLF);
+  }
+
+  /**
+   * @return a whole header line, with its trailing CRLF
+   */
+  static byte[] encodeHeader(String name, String value) {
+    return ascii(name + ": " + value + "\r\n");
+  }
+
+  private static void writeAscii(ByteBuf buf, String s) {
+    int length = s.length();
+    buf.ensureWritable(length);
+    int index = buf.writerIndex();
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      buf.setByte(index + i, c < 0x80 ? c : '?');
+    }
+    buf.writerIndex(index + length);
+  }
+
+  private static byte[] ascii(String s) {
+    byte[] bytes = new byte[s.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      char c = s.charAt(i);
+      bytes[i] = (byte) (c < 0x80 ? c : '?');
+    }
+    return bytes;
+  }
+
+  private static int contentLength(Object msg) {
+    if (msg instanceof HttpContent) {
+      return ((HttpContent) msg).content().readableBytes();
+    }
+    if (msg instanceof ByteBuf) {
+      return ((ByteBuf) msg).readableBytes();
+    }
+    return (int) ((FileRegion) msg).count();
+  }
+
+  private static Object retain(Object msg) {
+    if (msg instanceof ByteBuf) {
+      return ((ByteBuf) msg).retain();
+    }
+    if (msg instanceof HttpContent) {
+      return ((HttpContent) msg).content().retain();
+    }
+    return ((FileRegion) msg).retain();
+  }
+
+  /**
+   * The constant headers of a server, encoded once. A response which sets one of them itself keeps its own value.
+   */
+  static final class ConstantHeaders {
+
+    private final String[] names;
+    private final byte[][] lines;
+
+    ConstantHeaders(Map<String, String> headers) {
+      names = new String[headers.size()];
+      lines = new byte[headers.size()][];
+      int i = 0;
+      for (Map.Entry<String, String> header: headers.entrySet()) {
+        names[i] = header.getKey();
+        lines[i++] = encodeHeader(header.getKey(), header.getValue());
+      }
+    }
+
+    private void encode(ByteBuf buf, HttpHeaders headers) {
+      for (int i = 0; i < names.length; i++) {
+        if (!headers.contains(names[i])) {
+          buf.writeBytes(lines[i]);
+        }
+      }
+    }
+  }
+}
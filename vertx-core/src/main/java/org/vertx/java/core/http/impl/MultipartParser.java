@@ -0,0 +1,288 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.VertxException;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.impl.CaseInsensitiveMultiMap;
+
+/**
+ * An incremental parser for {@code multipart/form-data} bodies.<p>
+ * The body is fed chunk by chunk as it is received and the parts are reported to a {@link Listener} as they are
+ * found. The content of the parts is passed on as slices of the received chunks, so the only bytes held between
+ * two chunks are the headers of the current part and the few bytes which might be the start of a boundary.<p>
+ * The parser can be paused from the listener, it then stops where it is and keeps the rest of the current chunk
+ * until it is resumed.
+ */
+class MultipartParser {
+
+  interface Listener {
+
+    void partStart(MultiMap headers);
+
+    void partData(Buffer data);
+
+    void partEnd();
+
+    void exception(Throwable t);
+  }
+
+  private static final int MAX_HEADERS_SIZE = 8192;
+  private static final byte[] HEADERS_END = {'\r', '\n', '\r', '\n'};
+
+  private static final int PREAMBLE = 0;
+  private static final int HEADERS = 1;
+  private static final int BODY = 2;
+  private static final int EPILOGUE = 3;
+  private static final int FAILED = 4;
+
+  private final byte[] delimiter;
+  private final Listener listener;
+  private ByteBuf pending;
+  private int state = PREAMBLE;
+  private boolean paused;
+
+  MultipartParser(String boundary, Listener listener) {
+    this.delimiter = ("\r\n--" + boundary).getBytes(CharsetUtil.US_ASCII);
+    this.listener = listener;
+    // The first boundary isn't preceded by a CRLF, add one so it is matched like the others
+    this.pending = Unpooled.wrappedBuffer(new byte[] {'\r', '\n'});
+  }
+
+  /**
+   * @return the boundary of a {@code multipart/form-data} content type, or null if it has none
+   */
+  static String boundary(String contentType) {
+    String boundary = headerParam(contentType, "boundary");
+    return boundary == null || boundary.isEmpty() ? null : boundary;
+  }
+
+  /**
+   * @return the value of the parameter {@code name} of a header such as {@code Content-Type} or
+   * {@code Content-Disposition}, or null if it has no such parameter
+   */
+  static String headerParam(String header, String name) {
+    if (header == null) {
+      return null;
+    }
+    int len = header.length();
+    int semi = header.indexOf(';');
+    while (semi != -1) {
+      int eq = header.indexOf('=', semi + 1);
+      if (eq == -1) {
+        return null;
+      }
+      String key = header.substring(semi + 1, eq).trim();
+      int pos = eq + 1;
+      while (pos < len && header.charAt(pos) == ' ') {
+        pos++;
+      }
+      String value;
+      if (pos < len && header.charAt(pos) == '"') {
+        int quote = header.indexOf('"', pos + 1);
+        if (quote == -1) {
+          quote = len;
+        }
+        value = header.substring(pos + 1, quote);
+        semi = header.indexOf(';', quote);
+      } else {
+        semi = header.indexOf(';', pos);
+        value = header.substring(pos, semi == -1 ? len : semi).trim();
+      }
+      if (key.equalsIgnoreCase(name)) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  void parse(ByteBuf data) {
+    if (state == EPILOGUE || state == FAILED) {
+      return;
+    }
+    pending = pending == null ? data : Unpooled.wrappedBuffer(pending, data);
+    process();
+  }
+
+  void end() {
+    if (state != EPILOGUE && state != FAILED) {
+      fail(new VertxException("Unexpected end of multipart body"));
+    }
+  }
+
+  void pause() {
+    paused = true;
+  }
+
+  void resume() {
+    if (paused) {
+      paused = false;
+      process();
+    }
+  }
+
+  boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Stop parsing, the rest of the body is discarded
+   */
+  void fail(Throwable cause) {
+    if (state != FAILED) {
+      state = FAILED;
+      pending = null;
+      paused = false;
+      listener.exception(cause);
+    }
+  }
+
+  private void process() {
+    boolean more = true;
+    while (more && !paused && pending != null) {
+      switch (state) {
+        case PREAMBLE:
+        case BODY:
+          more = parseBody();
+          break;
+        case HEADERS:
+          more = parseHeaders();
+          break;
+        default:
+          pending = null;
+      }
+    }
+  }
+
+  private boolean parseBody() {
+    ByteBuf buf = pending;
+    int index = indexOf(buf, delimiter);
+    if (index == -1) {
+      // Everything but the tail which might be the start of a delimiter belongs to the current part
+      emit(buf.readableBytes() - Math.min(buf.readableBytes(), delimiter.length - 1));
+      if (!paused) {
+        compact();
+      }
+      return false;
+    }
+    if (index > buf.readerIndex()) {
+      emit(index - buf.readerIndex());
+      if (paused || state == FAILED) {
+        return true;
+      }
+    }
+    int end = index + delimiter.length;
+    if (buf.writerIndex() < end + 2) {
+      // Wait for the two bytes which tell a delimiter from the close delimiter
+      compact();
+      return false;
+    }
+    byte b1 = buf.getByte(end);
+    byte b2 = buf.getByte(end + 1);
+    boolean inPart = state == BODY;
+    if (b1 == '-' && b2 == '-') {
+      state = EPILOGUE;
+      pending = null;
+    } else if (b1 == '\r' && b2 == '\n') {
+      state = HEADERS;
+      // Leave the CRLF, so the end of the headers is found even when the part has none
+      buf.readerIndex(end);
+    } else {
+      fail(new VertxException("Invalid multipart boundary"));
+      return false;
+    }
+    if (inPart) {
+      listener.partEnd();
+    }
+    return true;
+  }
+
+  private boolean parseHeaders() {
+    ByteBuf buf = pending;
+    int index = indexOf(buf, HEADERS_END);
+    if (index == -1 || index - buf.readerIndex() > MAX_HEADERS_SIZE) {
+      if (buf.readableBytes() > MAX_HEADERS_SIZE) {
+        fail(new VertxException("Multipart headers larger than " + MAX_HEADERS_SIZE + " bytes"));
+      } else {
+        compact();
+      }
+      return false;
+    }
+    int start = buf.readerIndex() + 2;
+    String text = index > start ? buf.toString(start, index - start, CharsetUtil.UTF_8) : "";
+    buf.readerIndex(index + HEADERS_END.length);
+    MultiMap headers = new CaseInsensitiveMultiMap();
+    for (String line: text.split("\r\n")) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      int colon = line.indexOf(':');
+      if (colon <= 0) {
+        fail(new VertxException("Invalid multipart header: " + line));
+        return false;
+      }
+      headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+    }
+    state = BODY;
+    listener.partStart(headers);
+    return true;
+  }
+
+  private void emit(int length) {
+    if (length <= 0) {
+      return;
+    }
+    if (state == BODY) {
+      listener.partData(new Buffer(pending.readSlice(length)));
+    } else {
+      pending.skipBytes(length);
+    }
+  }
+
+  /**
+   * Copy the few bytes left, so the chunks they come from aren't retained while waiting for the next one
+   */
+  private void compact() {
+    if (pending != null) {
+      pending = pending.isReadable() ? Unpooled.copiedBuffer(pending) : null;
+    }
+  }
+
+  private static int indexOf(ByteBuf buf, byte[] pattern) {
+    int from = buf.readerIndex();
+    int last = buf.writerIndex() - pattern.length;
+    while (from <= last) {
+      int index = buf.indexOf(from, last + 1, pattern[0]);
+      if (index == -1) {
+        return -1;
+      }
+      int i = 1;
+      while (i < pattern.length && buf.getByte(index + i) == pattern[i]) {
+        i++;
+      }
+      if (i == pattern.length) {
+        return index;
+      }
+      from = index + 1;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DefaultFutureResult;
+
+/**
+ * Follows the connections a pool opens ahead of the requests. Each connection goes into the pool as soon as it is
+ * open, and the done handler is called on the context once they have all been opened or have failed to open, with
+ * the first failure if any.
+ */
+class PoolWarmUp {
+
+  private final HttpPool pool;
+  private final Handler<AsyncResult<Void>> doneHandler;
+  private final DefaultContext context;
+  private int remaining;
+  private Throwable cause;
+
+  final Handler<ClientConnection> connectHandler = new Handler<ClientConnection>() {
+    public void handle(ClientConnection conn) {
+      pool.returnConnection(conn);
+      opened(null);
+    }
+  };
+
+  final Handler<Throwable> connectErrorHandler = new Handler<Throwable>() {
+    public void handle(Throwable t) {
+      opened(t);
+    }
+  };
+
+  PoolWarmUp(HttpPool pool, int count, Handler<AsyncResult<Void>> doneHandler, DefaultContext context) {
+    this.pool = pool;
+    this.remaining = count;
+    this.doneHandler = doneHandler;
+    this.context = context;
+    if (count == 0) {
+      context.execute(new Runnable() {
+        public void run() {
+          done();
+        }
+      });
+    }
+  }
+
+  // The handlers of a worker context can run on different threads
+  private synchronized void opened(Throwable t) {
+    if (t != null && cause == null) {
+      cause = t;
+    }
+    if (--remaining == 0) {
+      done();
+    }
+  }
+
+  private void done() {
+    if (doneHandler != null) {
+      DefaultFutureResult<Void> res = cause == null ? new DefaultFutureResult<>((Void) null) :
+          new DefaultFutureResult<Void>(cause);
+      res.setHandler(doneHandler);
+    }
+  }
+}
@@ -16,13 +16,19 @@
 
 package org.vertx.java.core.http.impl;
 
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.http.HttpPoolStats;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -36,7 +42,11 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
   private final Queue<ClientConnection> available = new ArrayDeque<>();
   private int maxPoolSize = 1;
   private int connectionCount;
+  private int pipeliningDepth;
+  private long idleTimeout;
+  private long maxLifetime;
   private final Queue<Waiter> waiters = new ArrayDeque<>();
+  private final HttpPoolMetrics metrics = new HttpPoolMetrics();
 
   /**
    * Set the maximum pool size to the value specified by {@code maxConnections}<p>
@@ -53,6 +63,44 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
     return maxPoolSize;
   }
 
+  /**
+   * Set the maximum number of requests waiting for a response on a connection before it stops being used for
+   * other requests. {@code 0} means the busy connections are only used once the pool is exhausted, with no limit.
+   */
+  public synchronized void setPipeliningDepth(int depth) {
+    this.pipeliningDepth = depth;
+  }
+
+  public synchronized int getPipeliningDepth() {
+    return pipeliningDepth;
+  }
+
+  public synchronized void setIdleTimeout(long timeout) {
+    this.idleTimeout = timeout;
+  }
+
+  public synchronized long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public synchronized void setMaxLifetime(long lifetime) {
+    this.maxLifetime = lifetime;
+  }
+
+  public synchronized long getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  public synchronized HttpPoolStats getStats() {
+    int idle = 0;
+    for (ClientConnection conn: available) {
+      if (conn.getOutstandingRequestCount() == 0 && !conn.isClosed()) {
+        idle++;
+      }
+    }
+    return metrics.stats(connectionCount, idle, waiters.size());
+  }
+
   public synchronized void report() {
     log.trace("available: " + available.size() + " connection count: " + connectionCount + " waiters: " + waiters.size());
   }
@@ -60,7 +108,9 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
   public void getConnection(Handler<ClientConnection> handler,Handler<Throwable> connectExceptionHandler, DefaultContext context) {
     boolean connect = false;
     ClientConnection conn;
+    List<ClientConnection> expired;
     outer: synchronized (this) {
+      expired = removeExpired();
       conn = selectConnection(available, connectionCount, maxPoolSize);
       if (conn != null) {
         break outer;
@@ -76,6 +126,7 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
       }
     }
     // We do this outside the sync block to minimise the critical section
+    evict(expired);
     if (conn != null) {
       handler.handle(conn);
     } else if (connect) {
@@ -83,10 +134,30 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
     }
   }
 
+  public void evictExpired() {
+    List<ClientConnection> expired;
+    synchronized (this) {
+      expired = removeExpired();
+    }
+    evict(expired);
+  }
+
+  public void openConnections(int count, Handler<AsyncResult<Void>> doneHandler, DefaultContext context) {
+    int open;
+    synchronized (this) {
+      open = Math.max(0, Math.min(count, maxPoolSize - connectionCount));
+      connectionCount += open;
+    }
+    PoolWarmUp warmUp = new PoolWarmUp(this, open, doneHandler, context);
+    for (int i = 0; i < open; i++) {
+      connect(warmUp.connectHandler, warmUp.connectErrorHandler, context);
+    }
+  }
+
   /**
    * Inform the pool that the connection has been closed externally.
    */
-  public void connectionClosed() {
+  public void connectionClosed(DefaultContext context) {
     Waiter waiter;
     synchronized (this) {
       connectionCount--;
@@ -103,6 +174,7 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
     }
     // We do the actual connect outside the sync block to minimise the critical section
     if (waiter != null) {
+      metrics.waitEnded(waiter.start);
       connect(waiter.handler, waiter.connectionExceptionHandler, waiter.context);
     }
   }
@@ -112,20 +184,45 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
    */
   public void returnConnection(final ClientConnection conn) {
     Waiter waiter;
+    boolean expired;
     synchronized (this) {
-      //Return it to the pool
-      waiter = waiters.poll();
-      if (waiter == null) {
+      // An expired connection is closed rather than reused, which lets a waiter open a new one
+      expired = isExpired(conn, System.nanoTime());
+      waiter = !expired && canPipeline(conn) ? waiters.poll() : null;
+      if (waiter == null && !expired) {
+        //Return it to the pool
         available.add(conn);
       }
     }
-    if (waiter != null) {
-      final Waiter w = waiter;
-      w.context.execute(new Runnable() {
-        public void run() {
-          w.handler.handle(conn);
-        }
-      });
+    if (expired) {
+      evict(conn);
+    } else if (waiter != null) {
+      handOver(waiter, conn);
+    }
+  }
+
+  /**
+   * Inform the pool that a response has been received on a connection, so there may be room to pipeline
+   * another request on it.
+   */
+  public void responseEnded(final ClientConnection conn) {
+    Waiter waiter = null;
+    boolean expired = false;
+    synchronized (this) {
+      if (conn.isClosed()) {
+        return;
+      }
+      // A connection which has reached its maximum lifetime is closed once its last response has ended
+      if (maxLifetime > 0 && isExpired(conn, System.nanoTime())) {
+        expired = available.remove(conn);
+      } else if (pipeliningDepth > 0 && !waiters.isEmpty() && canPipeline(conn) && available.remove(conn)) {
+        waiter = waiters.poll();
+      }
+    }
+    if (expired) {
+      evict(conn);
+    } else if (waiter != null) {
+      handOver(waiter, conn);
     }
   }
 
@@ -142,7 +239,62 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
    */
   protected abstract void connect(final Handler<ClientConnection> connectHandler, final Handler<Throwable> connectErrorHandler, final DefaultContext context);
 
+  private boolean canPipeline(ClientConnection conn) {
+    return pipeliningDepth == 0 || conn.getOutstandingRequestCount() < pipeliningDepth;
+  }
+
+  private boolean isExpired(ClientConnection conn, long now) {
+    return conn.isExpired(now, TimeUnit.MILLISECONDS.toNanos(idleTimeout), TimeUnit.MILLISECONDS.toNanos(maxLifetime));
+  }
+
+  // Takes the expired connections out of the pool, they must then be evicted outside the sync block
+  private List<ClientConnection> removeExpired() {
+    if (available.isEmpty() || (idleTimeout == 0 && maxLifetime == 0)) {
+      return null;
+    }
+    List<ClientConnection> expired = null;
+    long now = System.nanoTime();
+    for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+      ClientConnection conn = iter.next();
+      if (isExpired(conn, now)) {
+        iter.remove();
+        if (expired == null) {
+          expired = new ArrayList<>();
+        }
+        expired.add(conn);
+      }
+    }
+    return expired;
+  }
+
+  private void evict(List<ClientConnection> conns) {
+    if (conns != null) {
+      for (ClientConnection conn: conns) {
+        evict(conn);
+      }
+    }
+  }
+
+  private void evict(ClientConnection conn) {
+    if (!conn.isClosed()) {
+      metrics.evicted();
+      conn.evict();
+    }
+  }
+
+  private void handOver(final Waiter waiter, final ClientConnection conn) {
+    metrics.waitEnded(waiter.start);
+    waiter.context.execute(new Runnable() {
+      public void run() {
+        waiter.handler.handle(conn);
+      }
+    });
+  }
+
   private ClientConnection selectConnection(Queue<ClientConnection> available, int connectionCount, int maxPoolSize) {
+    if (pipeliningDepth > 0) {
+      return selectPipelinedConnection(available);
+    }
     ClientConnection conn = null;
 
     if (!available.isEmpty()) {
@@ -172,11 +324,37 @@ public abstract class PriorityHttpConnectionPool implements HttpPool {
     return conn; // might still be null, which would either create a connection, or put the request in a wait list
   }
 
+  // Picks an idle connection, or else the connection with the fewest requests waiting for a response as long as
+  // it is below the pipelining depth, even if the pool could open another connection
+  private ClientConnection selectPipelinedConnection(Queue<ClientConnection> available) {
+    ClientConnection conn = null;
+    for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+      ClientConnection c = iter.next();
+      if (c.isClosed()) {
+        iter.remove();
+        continue;
+      }
+      int outstanding = c.getOutstandingRequestCount();
+      if (outstanding == 0) {
+        conn = c;
+        break;
+      }
+      if (outstanding < pipeliningDepth && (conn == null || outstanding < conn.getOutstandingRequestCount())) {
+        conn = c;
+      }
+    }
+    if (conn != null) {
+      available.remove(conn);
+    }
+    return conn;
+  }
+
 
   private static class Waiter {
     final Handler<ClientConnection> handler;
     final Handler<Throwable> connectionExceptionHandler;
     final DefaultContext context;
+    final long start = System.nanoTime();
 
     private Waiter(Handler<ClientConnection> handler, Handler<Throwable> connectionExceptionHandler, DefaultContext context) {
       this.handler = handler;
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.CharsetUtil;
+import org.vertx.java.core.MultiMap;
+import org.vertx.java.core.impl.CaseInsensitiveMultiMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parameters of a request, read straight from the query string of its URI.<p>
+ * A lookup by name scans the query string and only decodes the values of the matching parameters, so a handler
+ * which reads a couple of parameters doesn't pay for decoding all of them. The first time the map is iterated,
+ * sized or modified it is decoded in full into a {@link CaseInsensitiveMultiMap}, which then backs all the calls.<p>
+ * The parameters are split and decoded like {@link QueryStringDecoder} does, names are case insensitive.
+ */
+class QueryParamsMap implements MultiMap {
+
+  private static final int MAX_PARAMS = 1024;
+
+  private final String uri;
+  // The index of the query string in the URI, or -1 if it has none
+  private final int start;
+  private MultiMap decoded;
+
+  QueryParamsMap(String uri) {
+    this.uri = uri;
+    int index = uri.indexOf('?');
+    this.start = index == -1 ? -1 : index + 1;
+  }
+
+  @Override
+  public String get(String name) {
+    if (decoded != null) {
+      return decoded.get(name);
+    }
+    return find(name, null);
+  }
+
+  @Override
+  public List<String> getAll(String name) {
+    if (decoded != null) {
+      return decoded.getAll(name);
+    }
+    List<String> values = new ArrayList<>(1);
+    find(name, values);
+    return values;
+  }
+
+  @Override
+  public boolean contains(String name) {
+    return get(name) != null;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    if (decoded != null) {
+      return decoded.isEmpty();
+    }
+    if (start != -1) {
+      for (int i = start; i < uri.length(); i++) {
+        char c = uri.charAt(i);
+        if (c != '&' && c != ';' && c != '=') {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public List<Map.Entry<String, String>> entries() {
+    return decoded().entries();
+  }
+
+  @Override
+  public Set<String> names() {
+    return decoded().names();
+  }
+
+  @Override
+  public Iterator<Map.Entry<String, String>> iterator() {
+    return decoded().iterator();
+  }
+
+  @Override
+  public int size() {
+    return decoded().size();
+  }
+
+  @Override
+  public MultiMap add(String name, String value) {
+    decoded().add(name, value);
+    return this;
+  }
+
+  @Override
+  public MultiMap add(String name, Iterable<String> values) {
+    decoded().add(name, values);
+    return this;
+  }
+
+  @Override
+  public MultiMap add(MultiMap params) {
+    decoded().add(params);
+    return this;
+  }
+
+  @Override
+  public MultiMap add(Map<String, String> params) {
+    decoded().add(params);
+    return this;
+  }
+
+  @Override
+  public MultiMap set(String name, String value) {
+    decoded().set(name, value);
+    return this;
+  }
+
+  @Override
+  public MultiMap set(String name, Iterable<String> values) {
+    decoded().set(name, values);
+    return this;
+  }
+
+  @Override
+  public MultiMap set(MultiMap params) {
+    decoded().set(params);
+    return this;
+  }
+
+  @Override
+  public MultiMap set(Map<String, String> params) {
+    decoded().set(params);
+    return this;
+  }
+
+  @Override
+  public MultiMap remove(String name) {
+    decoded().remove(name);
+    return this;
+  }
+
+  @Override
+  public MultiMap clear() {
+    decoded().clear();
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return decoded().toString();
+  }
+
+  private MultiMap decoded() {
+    if (decoded == null) {
+      MultiMap map = new CaseInsensitiveMultiMap();
+      find(null, map);
+      decoded = map;
+    }
+    return decoded;
+  }
+
+  /**
+   * Scan the query string for the parameters called {@code name}, or for all the parameters if it is null.
+   * Without a {@code dest} the value of the last match is returned, as {@link CaseInsensitiveMultiMap#get} does,
+   * otherwise the matches are added to it, which is either a {@code List} of values or a {@code MultiMap}.
+   */
+  @SuppressWarnings("unchecked")
+  private String find(String name, Object dest) {
+    if (start == -1) {
+      return null;
+    }
+    int len = uri.length();
+    int count = 0;
+    int pos = start;
+    int lastStart = -1;
+    int lastEnd = -1;
+    while (pos < len && count < MAX_PARAMS) {
+      int end = pos;
+      int eq = -1;
+      for (; end < len; end++) {
+        char c = uri.charAt(end);
+        if (c == '&' || c == ';') {
+          break;
+        }
+        if (c == '=' && eq == -1) {
+          eq = end;
+        }
+      }
+      int nameStart = pos;
+      int nameEnd = eq == -1 ? end : eq;
+      int valueStart = eq == -1 ? end : eq + 1;
+      if (nameEnd == nameStart) {
+        // Like the decoder, take the value of a parameter without a name as the name of a parameter without a value
+        nameStart = valueStart;
+        nameEnd = end;
+        valueStart = end;
+      }
+      pos = end + 1;
+      if (nameEnd == nameStart) {
+        continue;
+      }
+      count++;
+      if (name == null) {
+        ((MultiMap) dest).add(decode(nameStart, nameEnd), decode(valueStart, end));
+      } else if (nameMatches(name, nameStart, nameEnd)) {
+        if (dest == null) {
+          lastStart = valueStart;
+          lastEnd = end;
+        } else {
+          ((List<String>) dest).add(decode(valueStart, end));
+        }
+      }
+    }
+    return lastStart == -1 ? null : decode(lastStart, lastEnd);
+  }
+
+  private boolean nameMatches(String name, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = uri.charAt(i);
+      if (c == '%' || c == '+') {
+        String decodedName = decode(from, to);
+        return decodedName.length() == name.length() && regionMatches(name, decodedName, 0);
+      }
+    }
+    return to - from == name.length() && regionMatches(name, uri, from);
+  }
+
+  // Only ASCII letters are folded, as in CaseInsensitiveMultiMap
+  private static boolean regionMatches(String name, String s, int offset) {
+    for (int i = 0; i < name.length(); i++) {
+      char c1 = name.charAt(i);
+      char c2 = s.charAt(offset + i);
+      if (c1 != c2) {
+        if (c1 >= 'A' && c1 <= 'Z') {
+          c1 += 32;
+        }
+        if (c2 >= 'A' && c2 <= 'Z') {
+          c2 += 32;
+        }
+        if (c1 != c2) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private String decode(int from, int to) {
+    if (from == to) {
+      return "";
+    }
+    return QueryStringDecoder.decodeComponent(uri.substring(from, to), CharsetUtil.UTF_8);
+  }
+}
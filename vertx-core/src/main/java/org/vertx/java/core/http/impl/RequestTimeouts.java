@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.http.impl;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timeouts of the client requests handled on one event loop.<p>
+ * Rather than a vert.x timer each, which is tracked by id and by its context and stays scheduled on the event loop even
+ * once cancelled, the timeouts are kept in a queue ordered by deadline, and a single task is scheduled for the earliest
+ * one. Cancelling a timeout only marks it, the cancelled timeouts are dropped once they reach the head of the queue. A
+ * cancelled timeout lets go of its request straight away, so a slow request at the head of the queue doesn't keep all
+ * the requests completed after it reachable. As most requests use the default timeout of the client their deadlines
+ * come in order, so adding or cancelling a timeout rarely has to touch the scheduled task, which runs about once per
+ * timeout period.<p>
+ * The requests of worker contexts can be timed from their worker thread, so the queue is synchronized.
+ */
+class RequestTimeouts {
+
+  private final EventLoop eventLoop;
+  private final PriorityQueue<Timeout> queue = new PriorityQueue<>();
+  private final Runnable expireTask = new Runnable() {
+    public void run() {
+      expire();
+    }
+  };
+  private ScheduledFuture<?> scheduled;
+  private long scheduledDeadline;
+  private long sequence;
+
+  RequestTimeouts(EventLoop eventLoop) {
+    this.eventLoop = eventLoop;
+  }
+
+  synchronized Timeout schedule(DefaultHttpClientRequest request, long timeoutMs) {
+    Timeout timeout = new Timeout(this, request, timeoutMs,
+                                  System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs), sequence++);
+    queue.add(timeout);
+    if (queue.peek() == timeout) {
+      reschedule();
+    }
+    return timeout;
+  }
+
+  private synchronized void cancel(Timeout timeout) {
+    timeout.cancelled = true;
+    timeout.request = null;
+    // The requests mostly complete in order, so this usually keeps the queue down to the requests in flight
+    Timeout head;
+    while ((head = queue.peek()) != null && head.cancelled) {
+      queue.poll();
+    }
+    // The scheduled task is kept even when the queue is empty, the next timeouts are very likely to expire after it
+  }
+
+  synchronized void close() {
+    queue.clear();
+    if (scheduled != null) {
+      scheduled.cancel(false);
+      scheduled = null;
+    }
+  }
+
+  // The scheduled task is kept when it runs before the head of the queue, it reschedules itself when it runs
+  private void reschedule() {
+    Timeout head = queue.peek();
+    if (head == null || (scheduled != null && scheduledDeadline - head.deadline <= 0)) {
+      return;
+    }
+    if (scheduled != null) {
+      scheduled.cancel(false);
+    }
+    scheduledDeadline = head.deadline;
+    scheduled = eventLoop.schedule(expireTask, Math.max(0, head.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  private void expire() {
+    List<Timeout> expired = new ArrayList<>();
+    List<DefaultHttpClientRequest> requests = new ArrayList<>();
+    synchronized (this) {
+      scheduled = null;
+      long now = System.nanoTime();
+      Timeout head;
+      while ((head = queue.peek()) != null && head.deadline - now <= 0) {
+        queue.poll();
+        if (!head.cancelled) {
+          expired.add(head);
+          requests.add(head.request);
+        }
+      }
+      reschedule();
+    }
+    // Called outside the lock, as the requests may set new timeouts
+    for (int i = 0; i < expired.size(); i++) {
+      final Timeout timeout = expired.get(i);
+      final DefaultHttpClientRequest request = requests.get(i);
+      request.getContext().execute(eventLoop, new Runnable() {
+        public void run() {
+          request.handleTimeout(timeout);
+        }
+      });
+    }
+  }
+
+  static final class Timeout implements Comparable<Timeout> {
+
+    private final RequestTimeouts owner;
+    // Guarded by the owner, cleared on cancel
+    private DefaultHttpClientRequest request;
+    final long timeoutMs;
+    private final long deadline;
+    private final long sequence;
+    private boolean cancelled;
+
+    private Timeout(RequestTimeouts owner, DefaultHttpClientRequest request, long timeoutMs, long deadline,
+                    long sequence) {
+      this.owner = owner;
+      this.request = request;
+      this.timeoutMs = timeoutMs;
+      this.deadline = deadline;
+      this.sequence = sequence;
+    }
+
+    void cancel() {
+      owner.cancel(this);
+    }
+
+    @Override
+    public int compareTo(Timeout other) {
+      long diff = deadline - other.deadline;
+      if (diff == 0) {
+        diff = sequence - other.sequence;
+      }
+      return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.vertx.java.core.Vertx;
 import org.vertx.java.core.VoidHandler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerRequest;
+import org.vertx.java.core.http.RateLimiter;
 import org.vertx.java.core.http.ServerWebSocket;
 import org.vertx.java.core.http.impl.ws.WebSocketFrame;
 import org.vertx.java.core.impl.DefaultContext;
@@ -63,6 +64,9 @@ class ServerConnection extends ConnectionBase {
   private final String serverOrigin;
   private final DefaultHttpServer server;
   private ChannelFuture lastWriteFuture;
+  private int requests;
+  private boolean discarding;
+  private boolean draining;
 
   ServerConnection(DefaultHttpServer server, Channel channel, DefaultContext context, String serverOrigin) {
     super(server.vertx, channel, context);
@@ -83,6 +87,10 @@ class ServerConnection extends ConnectionBase {
     }
   }
 
+  DefaultHttpServer server() {
+    return server;
+  }
+
   void handleMessage(Object msg) {
     if (paused || (msg instanceof HttpRequest && pendingResponse != null) || !pending.isEmpty()) {
       //We queue requests if paused or a request is in progress to prevent responses being written in the wrong order
@@ -90,7 +98,7 @@ class ServerConnection extends ConnectionBase {
       if (pending.size() == CHANNEL_PAUSE_QUEUE_SIZE) {
         //We pause the channel too, to prevent the queue growing too large, but we don't do this
         //until the queue reaches a certain size, to avoid pausing it too often
-        super.doPause();
+        doPause();
         channelPaused = true;
       }
     } else {
@@ -98,6 +106,44 @@ class ServerConnection extends ConnectionBase {
     }
   }
 
+  /**
+   * @return true if the connection must be closed once the current request has been answered
+   */
+  boolean isLastRequest() {
+    int max = server.getMaxRequestsPerConnection();
+    return draining || (max > 0 && requests >= max);
+  }
+
+  /**
+   * Stop handling new requests on the connection and close it once the response in flight, if any, has been
+   * written. Can be called from any thread.
+   */
+  void drain() {
+    context.execute(new Runnable() {
+      public void run() {
+        doDrain();
+      }
+    });
+  }
+
+  void doDrain() {
+    draining = true;
+    if (ws != null) {
+      close();
+    } else if (pendingResponse == null) {
+      // Otherwise the response closes the connection when it ends
+      if (lastWriteFuture == null) {
+        close();
+      } else {
+        lastWriteFuture.addListener(new ChannelFutureListener() {
+          public void operationComplete(ChannelFuture future) throws Exception {
+            close();
+          }
+        });
+      }
+    }
+  }
+
   void responseComplete() {
     pendingResponse = null;
     checkNextTick();
@@ -136,9 +182,13 @@ class ServerConnection extends ConnectionBase {
 
     // remove old http handlers and replace the old handler with one that handle plain sockets
     channel.pipeline().remove("httpDecoder");
+    channel.pipeline().remove("httpLimits");
     if (channel.pipeline().get("chunkedWriter") != null) {
       channel.pipeline().remove("chunkedWriter");
     }
+    if (channel.pipeline().get("httpCompressor") != null) {
+      channel.pipeline().remove("httpCompressor");
+    }
     channel.pipeline().replace("handler", "handler", new VertxNetHandler(server.vertx, connectionMap) {
       @Override
       public void exceptionCaught(ChannelHandlerContext chctx, Throwable t) throws Exception {
@@ -183,6 +233,11 @@ class ServerConnection extends ConnectionBase {
     try {
       this.currentRequest = req;
       pendingResponse = resp;
+      RateLimiter limiter = server.getRateLimiter();
+      if (limiter != null && !limiter.accept(req)) {
+        server.metrics().rateLimited();
+        return;
+      }
       if (requestHandler != null) {
         requestHandler.handle(req);
       }
@@ -289,9 +344,22 @@ class ServerConnection extends ConnectionBase {
     return super.sendFile(file);
   }
 
+  @Override
+  protected ChannelFuture sendFile(File file, long offset, long length) {
+    return super.sendFile(file, offset, length);
+  }
+
   private void processMessage(Object msg) {
+    if (msg instanceof HttpRequest && isLastRequest()) {
+      // A request pipelined after the last one of the connection, which is closed once the last one is answered
+      discarding = true;
+    }
+    if (discarding) {
+      return;
+    }
     if (msg instanceof HttpRequest) {
       HttpRequest request = (HttpRequest) msg;
+      requests++;
       DefaultHttpServerResponse resp = new DefaultHttpServerResponse(vertx, this, request);
       DefaultHttpServerRequest req = new DefaultHttpServerRequest(this, request, resp);
       handleRequest(req, resp);
@@ -335,7 +403,7 @@ class ServerConnection extends ConnectionBase {
             }
             if (channelPaused && pending.isEmpty()) {
               //Resume the actual channel
-              ServerConnection.super.doResume();
+              doResume();
               channelPaused = false;
             }
           }
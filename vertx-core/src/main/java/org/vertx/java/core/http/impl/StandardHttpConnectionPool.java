@@ -1,13 +1,19 @@
 package org.vertx.java.core.http.impl;
 
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.VoidHandler;
+import org.vertx.java.core.http.HttpPoolStats;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 /*
  * Copyright 2013 Red Hat, Inc.
@@ -32,7 +38,11 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
   private final Queue<ClientConnection> available = new ArrayDeque<>();
   private int maxPoolSize = 1;
   private int connectionCount;
+  private int pipeliningDepth;
+  private long idleTimeout;
+  private long maxLifetime;
   private final Queue<Waiter> waiters = new ArrayDeque<>();
+  private final HttpPoolMetrics metrics = new HttpPoolMetrics();
 
   /**
    * Set the maximum pool size to the value specified by {@code maxConnections}<p>
@@ -49,6 +59,44 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
     return maxPoolSize;
   }
 
+  /**
+   * Set the maximum number of requests waiting for a response on a connection before it stops being handed out,
+   * {@code 0} for no limit
+   */
+  public synchronized void setPipeliningDepth(int depth) {
+    this.pipeliningDepth = depth;
+  }
+
+  public synchronized int getPipeliningDepth() {
+    return pipeliningDepth;
+  }
+
+  public synchronized void setIdleTimeout(long timeout) {
+    this.idleTimeout = timeout;
+  }
+
+  public synchronized long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public synchronized void setMaxLifetime(long lifetime) {
+    this.maxLifetime = lifetime;
+  }
+
+  public synchronized long getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  public synchronized HttpPoolStats getStats() {
+    int idle = 0;
+    for (ClientConnection conn: available) {
+      if (conn.getOutstandingRequestCount() == 0 && !conn.isClosed()) {
+        idle++;
+      }
+    }
+    return metrics.stats(connectionCount, idle, waiters.size());
+  }
+
   public synchronized void report() {
     log.trace("available: " + available.size() + " connection count: " + connectionCount + " waiters: " + waiters.size());
   }
@@ -57,8 +105,10 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
   public void getConnection(Handler<ClientConnection> handler, Handler<Throwable> connectExceptionHandler, DefaultContext context) {
     boolean connect = false;
     ClientConnection conn;
+    List<ClientConnection> expired;
     outer: synchronized (this) {
-      conn = available.poll();
+      expired = removeExpired();
+      conn = pipeliningDepth == 0 ? available.poll() : pollPipelinable();
       if (conn != null) {
         break outer;
       } else {
@@ -73,6 +123,7 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
       }
     }
     // We do this outside the sync block to minimise the critical section
+    evict(expired);
     if (conn != null) {
       handler.handle(conn);
     }
@@ -81,10 +132,30 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
     }
   }
 
+  public void evictExpired() {
+    List<ClientConnection> expired;
+    synchronized (this) {
+      expired = removeExpired();
+    }
+    evict(expired);
+  }
+
+  public void openConnections(int count, Handler<AsyncResult<Void>> doneHandler, DefaultContext context) {
+    int open;
+    synchronized (this) {
+      open = Math.max(0, Math.min(count, maxPoolSize - connectionCount));
+      connectionCount += open;
+    }
+    PoolWarmUp warmUp = new PoolWarmUp(this, open, doneHandler, context);
+    for (int i = 0; i < open; i++) {
+      connect(warmUp.connectHandler, warmUp.connectErrorHandler, context);
+    }
+  }
+
   /**
    * Inform the pool that the connection has been closed externally.
    */
-  public void connectionClosed() {
+  public void connectionClosed(DefaultContext context) {
     Waiter waiter;
     synchronized (this) {
       connectionCount--;
@@ -101,6 +172,7 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
     }
     // We do the actual connect outside the sync block to minimise the critical section
     if (waiter != null) {
+      metrics.waitEnded(waiter.start);
       connect(waiter.handler, waiter.connectionExceptionHandler, waiter.context);
     }
   }
@@ -110,21 +182,99 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
    */
   public void returnConnection(final ClientConnection conn) {
     Waiter waiter;
+    boolean expired;
     synchronized (this) {
-      //Return it to the pool
-      waiter = waiters.poll();
-      if (waiter == null) {
+      expired = isExpired(conn, System.nanoTime());
+      waiter = !expired && canPipeline(conn) ? waiters.poll() : null;
+      if (waiter == null && !expired) {
+        //Return it to the pool
         available.add(conn);
       }
     }
+    if (expired) {
+      evict(conn);
+    } else if (waiter != null) {
+      handOver(waiter, conn);
+    }
+  }
+
+  /**
+   * Inform the pool that a response has been received on a connection, so it may be below the pipelining depth
+   * again.
+   */
+  public void responseEnded(ClientConnection conn) {
+    Waiter waiter = null;
+    synchronized (this) {
+      if (pipeliningDepth > 0 && !waiters.isEmpty() && !conn.isClosed() && canPipeline(conn) &&
+          available.remove(conn)) {
+        waiter = waiters.poll();
+      }
+    }
     if (waiter != null) {
-      final Waiter w = waiter;
-      w.context.runOnContext(new VoidHandler() {
-        public void handle() {
-          w.handler.handle(conn);
+      handOver(waiter, conn);
+    }
+  }
+
+  private boolean canPipeline(ClientConnection conn) {
+    return pipeliningDepth == 0 || conn.getOutstandingRequestCount() < pipeliningDepth;
+  }
+
+  private boolean isExpired(ClientConnection conn, long now) {
+    return conn.isExpired(now, TimeUnit.MILLISECONDS.toNanos(idleTimeout), TimeUnit.MILLISECONDS.toNanos(maxLifetime));
+  }
+
+  private List<ClientConnection> removeExpired() {
+    if (available.isEmpty() || (idleTimeout == 0 && maxLifetime == 0)) {
+      return null;
+    }
+    List<ClientConnection> expired = null;
+    long now = System.nanoTime();
+    for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+      ClientConnection conn = iter.next();
+      if (isExpired(conn, now)) {
+        iter.remove();
+        if (expired == null) {
+          expired = new ArrayList<>();
         }
-      });
+        expired.add(conn);
+      }
+    }
+    return expired;
+  }
+
+  private void evict(List<ClientConnection> conns) {
+    if (conns != null) {
+      for (ClientConnection conn: conns) {
+        evict(conn);
+      }
+    }
+  }
+
+  private void evict(ClientConnection conn) {
+    if (!conn.isClosed()) {
+      metrics.evicted();
+      conn.evict();
+    }
+  }
+
+  private void handOver(final Waiter waiter, final ClientConnection conn) {
+    metrics.waitEnded(waiter.start);
+    waiter.context.runOnContext(new VoidHandler() {
+      public void handle() {
+        waiter.handler.handle(conn);
+      }
+    });
+  }
+
+  private ClientConnection pollPipelinable() {
+    for (Iterator<ClientConnection> iter = available.iterator(); iter.hasNext(); ) {
+      ClientConnection conn = iter.next();
+      if (canPipeline(conn)) {
+        iter.remove();
+        return conn;
+      }
     }
+    return null;
   }
 
   /**
@@ -144,6 +294,7 @@ public abstract class StandardHttpConnectionPool implements HttpPool {
     final Handler<ClientConnection> handler;
     final Handler<Throwable> connectionExceptionHandler;
     final DefaultContext context;
+    final long start = System.nanoTime();
 
     private Waiter(Handler<ClientConnection> handler, Handler<Throwable> connectionExceptionHandler, DefaultContext context) {
       this.handler = handler;
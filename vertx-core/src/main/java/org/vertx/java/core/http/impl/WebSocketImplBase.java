@@ -86,6 +86,8 @@ public class WebSocketImplBase {
   }
 
   protected void writeBinaryFrameInternal(Buffer data) {
+    // Checked before the buffer is taken, as a zero-copy buffer holds a reference until it is written
+    checkClosed();
     ByteBuf buf = data.getByteBuf();
     WebSocketFrame frame = new DefaultWebSocketFrame(WebSocketFrame.FrameType.BINARY, buf);
     writeFrame(frame);
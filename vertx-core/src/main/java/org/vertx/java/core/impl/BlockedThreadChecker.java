@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import org.vertx.java.core.impl.management.ManagementRegistry;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically checks the vert.x threads and warns about any thread which has been executing the same task
+ * for longer than the allowed time - typically an event loop blocked by a handler.<p>
+ * The warning contains the stack of the blocked thread, sampled at the time of the check, and the name of
+ * the deployment which owns the task.<p>
+ * The check period and the limits are set with the {@code vertx.blockedThreadCheckPeriod},
+ * {@code vertx.maxEventLoopExecuteTime} and {@code vertx.maxWorkerExecuteTime} system properties, all in ms.
+ */
+public class BlockedThreadChecker {
+
+  private static final Logger log = LoggerFactory.getLogger(BlockedThreadChecker.class);
+
+  public static final long DEFAULT_CHECK_PERIOD = 1000;
+  public static final long DEFAULT_MAX_EVENT_LOOP_EXECUTE_TIME = 2000;
+  public static final long DEFAULT_MAX_WORKER_EXECUTE_TIME = 60000;
+
+  private final Map<VertxThread, Object> threads = new WeakHashMap<>();
+  private final long maxEventLoopExecTime;
+  private final long maxWorkerExecTime;
+  private final AtomicLong blockedWarnings = new AtomicLong();
+  private final Timer timer;
+
+  public BlockedThreadChecker() {
+    this(Long.getLong("vertx.blockedThreadCheckPeriod", DEFAULT_CHECK_PERIOD),
+        Long.getLong("vertx.maxEventLoopExecuteTime", DEFAULT_MAX_EVENT_LOOP_EXECUTE_TIME),
+        Long.getLong("vertx.maxWorkerExecuteTime", DEFAULT_MAX_WORKER_EXECUTE_TIME));
+  }
+
+  public BlockedThreadChecker(long checkPeriod, long maxEventLoopExecTime, long maxWorkerExecTime) {
+    this.maxEventLoopExecTime = TimeUnit.MILLISECONDS.toNanos(maxEventLoopExecTime);
+    this.maxWorkerExecTime = TimeUnit.MILLISECONDS.toNanos(maxWorkerExecTime);
+    this.timer = new Timer("vert.x-blocked-thread-checker", true);
+    timer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        check();
+      }
+    }, checkPeriod, checkPeriod);
+    ManagementRegistry.registerTaskExecution(this);
+  }
+
+  public synchronized void registerThread(VertxThread thread) {
+    threads.put(thread, null);
+  }
+
+  /**
+   * @return the number of blocked thread warnings logged so far
+   */
+  public long blockedWarnings() {
+    return blockedWarnings.get();
+  }
+
+  /**
+   * @return the execution times of the tasks run so far on all the event loop threads
+   */
+  public long[] eventLoopExecutionTimes() {
+    return executionTimes(false);
+  }
+
+  /**
+   * @return the execution times of the tasks run so far on all the worker threads
+   */
+  public long[] workerExecutionTimes() {
+    return executionTimes(true);
+  }
+
+  public void close() {
+    timer.cancel();
+  }
+
+  private synchronized List<VertxThread> threads() {
+    return new ArrayList<>(threads.keySet());
+  }
+
+  private long[] executionTimes(boolean worker) {
+    long[] res = new long[LatencyHistogram.BUCKETS];
+    for (VertxThread thread: threads()) {
+      if (thread.isWorker() == worker) {
+        thread.executionTimes().addTo(res);
+      }
+    }
+    return res;
+  }
+
+  private void check() {
+    long now = System.nanoTime();
+    for (VertxThread thread: threads()) {
+      long start = thread.startTime();
+      if (start == 0) {
+        continue;
+      }
+      long duration = now - start;
+      long max = thread.isWorker() ? maxWorkerExecTime : maxEventLoopExecTime;
+      if (duration >= max) {
+        blockedWarnings.incrementAndGet();
+        log.warn(blockedMessage(thread, duration));
+      }
+    }
+  }
+
+  private static String blockedMessage(VertxThread thread, long duration) {
+    StringBuilder sb = new StringBuilder("Thread ").append(thread.getName()).append(" has been blocked for ")
+        .append(TimeUnit.NANOSECONDS.toMillis(duration)).append(" ms");
+    DefaultContext context = thread.getContext();
+    DeploymentHandle handle = context == null ? null : context.getDeploymentHandle();
+    if (handle != null) {
+      sb.append(" in deployment ").append(handle.getDeploymentName());
+    }
+    for (StackTraceElement elem: thread.getStackTrace()) {
+      sb.append("\n\tat ").append(elem);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.spi.Action;
+import org.vertx.java.core.spi.Cancellable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of blocking actions on the worker pool and calls the result handler once, on the context which
+ * submitted them, with the results of all the actions in order or with the first failure.<p>
+ * Ordered executions go through the ordered executor of the context, so they run one at a time after any
+ * previously submitted ordered action of the context. Unordered executions go straight to the worker pool and
+ * may run in parallel.
+ */
+class BlockingExecution<T> implements Cancellable {
+
+  private final DefaultContext context;
+  private final List<? extends Action<T>> actions;
+  private final Handler<AsyncResult<List<T>>> resultHandler;
+  private final Object[] results;
+  private final AtomicInteger remaining;
+  private final AtomicBoolean completed = new AtomicBoolean();
+  private volatile boolean skip;
+  private volatile boolean cancelled;
+
+  BlockingExecution(DefaultContext context, List<? extends Action<T>> actions,
+                    Handler<AsyncResult<List<T>>> resultHandler) {
+    this.context = context;
+    this.actions = actions;
+    this.resultHandler = resultHandler;
+    this.results = new Object[actions.size()];
+    this.remaining = new AtomicInteger(actions.size());
+  }
+
+  void start(boolean ordered, Executor bgExec) {
+    if (actions.isEmpty()) {
+      complete();
+      return;
+    }
+    for (int i = 0; i < results.length; i++) {
+      final int index = i;
+      Runnable runner = new Runnable() {
+        public void run() {
+          perform(index);
+        }
+      };
+      if (ordered) {
+        context.executeOnOrderedWorkerExec(runner);
+      } else {
+        bgExec.execute(context.wrapTask(runner));
+      }
+    }
+  }
+
+  public boolean cancel() {
+    skip = true;
+    if (deliver(new DefaultFutureResult<List<T>>(new CancellationException()))) {
+      cancelled = true;
+      return true;
+    }
+    return false;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  private void perform(int index) {
+    if (skip) {
+      return;
+    }
+    try {
+      results[index] = actions.get(index).perform();
+    } catch (Exception e) {
+      skip = true;
+      deliver(new DefaultFutureResult<List<T>>(e));
+      return;
+    }
+    // The decrement publishes the result above to the thread which completes the batch
+    if (remaining.decrementAndGet() == 0) {
+      complete();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void complete() {
+    List<T> list = (List<T>) Arrays.asList(results);
+    deliver(new DefaultFutureResult<>(list));
+  }
+
+  private boolean deliver(final DefaultFutureResult<List<T>> res) {
+    if (!completed.compareAndSet(false, true)) {
+      return false;
+    }
+    if (resultHandler != null) {
+      context.execute(new Runnable() {
+        public void run() {
+          res.setHandler(resultHandler);
+        }
+      });
+    }
+    return true;
+  }
+}
@@ -23,6 +23,7 @@ import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Context;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.file.impl.PathResolver;
+import org.vertx.java.core.impl.management.ManagementRegistry;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 
@@ -45,26 +46,51 @@ public abstract class DefaultContext implements Context {
   private boolean closed;
   private final EventLoop eventLoop;
   protected final Executor orderedBgExec;
+  private final TaskQueueMetrics queueMetrics;
+  private String metricsName;
 
   protected DefaultContext(VertxInternal vertx, Executor orderedBgExec) {
+    this(vertx, orderedBgExec, nextEventLoop(vertx));
+  }
+
+  protected DefaultContext(VertxInternal vertx, Executor orderedBgExec, EventLoop eventLoop) {
+    this(vertx, orderedBgExec, eventLoop, null);
+  }
+
+  /**
+   * @param eventLoopMetrics the metrics of the event loop the tasks of this context run on, if they run on one
+   */
+  protected DefaultContext(VertxInternal vertx, Executor orderedBgExec, EventLoop eventLoop,
+                           TaskQueueMetrics eventLoopMetrics) {
     this.vertx = vertx;
     this.orderedBgExec = orderedBgExec;
+    this.eventLoop = eventLoop;
+    this.tccl = eventLoop != null ? Thread.currentThread().getContextClassLoader() : null;
+    this.queueMetrics = new TaskQueueMetrics(eventLoopMetrics);
+  }
+
+  static EventLoop nextEventLoop(VertxInternal vertx) {
     EventLoopGroup group = vertx.getEventLoopGroup();
-    if (group != null) {
-      this.eventLoop = group.next();
-      this.tccl = Thread.currentThread().getContextClassLoader();
-    } else {
-      this.eventLoop = null;
-      this.tccl = null;
-    }
+    return group != null ? group.next() : null;
   }
 
   public void setTCCL() {
-    Thread.currentThread().setContextClassLoader(tccl);
+    setTCCL(Thread.currentThread());
+  }
+
+  void setTCCL(Thread thread) {
+    // Setting the TCCL is not free so avoid it when the thread already has the right one
+    if (thread.getContextClassLoader() != tccl) {
+      thread.setContextClassLoader(tccl);
+    }
   }
 
   public void setDeploymentHandle(DeploymentHandle deploymentHandle) {
     this.deploymentContext = deploymentHandle;
+    if (deploymentHandle != null && metricsName == null) {
+      metricsName = deploymentHandle.getDeploymentName() + "-" + Integer.toHexString(System.identityHashCode(this));
+      ManagementRegistry.registerContextTaskQueue(metricsName, queueMetrics);
+    }
   }
 
   public DeploymentHandle getDeploymentHandle() {
@@ -132,7 +158,7 @@ public abstract class DefaultContext implements Context {
 
   public void execute(EventLoop worker, Runnable handler) {
     if (isOnCorrectWorker(worker)) {
-      wrapTask(handler).run();
+      runTask(handler);
     } else {
       execute(handler);
     }
@@ -150,6 +176,13 @@ public abstract class DefaultContext implements Context {
     return eventLoop;
   }
 
+  /**
+   * @return the metrics of the tasks executed on this context
+   */
+  public TaskQueueMetrics getQueueMetrics() {
+    return queueMetrics;
+  }
+
   // This executes the task in the worker pool using the ordered executor of the context
   // It's used e.g. from BlockingActions
   protected void executeOnOrderedWorkerExec(final Runnable task) {
@@ -159,6 +192,9 @@ public abstract class DefaultContext implements Context {
   public void close() {
     unsetContext();
     closed = true;
+    if (metricsName != null) {
+      ManagementRegistry.unregisterContextTaskQueue(metricsName);
+    }
   }
 
   private void unsetContext() {
@@ -169,25 +205,70 @@ public abstract class DefaultContext implements Context {
   protected Runnable wrapTask(final Runnable task) {
     return new Runnable() {
       public void run() {
-        Thread currentThread = Thread.currentThread();
-        String threadName = currentThread.getName();
-        try {
-          vertx.setContext(DefaultContext.this);
-          task.run();
-        } catch (Throwable t) {
-          reportException(t);
-        } finally {
-          if (!threadName.equals(currentThread.getName())) {
-            currentThread.setName(threadName);
-          }
-        }
-        if (closed) {
-          // We allow tasks to be run after the context is closed but we make sure we unset the context afterwards
-          // to avoid any leaks
-          unsetContext();
-        }
+        runTask(task);
+      }
+    };
+  }
+
+  // Wraps a task which is about to be queued on the executor of the context so its time in the queue is measured
+  protected Runnable queueTask(final Runnable task) {
+    final long queuedAt = queueMetrics.taskQueued();
+    return new Runnable() {
+      public void run() {
+        queueMetrics.taskStarted(queuedAt);
+        runTask(task);
       }
     };
   }
 
+  // Runs the task on the current thread with this context set
+  protected void runTask(Runnable task) {
+    Thread currentThread = Thread.currentThread();
+    if (currentThread instanceof VertxThread && !((VertxThread) currentThread).isWorker()) {
+      runOnEventLoop((VertxThread) currentThread, task);
+      return;
+    }
+    String threadName = currentThread.getName();
+    VertxThread vertxThread = currentThread instanceof VertxThread ? (VertxThread) currentThread : null;
+    if (vertxThread != null) {
+      vertxThread.executeStart();
+    }
+    try {
+      vertx.setContext(this);
+      task.run();
+    } catch (Throwable t) {
+      reportException(t);
+    } finally {
+      if (!threadName.equals(currentThread.getName())) {
+        currentThread.setName(threadName);
+      }
+      if (vertxThread != null) {
+        vertxThread.executeEnd();
+      }
+    }
+    if (closed) {
+      // We allow tasks to be run after the context is closed but we make sure we unset the context afterwards
+      // to avoid any leaks
+      unsetContext();
+    }
+  }
+
+  // The lean path for event loop threads: the context is set as a field of the thread, the TCCL is only switched
+  // when it differs, and we don't check for the task renaming the thread as that costs a String per call
+  private void runOnEventLoop(VertxThread thread, Runnable task) {
+    thread.executeStart();
+    try {
+      thread.setContext(this);
+      setTCCL(thread);
+      task.run();
+    } catch (Throwable t) {
+      reportException(t);
+    } finally {
+      thread.executeEnd();
+    }
+    if (closed) {
+      unsetContext();
+    }
+  }
+
 }
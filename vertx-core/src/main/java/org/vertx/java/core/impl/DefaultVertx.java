@@ -18,6 +18,7 @@ package org.vertx.java.core.impl;
 
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.MultithreadEventExecutorGroup;
 import org.vertx.java.core.*;
 import org.vertx.java.core.dns.DnsClient;
 import org.vertx.java.core.dns.impl.DefaultDnsClient;
@@ -30,6 +31,7 @@ import org.vertx.java.core.http.HttpClient;
 import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.impl.DefaultHttpClient;
 import org.vertx.java.core.http.impl.DefaultHttpServer;
+import org.vertx.java.core.impl.management.ManagementRegistry;
 import org.vertx.java.core.logging.Logger;
 import org.vertx.java.core.logging.impl.LoggerFactory;
 import org.vertx.java.core.net.NetClient;
@@ -41,11 +43,16 @@ import org.vertx.java.core.shareddata.SharedData;
 import org.vertx.java.core.sockjs.SockJSServer;
 import org.vertx.java.core.sockjs.impl.DefaultSockJSServer;
 import org.vertx.java.core.spi.Action;
+import org.vertx.java.core.spi.Cancellable;
 import org.vertx.java.core.spi.cluster.ClusterManager;
 import org.vertx.java.core.spi.cluster.ClusterManagerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.*;
@@ -68,9 +75,12 @@ public class DefaultVertx implements VertxInternal {
   private final EventBus eventBus;
   private final SharedData sharedData = new SharedData();
 
-  private ExecutorService backgroundPool = VertxExecutorFactory.workerPool("vert.x-worker-thread-");
+  private final BlockedThreadChecker checker = new BlockedThreadChecker();
+  private ExecutorService backgroundPool = VertxExecutorFactory.workerPool("vert.x-worker-thread-", checker);
   private final OrderedExecutorFactory orderedFact = new OrderedExecutorFactory(backgroundPool);
-  private EventLoopGroup eventLoopGroup = VertxExecutorFactory.eventLoopGroup("vert.x-eventloop-thread-");
+  private EventLoopGroup eventLoopGroup = VertxExecutorFactory.eventLoopGroup("vert.x-eventloop-thread-", checker);
+  private final EventLoop[] eventLoops = eventLoops(eventLoopGroup);
+  private final Map<EventLoop, TaskQueueMetrics> eventLoopMetrics = eventLoopMetrics(eventLoops);
 
   private Map<ServerID, DefaultHttpServer> sharedHttpServers = new HashMap<>();
   private Map<ServerID, DefaultNetServer> sharedNetServers = new HashMap<>();
@@ -171,6 +181,13 @@ public class DefaultVertx implements VertxInternal {
     return context;
   }
 
+  public DefaultContext startOnEventLoop(final Runnable runnable, int eventLoop) {
+    DefaultContext context = new EventLoopContext(this, orderedFact.getExecutor(),
+                                                  eventLoops[Math.abs(eventLoop % eventLoops.length)]);
+    context.execute(runnable);
+    return context;
+  }
+
   public DefaultContext startInBackground(final Runnable runnable, final boolean multiThreaded) {
     DefaultContext context  = createWorkerContext(multiThreaded);
     context.execute(runnable);
@@ -219,6 +236,22 @@ public class DefaultVertx implements VertxInternal {
     return eventLoopGroup;
   }
 
+  public BlockedThreadChecker blockedThreadChecker() {
+    return checker;
+  }
+
+  public TaskQueueMetrics eventLoopMetrics(EventLoop eventLoop) {
+    return eventLoopMetrics.get(eventLoop);
+  }
+
+  public List<TaskQueueMetrics> eventLoopMetrics() {
+    List<TaskQueueMetrics> list = new ArrayList<>(eventLoops.length);
+    for (EventLoop eventLoop: eventLoops) {
+      list.add(eventLoopMetrics.get(eventLoop));
+    }
+    return list;
+  }
+
   public DefaultContext getOrCreateContext() {
     DefaultContext ctx = getContext();
     if (ctx == null) {
@@ -297,6 +330,27 @@ public class DefaultVertx implements VertxInternal {
     return timerId;
   }
 
+  private static EventLoop[] eventLoops(EventLoopGroup group) {
+    // next() hands out the event loops round robin in the order they were created, so event loop i is the one
+    // running on thread i of the group. This must be done before any context is created, so a full round leaves
+    // the round robin where it started
+    EventLoop[] loops = new EventLoop[((MultithreadEventExecutorGroup) group).executorCount()];
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = group.next();
+    }
+    return loops;
+  }
+
+  private static Map<EventLoop, TaskQueueMetrics> eventLoopMetrics(EventLoop[] eventLoops) {
+    Map<EventLoop, TaskQueueMetrics> map = new IdentityHashMap<>();
+    for (int i = 0; i < eventLoops.length; i++) {
+      TaskQueueMetrics metrics = new TaskQueueMetrics();
+      map.put(eventLoops[i], metrics);
+      ManagementRegistry.registerEventLoopTaskQueue(i, metrics);
+    }
+    return map;
+  }
+
   private DefaultContext createWorkerContext(boolean multiThreaded) {
     if (multiThreaded) {
       return new MultiThreadedWorkerContext(this, orderedFact.getExecutor(), backgroundPool);
@@ -306,13 +360,22 @@ public class DefaultVertx implements VertxInternal {
   }
 
   public void setContext(DefaultContext context) {
-    contextTL.set(context);
+    Thread thread = Thread.currentThread();
+    if (thread instanceof VertxThread) {
+      ((VertxThread) thread).setContext(context);
+    } else {
+      contextTL.set(context);
+    }
     if (context != null) {
-      context.setTCCL();
+      context.setTCCL(thread);
     }
   }
 
   public DefaultContext getContext() {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof VertxThread) {
+      return ((VertxThread) thread).getContext();
+    }
     return contextTL.get();
   }
 
@@ -351,33 +414,39 @@ public class DefaultVertx implements VertxInternal {
 
     eventBus.close(null);
 
+    checker.close();
+
     setContext(null);
   }
 
   @Override
   public <T> void executeBlocking(final Action<T> action, final Handler<AsyncResult<T>> resultHandler) {
-    final DefaultContext context = getOrCreateContext();
+    executeBlocking(action, true, resultHandler);
+  }
 
-    Runnable runner = new Runnable() {
-      public void run() {
-        final DefaultFutureResult<T> res = new DefaultFutureResult<>();
-        try {
-          T result = action.perform();
-          res.setResult(result);
-        } catch (Exception e) {
-          res.setFailure(e);
-        }
-        if (resultHandler != null) {
-          context.execute(new Runnable() {
-              public void run() {
-                res.setHandler(resultHandler);
-              }
-            });
+  @Override
+  public <T> Cancellable executeBlocking(Action<T> action, boolean ordered, final Handler<AsyncResult<T>> resultHandler) {
+    Handler<AsyncResult<List<T>>> listHandler = null;
+    if (resultHandler != null) {
+      listHandler = new Handler<AsyncResult<List<T>>>() {
+        public void handle(AsyncResult<List<T>> res) {
+          if (res.succeeded()) {
+            resultHandler.handle(new DefaultFutureResult<>(res.result().get(0)));
+          } else {
+            resultHandler.handle(new DefaultFutureResult<T>(res.cause()));
+          }
         }
-      }
-    };
+      };
+    }
+    return executeBlocking(Collections.singletonList(action), ordered, listHandler);
+  }
 
-    context.executeOnOrderedWorkerExec(runner);
+  @Override
+  public <T> Cancellable executeBlocking(List<? extends Action<T>> actions, boolean ordered,
+                                         Handler<AsyncResult<List<T>>> resultHandler) {
+    BlockingExecution<T> execution = new BlockingExecution<>(getOrCreateContext(), actions, resultHandler);
+    execution.start(ordered, backgroundPool);
+    return execution;
   }
 
   public ClusterManager clusterManager() {
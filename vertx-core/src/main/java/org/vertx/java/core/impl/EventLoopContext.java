@@ -30,11 +30,15 @@ public class EventLoopContext extends DefaultContext {
   private static final Logger log = LoggerFactory.getLogger(EventLoopContext.class);
 
   public EventLoopContext(VertxInternal vertx, Executor bgExec) {
-    super(vertx, bgExec);
+    this(vertx, bgExec, nextEventLoop(vertx));
+  }
+
+  public EventLoopContext(VertxInternal vertx, Executor bgExec, EventLoop eventLoop) {
+    super(vertx, bgExec, eventLoop, vertx.eventLoopMetrics(eventLoop));
   }
 
   public void execute(Runnable task) {
-    getEventLoop().execute(wrapTask(task));
+    getEventLoop().execute(queueTask(task));
   }
 
   public boolean isOnCorrectWorker(EventLoop worker) {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cheap, fixed size histogram of durations.<p>
+ * Bucket {@code i} counts the durations which took less than {@code 2^i} microseconds (and at least
+ * {@code 2^(i-1)}), so recording a value is a couple of shifts and a few atomic updates. It can be written and read
+ * from any thread: the histogram of an event loop thread has a single writer, but the queue latency of a
+ * multi-threaded worker context is recorded by several threads of the background pool at once.
+ */
+public class LatencyHistogram {
+
+  public static final int BUCKETS = 32;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  public void record(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    int bucket = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    counts.incrementAndGet(bucket);
+    totalNanos.addAndGet(nanos);
+    for (;;) {
+      long max = maxNanos.get();
+      if (nanos <= max || maxNanos.compareAndSet(max, nanos)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Add the bucket counts of this histogram to {@code dest}, which must have {@link #BUCKETS} entries
+   */
+  public void addTo(long[] dest) {
+    for (int i = 0; i < BUCKETS; i++) {
+      dest[i] += counts.get(i);
+    }
+  }
+
+  public long[] counts() {
+    long[] res = new long[BUCKETS];
+    addTo(res);
+    return res;
+  }
+
+  public long count() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long maxNanos() {
+    return maxNanos.get();
+  }
+
+  public long totalNanos() {
+    return totalNanos.get();
+  }
+
+  /**
+   * @return the exclusive upper bound in microseconds of the durations counted in bucket {@code i}
+   */
+  public static long bucketUpperBoundMicros(int bucket) {
+    return 1L << bucket;
+  }
+}
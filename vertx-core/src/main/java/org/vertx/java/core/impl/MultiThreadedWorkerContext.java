@@ -29,6 +29,6 @@ public class MultiThreadedWorkerContext extends WorkerContext {
   }
 
   public void execute(Runnable task) {
-    bgExec.execute(wrapTask(task));
+    bgExec.execute(queueTask(task));
   }
 }
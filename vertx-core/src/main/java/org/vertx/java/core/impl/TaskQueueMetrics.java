@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the tasks handed to a context or an event loop: how many are waiting to run, how long they waited
+ * between being queued and starting to run, and how many have been run.<p>
+ * The metrics of a context can have a parent, the metrics of its event loop, which is updated with the same
+ * values so the contexts sharing an event loop add up.<p>
+ * The queue latency totals are only exact when the tasks run one at a time, which is the case for everything
+ * but multi-threaded worker contexts.
+ */
+public class TaskQueueMetrics {
+
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final TaskQueueMetrics parent;
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicLong executed = new AtomicLong();
+  private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+  // The rate is computed by the readers from the executed count so the task path only pays for the counter
+  private long sampleTime = System.nanoTime();
+  private long sampleCount;
+  private boolean sampled;
+  private double rate;
+
+  public TaskQueueMetrics() {
+    this(null);
+  }
+
+  public TaskQueueMetrics(TaskQueueMetrics parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Must be called when a task is queued.
+   *
+   * @return the time the task was queued, to pass to {@link #taskStarted} when it runs
+   */
+  public long taskQueued() {
+    queueDepth.incrementAndGet();
+    if (parent != null) {
+      parent.queueDepth.incrementAndGet();
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Must be called when a task queued at {@code queuedAt} starts to run.
+   */
+  public void taskStarted(long queuedAt) {
+    long latency = System.nanoTime() - queuedAt;
+    started(latency);
+    if (parent != null) {
+      parent.started(latency);
+    }
+  }
+
+  private void started(long latency) {
+    queueDepth.decrementAndGet();
+    executed.incrementAndGet();
+    queueLatency.record(latency);
+  }
+
+  /**
+   * @return the number of tasks queued and not started yet
+   */
+  public int queueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * @return the number of queued tasks which have been run so far
+   */
+  public long executedTasks() {
+    return executed.get();
+  }
+
+  /**
+   * @return the time the tasks spent in the queue before running
+   */
+  public LatencyHistogram queueLatency() {
+    return queueLatency;
+  }
+
+  /**
+   * @return the number of tasks run per second, measured between the calls to this method which are at least
+   * a second apart, or since the metrics were created for the first call
+   */
+  public synchronized double tasksPerSecond() {
+    long now = System.nanoTime();
+    long elapsed = now - sampleTime;
+    boolean fullWindow = elapsed >= ONE_SECOND;
+    if (fullWindow || !sampled) {
+      long count = executed.get();
+      rate = (count - sampleCount) * (double) ONE_SECOND / Math.max(elapsed, 1);
+      if (fullWindow) {
+        sampleTime = now;
+        sampleCount = count;
+        sampled = true;
+      }
+    }
+    return rate;
+  }
+}
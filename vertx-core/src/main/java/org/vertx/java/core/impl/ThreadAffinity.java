@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+import org.vertx.java.core.spi.ThreadAffinityProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CPUs the threads of a pool are bound to. Thread {@code n} of the pool is bound to the CPU
+ * {@code cpus[n % cpus.length]}.
+ */
+public class ThreadAffinity {
+
+  private static final Logger log = LoggerFactory.getLogger(ThreadAffinity.class);
+
+  private static final ThreadAffinityProvider NOOP_PROVIDER = new ThreadAffinityProvider() {
+    public void bindCurrentThread(int cpu) {
+    }
+  };
+
+  private final ThreadAffinityProvider provider;
+  private final int[] cpus;
+
+  public ThreadAffinity(ThreadAffinityProvider provider, int[] cpus) {
+    if (cpus.length == 0) {
+      throw new IllegalArgumentException("No CPUs");
+    }
+    this.provider = provider;
+    this.cpus = cpus;
+  }
+
+  /**
+   * Create the affinity for a pool from the CPU list in the given system property
+   *
+   * @return the affinity, or null if the property isn't set
+   */
+  public static ThreadAffinity fromSystemProperty(String cpusProperty) {
+    String cpus = System.getProperty(cpusProperty);
+    if (cpus == null) {
+      return null;
+    }
+    return new ThreadAffinity(loadProvider(cpusProperty), parseCpus(cpus));
+  }
+
+  public void bindCurrentThread(int threadIndex) {
+    provider.bindCurrentThread(cpus[threadIndex % cpus.length]);
+  }
+
+  /**
+   * Parse a CPU list such as {@code 0-3,6,8}
+   */
+  public static int[] parseCpus(String str) {
+    List<Integer> cpus = new ArrayList<>();
+    for (String part: str.split(",")) {
+      part = part.trim();
+      if (part.isEmpty()) {
+        continue;
+      }
+      try {
+        int dash = part.indexOf('-');
+        if (dash == -1) {
+          cpus.add(Integer.parseInt(part));
+        } else {
+          int from = Integer.parseInt(part.substring(0, dash).trim());
+          int to = Integer.parseInt(part.substring(dash + 1).trim());
+          for (int cpu = from; cpu <= to; cpu++) {
+            cpus.add(cpu);
+          }
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid CPU list " + str);
+      }
+    }
+    int[] res = new int[cpus.size()];
+    for (int i = 0; i < res.length; i++) {
+      res[i] = cpus.get(i);
+    }
+    return res;
+  }
+
+  private static ThreadAffinityProvider loadProvider(String cpusProperty) {
+    String className = System.getProperty("vertx.threadAffinityProvider");
+    if (className == null) {
+      log.warn(cpusProperty + " is set but no vertx.threadAffinityProvider is set so threads won't be bound");
+      return NOOP_PROVIDER;
+    }
+    try {
+      Class<?> clazz = Class.forName(className);
+      return (ThreadAffinityProvider) clazz.newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to instantiate " + className, e);
+    }
+  }
+}
@@ -40,8 +40,13 @@ public class VertxExecutorFactory {
 
   // The worker pool needs to be fixed with a backing queue
   public static ExecutorService workerPool(String poolName) {
+    return workerPool(poolName, null);
+  }
+
+  public static ExecutorService workerPool(String poolName, BlockedThreadChecker checker) {
     int maxSize = Integer.getInteger("vertx.pool.worker.size", WORKER_POOL_MAX_SIZE);
-    ExecutorService exec = Executors.newFixedThreadPool(maxSize, new VertxThreadFactory(poolName));
+    ExecutorService exec = Executors.newFixedThreadPool(maxSize, new VertxThreadFactory(poolName, checker, true,
+        ThreadAffinity.fromSystemProperty("vertx.affinity.worker")));
     ManagementRegistry.registerThreadPool("Worker", exec);
     return exec;
   }
@@ -49,7 +54,12 @@ public class VertxExecutorFactory {
   // The acceptor pools need to be fixed with a backing queue
 
   public static EventLoopGroup eventLoopGroup(String poolName) {
+    return eventLoopGroup(poolName, null);
+  }
+
+  public static EventLoopGroup eventLoopGroup(String poolName, BlockedThreadChecker checker) {
     int poolSize = Integer.getInteger("vertx.pool.eventloop.size", Runtime.getRuntime().availableProcessors());
-    return new NioEventLoopGroup(poolSize, new VertxThreadFactory(poolName));
+    return new NioEventLoopGroup(poolSize, new VertxThreadFactory(poolName, checker, false,
+        ThreadAffinity.fromSystemProperty("vertx.affinity.eventloop")));
   }
 }
@@ -17,12 +17,14 @@
 package org.vertx.java.core.impl;
 
 
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import org.vertx.java.core.http.impl.DefaultHttpServer;
 import org.vertx.java.core.net.impl.DefaultNetServer;
 import org.vertx.java.core.net.impl.ServerID;
 import org.vertx.java.core.spi.VertxSPI;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
@@ -41,8 +43,26 @@ public interface VertxInternal extends VertxSPI {
 
   DefaultContext startOnEventLoop(Runnable runnable);
 
+  /**
+   * Start the runnable on a new context bound to a specific event loop
+   *
+   * @param eventLoop the index of the event loop, modulo the number of event loops
+   */
+  DefaultContext startOnEventLoop(Runnable runnable, int eventLoop);
+
   DefaultContext startInBackground(Runnable runnable, boolean multiThreaded);
 
+  /**
+   * @return the metrics of the tasks queued on the event loop, or null if it isn't one of the event loops of
+   * this instance
+   */
+  TaskQueueMetrics eventLoopMetrics(EventLoop eventLoop);
+
+  /**
+   * @return the metrics of the tasks queued on each event loop, in the order of the event loops
+   */
+  List<TaskQueueMetrics> eventLoopMetrics();
+
   DefaultContext getOrCreateContext();
 
   void reportException(Throwable t);
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.impl;
+
+/**
+ * The threads created by vert.x for the event loops and the worker pool.<p>
+ * They carry the current vert.x context as a field, so looking it up doesn't need a ThreadLocal, and they record
+ * when the task currently running on them started so the {@link BlockedThreadChecker} can find threads which
+ * have been stuck in a single task for too long.
+ */
+public class VertxThread extends Thread {
+
+  private final boolean worker;
+  private final LatencyHistogram executionTimes = new LatencyHistogram();
+  // Only written from this thread. Other threads only read the context for reporting, so it doesn't need
+  // to be volatile
+  private DefaultContext context;
+  private int depth;
+  private volatile long execStart;
+
+  public VertxThread(Runnable target, String name, boolean worker) {
+    super(target, name);
+    this.worker = worker;
+  }
+
+  public final boolean isWorker() {
+    return worker;
+  }
+
+  public final DefaultContext getContext() {
+    return context;
+  }
+
+  public final void setContext(DefaultContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Must be called from this thread before running a task. Calls can be nested, only the outermost task is timed.
+   */
+  public final void executeStart() {
+    if (depth++ == 0) {
+      execStart = System.nanoTime();
+    }
+  }
+
+  /**
+   * Must be called from this thread when the task started with {@link #executeStart} has completed.
+   */
+  public final void executeEnd() {
+    if (--depth == 0) {
+      long start = execStart;
+      execStart = 0;
+      executionTimes.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return the {@link System#nanoTime()} when the current task started, or 0 if the thread is idle
+   */
+  public final long startTime() {
+    return execStart;
+  }
+
+  public final LatencyHistogram executionTimes() {
+    return executionTimes;
+  }
+}
@@ -26,13 +26,37 @@ public class VertxThreadFactory implements ThreadFactory {
 
   private final String prefix;
   private final AtomicInteger threadCount = new AtomicInteger(0);
+  private final BlockedThreadChecker checker;
+  private final boolean worker;
+  private final ThreadAffinity affinity;
 
   VertxThreadFactory(String prefix) {
+    this(prefix, null, false, null);
+  }
+
+  VertxThreadFactory(String prefix, BlockedThreadChecker checker, boolean worker, ThreadAffinity affinity) {
     this.prefix = prefix;
+    this.checker = checker;
+    this.worker = worker;
+    this.affinity = affinity;
   }
 
-  public Thread newThread(Runnable runnable) {
-    Thread t = new Thread(runnable, prefix + threadCount.getAndIncrement());
+  public Thread newThread(final Runnable runnable) {
+    final int index = threadCount.getAndIncrement();
+    Runnable target = runnable;
+    if (affinity != null) {
+      // Affinity can only be set from the thread itself
+      target = new Runnable() {
+        public void run() {
+          affinity.bindCurrentThread(index);
+          runnable.run();
+        }
+      };
+    }
+    VertxThread t = new VertxThread(target, prefix + index, worker);
+    if (checker != null) {
+      checker.registerThread(t);
+    }
     // All vert.x threads are daemons
     t.setDaemon(true);
     return t;
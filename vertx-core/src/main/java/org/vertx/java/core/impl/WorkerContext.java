@@ -30,7 +30,7 @@ public class WorkerContext extends DefaultContext {
   }
 
   public void execute(Runnable task) {
-    executeOnOrderedWorkerExec(wrapTask(task));
+    orderedBgExec.execute(queueTask(task));
   }
 
   public boolean isOnCorrectWorker(EventLoop worker) {
@@ -15,6 +15,8 @@
  */
 package org.vertx.java.core.impl.management;
 
+import org.vertx.java.core.impl.BlockedThreadChecker;
+import org.vertx.java.core.impl.TaskQueueMetrics;
 import org.vertx.java.core.net.impl.ServerID;
 
 import javax.management.*;
@@ -71,4 +73,62 @@ public class ManagementRegistry {
     }
   }
 
+  public static void registerTaskExecution(BlockedThreadChecker checker) {
+    if (!MANAGEMENT_ENABLED) return;
+
+    try {
+      ObjectName name = ObjectName.getInstance(DOMAIN, "Name", "TaskExecution");
+      if (!platformMBeanServer.isRegistered(name)) {
+        TaskExecutionMXBean taskExecutionMXBean = new TaskExecutionMXBeanImpl(checker);
+        platformMBeanServer.registerMBean(taskExecutionMXBean, name);
+      }
+    } catch (MalformedObjectNameException | InstanceAlreadyExistsException
+        | MBeanRegistrationException | NotCompliantMBeanException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  public static void registerEventLoopTaskQueue(int index, TaskQueueMetrics metrics) {
+    registerTaskQueue("EventLoop", String.valueOf(index), metrics);
+  }
+
+  public static void registerContextTaskQueue(String name, TaskQueueMetrics metrics) {
+    registerTaskQueue("Context", name, metrics);
+  }
+
+  public static void unregisterContextTaskQueue(String name) {
+    if (!MANAGEMENT_ENABLED) return;
+
+    try {
+      ObjectName queueName = taskQueueName("Context", name);
+      if (platformMBeanServer.isRegistered(queueName)) {
+        platformMBeanServer.unregisterMBean(queueName);
+      }
+    } catch (MalformedObjectNameException | InstanceNotFoundException | MBeanRegistrationException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  private static void registerTaskQueue(String type, String name, TaskQueueMetrics metrics) {
+    if (!MANAGEMENT_ENABLED) return;
+
+    try {
+      ObjectName queueName = taskQueueName(type, name);
+      if (!platformMBeanServer.isRegistered(queueName)) {
+        TaskQueueMXBean taskQueueMXBean = new TaskQueueMXBeanImpl(metrics);
+        platformMBeanServer.registerMBean(taskQueueMXBean, queueName);
+      }
+    } catch (MalformedObjectNameException | InstanceAlreadyExistsException
+        | MBeanRegistrationException | NotCompliantMBeanException e) {
+      throw new VertxManagementException(e);
+    }
+  }
+
+  private static ObjectName taskQueueName(String type, String name) throws MalformedObjectNameException {
+    Hashtable<String, String> table = new Hashtable<>();
+    table.put("type", type + "TaskQueue");
+    table.put("name", ObjectName.quote(name));
+    return ObjectName.getInstance(DOMAIN, table);
+  }
+
 }
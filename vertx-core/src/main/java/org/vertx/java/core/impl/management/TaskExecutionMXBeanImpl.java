@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.vertx.java.core.impl.management;
+
+import org.vertx.java.core.impl.BlockedThreadChecker;
+import org.vertx.java.core.impl.LatencyHistogram;
+
+public class TaskExecutionMXBeanImpl implements TaskExecutionMXBean {
+
+  private final BlockedThreadChecker checker;
+
+  public TaskExecutionMXBeanImpl(BlockedThreadChecker checker) {
+    this.checker = checker;
+  }
+
+  @Override
+  public long[] getBucketUpperBoundsMicros() {
+    long[] bounds = new long[LatencyHistogram.BUCKETS];
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = LatencyHistogram.bucketUpperBoundMicros(i);
+    }
+    return bounds;
+  }
+
+  @Override
+  public long[] getEventLoopExecutionTimes() {
+    return checker.eventLoopExecutionTimes();
+  }
+
+  @Override
+  public long[] getWorkerExecutionTimes() {
+    return checker.workerExecutionTimes();
+  }
+
+  @Override
+  public long getBlockedThreadWarnings() {
+    return checker.blockedWarnings();
+  }
+}
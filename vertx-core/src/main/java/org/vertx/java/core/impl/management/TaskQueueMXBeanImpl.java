@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.vertx.java.core.impl.management;
+
+import org.vertx.java.core.impl.LatencyHistogram;
+import org.vertx.java.core.impl.TaskQueueMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class TaskQueueMXBeanImpl implements TaskQueueMXBean {
+
+  private final TaskQueueMetrics metrics;
+
+  public TaskQueueMXBeanImpl(TaskQueueMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return metrics.queueDepth();
+  }
+
+  @Override
+  public long getExecutedTasks() {
+    return metrics.executedTasks();
+  }
+
+  @Override
+  public double getTasksPerSecond() {
+    return metrics.tasksPerSecond();
+  }
+
+  @Override
+  public long[] getBucketUpperBoundsMicros() {
+    long[] bounds = new long[LatencyHistogram.BUCKETS];
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = LatencyHistogram.bucketUpperBoundMicros(i);
+    }
+    return bounds;
+  }
+
+  @Override
+  public long[] getQueueLatencies() {
+    return metrics.queueLatency().counts();
+  }
+
+  @Override
+  public long getMaxQueueLatencyMicros() {
+    return TimeUnit.NANOSECONDS.toMicros(metrics.queueLatency().maxNanos());
+  }
+}
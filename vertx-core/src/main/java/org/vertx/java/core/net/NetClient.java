@@ -86,6 +86,20 @@ public interface NetClient extends ClientSSLSupport<NetClient>, TCPSupport<NetCl
    */
   int getConnectTimeout();
 
+  /**
+   * Set whether the data read from the connections is passed to the data handlers of their sockets without being
+   * copied. The buffers wrap the memory the data was read into, which is given back once the data handler returns,
+   * unless {@link org.vertx.java.core.buffer.Buffer#retain()} is called. See {@link NetServer#setZeroCopyInbound}.
+   * Disabled by default.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  NetClient setZeroCopyInbound(boolean zeroCopy);
+
+  /**
+   * @return true if the data read is passed to the data handlers without being copied
+   */
+  boolean isZeroCopyInbound();
+
   /**
    * Close the client. Any sockets which have not been closed manually will be closed here.
    */
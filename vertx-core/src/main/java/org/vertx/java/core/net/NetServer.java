@@ -42,6 +42,21 @@ public interface NetServer extends ServerSSLSupport<NetServer>, ServerTCPSupport
    */
   NetServer connectHandler(Handler<NetSocket> connectHandler);
 
+  /**
+   * Set whether the data read from the connections is passed to the data handlers of their sockets without being
+   * copied. The buffers wrap the memory the data was read into, which is given back once the data handler returns,
+   * unless {@link org.vertx.java.core.buffer.Buffer#retain()} is called. This saves a copy of all the data received
+   * when the data is read into direct buffers, with the {@link org.vertx.java.core.AllocatorPolicy#POOLED} policy,
+   * which suits the servers which parse or forward the data as it arrives. Disabled by default.
+   * @return a reference to this so multiple method calls can be chained together
+   */
+  NetServer setZeroCopyInbound(boolean zeroCopy);
+
+  /**
+   * @return true if the data read is passed to the data handlers without being copied
+   */
+  boolean isZeroCopyInbound();
+
   /**
    * Tell the server to start listening on all available interfaces and port {@code port}. Be aware this is an
    * async operation and the server may not bound on return of the method.
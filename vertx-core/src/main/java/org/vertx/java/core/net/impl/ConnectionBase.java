@@ -74,6 +74,17 @@ public abstract class ConnectionBase {
     return channel.write(obj);
   }
 
+  /**
+   * Flush the writes made directly on the channel, now or at the end of the current read
+   */
+  protected void flush() {
+    if (read) {
+      needsFlush = true;
+    } else {
+      channel.flush();
+    }
+  }
+
   public ChannelFuture write(Object obj) {
     if (read) {
       return queueForWrite(obj);
@@ -176,20 +187,23 @@ public abstract class ConnectionBase {
   }
 
   protected ChannelFuture sendFile(File file) {
+    return sendFile(file, 0, file.length());
+  }
+
+  protected ChannelFuture sendFile(File file, long offset, long length) {
     final RandomAccessFile raf;
     try {
       raf = new RandomAccessFile(file, "r");
-      long fileLength = file.length();
 
       // Write the content.
       ChannelFuture writeFuture;
       if (isSSL()) {
         // Cannot use zero-copy with HTTPS.
-        writeFuture = write(new ChunkedFile(raf, 0, fileLength, 8192));
+        writeFuture = write(new ChunkedFile(raf, offset, length, 8192));
       } else {
         // No encryption - use zero-copy.
         final FileRegion region =
-            new DefaultFileRegion(raf.getChannel(), 0, fileLength);
+            new DefaultFileRegion(raf.getChannel(), offset, length);
         writeFuture = write(region);
       }
       writeFuture.addListener(new ChannelFutureListener() {
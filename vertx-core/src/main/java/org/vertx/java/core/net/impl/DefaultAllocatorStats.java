@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
+
+public class DefaultAllocatorStats implements AllocatorStats {
+
+  private final AllocatorPolicy policy;
+  private final long heapBuffers;
+  private final long heapBytes;
+  private final long directBuffers;
+  private final long directBytes;
+  private final long directMemoryUsed;
+
+  DefaultAllocatorStats(AllocatorPolicy policy, long heapBuffers, long heapBytes, long directBuffers,
+                        long directBytes, long directMemoryUsed) {
+    this.policy = policy;
+    this.heapBuffers = heapBuffers;
+    this.heapBytes = heapBytes;
+    this.directBuffers = directBuffers;
+    this.directBytes = directBytes;
+    this.directMemoryUsed = directMemoryUsed;
+  }
+
+  @Override
+  public AllocatorPolicy policy() {
+    return policy;
+  }
+
+  @Override
+  public long heapBuffers() {
+    return heapBuffers;
+  }
+
+  @Override
+  public long heapBytes() {
+    return heapBytes;
+  }
+
+  @Override
+  public long directBuffers() {
+    return directBuffers;
+  }
+
+  @Override
+  public long directBytes() {
+    return directBytes;
+  }
+
+  @Override
+  public long directMemoryUsed() {
+    return directMemoryUsed;
+  }
+
+  @Override
+  public String toString() {
+    return "AllocatorStats[policy=" + policy + ", heapBuffers=" + heapBuffers + ", heapBytes=" + heapBytes +
+        ", directBuffers=" + directBuffers + ", directBytes=" + directBytes + ", directMemoryUsed=" +
+        directMemoryUsed + "]";
+  }
+}
@@ -23,6 +23,8 @@ import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.impl.*;
@@ -52,6 +54,7 @@ public class DefaultNetClient implements NetClient {
   private int reconnectAttempts;
   private long reconnectInterval = 1000;
   private boolean configurable = true;
+  private boolean zeroCopyInbound;
   private final Closeable closeHook = new Closeable() {
     @Override
     public void close(Handler<AsyncResult<Void>> doneHandler) {
@@ -212,6 +215,18 @@ public class DefaultNetClient implements NetClient {
     return this;
   }
 
+  @Override
+  public NetClient setZeroCopyInbound(boolean zeroCopy) {
+    checkConfigurable();
+    this.zeroCopyInbound = zeroCopy;
+    return this;
+  }
+
+  @Override
+  public boolean isZeroCopyInbound() {
+    return zeroCopyInbound;
+  }
+
   @Override
   public boolean isSSL() {
     return tcpHelper.isSSL();
@@ -296,6 +311,35 @@ public class DefaultNetClient implements NetClient {
     return tcpHelper.isUsePooledBuffers();
   }
 
+  @Override
+  public NetClient setAllocatorPolicy(AllocatorPolicy policy) {
+    checkConfigurable();
+    tcpHelper.setAllocatorPolicy(policy);
+    return this;
+  }
+
+  @Override
+  public AllocatorPolicy getAllocatorPolicy() {
+    return tcpHelper.getAllocatorPolicy();
+  }
+
+  @Override
+  public NetClient setAdaptiveReceiveSizing(boolean adaptive) {
+    checkConfigurable();
+    tcpHelper.setAdaptiveReceiveSizing(adaptive);
+    return this;
+  }
+
+  @Override
+  public boolean isAdaptiveReceiveSizing() {
+    return tcpHelper.isAdaptiveReceiveSizing();
+  }
+
+  @Override
+  public AllocatorStats getAllocatorStats() {
+    return tcpHelper.getAllocatorStats();
+  }
+
   private void checkConfigurable() {
     if (!configurable) {
       throw new IllegalStateException("Can't set property after connect has been called");
@@ -325,7 +369,7 @@ public class DefaultNetClient implements NetClient {
             // only add ChunkedWriteHandler when SSL is enabled otherwise it is not needed as FileRegion is used.
             pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());       // For large file / sendfile support
           }
-          pipeline.addLast("handler", new VertxNetHandler(vertx, socketMap));
+          pipeline.addLast("handler", new VertxNetHandler(vertx, socketMap, zeroCopyInbound));
         }
       });
       configurable = false;
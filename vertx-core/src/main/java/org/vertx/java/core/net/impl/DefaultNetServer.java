@@ -29,6 +29,8 @@ import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.VoidHandler;
@@ -60,6 +62,7 @@ public class DefaultNetServer implements NetServer, Closeable {
 
   private ChannelGroup serverChannelGroup;
   private boolean listening;
+  private boolean zeroCopyInbound;
   private ServerID id;
   private DefaultNetServer actualServer;
   private final VertxEventLoopGroup availableWorkers = new VertxEventLoopGroup();
@@ -122,6 +125,7 @@ public class DefaultNetServer implements NetServer, Closeable {
           protected void initChannel(Channel ch) throws Exception {
             ChannelPipeline pipeline = ch.pipeline();
             pipeline.addLast("exceptionDispatcher", EXCEPTION_DISPATCH_HANDLER);
+            tcpHelper.applyIdleTimeouts(pipeline);
             if (tcpHelper.isSSL()) {
               SSLEngine engine = tcpHelper.getSSLContext().createSSLEngine();
               engine.setUseClientMode(false);
@@ -373,6 +377,42 @@ public class DefaultNetServer implements NetServer, Closeable {
     return this;
   }
 
+  @Override
+  public NetServer setReadIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setReadIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getReadIdleTimeout() {
+    return tcpHelper.getReadIdleTimeout();
+  }
+
+  @Override
+  public NetServer setWriteIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setWriteIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getWriteIdleTimeout() {
+    return tcpHelper.getWriteIdleTimeout();
+  }
+
+  @Override
+  public NetServer setIdleTimeout(long timeout) {
+    checkListening();
+    tcpHelper.setIdleTimeout(timeout);
+    return this;
+  }
+
+  @Override
+  public long getIdleTimeout() {
+    return tcpHelper.getIdleTimeout();
+  }
+
   @Override
   public boolean isSSL() {
     return tcpHelper.isSSL();
@@ -457,6 +497,47 @@ public class DefaultNetServer implements NetServer, Closeable {
     return tcpHelper.isUsePooledBuffers();
   }
 
+  @Override
+  public NetServer setAllocatorPolicy(AllocatorPolicy policy) {
+    checkListening();
+    tcpHelper.setAllocatorPolicy(policy);
+    return this;
+  }
+
+  @Override
+  public AllocatorPolicy getAllocatorPolicy() {
+    return tcpHelper.getAllocatorPolicy();
+  }
+
+  @Override
+  public NetServer setAdaptiveReceiveSizing(boolean adaptive) {
+    checkListening();
+    tcpHelper.setAdaptiveReceiveSizing(adaptive);
+    return this;
+  }
+
+  @Override
+  public boolean isAdaptiveReceiveSizing() {
+    return tcpHelper.isAdaptiveReceiveSizing();
+  }
+
+  @Override
+  public AllocatorStats getAllocatorStats() {
+    return tcpHelper.getAllocatorStats();
+  }
+
+  @Override
+  public NetServer setZeroCopyInbound(boolean zeroCopy) {
+    checkListening();
+    this.zeroCopyInbound = zeroCopy;
+    return this;
+  }
+
+  @Override
+  public boolean isZeroCopyInbound() {
+    return zeroCopyInbound;
+  }
+
   private void actualClose(final DefaultContext closeContext, final Handler<AsyncResult<Void>> done) {
     if (id != null) {
       vertx.sharedNetServers().remove(id);
@@ -502,7 +583,7 @@ public class DefaultNetServer implements NetServer, Closeable {
 
   private class ServerHandler extends VertxNetHandler {
     public ServerHandler() {
-      super(DefaultNetServer.this.vertx, socketMap);
+      super(DefaultNetServer.this.vertx, socketMap, zeroCopyInbound);
     }
 
     @Override
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes a connection as soon as it has been idle for longer than one of its timeouts. The idle state is tracked by
+ * Netty with tasks scheduled on the event loop of the connection, so an idle connection doesn't cost a vert.x timer.
+ */
+class IdleTimeoutHandler extends IdleStateHandler {
+
+  IdleTimeoutHandler(long readIdleTimeout, long writeIdleTimeout, long idleTimeout) {
+    super(readIdleTimeout, writeIdleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
+    ctx.close();
+  }
+}
@@ -18,8 +18,13 @@ package org.vertx.java.core.net.impl;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
 import org.vertx.java.core.file.impl.PathAdjuster;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.logging.Logger;
@@ -43,6 +48,10 @@ import java.security.cert.X509Certificate;
 public class TCPSSLHelper {
 
   private static final Logger log = LoggerFactory.getLogger(TCPSSLHelper.class);
+  // The bounds of the adaptive receive sizing, the maximum is the receive buffer size when it's set
+  private static final int MIN_RECEIVE_SIZE = 64;
+  private static final int INITIAL_RECEIVE_SIZE = 1024;
+  private static final int MAX_RECEIVE_SIZE = 65536;
 
   private boolean ssl;
   private boolean verifyHost = true;
@@ -63,8 +72,12 @@ public class TCPSSLHelper {
   private int soLinger = defaults.getSoLinger();
   private int trafficClass = -1;
   private int acceptBackLog = 1024;
+  private long readIdleTimeout;
+  private long writeIdleTimeout;
+  private long idleTimeout;
   private int connectTimeout = 60000;
-  private boolean usePooledBuffers;
+  private AllocatorPolicy allocatorPolicy = AllocatorPolicy.PARTIAL_POOLED;
+  private boolean adaptiveReceiveSizing;
 
   private SSLContext sslContext;
 
@@ -88,14 +101,17 @@ public class TCPSSLHelper {
     }
     if (tcpReceiveBufferSize != -1) {
       bootstrap.childOption(ChannelOption.SO_RCVBUF, tcpReceiveBufferSize);
-      bootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(tcpReceiveBufferSize));
+    }
+    RecvByteBufAllocator receiveAllocator = receiveAllocator();
+    if (receiveAllocator != null) {
+      bootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, receiveAllocator);
     }
 
     bootstrap.option(ChannelOption.SO_LINGER, soLinger);
     if (trafficClass != -1) {
       bootstrap.childOption(ChannelOption.IP_TOS, trafficClass);
     }
-    bootstrap.childOption(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
+    bootstrap.childOption(ChannelOption.ALLOCATOR, VertxByteBufAllocator.forPolicy(allocatorPolicy));
 
     bootstrap.childOption(ChannelOption.SO_KEEPALIVE, tcpKeepAlive);
     bootstrap.option(ChannelOption.SO_REUSEADDR, reuseAddress);
@@ -109,17 +125,34 @@ public class TCPSSLHelper {
     }
     if (tcpReceiveBufferSize != -1) {
       bootstrap.option(ChannelOption.SO_RCVBUF, tcpReceiveBufferSize);
-      bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(tcpReceiveBufferSize));
+    }
+    RecvByteBufAllocator receiveAllocator = receiveAllocator();
+    if (receiveAllocator != null) {
+      bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, receiveAllocator);
     }
     bootstrap.option(ChannelOption.SO_LINGER, soLinger);
     if (trafficClass != -1) {
       bootstrap.option(ChannelOption.IP_TOS, trafficClass);
     }
     bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
-    bootstrap.option(ChannelOption.ALLOCATOR, PartialPooledByteBufAllocator.INSTANCE);
+    bootstrap.option(ChannelOption.ALLOCATOR, VertxByteBufAllocator.forPolicy(allocatorPolicy));
     bootstrap.option(ChannelOption.SO_KEEPALIVE, tcpKeepAlive);
   }
 
+  /**
+   * @return the allocator of the buffers the data is read into, or null for the default one of Netty, which adapts
+   * to the amount of data read up to 64 KB
+   */
+  private RecvByteBufAllocator receiveAllocator() {
+    if (adaptiveReceiveSizing) {
+      int max = tcpReceiveBufferSize != -1 ? tcpReceiveBufferSize : MAX_RECEIVE_SIZE;
+      return new AdaptiveRecvByteBufAllocator(Math.min(MIN_RECEIVE_SIZE, max), Math.min(INITIAL_RECEIVE_SIZE, max), max);
+    } else if (tcpReceiveBufferSize != -1) {
+      return new FixedRecvByteBufAllocator(tcpReceiveBufferSize);
+    }
+    return null;
+  }
+
   public boolean isTCPNoDelay() {
     return tcpNoDelay;
   }
@@ -272,12 +305,77 @@ public class TCPSSLHelper {
     this.acceptBackLog = acceptBackLog;
   }
 
+  public long getReadIdleTimeout() {
+    return readIdleTimeout;
+  }
+
+  public void setReadIdleTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.readIdleTimeout = timeout;
+  }
+
+  public long getWriteIdleTimeout() {
+    return writeIdleTimeout;
+  }
+
+  public void setWriteIdleTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.writeIdleTimeout = timeout;
+  }
+
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public void setIdleTimeout(long timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout must be >= 0");
+    }
+    this.idleTimeout = timeout;
+  }
+
+  /**
+   * Add a handler which closes the connections which stay idle for longer than the idle timeouts, if any is set
+   */
+  public void applyIdleTimeouts(ChannelPipeline pipeline) {
+    if (readIdleTimeout > 0 || writeIdleTimeout > 0 || idleTimeout > 0) {
+      pipeline.addLast("idleTimeout", new IdleTimeoutHandler(readIdleTimeout, writeIdleTimeout, idleTimeout));
+    }
+  }
+
   public void setUsePooledBuffers(boolean usePooledBuffers) {
-    this.usePooledBuffers = usePooledBuffers;
+    this.allocatorPolicy = usePooledBuffers ? AllocatorPolicy.POOLED : AllocatorPolicy.PARTIAL_POOLED;
   }
 
   public boolean isUsePooledBuffers() {
-    return usePooledBuffers;
+    return allocatorPolicy == AllocatorPolicy.POOLED;
+  }
+
+  public AllocatorPolicy getAllocatorPolicy() {
+    return allocatorPolicy;
+  }
+
+  public void setAllocatorPolicy(AllocatorPolicy policy) {
+    if (policy == null) {
+      throw new NullPointerException("policy must not be null");
+    }
+    this.allocatorPolicy = policy;
+  }
+
+  public boolean isAdaptiveReceiveSizing() {
+    return adaptiveReceiveSizing;
+  }
+
+  public void setAdaptiveReceiveSizing(boolean adaptive) {
+    this.adaptiveReceiveSizing = adaptive;
+  }
+
+  public AllocatorStats getAllocatorStats() {
+    return VertxByteBufAllocator.forPolicy(allocatorPolicy).stats();
   }
 
   /*
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.core.net.impl;
+
+import io.netty.buffer.*;
+import org.vertx.java.core.AllocatorPolicy;
+import org.vertx.java.core.AllocatorStats;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link ByteBufAllocator} of an {@link AllocatorPolicy}, which counts the buffers it allocates.<p>
+ * The heap buffers are never pooled whatever the policy, as the heap buffers holding the data read end up in
+ * {@link org.vertx.java.core.buffer.Buffer}s which are never released.
+ */
+public class VertxByteBufAllocator implements ByteBufAllocator {
+
+  private static final ByteBufAllocator UNPOOLED_HEAP = new UnpooledByteBufAllocator(false);
+  private static final VertxByteBufAllocator PARTIAL_POOLED =
+      new VertxByteBufAllocator(AllocatorPolicy.PARTIAL_POOLED, PartialPooledByteBufAllocator.INSTANCE, false);
+  private static final VertxByteBufAllocator POOLED =
+      new VertxByteBufAllocator(AllocatorPolicy.POOLED, new PooledByteBufAllocator(true), true);
+  private static final VertxByteBufAllocator HEAP =
+      new VertxByteBufAllocator(AllocatorPolicy.HEAP, new UnpooledByteBufAllocator(false), false);
+
+  private final AllocatorPolicy policy;
+  private final ByteBufAllocator direct;
+  private final boolean ioDirect;
+  private final AtomicLong heapBuffers = new AtomicLong();
+  private final AtomicLong heapBytes = new AtomicLong();
+  private final AtomicLong directBuffers = new AtomicLong();
+  private final AtomicLong directBytes = new AtomicLong();
+
+  private VertxByteBufAllocator(AllocatorPolicy policy, ByteBufAllocator direct, boolean ioDirect) {
+    this.policy = policy;
+    this.direct = direct;
+    this.ioDirect = ioDirect;
+  }
+
+  public static VertxByteBufAllocator forPolicy(AllocatorPolicy policy) {
+    switch (policy) {
+      case POOLED:
+        return POOLED;
+      case HEAP:
+        return HEAP;
+      default:
+        return PARTIAL_POOLED;
+    }
+  }
+
+  public AllocatorStats stats() {
+    return new DefaultAllocatorStats(policy, heapBuffers.get(), heapBytes.get(), directBuffers.get(),
+                                     directBytes.get(), directMemoryUsed());
+  }
+
+  private static long directMemoryUsed() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(pool.getName())) {
+        return pool.getMemoryUsed();
+      }
+    }
+    return -1;
+  }
+
+  private ByteBuf heap(ByteBuf buf) {
+    heapBuffers.incrementAndGet();
+    heapBytes.addAndGet(buf.capacity());
+    return buf;
+  }
+
+  private ByteBuf direct(ByteBuf buf) {
+    directBuffers.incrementAndGet();
+    directBytes.addAndGet(buf.capacity());
+    return buf;
+  }
+
+  @Override
+  public ByteBuf buffer() {
+    return heapBuffer();
+  }
+
+  @Override
+  public ByteBuf buffer(int initialCapacity) {
+    return heapBuffer(initialCapacity);
+  }
+
+  @Override
+  public ByteBuf buffer(int initialCapacity, int maxCapacity) {
+    return heapBuffer(initialCapacity, maxCapacity);
+  }
+
+  @Override
+  public ByteBuf ioBuffer() {
+    return ioDirect ? directBuffer() : heapBuffer();
+  }
+
+  @Override
+  public ByteBuf ioBuffer(int initialCapacity) {
+    return ioDirect ? directBuffer(initialCapacity) : heapBuffer(initialCapacity);
+  }
+
+  @Override
+  public ByteBuf ioBuffer(int initialCapacity, int maxCapacity) {
+    return ioDirect ? directBuffer(initialCapacity, maxCapacity) : heapBuffer(initialCapacity, maxCapacity);
+  }
+
+  @Override
+  public ByteBuf heapBuffer() {
+    return heap(UNPOOLED_HEAP.heapBuffer());
+  }
+
+  @Override
+  public ByteBuf heapBuffer(int initialCapacity) {
+    return heap(UNPOOLED_HEAP.heapBuffer(initialCapacity));
+  }
+
+  @Override
+  public ByteBuf heapBuffer(int initialCapacity, int maxCapacity) {
+    return heap(UNPOOLED_HEAP.heapBuffer(initialCapacity, maxCapacity));
+  }
+
+  @Override
+  public ByteBuf directBuffer() {
+    return direct(direct.directBuffer());
+  }
+
+  @Override
+  public ByteBuf directBuffer(int initialCapacity) {
+    return direct(direct.directBuffer(initialCapacity));
+  }
+
+  @Override
+  public ByteBuf directBuffer(int initialCapacity, int maxCapacity) {
+    return direct(direct.directBuffer(initialCapacity, maxCapacity));
+  }
+
+  @Override
+  public CompositeByteBuf compositeBuffer() {
+    return UNPOOLED_HEAP.compositeHeapBuffer();
+  }
+
+  @Override
+  public CompositeByteBuf compositeBuffer(int maxNumComponents) {
+    return UNPOOLED_HEAP.compositeHeapBuffer(maxNumComponents);
+  }
+
+  @Override
+  public CompositeByteBuf compositeHeapBuffer() {
+    return UNPOOLED_HEAP.compositeHeapBuffer();
+  }
+
+  @Override
+  public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+    return UNPOOLED_HEAP.compositeHeapBuffer(maxNumComponents);
+  }
+
+  @Override
+  public CompositeByteBuf compositeDirectBuffer() {
+    return direct.compositeDirectBuffer();
+  }
+
+  @Override
+  public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+    return direct.compositeDirectBuffer(maxNumComponents);
+  }
+
+  @Override
+  public boolean isDirectBufferPooled() {
+    return direct.isDirectBufferPooled();
+  }
+}
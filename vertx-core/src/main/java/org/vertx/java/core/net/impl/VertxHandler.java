@@ -23,6 +23,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.impl.VertxThread;
 
 import java.util.Map;
 
@@ -48,7 +49,9 @@ public abstract class VertxHandler<C extends ConnectionBase> extends ChannelDupl
     if (buf.isDirect() || buf instanceof CompositeByteBuf) {
       try {
         if (buf.isReadable()) {
-          ByteBuf buffer =  buf.alloc().heapBuffer(buf.readableBytes());
+          // Not taken from the allocator of the buffer, which may pool its heap buffers too, as the Buffers passed
+          // to the handlers are never released
+          ByteBuf buffer = Unpooled.buffer(buf.readableBytes());
           buffer.writeBytes(buf);
           return buffer;
         } else {
@@ -153,7 +156,19 @@ public abstract class VertxHandler<C extends ConnectionBase> extends ChannelDupl
     } else {
       context = null;
     }
-    channelRead(connection, context, chctx, message);
+    Thread thread = Thread.currentThread();
+    if (thread instanceof VertxThread) {
+      // Time it so the blocked thread checker can see handlers which block the event loop
+      VertxThread vertxThread = (VertxThread) thread;
+      vertxThread.executeStart();
+      try {
+        channelRead(connection, context, chctx, message);
+      } finally {
+        vertxThread.executeEnd();
+      }
+    } else {
+      channelRead(connection, context, chctx, message);
+    }
   }
 
   protected abstract void channelRead(C connection, DefaultContext context, ChannelHandlerContext chctx, Object msg) throws Exception;
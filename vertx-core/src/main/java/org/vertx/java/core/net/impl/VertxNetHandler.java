@@ -17,6 +17,7 @@
 package org.vertx.java.core.net.impl;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.vertx.java.core.buffer.Buffer;
@@ -30,8 +31,19 @@ import java.util.Map;
  */
 public class VertxNetHandler extends VertxHandler<DefaultNetSocket> {
 
+  private final boolean zeroCopyInbound;
+
   public VertxNetHandler(VertxInternal vertx, Map<Channel, DefaultNetSocket> connectionMap) {
+    this(vertx, connectionMap, false);
+  }
+
+  /**
+   * @param zeroCopyInbound whether the buffers read are passed to the data handler without being copied, and
+   *                        released once it returns
+   */
+  public VertxNetHandler(VertxInternal vertx, Map<Channel, DefaultNetSocket> connectionMap, boolean zeroCopyInbound) {
     super(vertx, connectionMap);
+    this.zeroCopyInbound = zeroCopyInbound;
   }
 
   @Override
@@ -44,7 +56,7 @@ public class VertxNetHandler extends VertxHandler<DefaultNetSocket> {
         try {
           vertx.setContext(context);
           try {
-            sock.handleDataReceived(new Buffer(buf));
+            handleData(sock, buf);
           } catch (Throwable t) {
             context.reportException(t);
           }
@@ -55,22 +67,38 @@ public class VertxNetHandler extends VertxHandler<DefaultNetSocket> {
         context.execute(new Runnable() {
           public void run() {
             try {
-              sock.handleDataReceived(new Buffer(buf));
+              handleData(sock, buf);
             } catch (Throwable t) {
               context.reportException(t);
             }
           }
         });
       }
-    } else {
+    } else if (zeroCopyInbound) {
       // just discard
+      ((ByteBuf) msg).release();
+    }
+  }
+
+  private void handleData(DefaultNetSocket sock, ByteBuf buf) {
+    Buffer data = new Buffer(buf, zeroCopyInbound);
+    try {
+      sock.handleDataReceived(data);
+    } finally {
+      // The handler may have retained it, to use it later
+      data.release();
     }
   }
 
   @Override
   protected Object safeObject(Object msg) throws Exception {
     if (msg instanceof ByteBuf) {
-      return safeBuffer((ByteBuf) msg);
+      ByteBuf buf = (ByteBuf) msg;
+      // The Buffers expect their data to start at index 0, and to be able to expand
+      if (zeroCopyInbound && buf.readerIndex() == 0 && !(buf instanceof CompositeByteBuf)) {
+        return buf;
+      }
+      return safeBuffer(buf);
     }
     return msg;
   }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.vertx.java.core.spi;
+
+/**
+ * A handle on blocking actions submitted with
+ * {@link VertxSPI#executeBlocking(Action, boolean, org.vertx.java.core.Handler)}, which can be used to cancel them.
+ */
+public interface Cancellable {
+
+  /**
+   * Cancel the actions. Actions which haven't started yet won't be run, actions which are already running are
+   * left to complete but their results are discarded. If the result handler hasn't been called yet, it is
+   * called with a {@link java.util.concurrent.CancellationException}.
+   *
+   * @return true if the actions were cancelled, false if they had already completed or failed
+   */
+  boolean cancel();
+
+  boolean isCancelled();
+}
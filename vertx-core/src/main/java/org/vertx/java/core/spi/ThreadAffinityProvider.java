@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.vertx.java.core.spi;
+
+/**
+ * Binds vert.x threads to CPUs.<p>
+ * Java has no API for thread affinity so the binding itself has to be done by an implementation of this
+ * interface, typically calling into a native library. The implementation class is set with the
+ * {@code vertx.threadAffinityProvider} system property, and the CPUs to use with the {@code vertx.affinity.eventloop}
+ * and {@code vertx.affinity.worker} system properties, e.g. {@code -Dvertx.affinity.eventloop=0-3,8}.
+ * When no provider is set, no binding is done.<p>
+ * Implementations must have a public no-arg constructor.
+ */
+public interface ThreadAffinityProvider {
+
+  /**
+   * Bind the calling thread to the given CPU. This is called on each new vert.x thread before it runs anything.
+   */
+  void bindCurrentThread(int cpu);
+}
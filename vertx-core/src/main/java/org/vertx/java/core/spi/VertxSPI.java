@@ -21,10 +21,33 @@ import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 
+import java.util.List;
+
 /**
  *  @author <a href="http://tfox.org">Tim Fox</a>
  */
 public interface VertxSPI extends Vertx {
 
   <T> void executeBlocking(Action<T> action, Handler<AsyncResult<T>> resultHandler);
+
+  /**
+   * Execute a blocking action on the worker pool and call the result handler on the current context when it is
+   * done.
+   *
+   * @param ordered if true the action is run after any ordered action previously submitted from the current
+   *                context, in the same way as {@link #executeBlocking(Action, Handler)}. If false it can run in
+   *                parallel with other actions
+   * @return a handle which can be used to cancel the action
+   */
+  <T> Cancellable executeBlocking(Action<T> action, boolean ordered, Handler<AsyncResult<T>> resultHandler);
+
+  /**
+   * Execute a batch of blocking actions on the worker pool. The result handler is called once, on the current
+   * context, with the results in the order of the actions, or with the first failure.
+   *
+   * @param ordered if true the actions are run one at a time, in order. If false they can run in parallel
+   * @return a handle which can be used to cancel all the actions
+   */
+  <T> Cancellable executeBlocking(List<? extends Action<T>> actions, boolean ordered,
+                                  Handler<AsyncResult<List<T>>> resultHandler);
 }
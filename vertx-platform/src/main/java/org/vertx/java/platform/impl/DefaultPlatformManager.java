@@ -90,6 +90,7 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
   private Handler<Void> exitHandler;
   private final ClassLoader platformClassLoader;
   private final boolean disableMavenLocal;
+  private final EventLoopMapping eventLoopMapping = new EventLoopMapping(System.getProperty("vertx.eventLoopMapping"));
   protected final ClusterManager clusterManager;
   protected HAManager haManager;
   private boolean stopped;
@@ -1552,7 +1553,12 @@ public class DefaultPlatformManager implements PlatformManagerInternal, ModuleRe
         if (worker) {
           vertx.startInBackground(runner, multiThreaded);
         } else {
-          vertx.startOnEventLoop(runner);
+          int eventLoop = eventLoopMapping.eventLoopFor(modID, main, i);
+          if (eventLoop != -1) {
+            vertx.startOnEventLoop(runner, eventLoop);
+          } else {
+            vertx.startOnEventLoop(runner);
+          }
         }
       }
     } finally {
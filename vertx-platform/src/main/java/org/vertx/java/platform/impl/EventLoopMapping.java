@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vertx.java.platform.impl;
+
+import org.vertx.java.core.impl.ThreadAffinity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Places the instances of specific deployments on specific event loops.<p>
+ * The mapping is read from the {@code vertx.eventLoopMapping} system property, as a list of
+ * {@code name=eventloops} entries separated by semicolons, where the name is a module identifier or the main of a
+ * verticle, and the event loops are indexes in the same format as a CPU list, e.g.
+ * {@code -Dvertx.eventLoopMapping=io.vertx~mod-web-server~2.0.0=0-1;com.acme.Backend=2}.
+ * Instance {@code n} of a mapped deployment runs on the event loop {@code eventloops[n % eventloops.length]},
+ * the other deployments are spread over all the event loops as usual.
+ */
+class EventLoopMapping {
+
+  private final Map<String, int[]> mapping = new HashMap<>();
+
+  EventLoopMapping(String str) {
+    if (str == null) {
+      return;
+    }
+    for (String entry: str.split(";")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) {
+        continue;
+      }
+      int eq = entry.lastIndexOf('=');
+      if (eq == -1) {
+        throw new IllegalArgumentException("Invalid event loop mapping " + entry);
+      }
+      mapping.put(entry.substring(0, eq).trim(), ThreadAffinity.parseCpus(entry.substring(eq + 1)));
+    }
+  }
+
+  /**
+   * @return the event loop for the instance, or -1 if the deployment isn't mapped
+   */
+  int eventLoopFor(ModuleIdentifier modID, String main, int instance) {
+    int[] loops = null;
+    if (modID != null) {
+      loops = mapping.get(modID.toString());
+    }
+    if (loops == null) {
+      loops = mapping.get(main);
+    }
+    if (loops == null || loops.length == 0) {
+      return -1;
+    }
+    return loops[instance % loops.length];
+  }
+}
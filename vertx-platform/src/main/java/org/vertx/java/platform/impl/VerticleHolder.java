@@ -52,4 +52,8 @@ class VerticleHolder implements DeploymentHandle {
   public void reportException(Throwable t) {
     factory.reportException(logger, t);
   }
+
+  public String getDeploymentName() {
+    return deployment.name;
+  }
 }
\ No newline at end of file
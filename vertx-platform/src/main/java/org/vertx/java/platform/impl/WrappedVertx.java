@@ -1,5 +1,6 @@
 package org.vertx.java.platform.impl;
 
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Context;
@@ -12,6 +13,7 @@ import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.impl.DefaultHttpServer;
 import org.vertx.java.core.impl.DefaultContext;
 import org.vertx.java.core.impl.EventLoopContext;
+import org.vertx.java.core.impl.TaskQueueMetrics;
 import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.net.NetClient;
 import org.vertx.java.core.net.NetServer;
@@ -20,8 +22,10 @@ import org.vertx.java.core.net.impl.ServerID;
 import org.vertx.java.core.shareddata.SharedData;
 import org.vertx.java.core.sockjs.SockJSServer;
 import org.vertx.java.core.spi.Action;
+import org.vertx.java.core.spi.Cancellable;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
@@ -94,6 +98,21 @@ public class WrappedVertx implements VertxInternal {
     return vertx.startOnEventLoop(runnable);
   }
 
+  @Override
+  public DefaultContext startOnEventLoop(Runnable runnable, int eventLoop) {
+    return vertx.startOnEventLoop(runnable, eventLoop);
+  }
+
+  @Override
+  public TaskQueueMetrics eventLoopMetrics(EventLoop eventLoop) {
+    return vertx.eventLoopMetrics(eventLoop);
+  }
+
+  @Override
+  public List<TaskQueueMetrics> eventLoopMetrics() {
+    return vertx.eventLoopMetrics();
+  }
+
   @Override
   public DefaultContext startInBackground(Runnable runnable, boolean multiThreaded) {
     return vertx.startInBackground(runnable, multiThreaded);
@@ -203,4 +222,15 @@ public class WrappedVertx implements VertxInternal {
   public <T> void executeBlocking(Action<T> action, Handler<AsyncResult<T>> resultHandler) {
     vertx.executeBlocking(action, resultHandler);
   }
+
+  @Override
+  public <T> Cancellable executeBlocking(Action<T> action, boolean ordered, Handler<AsyncResult<T>> resultHandler) {
+    return vertx.executeBlocking(action, ordered, resultHandler);
+  }
+
+  @Override
+  public <T> Cancellable executeBlocking(List<? extends Action<T>> actions, boolean ordered,
+                                         Handler<AsyncResult<List<T>>> resultHandler) {
+    return vertx.executeBlocking(actions, ordered, resultHandler);
+  }
 }
@@ -1,14 +1,28 @@
 package org.vertx.java.tests.core.context;
 
 import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.VertxFactory;
 import org.vertx.java.core.VoidHandler;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.DefaultVertx;
+import org.vertx.java.core.impl.TaskQueueMetrics;
+import org.vertx.java.core.spi.Action;
+import org.vertx.java.core.spi.Cancellable;
+import org.vertx.java.core.spi.ThreadAffinityProvider;
 import org.vertx.java.testframework.TestBase;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*
  * Copyright 2013 Red Hat, Inc.
@@ -80,4 +94,224 @@ public class JavaContextTest extends TestBase {
     Vertx vertx = VertxFactory.newVertx();
     assertNull(vertx.currentContext());
   }
+
+  @Test
+  public void testBlockedThreadChecker() throws Exception {
+    System.setProperty("vertx.blockedThreadCheckPeriod", "10");
+    System.setProperty("vertx.maxEventLoopExecuteTime", "100");
+    final DefaultVertx vertx;
+    try {
+      vertx = new DefaultVertx();
+    } finally {
+      System.clearProperty("vertx.blockedThreadCheckPeriod");
+      System.clearProperty("vertx.maxEventLoopExecuteTime");
+    }
+    final CountDownLatch latch = new CountDownLatch(1);
+    vertx.runOnContext(new VoidHandler() {
+      @Override
+      protected void handle() {
+        try {
+          Thread.sleep(500);
+        } catch (InterruptedException ignore) {
+        }
+        // Count down from the next task so this one has been timed
+        vertx.runOnContext(new VoidHandler() {
+          @Override
+          protected void handle() {
+            latch.countDown();
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(vertx.blockedThreadChecker().blockedWarnings() > 0);
+    long tasks = 0;
+    for (long count: vertx.blockedThreadChecker().eventLoopExecutionTimes()) {
+      tasks += count;
+    }
+    assertTrue(tasks > 0);
+    vertx.stop();
+  }
+
+  @Test
+  public void testExecuteBlockingBatch() throws Exception {
+    final DefaultVertx vertx = new DefaultVertx();
+    final CountDownLatch started = new CountDownLatch(3);
+    final List<Action<Integer>> actions = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final int num = i;
+      actions.add(new Action<Integer>() {
+        public Integer perform() {
+          // Only completes if the actions run in parallel
+          started.countDown();
+          try {
+            started.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException ignore) {
+          }
+          return num;
+        }
+      });
+    }
+    final CountDownLatch latch = new CountDownLatch(1);
+    vertx.runOnContext(new VoidHandler() {
+      @Override
+      protected void handle() {
+        final Context ctx = vertx.currentContext();
+        vertx.executeBlocking(actions, false, new Handler<AsyncResult<List<Integer>>>() {
+          public void handle(AsyncResult<List<Integer>> res) {
+            assertTrue(vertx.currentContext() == ctx);
+            assertTrue(res.succeeded());
+            assertEquals(0, started.getCount());
+            assertEquals(3, res.result().size());
+            for (int i = 0; i < 3; i++) {
+              assertEquals(i, res.result().get(i).intValue());
+            }
+            latch.countDown();
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    vertx.stop();
+  }
+
+  @Test
+  public void testExecuteBlockingCancel() throws Exception {
+    final DefaultVertx vertx = new DefaultVertx();
+    final CountDownLatch blocker = new CountDownLatch(1);
+    final CountDownLatch latch = new CountDownLatch(1);
+    vertx.runOnContext(new VoidHandler() {
+      @Override
+      protected void handle() {
+        // The first ordered action holds the second one back until it is cancelled
+        vertx.executeBlocking(new Action<Void>() {
+          public Void perform() {
+            try {
+              blocker.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+            return null;
+          }
+        }, true, null);
+        Cancellable handle = vertx.executeBlocking(new Action<String>() {
+          public String perform() {
+            fail("Should not be run");
+            return null;
+          }
+        }, true, new Handler<AsyncResult<String>>() {
+          public void handle(AsyncResult<String> res) {
+            assertTrue(res.failed());
+            assertTrue(res.cause() instanceof CancellationException);
+            blocker.countDown();
+            latch.countDown();
+          }
+        });
+        assertTrue(handle.cancel());
+        assertTrue(handle.isCancelled());
+        assertFalse(handle.cancel());
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    vertx.stop();
+  }
+
+  @Test
+  public void testStartOnEventLoop() throws Exception {
+    System.setProperty("vertx.pool.eventloop.size", "4");
+    final DefaultVertx vertx;
+    try {
+      vertx = new DefaultVertx();
+    } finally {
+      System.clearProperty("vertx.pool.eventloop.size");
+    }
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    final CountDownLatch latch = new CountDownLatch(2);
+    Runnable runner = new Runnable() {
+      public void run() {
+        Thread current = Thread.currentThread();
+        if (!thread.compareAndSet(null, current)) {
+          assertTrue(thread.get() == current);
+        }
+        latch.countDown();
+      }
+    };
+    // Same event loop for both contexts
+    vertx.startOnEventLoop(runner, 1);
+    vertx.startOnEventLoop(runner, 5);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    vertx.stop();
+  }
+
+  @Test
+  public void testTaskQueueMetrics() throws Exception {
+    final DefaultVertx vertx = new DefaultVertx();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(10);
+    DefaultContext context = vertx.startOnEventLoop(new Runnable() {
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ignore) {
+        }
+      }
+    }, 0);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    // The event loop is blocked so these stay in the queue
+    for (int i = 0; i < 10; i++) {
+      context.execute(new Runnable() {
+        public void run() {
+          done.countDown();
+        }
+      });
+    }
+    TaskQueueMetrics metrics = context.getQueueMetrics();
+    TaskQueueMetrics loopMetrics = vertx.eventLoopMetrics(context.getEventLoop());
+    assertTrue(loopMetrics == vertx.eventLoopMetrics().get(0));
+    assertEquals(10, metrics.queueDepth());
+    assertEquals(10, loopMetrics.queueDepth());
+    Thread.sleep(20);
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(0, metrics.queueDepth());
+    assertEquals(11, metrics.executedTasks());
+    assertEquals(11, metrics.queueLatency().count());
+    assertTrue(metrics.queueLatency().maxNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertEquals(11, loopMetrics.executedTasks());
+    assertTrue(metrics.tasksPerSecond() > 0);
+    vertx.stop();
+  }
+
+  @Test
+  public void testThreadAffinity() throws Exception {
+    System.setProperty("vertx.threadAffinityProvider", TestAffinityProvider.class.getName());
+    System.setProperty("vertx.affinity.eventloop", "5-6");
+    System.setProperty("vertx.pool.eventloop.size", "2");
+    final DefaultVertx vertx;
+    try {
+      vertx = new DefaultVertx();
+    } finally {
+      System.clearProperty("vertx.threadAffinityProvider");
+      System.clearProperty("vertx.affinity.eventloop");
+      System.clearProperty("vertx.pool.eventloop.size");
+    }
+    final CountDownLatch latch = new CountDownLatch(1);
+    vertx.startOnEventLoop(new Runnable() {
+      public void run() {
+        assertEquals(Integer.valueOf(6), TestAffinityProvider.cpus.get(Thread.currentThread()));
+        latch.countDown();
+      }
+    }, 1);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    vertx.stop();
+  }
+
+  public static class TestAffinityProvider implements ThreadAffinityProvider {
+    static final Map<Thread, Integer> cpus = new ConcurrentHashMap<>();
+
+    public void bindCurrentThread(int cpu) {
+      cpus.put(Thread.currentThread(), cpu);
+    }
+  }
 }
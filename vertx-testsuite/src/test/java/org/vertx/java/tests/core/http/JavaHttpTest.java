@@ -395,6 +395,10 @@ public class JavaHttpTest extends TestBase {
     startTest(getMethodName());
   }
 
+  public void testSendFileRange() {
+    startTest(getMethodName());
+  }
+
   public void testSendFileNotFound() {
     startTest(getMethodName());
   }
@@ -698,5 +702,167 @@ public class JavaHttpTest extends TestBase {
     assertEquals(numInstances + initialServers - initialToStop, vertx.sharedData().getSet("instances").size());
   }
 
+  public void testServerCompressionGzip() {
+    startTest(getMethodName());
+  }
+
+  public void testServerCompressionChunkedDeflate() {
+    startTest(getMethodName());
+  }
+
+  public void testServerCompressionNotAccepted() {
+    startTest(getMethodName());
+  }
+
+  public void testServerCompressionBelowMinSize() {
+    startTest(getMethodName());
+  }
+
+  public void testClientDecompression() {
+    startTest(getMethodName());
+  }
+
+  public void testClientDecompressionChunked() {
+    startTest(getMethodName());
+  }
+
+  public void testClientPipelining() {
+    startTest(getMethodName());
+  }
+
+  public void testClientPipeliningConnectionClosed() {
+    startTest(getMethodName());
+  }
+
+  public void testClientPoolPerEventLoop() {
+    startTest(getMethodName());
+  }
+
+  public void testClientConnectionIdleTimeout() {
+    startTest(getMethodName());
+  }
+
+  public void testClientConnectionMaxLifetime() {
+    startTest(getMethodName());
+  }
+
+  public void testClientOpenConnections() {
+    startTest(getMethodName());
+  }
+
+  public void testClientPoolStatsWaiters() {
+    startTest(getMethodName());
+  }
+
+  public void testStaticFileConditional() {
+    startTest(getMethodName());
+  }
+
+  public void testStaticFileRange() {
+    startTest(getMethodName());
+  }
+
+  public void testStaticFilePrecompressed() {
+    startTest(getMethodName());
+  }
+
+  public void testStaticFileNotFoundAndForbidden() {
+    startTest(getMethodName());
+  }
+
+  public void testFormUploadStreamToFile() {
+    startTest(getMethodName());
+  }
+
+  public void testFormUploadLimits() {
+    startTest(getMethodName());
+  }
+
+  public void testRequestSizeLimits() {
+    startTest(getMethodName());
+  }
+
+  public void testParamsLookup() {
+    startTest(getMethodName());
+  }
+
+  public void testHttp2ClearText() {
+    startTest(getMethodName());
+  }
+
+  public void testHttp2FlowControl() {
+    startTest(getMethodName());
+  }
+
+  public void testServerIdleTimeout() {
+    startTest(getMethodName());
+  }
+
+  public void testMaxRequestsPerConnection() {
+    startTest(getMethodName());
+  }
+
+  public void testServerDrainOnClose() {
+    startTest(getMethodName());
+  }
+
+  public void testServerDrainTimeout() {
+    startTest(getMethodName());
+  }
+
+  public void testDateAndConstantHeaders() {
+    startTest(getMethodName());
+  }
+
+  public void testServerRateLimiter() {
+    startTest(getMethodName());
+  }
+
+  public void testRouteRateLimiter() {
+    startTest(getMethodName());
+  }
+
+  public void testRateLimiterMaxBuckets() {
+    startTest(getMethodName());
+  }
+
+  public void testDefaultRequestTimeoutFreesConnection() {
+    startTest(getMethodName());
+  }
+
+  public void testCircuitBreaker() {
+    startTest(getMethodName());
+  }
 
+  public void testProxy() {
+    startTest(getMethodName());
+  }
+
+  public void testProxyRetries() {
+    startTest(getMethodName());
+  }
+
+  public void testAccessLog() {
+    startTest(getMethodName());
+  }
+
+  public void testAccessLogRotation() {
+    startTest(getMethodName());
+  }
+
+  public void testAllocatorPolicies() {
+    startTest(getMethodName());
+  }
+
+  public void testZeroCopyBufferReleased() {
+    startTest(getMethodName());
+  }
+
+  public void testProxyHttp2Body() {
+    startTest(getMethodName());
+  }
+
+  public void testRequestMaxBodySize() {
+    startTest(getMethodName());
+  }
 }
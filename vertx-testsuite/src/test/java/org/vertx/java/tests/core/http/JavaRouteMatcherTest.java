@@ -145,4 +145,20 @@ public class JavaRouteMatcherTest extends TestBase {
   public void testRouteNoMatchHandlerRegex() {
     startTest(getMethodName());
   }
+
+  public void testRouteOrderParamBeforeRegexAndStatic() {
+    startTest(getMethodName());
+  }
+
+  public void testRouteOrderRegexBeforeStatic() {
+    startTest(getMethodName());
+  }
+
+  public void testRouteOrderParamsBeforeStatic() {
+    startTest(getMethodName());
+  }
+
+  public void testRouteOrderPatternWithRegexSyntax() {
+    startTest(getMethodName());
+  }
 }
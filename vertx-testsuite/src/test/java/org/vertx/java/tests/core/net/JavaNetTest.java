@@ -434,6 +434,9 @@ public class JavaNetTest extends TestBase {
     startTest(getMethodName());
   }
 
+  @Test
+  public void testZeroCopyInbound() throws Exception {
+    startTest(getMethodName());
+  }
 
 }
-
@@ -16,20 +16,30 @@
 
 package vertx.tests.core.http;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.QueryStringDecoder;
 import org.vertx.java.core.*;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.http.*;
 import org.vertx.java.core.http.impl.HttpHeadersAdapter;
+import org.vertx.java.core.impl.DefaultContext;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.net.NetServer;
 import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.testframework.TestClientBase;
 import org.vertx.java.testframework.TestUtils;
 
 import java.io.*;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -262,6 +272,16 @@ public class HttpTestClient extends TestClientBase {
     tu.azzert(client.setTrafficClass(trafficClass) == client);
     tu.azzert(client.getTrafficClass() == trafficClass);
 
+    tu.azzert(client.setAllocatorPolicy(AllocatorPolicy.HEAP) == client);
+    tu.azzert(client.getAllocatorPolicy() == AllocatorPolicy.HEAP);
+    tu.azzert(client.getAllocatorStats().policy() == AllocatorPolicy.HEAP);
+    tu.azzert(client.setUsePooledBuffers(true) == client);
+    tu.azzert(client.getAllocatorPolicy() == AllocatorPolicy.POOLED);
+    tu.azzert(client.isUsePooledBuffers());
+
+    tu.azzert(client.setAdaptiveReceiveSizing(true) == client);
+    tu.azzert(client.isAdaptiveReceiveSizing());
+
     tu.testComplete();
 
   }
@@ -274,6 +294,9 @@ public class HttpTestClient extends TestClientBase {
     tu.azzert(server.getTrustStorePassword() == null);
     tu.azzert(server.getTrustStorePath() == null);
     tu.azzert(server.isReuseAddress());
+    tu.azzert(server.getAllocatorPolicy() == AllocatorPolicy.PARTIAL_POOLED);
+    tu.azzert(!server.isUsePooledBuffers());
+    tu.azzert(!server.isAdaptiveReceiveSizing());
     server.close();
     tu.testComplete();
   }
@@ -2098,6 +2121,44 @@ public class HttpTestClient extends TestClientBase {
     }, handler);
   }
 
+  public void testSendFileRange() throws Exception {
+    final String content = TestUtils.randomAlphaString(100);
+    final File file = setupFile("test-send-file-range.txt", content);
+
+    AsyncResultHandler<HttpServer> handler = new AsyncResultHandler<HttpServer>() {
+      @Override
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.getNow("some-uri", new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse response) {
+            tu.azzert(response.statusCode() == 200);
+            tu.azzert("20".equals(response.headers().get("content-length")));
+            response.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer buff) {
+                tu.azzert(content.substring(10, 30).equals(buff.toString()));
+                file.delete();
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    };
+
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        try {
+          req.response().sendFile(file.getAbsolutePath(), 90, 20);
+          tu.azzert(false, "Should throw exception");
+        } catch (IllegalArgumentException e) {
+          //OK
+        }
+        // The response can still be sent
+        req.response().sendFile(file.getAbsolutePath(), 10, 20);
+      }
+    }, handler);
+  }
+
   public void testSendFileNotFound() throws Exception {
     AsyncResultHandler<HttpServer> handler = new AsyncResultHandler<HttpServer>() {
       @Override
@@ -2974,6 +3035,1924 @@ public class HttpTestClient extends TestClientBase {
     return sb.toString();
   }
 
+  public void testServerCompressionGzip() {
+    testServerCompression("gzip, deflate", "gzip", false, 10000);
+  }
+
+  public void testServerCompressionChunkedDeflate() {
+    testServerCompression("deflate;q=1.0, gzip;q=0.5", "deflate", true, 10000);
+  }
+
+  public void testServerCompressionNotAccepted() {
+    testServerCompression(null, null, false, 10000);
+  }
+
+  public void testServerCompressionBelowMinSize() {
+    testServerCompression("gzip", null, false, 100);
+  }
+
+  private void testServerCompression(final String acceptEncoding, final String expectedEncoding,
+                                     final boolean chunked, int size) {
+    final StringBuilder sb = new StringBuilder();
+    while (sb.length() < size) {
+      sb.append("{\"name\":\"vert.x\",\"count\":").append(sb.length()).append("},");
+    }
+    final String body = sb.toString();
+    server = vertx.createHttpServer().setCompressionSupported(true).setCompressionMinSize(1024);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().putHeader("Content-Type", "application/json; charset=UTF-8");
+        if (chunked) {
+          req.response().setChunked(true);
+          int third = body.length() / 3;
+          req.response().write(body.substring(0, third));
+          req.response().write(body.substring(third, 2 * third));
+          req.response().end(body.substring(2 * third));
+        } else {
+          req.response().end(body);
+        }
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      @Override
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        HttpClientRequest req = client.get("some-uri", new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.checkThread();
+            String encoding = resp.headers().get("Content-Encoding");
+            tu.azzert(expectedEncoding == null ? encoding == null : expectedEncoding.equals(encoding),
+                "Unexpected encoding " + encoding);
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer data) {
+                if (!chunked) {
+                  tu.azzert(Integer.parseInt(resp.headers().get("Content-Length")) == data.length());
+                }
+                tu.azzert(body.equals(decode(expectedEncoding, data.getBytes())));
+                tu.testComplete();
+              }
+            });
+          }
+        });
+        if (acceptEncoding != null) {
+          req.putHeader("Accept-Encoding", acceptEncoding);
+        }
+        req.end();
+      }
+    });
+  }
+
+  public void testClientDecompression() {
+    testClientDecompression(false);
+  }
+
+  public void testClientDecompressionChunked() {
+    testClientDecompression(true);
+  }
+
+  private void testClientDecompression(final boolean chunked) {
+    final StringBuilder sb = new StringBuilder();
+    while (sb.length() < 10000) {
+      sb.append("{\"name\":\"vert.x\",\"count\":").append(sb.length()).append("},");
+    }
+    final String body = sb.toString();
+    server = vertx.createHttpServer().setCompressionSupported(true);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        tu.azzert("gzip, deflate".equals(req.headers().get("Accept-Encoding")));
+        req.response().putHeader("Content-Type", "application/json");
+        if (chunked) {
+          req.response().setChunked(true);
+          int half = body.length() / 2;
+          req.response().write(body.substring(0, half));
+          req.response().end(body.substring(half));
+        } else {
+          req.response().end(body);
+        }
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      @Override
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        final HttpClient inflatingClient = vertx.createHttpClient().setHost("localhost").setPort(8080)
+            .setTryUseCompression(true);
+        inflatingClient.getNow("some-uri", new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.checkThread();
+            tu.azzert(resp.headers().get("Content-Encoding") == null);
+            final Buffer received = new Buffer();
+            resp.dataHandler(new Handler<Buffer>() {
+              public void handle(Buffer data) {
+                received.appendBuffer(data);
+              }
+            });
+            resp.endHandler(new VoidHandler() {
+              protected void handle() {
+                tu.azzert(body.equals(received.toString()));
+                inflatingClient.close();
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testClientPipelining() {
+    final int requests = 4;
+    final AtomicInteger connections = new AtomicInteger();
+    // The responses are only written once all the requests have arrived, which can only happen if the client
+    // writes them back to back on its single connection
+    final NetServer netServer = pipeliningServer(requests, connections, false);
+    netServer.listen(8080, "localhost", new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setMaxPoolSize(1).setPipeliningDepth(requests);
+        final AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+          final int index = i;
+          client.getNow("some-uri/" + i, new Handler<HttpClientResponse>() {
+            public void handle(HttpClientResponse resp) {
+              tu.checkThread();
+              tu.azzert(resp.statusCode() == 200);
+              resp.bodyHandler(new Handler<Buffer>() {
+                public void handle(Buffer body) {
+                  tu.azzert(String.valueOf(index).equals(body.toString()));
+                  if (received.incrementAndGet() == requests) {
+                    tu.azzert(connections.get() == 1);
+                    closeAndComplete(netServer);
+                  }
+                }
+              });
+            }
+          });
+        }
+      }
+    });
+  }
+
+  public void testClientPipeliningConnectionClosed() {
+    final int requests = 3;
+    // Only the first request gets a response before the connection is closed
+    final NetServer netServer = pipeliningServer(requests, new AtomicInteger(), true);
+    netServer.listen(8080, "localhost", new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setMaxPoolSize(1).setPipeliningDepth(requests);
+        final AtomicInteger responses = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+          final int index = i;
+          HttpClientRequest req = client.get("some-uri/" + i, new Handler<HttpClientResponse>() {
+            public void handle(HttpClientResponse resp) {
+              tu.azzert(index == 0);
+              responses.incrementAndGet();
+            }
+          });
+          req.exceptionHandler(new Handler<Throwable>() {
+            public void handle(Throwable t) {
+              tu.checkThread();
+              tu.azzert(index > 0);
+              if (failures.incrementAndGet() == requests - 1) {
+                tu.azzert(responses.get() == 1);
+                closeAndComplete(netServer);
+              }
+            }
+          });
+          req.end();
+        }
+      }
+    });
+  }
+
+  public void testClientPoolPerEventLoop() {
+    final int contexts = 2;
+    final int requests = 5;
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end("ok");
+      }
+    }, new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setPoolPerEventLoop(true).setMaxPoolSize(2);
+        final VertxInternal vertxInternal = (VertxInternal) vertx;
+        final AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < contexts; i++) {
+          vertxInternal.startOnEventLoop(new Runnable() {
+            public void run() {
+              final DefaultContext context = vertxInternal.getContext();
+              final Thread thread = Thread.currentThread();
+              for (int j = 0; j < requests; j++) {
+                client.getNow("some-uri", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    // The response is handled on the event loop and the context which sent the request
+                    tu.azzert(Thread.currentThread() == thread);
+                    tu.azzert(vertxInternal.getContext() == context);
+                    resp.bodyHandler(new Handler<Buffer>() {
+                      public void handle(Buffer body) {
+                        tu.azzert(Thread.currentThread() == thread);
+                        tu.azzert("ok".equals(body.toString()));
+                        if (received.incrementAndGet() == contexts * requests) {
+                          tu.testComplete();
+                        }
+                      }
+                    });
+                  }
+                });
+              }
+            }
+          }, i);
+        }
+      }
+    });
+  }
+
+  public void testClientConnectionIdleTimeout() {
+    final AtomicInteger connections = new AtomicInteger();
+    final AtomicInteger openConnections = new AtomicInteger();
+    final NetServer netServer = countingServer(connections, openConnections);
+    netServer.listen(8080, "localhost", new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setConnectionIdleTimeout(200);
+        tu.azzert(client.getConnectionIdleTimeout() == 200);
+        client.getNow("some-uri", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            resp.endHandler(new VoidHandler() {
+              protected void handle() {
+                // The sweep closes the connection once it has been idle for longer than the timeout
+                vertx.setTimer(1000, new Handler<Long>() {
+                  public void handle(Long timerID) {
+                    HttpPoolStats stats = client.getPoolStats();
+                    tu.azzert(stats.connections() == 0);
+                    tu.azzert(stats.evictions() == 1);
+                    tu.azzert(openConnections.get() == 0);
+                    tu.azzert(connections.get() == 1);
+                    closeAndComplete(netServer);
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testClientConnectionMaxLifetime() {
+    final AtomicInteger connections = new AtomicInteger();
+    final NetServer netServer = countingServer(connections, new AtomicInteger());
+    netServer.listen(8080, "localhost", new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setConnectionMaxLifetime(300);
+        client.getNow("some-uri", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            resp.endHandler(new VoidHandler() {
+              protected void handle() {
+                tu.azzert(client.getPoolStats().connections() == 1);
+                vertx.setTimer(1000, new Handler<Long>() {
+                  public void handle(Long timerID) {
+                    // The first connection has reached its lifetime, so a new one is opened
+                    client.getNow("some-uri", new Handler<HttpClientResponse>() {
+                      public void handle(HttpClientResponse resp) {
+                        resp.endHandler(new VoidHandler() {
+                          protected void handle() {
+                            tu.azzert(connections.get() == 2);
+                            tu.azzert(client.getPoolStats().evictions() == 1);
+                            closeAndComplete(netServer);
+                          }
+                        });
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testClientOpenConnections() {
+    final int maxPoolSize = 2;
+    final AtomicInteger connections = new AtomicInteger();
+    final NetServer netServer = countingServer(connections, new AtomicInteger());
+    netServer.listen(8080, "localhost", new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setMaxPoolSize(maxPoolSize);
+        client.openConnections(maxPoolSize + 1, new AsyncResultHandler<Void>() {
+          public void handle(AsyncResult<Void> res) {
+            tu.checkThread();
+            tu.azzert(res.succeeded());
+            HttpPoolStats stats = client.getPoolStats();
+            tu.azzert(stats.connections() == maxPoolSize);
+            tu.azzert(stats.idle() == maxPoolSize);
+            tu.azzert(stats.inUse() == 0);
+            tu.azzert(stats.waiters() == 0);
+            final AtomicInteger received = new AtomicInteger();
+            for (int i = 0; i < maxPoolSize; i++) {
+              client.getNow("some-uri", new Handler<HttpClientResponse>() {
+                public void handle(HttpClientResponse resp) {
+                  resp.endHandler(new VoidHandler() {
+                    protected void handle() {
+                      if (received.incrementAndGet() == maxPoolSize) {
+                        // The requests used the connections which were already open
+                        tu.azzert(connections.get() == maxPoolSize);
+                        closeAndComplete(netServer);
+                      }
+                    }
+                  });
+                }
+              });
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public void testClientPoolStatsWaiters() {
+    final int requests = 5;
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end();
+      }
+    }, new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setMaxPoolSize(1);
+        final AtomicInteger received = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+          client.getNow("some-uri", new Handler<HttpClientResponse>() {
+            public void handle(HttpClientResponse resp) {
+              resp.endHandler(new VoidHandler() {
+                protected void handle() {
+                  if (received.incrementAndGet() == requests) {
+                    HttpPoolStats stats = client.getPoolStats();
+                    tu.azzert(stats.connections() == 1);
+                    tu.azzert(stats.waiters() == 0);
+                    tu.azzert(stats.waitCount() == requests - 1);
+                    tu.azzert(stats.maxWaitTime() <= stats.totalWaitTime());
+                    tu.testComplete();
+                  }
+                }
+              });
+            }
+          });
+        }
+        tu.azzert(client.getPoolStats().waiters() == requests - 1);
+      }
+    });
+  }
+
+  // A raw HTTP server which answers each request without a body, and counts the connections opened and still open
+  private NetServer countingServer(final AtomicInteger connections, final AtomicInteger openConnections) {
+    return vertx.createNetServer().connectHandler(new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        connections.incrementAndGet();
+        openConnections.incrementAndGet();
+        socket.closeHandler(new VoidHandler() {
+          protected void handle() {
+            openConnections.decrementAndGet();
+          }
+        });
+        final StringBuilder received = new StringBuilder();
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            received.append(data.toString());
+            int end;
+            while ((end = received.indexOf("\r\n\r\n")) != -1) {
+              received.delete(0, end + 4);
+              socket.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+            }
+          }
+        });
+      }
+    });
+  }
+
+  public void testStaticFileConditional() throws Exception {
+    final File webRoot = setupWebRoot();
+    final String content = TestUtils.randomAlphaString(1000);
+    writeFile(new File(webRoot, "index.html"), content.getBytes("UTF-8"));
+    startServer(new StaticFileHandler(vertx, webRoot.getAbsolutePath()), new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        // The index page of the web root
+        staticRequest("/", null, null, new Handler<HttpClientResponse>() {
+          public void handle(final HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.azzert("text/html".equals(resp.headers().get("content-type")));
+            tu.azzert("bytes".equals(resp.headers().get("accept-ranges")));
+            final String etag = resp.headers().get("etag");
+            final String lastModified = resp.headers().get("last-modified");
+            tu.azzert(etag != null && lastModified != null);
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert(content.equals(body.toString()));
+                staticRequest("/index.html", "If-None-Match", etag, new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 304);
+                    tu.azzert(etag.equals(resp.headers().get("etag")));
+                    staticRequest("/index.html", "If-Modified-Since", lastModified, new Handler<HttpClientResponse>() {
+                      public void handle(HttpClientResponse resp) {
+                        tu.azzert(resp.statusCode() == 304);
+                        staticRequest("/index.html", "If-None-Match", "\"other\"", new Handler<HttpClientResponse>() {
+                          public void handle(HttpClientResponse resp) {
+                            tu.azzert(resp.statusCode() == 200);
+                            resp.bodyHandler(new Handler<Buffer>() {
+                              public void handle(Buffer body) {
+                                tu.azzert(content.equals(body.toString()));
+                                deleteDir(webRoot);
+                                tu.testComplete();
+                              }
+                            });
+                          }
+                        });
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStaticFileRange() throws Exception {
+    final File webRoot = setupWebRoot();
+    final String content = TestUtils.randomAlphaString(100000);
+    writeFile(new File(webRoot, "file.txt"), content.getBytes("UTF-8"));
+    startServer(new StaticFileHandler(vertx, webRoot.getAbsolutePath()), new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        staticRequest("/file.txt", "Range", "bytes=10-19", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 206);
+            tu.azzert(("bytes 10-19/" + content.length()).equals(resp.headers().get("content-range")));
+            tu.azzert("10".equals(resp.headers().get("content-length")));
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert(content.substring(10, 20).equals(body.toString()));
+                staticRequest("/file.txt", "Range", "bytes=-5", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 206);
+                    resp.bodyHandler(new Handler<Buffer>() {
+                      public void handle(Buffer body) {
+                        tu.azzert(content.substring(content.length() - 5).equals(body.toString()));
+                        staticRequest("/file.txt", "Range", "bytes=" + content.length() + "-", new Handler<HttpClientResponse>() {
+                          public void handle(HttpClientResponse resp) {
+                            tu.azzert(resp.statusCode() == 416);
+                            tu.azzert(("bytes */" + content.length()).equals(resp.headers().get("content-range")));
+                            deleteDir(webRoot);
+                            tu.testComplete();
+                          }
+                        });
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStaticFilePrecompressed() throws Exception {
+    final File webRoot = setupWebRoot();
+    final String content = TestUtils.randomAlphaString(1000);
+    writeFile(new File(webRoot, "file.txt"), content.getBytes("UTF-8"));
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (OutputStream out = new java.util.zip.GZIPOutputStream(bos)) {
+      out.write(content.getBytes("UTF-8"));
+    }
+    final byte[] gzipped = bos.toByteArray();
+    writeFile(new File(webRoot, "file.txt.gz"), gzipped);
+    startServer(new StaticFileHandler(vertx, webRoot.getAbsolutePath()).setServePrecompressed(true),
+        new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        staticRequest("/file.txt", "Accept-Encoding", "gzip, deflate", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.azzert("gzip".equals(resp.headers().get("content-encoding")));
+            tu.azzert("text/plain".equals(resp.headers().get("content-type")));
+            tu.azzert("Accept-Encoding".equals(resp.headers().get("vary")));
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert(TestUtils.buffersEqual(new Buffer(gzipped), body));
+                staticRequest("/file.txt", null, null, new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 200);
+                    tu.azzert(resp.headers().get("content-encoding") == null);
+                    resp.bodyHandler(new Handler<Buffer>() {
+                      public void handle(Buffer body) {
+                        tu.azzert(content.equals(body.toString()));
+                        deleteDir(webRoot);
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testStaticFileNotFoundAndForbidden() throws Exception {
+    final File webRoot = setupWebRoot();
+    startServer(new StaticFileHandler(vertx, webRoot.getAbsolutePath()), new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        staticRequest("/missing.html", null, null, new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 404);
+            staticRequest("/../HttpTestClient.java", null, null, new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(resp.statusCode() == 403);
+                client.post("/missing.html", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 405);
+                    tu.azzert("GET, HEAD".equals(resp.headers().get("allow")));
+                    deleteDir(webRoot);
+                    tu.testComplete();
+                  }
+                }).end();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  private void staticRequest(String uri, String header, String value, Handler<HttpClientResponse> handler) {
+    HttpClientRequest req = client.get(uri, handler);
+    if (header != null) {
+      req.putHeader(header, value);
+    }
+    req.end();
+  }
+
+  private File setupWebRoot() {
+    File webRoot = new File("static-file-test");
+    deleteDir(webRoot);
+    webRoot.mkdir();
+    return webRoot;
+  }
+
+  private void writeFile(File file, byte[] content) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(content);
+    }
+  }
+
+  private void deleteDir(File dir) {
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File file: files) {
+        file.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  public void testFormUploadStreamToFile() throws Exception {
+    final String boundary = "vertx-" + TestUtils.randomAlphaString(20);
+    final Buffer content = TestUtils.generateRandomBuffer(1024 * 1024);
+    final File target = new File("form-upload-test.bin");
+    target.delete();
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        req.expectMultiPart(true);
+        req.uploadHandler(new Handler<HttpServerFileUpload>() {
+          public void handle(final HttpServerFileUpload upload) {
+            tu.azzert(upload.name().equals("file"));
+            tu.azzert(upload.filename().equals("data.bin"));
+            upload.streamToFileSystem(target.getAbsolutePath());
+            upload.endHandler(new VoidHandler() {
+              protected void handle() {
+                tu.azzert(upload.size() == content.length());
+                Buffer written = vertx.fileSystem().readFileSync(target.getAbsolutePath());
+                target.delete();
+                tu.azzert(TestUtils.buffersEqual(content, written));
+                req.response().end(req.formAttributes().get("description"));
+              }
+            });
+          }
+        });
+      }
+    }, new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        HttpClientRequest req = client.post("/form", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert("a big file".equals(body.toString()));
+                tu.testComplete();
+              }
+            });
+          }
+        });
+        req.setChunked(true);
+        req.putHeader("Content-Type", "multipart/form-data; boundary=" + boundary);
+        req.write(formPart(boundary, "description", null) + "a big file\r\n" +
+                  formPart(boundary, "file", "data.bin"));
+        // Chunks which don't line up with the parts or the boundaries
+        for (int pos = 0; pos < content.length(); pos += 8191) {
+          req.write(content.getBuffer(pos, Math.min(pos + 8191, content.length())));
+        }
+        req.end("\r\n--" + boundary + "--\r\n");
+      }
+    });
+  }
+
+  public void testFormUploadLimits() throws Exception {
+    final String boundary = "vertx-" + TestUtils.randomAlphaString(20);
+    server = vertx.createHttpServer().setMaxFormParts(2).setMaxFormPartSize(1000).setMaxFormAttributeSize(10);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger uploadFailures = new AtomicInteger();
+        req.expectMultiPart(true);
+        req.uploadHandler(new Handler<HttpServerFileUpload>() {
+          public void handle(HttpServerFileUpload upload) {
+            upload.exceptionHandler(new Handler<Throwable>() {
+              public void handle(Throwable t) {
+                uploadFailures.incrementAndGet();
+              }
+            });
+          }
+        });
+        req.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            tu.azzert(failure.compareAndSet(null, t));
+          }
+        });
+        req.endHandler(new VoidHandler() {
+          protected void handle() {
+            req.response().setStatusCode(failure.get() == null ? 200 : 413);
+            req.response().end(String.valueOf(uploadFailures.get()));
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        final String end = "--" + boundary + "--\r\n";
+        final String upload = formPart(boundary, "file", "data.bin") + TestUtils.randomAlphaString(1001) + "\r\n";
+        postForm(boundary, upload + end, 413, "1", new VoidHandler() {
+          protected void handle() {
+            final String attribute = formPart(boundary, "name", null) + "0123456789\r\n";
+            postForm(boundary, attribute + attribute + attribute + end, 413, "0", new VoidHandler() {
+              protected void handle() {
+                String tooBig = formPart(boundary, "name", null) + "0123456789a\r\n";
+                postForm(boundary, tooBig + end, 413, "0", new VoidHandler() {
+                  protected void handle() {
+                    String small = formPart(boundary, "file", "data.bin") + TestUtils.randomAlphaString(1000) + "\r\n";
+                    postForm(boundary, attribute + small + end, 200, "0", new VoidHandler() {
+                      protected void handle() {
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  private String formPart(String boundary, String name, String filename) {
+    return "--" + boundary + "\r\n" +
+           "Content-Disposition: form-data; name=\"" + name + "\"" +
+           (filename == null ? "" : "; filename=\"" + filename + "\"") + "\r\n\r\n";
+  }
+
+  private void postForm(String boundary, String body, final int expectedStatus, final String expectedBody,
+                        final Handler<Void> doneHandler) {
+    HttpClientRequest req = client.post("/form", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(resp.statusCode() == expectedStatus);
+        resp.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer respBody) {
+            tu.azzert(expectedBody.equals(respBody.toString()));
+            doneHandler.handle(null);
+          }
+        });
+      }
+    });
+    req.putHeader("Content-Type", "multipart/form-data; boundary=" + boundary);
+    req.end(body);
+  }
+
+  public void testRequestSizeLimits() throws Exception {
+    final AtomicInteger handled = new AtomicInteger();
+    // The rejections close the connection
+    client.setKeepAlive(false);
+    server = vertx.createHttpServer().setMaxInitialLineLength(200).setMaxHeaderSize(500).setMaxRequestBodySize(100);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        handled.incrementAndGet();
+        tu.azzert(req.uri().equals("/chunked"));
+        req.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            HttpServerStats stats = server.getStats();
+            tu.azzert(stats.uriTooLong() == 1);
+            tu.azzert(stats.headersTooLarge() == 1);
+            tu.azzert(stats.bodyTooLarge() == 2);
+            tu.azzert(stats.malformed() == 0);
+            tu.azzert(stats.rejectedRequests() == 4);
+            tu.azzert(handled.get() == 1);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.get("/" + TestUtils.randomAlphaString(300), new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 414);
+            HttpClientRequest req = client.get("/headers", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(resp.statusCode() == 431);
+                HttpClientRequest req = client.post("/body", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 413);
+                    HttpClientRequest req = client.post("/chunked", new Handler<HttpClientResponse>() {
+                      public void handle(HttpClientResponse resp) {
+                        tu.azzert(false, "No response expected");
+                      }
+                    });
+                    req.exceptionHandler(new Handler<Throwable>() {
+                      public void handle(Throwable t) {
+                        // The server closes the connection
+                      }
+                    });
+                    req.setChunked(true);
+                    req.write(TestUtils.generateRandomBuffer(60));
+                    req.write(TestUtils.generateRandomBuffer(60));
+                  }
+                });
+                req.end(TestUtils.generateRandomBuffer(200));
+              }
+            });
+            req.putHeader("X-Big", TestUtils.randomAlphaString(1000));
+            req.end();
+          }
+        }).end();
+      }
+    });
+  }
+
+  public void testRequestMaxBodySize() throws Exception {
+    // The rejections close the connection
+    client.setKeepAlive(false);
+    server = vertx.createHttpServer().setMaxRequestBodySize(1000);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        tu.azzert(req.getMaxBodySize() == 1000);
+        if (req.path().equals("/small")) {
+          req.bodyHandler(new Handler<Buffer>() {
+            public void handle(Buffer body) {
+              tu.azzert(body.length() == 500);
+              req.response().end();
+            }
+          });
+          return;
+        }
+        // An upload route which accepts less than the server
+        req.setMaxBodySize(100);
+        tu.azzert(req.getMaxBodySize() == 100);
+        req.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            tu.azzert(false, "The body is over the limit");
+          }
+        });
+        req.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            tu.azzert(req.path().equals("/chunked"));
+            tu.azzert(server.getStats().bodyTooLarge() == 2);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.post("/small", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            client.post("/upload", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(resp.statusCode() == 413);
+                HttpClientRequest req = client.post("/chunked", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(false, "No response expected");
+                  }
+                });
+                req.exceptionHandler(new Handler<Throwable>() {
+                  public void handle(Throwable t) {
+                    // The server closes the connection
+                  }
+                });
+                req.setChunked(true);
+                req.write(TestUtils.generateRandomBuffer(60));
+                req.write(TestUtils.generateRandomBuffer(60));
+              }
+            }).end(TestUtils.generateRandomBuffer(200));
+          }
+        }).end(TestUtils.generateRandomBuffer(500));
+      }
+    });
+  }
+  public void testParamsLookup() {
+    final String query = "Foo=1&bar=a%20b&foo=2&flag&=x&name+with+space=v%2Bw;empty=&a=b=c&&caf%C3%A9=cr%C3%A8me";
+    startServer(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        MultiMap params = req.params();
+        // Like a CaseInsensitiveMultiMap, the last value wins
+        tu.azzert("2".equals(params.get("foo")));
+        tu.azzert(Arrays.asList("1", "2").equals(params.getAll("FOO")));
+        tu.azzert("a b".equals(params.get("bar")));
+        tu.azzert(params.contains("flag"));
+        tu.azzert("".equals(params.get("flag")));
+        tu.azzert("".equals(params.get("x")));
+        tu.azzert("v+w".equals(params.get("name with space")));
+        tu.azzert("".equals(params.get("empty")));
+        tu.azzert("b=c".equals(params.get("a")));
+        tu.azzert("crème".equals(params.get("café")));
+        tu.azzert(params.get("missing") == null);
+        tu.azzert(params.getAll("missing").isEmpty());
+        tu.azzert(!params.contains("missing"));
+        tu.azzert(!params.isEmpty());
+        // The lookups must agree with the full decoding
+        Map<String, List<String>> expected = new QueryStringDecoder(req.uri()).parameters();
+        tu.azzert(expected.size() == 9);
+        for (Map.Entry<String, List<String>> entry: expected.entrySet()) {
+          tu.azzert(params.contains(entry.getKey()));
+          if (!entry.getKey().equalsIgnoreCase("foo")) {
+            tu.azzert(entry.getValue().equals(params.getAll(entry.getKey())));
+          }
+        }
+        params.add("extra", "e");
+        tu.azzert("e".equals(params.get("extra")));
+        tu.azzert("2".equals(params.get("foo")));
+        req.response().end();
+      }
+    }, new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.getNow("/some-uri?" + query, new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testHttp2ClearText() {
+    server = vertx.createHttpServer().setHttp2ClearTextSupported(true);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        tu.azzert(req.method().equals("GET"));
+        tu.azzert(req.uri().equals("/"));
+        tu.azzert(req.version() == HttpVersion.HTTP_1_1);
+        tu.azzert("www.example.com".equals(req.headers().get("Host")));
+        if (req.headers().contains("Cache-Control")) {
+          // The second request refers to the dynamic table filled by the first one
+          tu.azzert("no-cache".equals(req.headers().get("Cache-Control")));
+          req.response().end("second");
+        } else {
+          // The first response is held back so the second one is sent first on the same connection
+          vertx.setTimer(100, new Handler<Long>() {
+            public void handle(Long id) {
+              req.response().end("first");
+            }
+          });
+        }
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        vertx.createNetClient().connect(8080, "localhost", new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            tu.azzert(res.succeeded());
+            final NetSocket socket = res.result();
+            final List<Integer> ended = new ArrayList<>();
+            final Map<Integer, String> bodies = new HashMap<>();
+            socket.dataHandler(h2Parser(new Handler<H2Frame>() {
+              public void handle(H2Frame frame) {
+                if (frame.type == 1) {
+                  // :status 200 from the static table
+                  tu.azzert(frame.payload.getByte(0) == (byte) 0x88);
+                } else if (frame.type == 0) {
+                  String body = bodies.containsKey(frame.streamId) ? bodies.get(frame.streamId) : "";
+                  bodies.put(frame.streamId, body + frame.payload.toString());
+                }
+                if ((frame.type == 0 || frame.type == 1) && (frame.flags & 1) != 0) {
+                  ended.add(frame.streamId);
+                  if (ended.size() == 2) {
+                    tu.azzert(ended.equals(Arrays.asList(3, 1)));
+                    tu.azzert("first".equals(bodies.get(1)));
+                    tu.azzert("second".equals(bodies.get(3)));
+                    tu.testComplete();
+                  }
+                }
+              }
+            }));
+            Buffer buff = new Buffer(H2_PREFACE);
+            buff.appendBuffer(h2Frame(4, 0, 0, new Buffer()));
+            // The requests of the examples of RFC 7541 C.4, with Huffman encoded strings
+            buff.appendBuffer(h2Frame(1, 5, 1, hexBuffer("828684418cf1e3c2e5f23a6ba0ab90f4ff")));
+            buff.appendBuffer(h2Frame(1, 5, 3, hexBuffer("828684be5886a8eb10649cbf")));
+            socket.write(buff);
+          }
+        });
+      }
+    });
+  }
+
+  public void testHttp2FlowControl() {
+    final int size = 100000;
+    server = vertx.createHttpServer().setHttp2ClearTextSupported(true);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        req.response().end(TestUtils.generateRandomBuffer(size));
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        vertx.createNetClient().connect(8080, "localhost", new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            tu.azzert(res.succeeded());
+            final NetSocket socket = res.result();
+            final AtomicInteger received = new AtomicInteger();
+            socket.dataHandler(h2Parser(new Handler<H2Frame>() {
+              public void handle(H2Frame frame) {
+                if (frame.type == 1) {
+                  // The server waits for the window to be credited once the initial window is used up
+                  vertx.setTimer(200, new Handler<Long>() {
+                    public void handle(Long id) {
+                      tu.azzert(received.get() == 65535);
+                      socket.write(h2Frame(8, 0, 0, new Buffer().appendInt(size)));
+                      socket.write(h2Frame(8, 0, 1, new Buffer().appendInt(size)));
+                    }
+                  });
+                } else if (frame.type == 0) {
+                  tu.azzert(frame.payload.length() <= 16384);
+                  received.addAndGet(frame.payload.length());
+                  if ((frame.flags & 1) != 0) {
+                    tu.azzert(received.get() == size);
+                    tu.testComplete();
+                  }
+                }
+              }
+            }));
+            Buffer buff = new Buffer(H2_PREFACE);
+            buff.appendBuffer(h2Frame(4, 0, 0, new Buffer()));
+            buff.appendBuffer(h2Frame(1, 5, 1, hexBuffer("828684418cf1e3c2e5f23a6ba0ab90f4ff")));
+            socket.write(buff);
+          }
+        });
+      }
+    });
+  }
+
+  private static final String H2_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n";
+
+  private static Buffer h2Frame(int type, int flags, int streamId, Buffer payload) {
+    Buffer frame = new Buffer();
+    frame.appendByte((byte) (payload.length() >> 16)).appendShort((short) payload.length());
+    frame.appendByte((byte) type).appendByte((byte) flags).appendInt(streamId);
+    return frame.appendBuffer(payload);
+  }
+
+  private static Buffer hexBuffer(String hex) {
+    Buffer buff = new Buffer();
+    for (int i = 0; i < hex.length(); i += 2) {
+      buff.appendByte((byte) Integer.parseInt(hex.substring(i, i + 2), 16));
+    }
+    return buff;
+  }
+
+  private static class H2Frame {
+    int type;
+    int flags;
+    int streamId;
+    Buffer payload;
+  }
+
+  // Splits the data received by a raw HTTP/2 client into frames
+  private static Handler<Buffer> h2Parser(final Handler<H2Frame> frameHandler) {
+    return new Handler<Buffer>() {
+      Buffer pending = new Buffer();
+      public void handle(Buffer data) {
+        pending.appendBuffer(data);
+        while (pending.length() >= 9) {
+          int length = ((pending.getByte(0) & 0xFF) << 16) | (pending.getShort(1) & 0xFFFF);
+          if (pending.length() < 9 + length) {
+            return;
+          }
+          H2Frame frame = new H2Frame();
+          frame.type = pending.getByte(3);
+          frame.flags = pending.getByte(4) & 0xFF;
+          frame.streamId = pending.getInt(5);
+          frame.payload = pending.getBuffer(9, 9 + length);
+          pending = pending.getBuffer(9 + length, pending.length());
+          frameHandler.handle(frame);
+        }
+      }
+    };
+  }
+
+  public void testServerIdleTimeout() {
+    server = vertx.createHttpServer().setReadIdleTimeout(300);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end("foo");
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        vertx.createNetClient().connect(8080, "localhost", new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            tu.azzert(res.succeeded());
+            NetSocket socket = res.result();
+            final AtomicReference<Long> answered = new AtomicReference<>();
+            socket.dataHandler(new Handler<Buffer>() {
+              public void handle(Buffer data) {
+                answered.set(System.currentTimeMillis());
+              }
+            });
+            socket.closeHandler(new VoidHandler() {
+              protected void handle() {
+                // The connection is kept alive after the response until nothing has been read for a while
+                tu.azzert(answered.get() != null);
+                tu.azzert(System.currentTimeMillis() - answered.get() >= 250);
+                tu.testComplete();
+              }
+            });
+            socket.write("GET /foo HTTP/1.1\r\nHost: localhost\r\n\r\n");
+          }
+        });
+      }
+    });
+  }
+
+  public void testMaxRequestsPerConnection() {
+    final AtomicInteger handled = new AtomicInteger();
+    server = vertx.createHttpServer().setMaxRequestsPerConnection(2);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        handled.incrementAndGet();
+        req.response().end(req.path());
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        vertx.createNetClient().connect(8080, "localhost", new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            tu.azzert(res.succeeded());
+            NetSocket socket = res.result();
+            final Buffer received = new Buffer();
+            socket.dataHandler(new Handler<Buffer>() {
+              public void handle(Buffer data) {
+                received.appendBuffer(data);
+              }
+            });
+            socket.closeHandler(new VoidHandler() {
+              protected void handle() {
+                // The second response closes the connection, the third pipelined request is never handled
+                String responses = received.toString();
+                tu.azzert(handled.get() == 2);
+                tu.azzert(responses.split("HTTP/1.1 200 OK", -1).length == 3);
+                tu.azzert(responses.indexOf("Connection: close") > responses.lastIndexOf("HTTP/1.1 200 OK"));
+                tu.azzert(responses.endsWith("/2"));
+                tu.testComplete();
+              }
+            });
+            socket.write("GET /1 HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                         "GET /2 HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                         "GET /3 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+          }
+        });
+      }
+    });
+  }
+
+  public void testServerDrainOnClose() {
+    final AtomicInteger done = new AtomicInteger();
+    final AtomicBoolean responded = new AtomicBoolean();
+    client.setKeepAlive(false);
+    server = vertx.createHttpServer().setDrainTimeout(5000);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        server.close(new AsyncResultHandler<Void>() {
+          public void handle(AsyncResult<Void> ar) {
+            // The close completes once the request in flight has been answered
+            tu.azzert(ar.succeeded());
+            tu.azzert(responded.get());
+            HttpClientRequest req = client.get("/other", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(false, "The server doesn't accept connections anymore");
+              }
+            });
+            req.exceptionHandler(new Handler<Throwable>() {
+              public void handle(Throwable t) {
+                if (done.incrementAndGet() == 2) {
+                  tu.testComplete();
+                }
+              }
+            });
+            req.end();
+          }
+        });
+        vertx.setTimer(200, new Handler<Long>() {
+          public void handle(Long id) {
+            responded.set(true);
+            req.response().end("foo");
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.getNow("/slow", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.azzert("close".equals(resp.headers().get("Connection")));
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert("foo".equals(body.toString()));
+                if (done.incrementAndGet() == 2) {
+                  tu.testComplete();
+                }
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testServerDrainTimeout() {
+    client.setKeepAlive(false);
+    server = vertx.createHttpServer().setDrainTimeout(200);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        final long start = System.currentTimeMillis();
+        server.close(new AsyncResultHandler<Void>() {
+          public void handle(AsyncResult<Void> ar) {
+            // The request is never answered, its connection is cut when the drain timeout expires
+            tu.azzert(ar.failed());
+            tu.azzert(ar.cause().getMessage().startsWith("1 connections"));
+            tu.azzert(System.currentTimeMillis() - start >= 150);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        HttpClientRequest req = client.get("/never", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(false, "No response expected");
+          }
+        });
+        req.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            // The server closes the connection
+          }
+        });
+        req.end();
+      }
+    });
+  }
+
+  public void testDateAndConstantHeaders() {
+    server = vertx.createHttpServer().setSendDateHeader(true);
+    server.putConstantHeader("Server", "vert.x").putConstantHeader("X-Frame-Options", "DENY");
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        if (req.path().equals("/override")) {
+          // The headers set on the response win over the constant ones
+          req.response().putHeader("Server", "custom").putHeader("Date", "Thu, 01 Jan 1970 00:00:00 GMT");
+        }
+        req.response().putHeader("Content-Type", "application/json").end("{}");
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.getNow("/", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.azzert("application/json".equals(resp.headers().get("Content-Type")));
+            tu.azzert("vert.x".equals(resp.headers().get("Server")));
+            tu.azzert("DENY".equals(resp.headers().get("X-Frame-Options")));
+            try {
+              SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
+              long date = format.parse(resp.headers().get("Date")).getTime();
+              tu.azzert(Math.abs(System.currentTimeMillis() - date) < 5000);
+            } catch (ParseException e) {
+              tu.azzert(false, "Invalid date " + resp.headers().get("Date"));
+            }
+            client.getNow("/override", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(resp.headers().getAll("Server").equals(Collections.singletonList("custom")));
+                tu.azzert(resp.headers().getAll("Date").equals(
+                    Collections.singletonList("Thu, 01 Jan 1970 00:00:00 GMT")));
+                tu.azzert("DENY".equals(resp.headers().get("X-Frame-Options")));
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testServerRateLimiter() {
+    final AtomicInteger handled = new AtomicInteger();
+    server = vertx.createHttpServer().setRateLimiter(new RateLimiter(vertx, 1, 2));
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        handled.incrementAndGet();
+        req.response().end();
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        // The burst lets two requests through, the third one has to wait for the bucket to be refilled
+        getStatuses(new String[]{"/", "/", "/"}, null, new int[]{200, 200, 429}, new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(handled.get() == 2);
+            HttpServerStats stats = server.getStats();
+            tu.azzert(stats.rateLimited() == 1);
+            tu.azzert(stats.rejectedRequests() == 1);
+            tu.azzert(server.getRateLimiter().allowedRequests() == 2);
+            server.getRateLimiter().close();
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testRouteRateLimiter() {
+    final RateLimiter limiter = new RateLimiter(vertx, 0.1, 1).setKeyHeader("X-Api-Key");
+    Handler<HttpServerRequest> ok = new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end();
+      }
+    };
+    RouteMatcher matcher = new RouteMatcher().get("/limited", limiter.wrap(ok)).get("/free", ok);
+    server = vertx.createHttpServer().requestHandler(matcher);
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        // Each key has its own bucket, and the routes which aren't wrapped aren't limited
+        getStatuses(new String[]{"/limited", "/limited", "/limited", "/free", "/free"},
+                    new String[]{"a", "a", "b", null, null}, new int[]{200, 429, 200, 200, 200}, new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(limiter.allowedRequests() == 2);
+            tu.azzert(limiter.rejectedRequests() == 1);
+            tu.azzert(limiter.size() == 2);
+            tu.azzert(server.getStats().rateLimited() == 0);
+            limiter.close();
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  public void testRateLimiterMaxBuckets() {
+    final RateLimiter limiter = new RateLimiter(vertx, 1000, 1).setMaxBuckets(2).setExpiry(100);
+    tu.azzert(limiter.tryAcquire("a"));
+    tu.azzert(limiter.tryAcquire("b"));
+    // No bucket is created for a new key once there are too many
+    tu.azzert(!limiter.tryAcquire("c"));
+    tu.azzert(limiter.size() == 2);
+    tu.azzert(limiter.rejectedRequests() == 1);
+    // The timer drops the buckets once they have been full for the expiry time, which makes room for new keys
+    vertx.setTimer(400, new Handler<Long>() {
+      public void handle(Long id) {
+        tu.azzert(limiter.size() == 0);
+        tu.azzert(limiter.tryAcquire("c"));
+        tu.azzert(limiter.size() == 1);
+        limiter.close();
+        tu.testComplete();
+      }
+    });
+  }
+
+  // Send the requests one after the other, checking their status and the Retry-After header of the 429s
+  private void getStatuses(final String[] uris, final String[] keys, final int[] statuses,
+                           final Handler<Void> doneHandler) {
+    final AtomicInteger index = new AtomicInteger();
+    new Handler<Void>() {
+      public void handle(Void v) {
+        final int i = index.getAndIncrement();
+        if (i == uris.length) {
+          doneHandler.handle(null);
+          return;
+        }
+        final Handler<Void> next = this;
+        HttpClientRequest req = client.get(uris[i], new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == statuses[i], "Unexpected status " + resp.statusCode() + " for " + i);
+            if (resp.statusCode() == 429) {
+              tu.azzert("Too Many Requests".equals(resp.statusMessage()));
+              tu.azzert(Integer.parseInt(resp.headers().get("Retry-After")) >= 1);
+            }
+            resp.endHandler(new VoidHandler() {
+              public void handle() {
+                next.handle(null);
+              }
+            });
+          }
+        });
+        if (keys != null && keys[i] != null) {
+          req.putHeader("X-Api-Key", keys[i]);
+        }
+        req.end();
+      }
+    }.handle(null);
+  }
+
+  public void testDefaultRequestTimeoutFreesConnection() {
+    final AtomicInteger received = new AtomicInteger();
+    server = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        received.incrementAndGet();
+        // The server hangs on /hang and never answers
+        if (req.path().equals("/ok")) {
+          req.response().end();
+        }
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        // The second request waits for a connection rather than being pipelined behind the first one
+        client.setMaxPoolSize(1).setPipeliningDepth(1).setRequestTimeout(200);
+        tu.azzert(client.getRequestTimeout() == 200);
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        HttpClientRequest hung = client.get("/hang", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(false, "Should not receive a response");
+          }
+        });
+        hung.exceptionHandler(new Handler<Throwable>() {
+          public void handle(Throwable t) {
+            tu.azzert(t instanceof TimeoutException);
+            timedOut.set(true);
+          }
+        });
+        hung.end();
+        // Waits for the only connection of the pool, which is closed when the first request times out
+        HttpClientRequest ok = client.get("/ok", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.azzert(timedOut.get());
+            tu.azzert(received.get() == 2);
+            tu.testComplete();
+          }
+        });
+        ok.setTimeout(5000);
+        ok.end();
+      }
+    });
+  }
+
+  public void testCircuitBreaker() {
+    final AtomicInteger received = new AtomicInteger();
+    final AtomicBoolean failing = new AtomicBoolean(true);
+    server = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        received.incrementAndGet();
+        req.response().setStatusCode(failing.get() ? 500 : 200).end();
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.setCircuitBreakerFailureRate(50).setCircuitBreakerMinRequests(3).setCircuitBreakerOpenTime(300);
+        getStatuses(new String[]{"/", "/", "/"}, null, new int[]{500, 500, 500}, new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(client.isCircuitBreakerOpen());
+            HttpClientRequest req = client.get("/", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                tu.azzert(false, "Should fail fast");
+              }
+            });
+            req.exceptionHandler(new Handler<Throwable>() {
+              public void handle(Throwable t) {
+                tu.azzert(t instanceof CircuitBreakerOpenException);
+                tu.azzert(received.get() == 3);
+                tu.azzert(client.getPoolStats().waiters() == 0);
+                failing.set(false);
+                // Once the open time has passed a trial request goes through, and closes the circuit
+                vertx.setTimer(400, new Handler<Long>() {
+                  public void handle(Long id) {
+                    getStatuses(new String[]{"/", "/"}, null, new int[]{200, 200}, new Handler<Void>() {
+                      public void handle(Void v) {
+                        tu.azzert(!client.isCircuitBreakerOpen());
+                        tu.azzert(received.get() == 5);
+                        tu.testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+            req.end();
+          }
+        });
+      }
+    });
+  }
+
+  public void testProxy() {
+    final Buffer body = TestUtils.generateRandomBuffer(100 * 1024);
+    final HttpServer upstream = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        tu.azzert(req.method().equals("POST"));
+        tu.azzert(req.uri().equals("/echo?x=1"));
+        tu.azzert("localhost:8080".equals(req.headers().get("Host")));
+        tu.azzert("127.0.0.1".equals(req.headers().get("X-Forwarded-For")));
+        tu.azzert("1".equals(req.headers().get("X-Kept")));
+        // The hop-by-hop headers, and the ones named by Connection, aren't forwarded
+        tu.azzert(req.headers().get("X-Hop") == null);
+        tu.azzert(req.headers().get("Connection") == null);
+        req.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer received) {
+            tu.azzert(TestUtils.buffersEqual(body, received));
+            HttpServerResponse resp = req.response().setChunked(true);
+            resp.putHeader("X-Upstream", "1").putHeader("Keep-Alive", "timeout=5");
+            resp.trailers().add("X-Trailer", "t");
+            resp.end(received);
+          }
+        });
+      }
+    });
+    upstream.listen(8081, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        server = vertx.createHttpServer();
+        server.requestHandler(new ProxyHandler().addUpstream(vertx.createHttpClient().setPort(8081)));
+        server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+          public void handle(AsyncResult<HttpServer> ar) {
+            tu.azzert(ar.succeeded());
+            HttpClientRequest req = client.post("/echo?x=1", new Handler<HttpClientResponse>() {
+              public void handle(final HttpClientResponse resp) {
+                tu.azzert(resp.statusCode() == 200);
+                tu.azzert("1".equals(resp.headers().get("X-Upstream")));
+                tu.azzert(resp.headers().get("Keep-Alive") == null);
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer received) {
+                    tu.azzert(TestUtils.buffersEqual(body, received));
+                    tu.azzert("t".equals(resp.trailers().get("X-Trailer")));
+                    closeAndComplete(upstream);
+                  }
+                });
+              }
+            });
+            req.setChunked(true).putHeader("Connection", "X-Hop").putHeader("X-Hop", "1").putHeader("X-Kept", "1");
+            for (int i = 0; i < 10; i++) {
+              req.write(body.getBuffer(i * 10 * 1024, (i + 1) * 10 * 1024));
+            }
+            req.end();
+          }
+        });
+      }
+    });
+  }
+
+  public void testProxyRetries() {
+    final HttpServer upstream = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end("ok");
+      }
+    });
+    upstream.listen(8081, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        // Nothing listens on the first upstream
+        ProxyHandler proxy = new ProxyHandler().addUpstream(vertx.createHttpClient().setPort(8082))
+                                               .addUpstream(vertx.createHttpClient().setPort(8081));
+        server = vertx.createHttpServer().requestHandler(proxy);
+        server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+          public void handle(AsyncResult<HttpServer> ar) {
+            tu.azzert(ar.succeeded());
+            // The requests without a body are retried on the next upstream, the others fail
+            getStatuses(new String[]{"/", "/"}, null, new int[]{200, 200}, new Handler<Void>() {
+              public void handle(Void v) {
+                HttpClientRequest req = client.post("/", new Handler<HttpClientResponse>() {
+                  public void handle(HttpClientResponse resp) {
+                    tu.azzert(resp.statusCode() == 502);
+                    tu.azzert("Bad Gateway".equals(resp.statusMessage()));
+                    closeAndComplete(upstream);
+                  }
+                });
+                req.end("data");
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testProxyHttp2Body() {
+    final HttpServer upstream = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(final HttpServerRequest req) {
+        req.bodyHandler(new Handler<Buffer>() {
+          public void handle(Buffer body) {
+            req.response().end(req.method() + " " + body);
+          }
+        });
+      }
+    });
+    upstream.listen(8081, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        server = vertx.createHttpServer().setHttp2ClearTextSupported(true)
+                      .requestHandler(new ProxyHandler().addUpstream(vertx.createHttpClient().setPort(8081)));
+        server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+          public void handle(AsyncResult<HttpServer> ar) {
+            tu.azzert(ar.succeeded());
+            vertx.createNetClient().connect(8080, "localhost", new AsyncResultHandler<NetSocket>() {
+              public void handle(AsyncResult<NetSocket> res) {
+                tu.azzert(res.succeeded());
+                NetSocket socket = res.result();
+                final Buffer body = new Buffer();
+                socket.dataHandler(h2Parser(new Handler<H2Frame>() {
+                  public void handle(H2Frame frame) {
+                    if (frame.streamId != 1) {
+                      return;
+                    }
+                    if (frame.type == 0) {
+                      body.appendBuffer(frame.payload);
+                    }
+                    if ((frame.flags & 1) != 0) {
+                      // HTTP/2 requests carry neither a Content-Length nor a Transfer-Encoding, the body is still sent
+                      tu.azzert("POST hello".equals(body.toString()), body.toString());
+                      closeAndComplete(upstream);
+                    }
+                  }
+                }));
+                // A POST without a Content-Length, whose body comes in a separate frame
+                Buffer buff = new Buffer(H2_PREFACE);
+                buff.appendBuffer(h2Frame(4, 0, 0, new Buffer()));
+                buff.appendBuffer(h2Frame(1, 4, 1, hexBuffer("838684418cf1e3c2e5f23a6ba0ab90f4ff")));
+                buff.appendBuffer(h2Frame(0, 1, 1, new Buffer("hello")));
+                socket.write(buff);
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  private void closeAndComplete(HttpServer httpServer) {
+    httpServer.close(new AsyncResultHandler<Void>() {
+      public void handle(AsyncResult<Void> res) {
+        tu.testComplete();
+      }
+    });
+  }
+
+  public void testAccessLog() {
+    final File file = new File(System.getProperty("java.io.tmpdir"), "vertx-access-" + UUID.randomUUID() + ".log");
+    server = vertx.createHttpServer().setAccessLogFile(file.getPath());
+    tu.azzert(file.getPath().equals(server.getAccessLogFile()));
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        if (req.path().equals("/a")) {
+          req.response().end("hello");
+        } else {
+          req.response().setStatusCode(404).end();
+        }
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        getStatuses(new String[]{"/a", "/b?q=\"x\""}, null, new int[]{200, 404}, new Handler<Void>() {
+          public void handle(Void v) {
+            tu.azzert(server.getStats().accessLogDropped() == 0);
+            // Closing the server writes the entries still queued
+            server.close(new AsyncResultHandler<Void>() {
+              public void handle(AsyncResult<Void> res) {
+                waitForLog(file, "/b", new Handler<List<String>>() {
+                  public void handle(List<String> lines) {
+                    String prefix = "127\\.0\\.0\\.1 - - \\[\\d{2}/\\w{3}/\\d{4}:\\d{2}:\\d{2}:\\d{2} [+-]\\d{4}\\] ";
+                    tu.azzert(lines.size() == 2);
+                    tu.azzert(lines.get(0).matches(prefix + "\"GET /a HTTP/1\\.1\" 200 5 \\d+"), lines.get(0));
+                    // The quotes of the URI are escaped, and an empty body is logged as -
+                    tu.azzert(lines.get(1).matches(prefix + "\"GET /b\\?q=\\\\x22x\\\\x22 HTTP/1\\.1\" 404 - \\d+"),
+                              lines.get(1));
+                    file.delete();
+                    tu.testComplete();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  public void testAccessLogRotation() {
+    final File file = new File(System.getProperty("java.io.tmpdir"), "vertx-access-" + UUID.randomUUID() + ".log");
+    // Only one line fits in each file
+    server = vertx.createHttpServer().setAccessLogFile(file.getPath()).setAccessLogMaxFileSize(100);
+    server.requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end();
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        String[] uris = new String[8];
+        int[] statuses = new int[8];
+        for (int i = 0; i < uris.length; i++) {
+          uris[i] = "/" + (i + 1);
+          statuses[i] = 200;
+        }
+        getStatuses(uris, null, statuses, new Handler<Void>() {
+          public void handle(Void v) {
+            waitForLog(file, "/8 ", new Handler<List<String>>() {
+              public void handle(List<String> lines) {
+                tu.azzert(lines.size() == 1);
+                // The 5 previous files are kept, the older ones are deleted
+                for (int i = 1; i <= 5; i++) {
+                  File backup = new File(file.getPath() + "." + i);
+                  List<String> backupLines = readLines(backup);
+                  tu.azzert(backupLines.size() == 1 && backupLines.get(0).contains("/" + (8 - i) + " "));
+                  backup.delete();
+                }
+                tu.azzert(!new File(file.getPath() + ".6").exists());
+                file.delete();
+                tu.testComplete();
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  private void waitForLog(final File file, final String expected, final Handler<List<String>> linesHandler) {
+    vertx.setPeriodic(10, new Handler<Long>() {
+      public void handle(Long id) {
+        List<String> lines = readLines(file);
+        if (!lines.isEmpty() && lines.get(lines.size() - 1).contains(expected)) {
+          vertx.cancelTimer(id);
+          linesHandler.handle(lines);
+        }
+      }
+    });
+  }
+
+  private List<String> readLines(File file) {
+    List<String> lines = new ArrayList<>();
+    if (file.exists()) {
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lines.add(line);
+        }
+      } catch (IOException e) {
+        tu.azzert(false, e.getMessage());
+      }
+    }
+    return lines;
+  }
+
+  public void testAllocatorPolicies() {
+    // A small exchange on fresh connections, so the adaptive buffers keep their initial size
+    final Buffer body = TestUtils.generateRandomBuffer(128);
+    final AllocatorPolicy[] policies = AllocatorPolicy.values();
+    new Handler<Integer>() {
+      public void handle(final Integer index) {
+        if (index == policies.length) {
+          tu.testComplete();
+          return;
+        }
+        final AllocatorPolicy policy = policies[index];
+        final Handler<Integer> next = this;
+        server = vertx.createHttpServer().setAllocatorPolicy(policy).setAdaptiveReceiveSizing(true)
+                      .setReceiveBufferSize(8192);
+        server.requestHandler(new Handler<HttpServerRequest>() {
+          public void handle(final HttpServerRequest req) {
+            req.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer received) {
+                req.response().end(received);
+              }
+            });
+          }
+        });
+        // A port for each policy, so the servers don't wait for each other to be unbound
+        final int port = 8080 + index;
+        server.listen(port, "localhost", new AsyncResultHandler<HttpServer>() {
+          public void handle(AsyncResult<HttpServer> ar) {
+            tu.azzert(ar.succeeded());
+            // The counters are shared by everything using the policy, so only the delta is this exchange's
+            final AllocatorStats before = server.getAllocatorStats();
+            final HttpClient policyClient = vertx.createHttpClient().setPort(port).setAllocatorPolicy(policy)
+                                                 .setAdaptiveReceiveSizing(true).setReceiveBufferSize(8192);
+            policyClient.post("/", new Handler<HttpClientResponse>() {
+              public void handle(HttpClientResponse resp) {
+                resp.bodyHandler(new Handler<Buffer>() {
+                  public void handle(Buffer received) {
+                    tu.azzert(TestUtils.buffersEqual(body, received));
+                    AllocatorStats after = server.getAllocatorStats();
+                    tu.azzert(after.policy() == policy);
+                    long heapBuffers = after.heapBuffers() - before.heapBuffers();
+                    long directBuffers = after.directBuffers() - before.directBuffers();
+                    long bytes = after.heapBytes() - before.heapBytes() + after.directBytes() - before.directBytes();
+                    String stats = before + " -> " + after;
+                    if (policy == AllocatorPolicy.POOLED) {
+                      // The data is read into direct buffers
+                      tu.azzert(directBuffers > 0, stats);
+                    } else {
+                      tu.azzert(heapBuffers > 0, stats);
+                    }
+                    // A fixed size would have taken 8192 bytes for each read of the server and of the client
+                    tu.azzert(bytes < 8192, stats);
+                    policyClient.close();
+                    server.close(new AsyncResultHandler<Void>() {
+                      public void handle(AsyncResult<Void> res) {
+                        next.handle(index + 1);
+                      }
+                    });
+                  }
+                });
+              }
+            }).end(body);
+          }
+        });
+      }
+    }.handle(0);
+  }
+
+  public void testZeroCopyBufferReleased() {
+    // Each buffer is released by the test once the request or the response is done with it, which only frees it
+    // if no reference was leaked
+    final Buffer pending = zeroCopyBuffer("pending");
+    HttpClientRequest req = client.post("/", new Handler<HttpClientResponse>() {
+      public void handle(HttpClientResponse resp) {
+        tu.azzert(false, "No response expected");
+      }
+    });
+    req.exceptionHandler(new Handler<Throwable>() {
+      public void handle(Throwable t) {
+      }
+    });
+    req.setChunked(true);
+    Buffer empty = zeroCopyBuffer("");
+    req.write(empty);
+    tu.azzert(empty.release());
+    // Reset while it is waiting for a connection, the chunks written so far are never sent
+    req.write(pending);
+    req.reset();
+    tu.azzert(pending.release());
+    Buffer rejected = zeroCopyBuffer("rejected");
+    try {
+      // Neither chunked nor with a Content-Length
+      client.post("/", null).write(rejected);
+      tu.azzert(false, "Should throw");
+    } catch (IllegalStateException expected) {
+    }
+    tu.azzert(rejected.release());
+    server = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end();
+        Buffer late = zeroCopyBuffer("late");
+        try {
+          req.response().write(late);
+          tu.azzert(false, "Should throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+          req.response().end(late);
+          tu.azzert(false, "Should throw");
+        } catch (IllegalStateException expected) {
+        }
+        tu.azzert(late.release());
+      }
+    });
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        client.getNow("/", new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            tu.azzert(resp.statusCode() == 200);
+            tu.testComplete();
+          }
+        });
+      }
+    });
+  }
+
+  // A buffer of pooled memory, as read by a server or client in zero-copy mode
+  private static Buffer zeroCopyBuffer(String str) {
+    ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+    buf.writeBytes(str.getBytes(StandardCharsets.UTF_8));
+    return new Buffer(buf, true);
+  }
+
+  // A raw HTTP server which waits for a number of requests without a body, and then answers them in order
+  private NetServer pipeliningServer(final int requests, final AtomicInteger connections,
+                                     final boolean closeAfterFirst) {
+    return vertx.createNetServer().connectHandler(new Handler<NetSocket>() {
+      public void handle(final NetSocket socket) {
+        connections.incrementAndGet();
+        final StringBuilder received = new StringBuilder();
+        socket.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer data) {
+            received.append(data.toString());
+            if (received.toString().split("\r\n\r\n", -1).length - 1 < requests) {
+              return;
+            }
+            for (int i = 0; i < requests; i++) {
+              socket.write("HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\n" + i);
+              if (closeAfterFirst) {
+                socket.close();
+                return;
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void closeAndComplete(NetServer netServer) {
+    netServer.close(new AsyncResultHandler<Void>() {
+      public void handle(AsyncResult<Void> res) {
+        tu.testComplete();
+      }
+    });
+  }
+
+  private static String decode(String encoding, byte[] bytes) {
+    try {
+      InputStream in = new ByteArrayInputStream(bytes);
+      if ("gzip".equals(encoding)) {
+        in = new java.util.zip.GZIPInputStream(in);
+      } else if ("deflate".equals(encoding)) {
+        in = new java.util.zip.InflaterInputStream(in);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[4096];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+      return new String(out.toByteArray(), "UTF-8");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private HttpClientRequest getRequest(boolean specificMethod, String method, String uri,
                                        Handler<HttpClientResponse> responseHandler) {
     HttpClientRequest req = null;
@@ -215,6 +215,67 @@ public class RouteMatcherTestClient extends TestClientBase {
     testRoute(true, "foo", params, "GET", "bar", false, true);
   }
 
+  public void testRouteOrderParamBeforeRegexAndStatic() {
+    RouteMatcher matcher = new RouteMatcher();
+    matcher.get("/foo/:id", respond("param"));
+    matcher.getWithRegEx("/foo/b.*", respond("regex"));
+    matcher.get("/foo/bar", respond("static"));
+    testRouteOrder(matcher, "/foo/bar", "param");
+  }
+
+  public void testRouteOrderRegexBeforeStatic() {
+    RouteMatcher matcher = new RouteMatcher();
+    matcher.get("/foo/baz", respond("other"));
+    matcher.getWithRegEx("/foo/b.*", respond("regex"));
+    matcher.get("/foo/bar", respond("static"));
+    testRouteOrder(matcher, "/foo/bar", "regex");
+  }
+
+  public void testRouteOrderParamsBeforeStatic() {
+    RouteMatcher matcher = new RouteMatcher();
+    matcher.get("/:name/:version", respond("other"));
+    matcher.get("/foo/bar", respond("static"));
+    matcher.get("/foo/:id", respond("param"));
+    testRouteOrder(matcher, "/foo/bar", "other");
+  }
+
+  public void testRouteOrderPatternWithRegexSyntax() {
+    RouteMatcher matcher = new RouteMatcher();
+    matcher.get("/foo/ba.", respond("pattern"));
+    matcher.get("/foo/:id", respond("param"));
+    testRouteOrder(matcher, "/foo/baz", "pattern");
+  }
+
+  private Handler<HttpServerRequest> respond(final String body) {
+    return new Handler<HttpServerRequest>() {
+      public void handle(HttpServerRequest req) {
+        req.response().end(body);
+      }
+    };
+  }
+
+  private void testRouteOrder(RouteMatcher matcher, final String uri, final String expected) {
+    matcher.noMatch(respond("none"));
+    final HttpServer server = vertx.createHttpServer();
+    server.requestHandler(matcher);
+    server.listen(8080, "localhost", new AsyncResultHandler<HttpServer>() {
+      @Override
+      public void handle(AsyncResult<HttpServer> ar) {
+        tu.azzert(ar.succeeded());
+        final HttpClient client = vertx.createHttpClient().setPort(8080).setHost("localhost");
+        client.getNow(uri, new Handler<HttpClientResponse>() {
+          public void handle(HttpClientResponse resp) {
+            resp.bodyHandler(new Handler<Buffer>() {
+              public void handle(Buffer body) {
+                tu.azzert(expected.equals(body.toString()), "Expected " + expected + " got " + body);
+                closeClientAndServer(client, server);
+              }
+            });
+          }
+        });
+      }
+    });
+  }
 
   private void testRoute(final boolean regex, final String pattern, final Map<String, String> params,
                          final String method, final String uri)  {
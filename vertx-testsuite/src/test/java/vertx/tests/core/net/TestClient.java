@@ -16,6 +16,7 @@
 
 package vertx.tests.core.net;
 
+import org.vertx.java.core.AllocatorPolicy;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.AsyncResultHandler;
 import org.vertx.java.core.Handler;
@@ -821,6 +822,64 @@ public class TestClient extends TestClientBase {
    });
   }
 
+  public void testZeroCopyInbound() throws Exception {
+    final NetServer server = vertx.createNetServer();
+    tu.azzert(!server.isZeroCopyInbound());
+    server.setAllocatorPolicy(AllocatorPolicy.POOLED).setZeroCopyInbound(true);
+    tu.azzert(server.isZeroCopyInbound());
+    final Buffer[] retained = new Buffer[2];
+    server.connectHandler(new Handler<NetSocket>() {
+      public void handle(final NetSocket sock) {
+        sock.dataHandler(new Handler<Buffer>() {
+          public void handle(Buffer buffer) {
+            if (retained[0] == null) {
+              // Keep the first buffer past the end of the handler, it must not be recycled
+              retained[0] = buffer.retain();
+              retained[1] = buffer.copy();
+            }
+            sock.write(buffer);
+          }
+        });
+      }
+    }).listen(1235, new AsyncResultHandler<NetServer>() {
+      public void handle(AsyncResult<NetServer> ar) {
+        tu.azzert(ar.succeeded());
+        final NetClient zeroCopyClient = vertx.createNetClient().setAllocatorPolicy(AllocatorPolicy.POOLED)
+            .setZeroCopyInbound(true);
+        tu.azzert(zeroCopyClient.isZeroCopyInbound());
+        zeroCopyClient.connect(1235, new AsyncResultHandler<NetSocket>() {
+          public void handle(AsyncResult<NetSocket> res) {
+            tu.azzert(res.succeeded());
+            NetSocket sock = res.result();
+            final Buffer sent = new Buffer();
+            final Buffer received = new Buffer();
+            sock.dataHandler(new Handler<Buffer>() {
+              public void handle(Buffer buffer) {
+                received.appendBuffer(buffer);
+                if (received.length() == sent.length()) {
+                  tu.azzert(TestUtils.buffersEqual(sent, received));
+                  tu.azzert(TestUtils.buffersEqual(retained[1], retained[0]));
+                  tu.azzert(retained[0].release());
+                  zeroCopyClient.close();
+                  server.close(new AsyncResultHandler<Void>() {
+                    public void handle(AsyncResult<Void> res) {
+                      tu.testComplete();
+                    }
+                  });
+                }
+              }
+            });
+            for (int i = 0; i < 100; i++) {
+              Buffer data = TestUtils.generateRandomBuffer(100);
+              sent.appendBuffer(data);
+              sock.write(data);
+            }
+          }
+        });
+      }
+    });
+  }
+
   public void testRemoteAddress() throws Exception {
     vertx.createNetServer().connectHandler(new Handler<NetSocket>() {
       @Override